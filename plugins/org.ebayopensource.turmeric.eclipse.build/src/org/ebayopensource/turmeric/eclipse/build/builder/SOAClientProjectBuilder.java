@@ -205,7 +205,7 @@ public class SOAClientProjectBuilder extends AbstractSOAProjectBuilder {
 	@Override
 	protected void doClean(IProject project, IProgressMonitor monitor)
 			throws Exception {
-		IResourceDelta delta = getDelta(project);
+		IResourceDelta delta = getProjectDelta(project);
 
 		if (BuilderUtil.shouldBuild(delta, project)) {
 			BaseCodeGenModel baseCodeGenModel = BuilderUtil
@@ -57,9 +57,9 @@ public class SOAImplProjectBuilder extends AbstractSOAProjectBuilder {
 	protected boolean shouldBuild(IResourceDelta delta, IProject project)
 			throws Exception {
 		for (IProject reqProject : BuilderUtil.getRequiredProjects(
-				getProject(), GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
+				project, GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
 				.getProjectNatureId(SupportedProjectType.INTERFACE))) {
-			IResourceDelta deltaReqProj = getDelta(reqProject);
+			IResourceDelta deltaReqProj = getProjectDelta(reqProject);
 			if (BuilderUtil.shouldBuild(deltaReqProj, reqProject)) {
 				return true;
 			}
@@ -84,7 +84,7 @@ public class SOAImplProjectBuilder extends AbstractSOAProjectBuilder {
 			if (intfProject.isAccessible()) {
 				final String newNamespace = BuilderUtil
 						.isWSDLTargetNamespaceChanged(
-								getDelta(intfProject), baseCodeGenModel
+								getProjectDelta(intfProject), baseCodeGenModel
 										.getServiceName(), intfProject,
 								project);
 				if (newNamespace != null) {
@@ -8,30 +8,46 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.build.builder;
 
+import java.io.File;
+import java.net.URL;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.io.FileUtils;
 
 import org.ebayopensource.turmeric.eclipse.build.SOAFrameworkBuilderActivator;
 import org.ebayopensource.turmeric.eclipse.buildsystem.SynchronizeWsdlAndDepXML;
 import org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.ActionUtil;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.BuilderUtil;
+import org.ebayopensource.turmeric.eclipse.buildsystem.utils.CodegenInputManifest;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.ModelTransformer;
 import org.ebayopensource.turmeric.eclipse.codegen.utils.CodegenInvoker;
 import org.ebayopensource.turmeric.eclipse.core.exception.SOAExceptionHandler;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.model.BaseCodeGenModel;
 import org.ebayopensource.turmeric.eclipse.resources.util.MarkerUtil;
 import org.ebayopensource.turmeric.eclipse.resources.util.SOAIntfUtil;
 import org.ebayopensource.turmeric.eclipse.resources.util.SOAServiceUtil;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAClassLoaderPool;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.EclipseMessageUtils;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
 
 
 /**
@@ -51,6 +67,14 @@ public class SOAInterfaceProjectBuilder extends AbstractSOAProjectBuilder {
 
 	private static final SOALogger logger = SOALogger.getLogger();
 	
+	/* (non-Javadoc)
+	 * @see org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder#requiresTypeRegistry()
+	 */
+	@Override
+	protected boolean requiresTypeRegistry() {
+		return true;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.ebayopensource.turmeric.eclipse.build.builder.AbstractSOAProjectBuilder#shouldBuild(org.eclipse.core.resources.IResourceDelta, org.eclipse.core.resources.IProject)
 	 */
@@ -69,6 +93,7 @@ public class SOAInterfaceProjectBuilder extends AbstractSOAProjectBuilder {
 	protected IProject[] doBuild(int kind, Map args, IProject project,
 			IResourceDelta delta, IProgressMonitor monitor) throws Exception {
 		if (kind == CLEAN_BUILD || kind == FULL_BUILD) {
+			final Lock registryLock = lockTypeRegistry(monitor);
 			try {
 				SynchronizeWsdlAndDepXML synch = new SynchronizeWsdlAndDepXML(project);
  				synch.syncronizeWsdlandDepXml();
@@ -79,6 +104,8 @@ public class SOAInterfaceProjectBuilder extends AbstractSOAProjectBuilder {
 			} catch (Exception e) {
 				SOAExceptionHandler.silentHandleException(e);
 				// Silently ignore. This is just an attempt
+			} finally {
+				registryLock.unlock();
 			}
 		}
 
@@ -106,17 +133,95 @@ public class SOAInterfaceProjectBuilder extends AbstractSOAProjectBuilder {
 			logger.warning("The service_metadata.properties file is missing, re-genreate it");
 		}
 
-		CodegenInvoker codegenInvoker = CodegenInvoker.init(project);
 		BaseCodeGenModel baseCodeGenModel = BuilderUtil
 		.buildBaseCodeGenModel(project, monitor);
 
 		BaseCodeGenModel codeGenModel = ModelTransformer
 		.transformToGenTypeServiceFromWSDLIntf(
 				baseCodeGenModel, project);
-		codegenInvoker.execute(codeGenModel);		
+		// checked before the codegen class loader is set up
+		final CodegenInputManifest manifest = createCodegenInputManifest(
+				project, codeGenModel);
+		final List<String> changedInputs = manifest.getChangedInputs();
+		if (changedInputs.isEmpty()) {
+			logger.info("Codegen skipped for project " + project.getName()
+					+ ", none of its inputs has changed since the last build. Digest: "
+					+ manifest.getDigest());
+			return null;
+		}
+		if (SOALogger.DEBUG) {
+			logger.debug("Codegen inputs changed for project ",
+					project.getName(), ": ", changedInputs);
+		}
+		manifest.delete();
+		CodegenInvoker codegenInvoker = CodegenInvoker.init(project);
+		codegenInvoker.execute(codeGenModel);
+		manifest.store();
 		return null;
 	}
 
+	/**
+	 * Collects the inputs of the interface code generation, which are the
+	 * service WSDL with all of the schemas it imports, the type dependencies,
+	 * the codegen options and the codegen class path. The jars of the class
+	 * path are stamped as a whole. The folders of other workspace projects,
+	 * e.g. type library projects, are stamped together with the meta-src
+	 * folder of their project, which holds the schemas of the types.
+	 *
+	 * @param project the project
+	 * @param codeGenModel the code gen model
+	 * @return the codegen input manifest
+	 * @throws Exception the exception
+	 */
+	private CodegenInputManifest createCodegenInputManifest(IProject project,
+			BaseCodeGenModel codeGenModel)
+			throws Exception {
+		final CodegenInputManifest manifest = new CodegenInputManifest(
+				CodegenInputManifest.getManifestFile(project));
+		final IFile wsdlFile = SOAServiceUtil.getWsdlFile(project, project
+				.getName());
+		if (wsdlFile.getLocation() != null) {
+			manifest.addSchemaTree(wsdlFile.getLocation().toFile());
+		}
+		final IFile typeDepFile = project
+				.getFile(SOATypeLibraryConstants.FOLDER_META_SRC_META_INF
+						+ WorkspaceUtil.PATH_SEPERATOR + project.getName()
+						+ WorkspaceUtil.PATH_SEPERATOR
+						+ SOATypeLibraryConstants.FILE_TYPE_DEP_XML);
+		if (typeDepFile.getLocation() != null) {
+			manifest.addFile(typeDepFile.getLocation().toFile());
+		}
+		manifest.addOptions(codeGenModel.getCodeGenOptions());
+		final List<URL> jarURLs = new ArrayList<URL>();
+		final Set<IProject> workspaceProjects = new LinkedHashSet<IProject>();
+		for (URL url : JDTUtil.resolveClasspathToURLs(project)) {
+			final File file = FileUtils.toFile(url);
+			if (file == null) {
+				continue;
+			} else if (file.isDirectory()) {
+				final IContainer container = WorkspaceUtil.getWorkspaceRoot()
+						.getContainerForLocation(new Path(file.getAbsolutePath()));
+				// the own output folder changes with every build
+				if (container != null
+						&& project.equals(container.getProject()) == false) {
+					manifest.addFolder(file);
+					workspaceProjects.add(container.getProject());
+				}
+			} else {
+				jarURLs.add(url);
+			}
+		}
+		for (IProject workspaceProject : workspaceProjects) {
+			final IFolder metaSrc = workspaceProject
+					.getFolder(SOAProjectConstants.FOLDER_META_SRC);
+			if (metaSrc.getLocation() != null) {
+				manifest.addFolder(metaSrc.getLocation().toFile());
+			}
+		}
+		manifest.addValue("codegen", SOAClassLoaderPool.fingerprint(jarURLs));
+		return manifest;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.ebayopensource.turmeric.eclipse.build.builder.AbstractSOAProjectBuilder#doClean(org.eclipse.core.resources.IProject, org.eclipse.core.runtime.IProgressMonitor)
 	 */
@@ -8,24 +8,33 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.buildsystem.eclipse;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import org.ebayopensource.turmeric.eclipse.buildsystem.resources.SOAMessages;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.ActionUtil;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.BuilderUtil;
+import org.ebayopensource.turmeric.eclipse.buildsystem.utils.GeneratedFilesManifest;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.exception.resources.SOAActionExecutionFailedException;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.utils.GlobalProjectHealthChecker;
 import org.ebayopensource.turmeric.eclipse.resources.util.MarkerUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
 import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
-import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
 import org.eclipse.core.resources.IncrementalProjectBuilder;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 /**
  * The Class AbstractSOAProjectBuilder.
@@ -35,6 +44,8 @@ import org.eclipse.core.runtime.IStatus;
 public abstract class AbstractSOAProjectBuilder extends
 		IncrementalProjectBuilder {
 	private static final SOALogger logger = SOALogger.getLogger();
+	
+	private boolean standalone = false;
 
 	/**
 	 * Instantiates a new abstract soa project builder.
@@ -50,30 +61,40 @@ public abstract class AbstractSOAProjectBuilder extends
 	protected IProject[] build(int kind, Map args, IProgressMonitor monitor)
 			throws CoreException {
 		final IProject project = getProject();
+		final BuildMetrics metrics = BuildMetrics.getDefault();
+		final long buildStart = metrics.start();
 		long time = System.currentTimeMillis();
 		/**
 		 * even using meunu project->clean, the build kind is still full build.
 		 */
 		if (kind == CLEAN_BUILD || kind == FULL_BUILD) {
+			final long cleanStart = metrics.start();
 			try {
-				ActionUtil.cleanProject(project, monitor);
+				ActionUtil.cleanProject(project, getBuilderId(), monitor);
 			} catch (Exception e) {
 				logger.error("Clean failed with exception:" + e);
 				throw new SOAActionExecutionFailedException(e);
 			} finally {
-				WorkspaceUtil.refresh(monitor, project);
+				metrics.record(project.getName(), BuildMetrics.PHASE_CLEAN,
+						cleanStart);
+				refreshGeneratedFolders(project, monitor);
 			}
 		}
 		try {
 			final IResourceDelta delta = getDelta(project);
-			if (shouldBuild(delta, project)) {
+			final long shouldBuildStart = metrics.start();
+			final boolean shouldBuild = shouldBuild(delta, project);
+			metrics.record(project.getName(), BuildMetrics.PHASE_SHOULD_BUILD,
+					shouldBuildStart);
+			if (shouldBuild) {
 				MarkerUtil.cleanSOAProblemMarkers(project);
-				final IStatus status = checkProjectHealth(project);
+				final IStatus status = checkProjectHealth(project, metrics);
 				if (status.isOK() == false) {
 					MarkerUtil.createSOAProblemMarkerRecursive(status, project);
 				}
 				BuilderUtil.generateSourceDirectories(project, monitor);
-				return doBuild(kind, args, project, delta, monitor);
+				waitForTypeRegistry(monitor);
+				return doTrackedBuild(kind, args, project, delta, monitor);
 			} else {
 				if (SOALogger.DEBUG) {
 					logger
@@ -81,12 +102,15 @@ public abstract class AbstractSOAProjectBuilder extends
 				}
 			}
 		} catch (Exception e) {
+			// a build cancelled while waiting for the registry is marked too
 			logger.error(SOAMessages.SERVICE_CODEGEN_SKIPPED_MESSAGE + ":"
 					+ e.getMessage());
 			logger.error(e);
 			MarkerUtil.createSOAProblemMarker(e, project);
 		} finally {
-			project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+			refreshGeneratedFolders(project, monitor);
+			metrics.record(project.getName(), BuildMetrics.PHASE_BUILD,
+					buildStart);
 			if (SOALogger.DEBUG) {
 				long duration = System.currentTimeMillis() - time;
 				String msg = StringUtil.formatString(
@@ -98,6 +122,162 @@ public abstract class AbstractSOAProjectBuilder extends
 		return null;
 	}
 
+	/**
+	 * Builds the given project outside of the workspace build, e.g. from the
+	 * parallel build. There is no resource delta in this case, so the build is
+	 * always a full one. Unlike {@link #build(int, Map, IProgressMonitor)},
+	 * neither the workspace clean nor the refresh of the whole project is
+	 * done here, as both would need the workspace root scheduling rule. The
+	 * caller is expected to hold the scheduling rule of the project.
+	 * Standalone builds of different projects may run at the same time, only
+	 * their accesses to the type registry run one at a time.
+	 *
+	 * @see #lockTypeRegistry(IProgressMonitor)
+	 *
+	 * @param project the project
+	 * @param monitor the monitor
+	 * @throws Exception the exception
+	 */
+	public void buildStandalone(IProject project, IProgressMonitor monitor)
+			throws Exception {
+		final BuildMetrics metrics = BuildMetrics.getDefault();
+		final long buildStart = metrics.start();
+		long time = System.currentTimeMillis();
+		this.standalone = true;
+		try {
+			MarkerUtil.cleanSOAProblemMarkers(project);
+			final IStatus status = checkProjectHealth(project, metrics);
+			if (status.isOK() == false) {
+				MarkerUtil.createSOAProblemMarkerRecursive(status, project);
+			}
+			BuilderUtil.generateSourceDirectories(project, monitor);
+			waitForTypeRegistry(monitor);
+			doTrackedBuild(FULL_BUILD, new HashMap<Object, Object>(), project,
+					null, monitor);
+		} finally {
+			this.standalone = false;
+			metrics.record(project.getName(), BuildMetrics.PHASE_BUILD,
+					buildStart);
+			if (SOALogger.DEBUG) {
+				long duration = System.currentTimeMillis() - time;
+				String msg = StringUtil.formatString(
+						SOAMessages.MSG_TIME_TAKEN_FOR_BUILD_PROJECT, project
+								.getName(), duration);
+				logger.debug(msg);
+			}
+		}
+	}
+
+	/**
+	 * Gets the resource delta of the given project since the last build of
+	 * this builder. Always returns null for a standalone build, which means
+	 * everything has to be built.
+	 *
+	 * @param project the project
+	 * @return the resource delta, or null
+	 * @see #getDelta(IProject)
+	 */
+	protected IResourceDelta getProjectDelta(IProject project) {
+		return standalone ? null : getDelta(project);
+	}
+
+	/**
+	 * Checks if the build needs the SOA type registry. If so, the registry is
+	 * waited for before {@link #doBuild(int, Map, IProject, IResourceDelta,
+	 * IProgressMonitor)} is called, so the build could be cancelled while the
+	 * registry is being initialized.
+	 *
+	 * @return true, if the build needs the type registry
+	 */
+	protected boolean requiresTypeRegistry() {
+		return false;
+	}
+
+	private IStatus checkProjectHealth(IProject project, BuildMetrics metrics)
+			throws Exception {
+		final long start = metrics.start();
+		try {
+			return checkProjectHealth(project);
+		} finally {
+			metrics.record(project.getName(), BuildMetrics.PHASE_HEALTH_CHECK,
+					start);
+		}
+	}
+
+	/**
+	 * Gets the id of this builder, which keys the
+	 * {@link GeneratedFilesManifest} of the files it generates.
+	 *
+	 * @return the builder id
+	 */
+	protected String getBuilderId() {
+		return getClass().getName();
+	}
+
+	private void waitForTypeRegistry(IProgressMonitor monitor)
+			throws Exception {
+		if (requiresTypeRegistry()) {
+			SOAGlobalRegistryAdapter.getInstance().getGlobalRegistry(monitor);
+		}
+	}
+
+	/**
+	 * Locks the type registry once it is initialized. The registry is not
+	 * thread safe, so the builders hold the lock only while they read the
+	 * registry, or while a code generation run using the registry bundles
+	 * does. Code generation class loaders are leased to one thread, so the
+	 * rest of the builds of different projects may run at the same time. The
+	 * caller has to unlock the returned lock.
+	 *
+	 * @param monitor the monitor
+	 * @return the locked registry lock
+	 * @throws Exception the exception
+	 * @see SOAGlobalRegistryAdapter#getRegistryLock()
+	 */
+	protected Lock lockTypeRegistry(IProgressMonitor monitor) throws Exception {
+		final SOAGlobalRegistryAdapter adapter = SOAGlobalRegistryAdapter
+				.getInstance();
+		final Lock registryLock = adapter.getRegistryLock();
+		while (true) {
+			// the lock must not be held while waiting for the initialization
+			adapter.getGlobalRegistry(monitor);
+			registryLock.lock();
+			if (adapter.getGlobalRegistryIfAvailable() != null) {
+				return registryLock;
+			}
+			// invalidated meanwhile
+			registryLock.unlock();
+		}
+	}
+
+	/**
+	 * Runs {@link #doBuild(int, Map, IProject, IResourceDelta,
+	 * IProgressMonitor)} and records the files generated by this builder
+	 * afterwards. Unchanged files keep their timestamps and, after a clean,
+	 * the files this builder has not generated again are deleted.
+	 */
+	private IProject[] doTrackedBuild(int kind, Map args, IProject project,
+			IResourceDelta delta, IProgressMonitor monitor) throws Exception {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+		final GeneratedFilesManifest generatedFiles = GeneratedFilesManifest
+				.getManifest(project, getBuilderId());
+		final List<String> folders = new ArrayList<String>();
+		for (IFolder folder : ActionUtil.getCleanedFolders(project)) {
+			folders.add(folder.getProjectRelativePath().toString());
+		}
+		generatedFiles.begin(folders);
+		final IProject[] result = doBuild(kind, args, project, delta, monitor);
+		final List<String> deleted = generatedFiles.update(folders);
+		generatedFiles.store();
+		if (deleted.isEmpty() == false) {
+			logger.info("Deleted " + deleted.size()
+					+ " stale generated files of project " + project.getName());
+		}
+		return result;
+	}
+
 	/**
 	 * Do build.
 	 *
@@ -136,6 +316,33 @@ public abstract class AbstractSOAProjectBuilder extends
 		return GlobalProjectHealthChecker.checkProjectHealth(project);
 	}
 
+	/**
+	 * Gets the project relative paths of the folders this builder writes to,
+	 * which are refreshed after the build instead of the whole project.
+	 *
+	 * @param project the project
+	 * @return the generated folders
+	 * @throws Exception the exception
+	 * @see BuilderUtil#getGeneratedFolders(IProject)
+	 */
+	protected List<String> getGeneratedFolders(IProject project)
+			throws Exception {
+		return BuilderUtil.getGeneratedFolders(project);
+	}
+
+	private void refreshGeneratedFolders(IProject project,
+			IProgressMonitor monitor) throws CoreException {
+		List<String> folders;
+		try {
+			folders = getGeneratedFolders(project);
+		} catch (Exception e) {
+			// fall back to the whole project
+			logger.warning(e);
+			folders = Collections.singletonList("");
+		}
+		WorkspaceUtil.refreshFolders(project, monitor, folders);
+	}
+
 	/**
 	 * Do clean.
 	 *
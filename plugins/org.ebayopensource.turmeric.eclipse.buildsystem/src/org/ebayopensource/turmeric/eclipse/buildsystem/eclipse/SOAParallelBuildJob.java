@@ -0,0 +1,301 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.buildsystem.eclipse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.ebayopensource.turmeric.eclipse.buildsystem.BuildSystemActivator;
+import org.ebayopensource.turmeric.eclipse.buildsystem.utils.BuilderUtil;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
+import org.ebayopensource.turmeric.eclipse.resources.util.MarkerUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.ebayopensource.turmeric.eclipse.utils.xml.JDOMUtil;
+import org.eclipse.core.resources.ICommand;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IConfigurationElement;
+import org.eclipse.core.runtime.IExtension;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.jdom.Element;
+import org.jdom.filter.ElementFilter;
+
+/**
+ * Runs the code generation of the SOA builders (type library, interface,
+ * implementation, consumer and error library) for many projects at the same
+ * time. The projects are ordered by their project dependencies and by the
+ * type libraries referred in their TypeDependencies.xml, and independent
+ * projects are built on a bounded worker pool. The projects depending on a
+ * project whose build has failed are not built.
+ *
+ * <p>
+ * The type registry, the shared codegen class loaders and the codegen itself
+ * are not thread safe, so the code generation of the builders still runs one
+ * project at a time, see
+ * {@link AbstractSOAProjectBuilder#buildStandalone(IProject, IProgressMonitor)}.
+ * The health checks, the clean up of the markers, the creation of the source
+ * folders and the refresh of the generated folders run in parallel.
+ * </p>
+ *
+ * <p>
+ * The workspace build holds the workspace root rule, so the builders are not
+ * run through it. Every project is instead built by
+ * {@link AbstractSOAProjectBuilder#buildStandalone(IProject, IProgressMonitor)}
+ * while holding the scheduling rule of that project only. The built projects
+ * are refreshed once all of them are done, which lets the auto build take
+ * care of the Java compilation.
+ * </p>
+ */
+public class SOAParallelBuildJob extends Job {
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	private static final String ELEM_BUILDER_RUN = "run";
+	private static final String ATTR_CLASS = "class";
+	private static final String ELEM_REFERRED_TYPE_LIBRARY = "referredTypeLibrary";
+	private static final String ATTR_NAME = "name";
+
+	private final Collection<IProject> projects;
+
+	/**
+	 * Instantiates a new parallel build job for the given projects. Projects
+	 * without any SOA builder are skipped.
+	 *
+	 * @param projects the projects to build
+	 */
+	public SOAParallelBuildJob(Collection<IProject> projects) {
+		super("Turmeric parallel build");
+		this.projects = projects;
+	}
+
+	/**
+	 * Instantiates a new parallel build job for all projects of the
+	 * workspace.
+	 */
+	public SOAParallelBuildJob() {
+		this(Arrays.asList(WorkspaceUtil.getAllProjectsInWorkSpace()));
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected IStatus run(final IProgressMonitor monitor) {
+		final long time = System.currentTimeMillis();
+		final Map<IProject, List<AbstractSOAProjectBuilder>> builders = new LinkedHashMap<IProject, List<AbstractSOAProjectBuilder>>();
+		for (IProject project : projects) {
+			final List<AbstractSOAProjectBuilder> projectBuilders = getBuilders(project);
+			if (projectBuilders.isEmpty() == false) {
+				builders.put(project, projectBuilders);
+			}
+		}
+		final Map<IProject, Set<IProject>> dependencies = getDependencies(builders
+				.keySet());
+		final DependencyTaskExecutor<IProject> executor = new DependencyTaskExecutor<IProject>(
+				DependencyTaskExecutor.getDefaultThreadCount(builders.size()),
+				"Turmeric-Build-Worker");
+		monitor.beginTask(getName(), builders.size() + 1);
+		try {
+			final Map<IProject, Throwable> failures = executor.execute(
+					dependencies, new DependencyTaskExecutor.Task<IProject>() {
+						public void execute(IProject project) throws Exception {
+							if (monitor.isCanceled()) {
+								executor.cancel();
+								return;
+							}
+							synchronized (monitor) {
+								monitor.subTask(project.getName());
+							}
+							build(project, builders.get(project), monitor);
+							synchronized (monitor) {
+								monitor.worked(1);
+							}
+						}
+					});
+			for (Map.Entry<IProject, Throwable> failure : failures.entrySet()) {
+				if (failure.getValue() instanceof OperationCanceledException) {
+					continue;
+				} else if (failure.getValue() instanceof DependencyTaskExecutor.DependencyFailure) {
+					final IProject failedProject = (IProject) ((DependencyTaskExecutor.DependencyFailure) failure
+							.getValue()).getDependency();
+					final String message = "Project "
+							+ failure.getKey().getName()
+							+ " was not built, the build of project "
+							+ failedProject.getName() + " has failed";
+					logger.warning(message);
+					MarkerUtil.createSOAProblemMarker(new Status(
+							IStatus.ERROR, BuildSystemActivator.PLUGIN_ID,
+							message), failure.getKey());
+				} else {
+					logger.error(failure.getValue());
+					MarkerUtil.createSOAProblemMarker(failure.getValue(),
+							failure.getKey());
+				}
+			}
+			monitor.subTask("Refreshing projects");
+			for (IProject project : builders.keySet()) {
+				final Set<String> folders = new HashSet<String>();
+				for (AbstractSOAProjectBuilder builder : builders.get(project)) {
+					folders.addAll(builder.getGeneratedFolders(project));
+				}
+				WorkspaceUtil.refreshFolders(project,
+						new NullProgressMonitor(), folders);
+			}
+			monitor.worked(1);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Status.CANCEL_STATUS;
+		} catch (Exception e) {
+			logger.error(e);
+			return new Status(IStatus.ERROR, BuildSystemActivator.PLUGIN_ID,
+					e.getLocalizedMessage(), e);
+		} finally {
+			monitor.done();
+			if (SOALogger.DEBUG) {
+				logger.debug("Parallel build of ", builders.size(),
+						" projects with ", executor.getMaxThreads(),
+						" workers took ", System.currentTimeMillis() - time,
+						" ms");
+			}
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+	private void build(IProject project,
+			List<AbstractSOAProjectBuilder> projectBuilders,
+			final IProgressMonitor monitor) throws Exception {
+		final IProgressMonitor projectMonitor = new NullProgressMonitor() {
+			@Override
+			public boolean isCanceled() {
+				return monitor.isCanceled();
+			}
+		};
+		Job.getJobManager().beginRule(project, projectMonitor);
+		try {
+			for (AbstractSOAProjectBuilder builder : projectBuilders) {
+				builder.buildStandalone(project, projectMonitor);
+			}
+		} finally {
+			Job.getJobManager().endRule(project);
+		}
+	}
+
+	/**
+	 * Creates a new instance of every SOA builder configured for the given
+	 * project, in the order of the build spec.
+	 *
+	 * @param project the project
+	 * @return the builders, never null
+	 */
+	public static List<AbstractSOAProjectBuilder> getBuilders(IProject project) {
+		final List<AbstractSOAProjectBuilder> result = new ArrayList<AbstractSOAProjectBuilder>();
+		if (project.isAccessible() == false) {
+			return result;
+		}
+		try {
+			for (ICommand command : project.getDescription().getBuildSpec()) {
+				final IExtension extension = Platform.getExtensionRegistry()
+						.getExtension(ResourcesPlugin.PI_RESOURCES,
+								ResourcesPlugin.PT_BUILDERS,
+								command.getBuilderName());
+				if (extension == null) {
+					continue;
+				}
+				for (IConfigurationElement builder : extension
+						.getConfigurationElements()) {
+					for (IConfigurationElement run : builder
+							.getChildren(ELEM_BUILDER_RUN)) {
+						final Object instance = run
+								.createExecutableExtension(ATTR_CLASS);
+						if (instance instanceof AbstractSOAProjectBuilder) {
+							result.add((AbstractSOAProjectBuilder) instance);
+						}
+					}
+				}
+			}
+		} catch (Exception e) {
+			logger.warning("Failed to load the builders of project "
+					+ project.getName(), e);
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the dependencies among the given projects, based on the
+	 * project dependencies of the Java build path and the type libraries
+	 * referred in TypeDependencies.xml.
+	 *
+	 * @param projects the projects
+	 * @return the projects mapped to the projects they depend on
+	 */
+	public static Map<IProject, Set<IProject>> getDependencies(
+			Collection<IProject> projects) {
+		final Map<IProject, Set<IProject>> result = new LinkedHashMap<IProject, Set<IProject>>();
+		for (IProject project : projects) {
+			final Set<IProject> required = new LinkedHashSet<IProject>();
+			for (IProject reqProject : BuilderUtil.getRequiredProjects(project,
+					(String[]) null)) {
+				required.add(reqProject);
+			}
+			for (String typeLibName : getReferredTypeLibraries(project)) {
+				required.add(WorkspaceUtil.getProject(typeLibName));
+			}
+			for (Iterator<IProject> it = required.iterator(); it.hasNext();) {
+				if (projects.contains(it.next()) == false) {
+					it.remove();
+				}
+			}
+			result.put(project, required);
+		}
+		return result;
+	}
+
+	private static Set<String> getReferredTypeLibraries(IProject project) {
+		final Set<String> result = new LinkedHashSet<String>();
+		final IFile file = project
+				.getFile(SOATypeLibraryConstants.FOLDER_META_SRC_META_INF
+						+ WorkspaceUtil.PATH_SEPERATOR + project.getName()
+						+ WorkspaceUtil.PATH_SEPERATOR
+						+ SOATypeLibraryConstants.FILE_TYPE_DEP_XML);
+		if (file.isAccessible() == false || file.getLocation() == null) {
+			return result;
+		}
+		try {
+			final Element root = JDOMUtil.readXMLFile(file.getLocation());
+			for (Iterator<?> it = root.getDescendants(new ElementFilter(
+					ELEM_REFERRED_TYPE_LIBRARY)); it.hasNext();) {
+				final String name = ((Element) it.next())
+						.getAttributeValue(ATTR_NAME);
+				if (name != null && name.equals(project.getName()) == false) {
+					result.add(name);
+				}
+			}
+		} catch (Exception e) {
+			logger.warning("Failed to read the type dependencies of project "
+					+ project.getName(), e);
+		}
+		return result;
+	}
+}
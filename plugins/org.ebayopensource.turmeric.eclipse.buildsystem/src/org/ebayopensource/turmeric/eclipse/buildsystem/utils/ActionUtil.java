@@ -43,7 +43,8 @@ import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
 import org.ebayopensource.turmeric.eclipse.resources.model.IAssetInfo;
 import org.ebayopensource.turmeric.eclipse.resources.util.MarkerUtil;
 import org.ebayopensource.turmeric.eclipse.resources.util.SOAConsumerUtil;
-import org.ebayopensource.turmeric.eclipse.utils.collections.ListUtil;
+import org.ebayopensource.turmeric.eclipse.utils.collections.ListUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
 import org.ebayopensource.turmeric.eclipse.utils.core.VersionUtil;
 import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.EclipseMessageUtils;
@@ -489,11 +490,28 @@ public class ActionUtil {
 	 * @throws MalformedURLException the malformed url exception
 	 * @throws IOException Signals that an I/O exception has occurred.
 	 */
-	@SuppressWarnings("restriction")
 	public static void validateUsingWTP(IFile wsdlWorkspaceFile, URL wsdlFile,
 			List<IStatus> statuses, boolean needDowngrade,
 			IProgressMonitor monitor) throws ValidationInterruptedException,
 			CoreException, MalformedURLException, IOException {
+		final long start = BuildMetrics.getDefault().start();
+		try {
+			doValidateUsingWTP(wsdlWorkspaceFile, wsdlFile, statuses,
+					needDowngrade);
+		} finally {
+			if (wsdlWorkspaceFile != null) {
+				BuildMetrics.getDefault().record(
+						wsdlWorkspaceFile.getProject().getName(),
+						BuildMetrics.PHASE_VALIDATE, start);
+			}
+		}
+	}
+
+	@SuppressWarnings("restriction")
+	private static void doValidateUsingWTP(IFile wsdlWorkspaceFile,
+			URL wsdlFile, List<IStatus> statuses, boolean needDowngrade)
+			throws ValidationInterruptedException, CoreException,
+			MalformedURLException, IOException {
 
 		// TODO This WSDL validation is different with the one used in in
 		// codeGen.
@@ -599,7 +617,41 @@ public class ActionUtil {
 	}
 
 	/**
-	 * Clean project.
+	 * Gets the folders which only contain generated files and are emptied by
+	 * a clean of the given project.
+	 *
+	 * @param project the project
+	 * @return the cleaned folders
+	 */
+	public static Collection<IFolder> getCleanedFolders(IProject project) {
+		final Collection<IFolder> resources = new HashSet<IFolder>();
+		resources.add(project
+				.getFolder(SOAProjectConstants.FOLDER_GEN_META_SRC));
+		resources.add(project
+				.getFolder(SOAProjectConstants.FOLDER_GEN_TEST));
+		IFolder genClient = project
+				.getFolder(SOAProjectConstants.FOLDER_GEN_SRC_CLIENT);
+		IFolder genService = project
+				.getFolder(SOAProjectConstants.FOLDER_GEN_SRC_SERVICE);
+		if (genClient.isAccessible() == false
+				&& genService.isAccessible() == false) {
+			resources.add(project
+					.getFolder(SOAProjectConstants.FOLDER_GEN_SRC));
+
+		}
+		resources.add(genClient);
+		resources.add(genService);
+		resources.add(project
+				.getFolder(SOAProjectConstants.FOLDER_GEN_WEB_CONTENT));
+		return resources;
+	}
+
+	/**
+	 * Clean project. Once the generated files of the project have been
+	 * recorded by the {@link GeneratedFilesManifest} of every builder, the
+	 * generated folders are not emptied any more; the next build of every
+	 * builder deletes the files its code generation does not write again and
+	 * leaves the unchanged ones alone.
 	 *
 	 * @param project the project
 	 * @param monitor the monitor
@@ -608,29 +660,60 @@ public class ActionUtil {
 	 */
 	public static IStatus cleanProject(IProject project,
 			IProgressMonitor monitor) throws CoreException {
+		return cleanProject(project, GeneratedFilesManifest
+				.getManifests(project), monitor);
+	}
 
-		try {
-			final Collection<IFolder> resources = new HashSet<IFolder>();
-			resources.add(project
-					.getFolder(SOAProjectConstants.FOLDER_GEN_META_SRC));
-			resources.add(project
-					.getFolder(SOAProjectConstants.FOLDER_GEN_TEST));
-			IFolder genClient = project
-					.getFolder(SOAProjectConstants.FOLDER_GEN_SRC_CLIENT);
-			IFolder genService = project
-					.getFolder(SOAProjectConstants.FOLDER_GEN_SRC_SERVICE);
-			if (genClient.isAccessible() == false
-					&& genService.isAccessible() == false) {
-				resources.add(project
-						.getFolder(SOAProjectConstants.FOLDER_GEN_SRC));
+	/**
+	 * Clean project for a build of the given builder. Once the generated
+	 * files of the builder have been recorded, only the files of that builder
+	 * are deleted by its next build, otherwise the generated folders are
+	 * emptied.
+	 *
+	 * @param project the project
+	 * @param builderId the id of the builder
+	 * @param monitor the monitor
+	 * @return the i status
+	 * @throws CoreException the core exception
+	 * @see #cleanProject(IProject, IProgressMonitor)
+	 */
+	public static IStatus cleanProject(IProject project, String builderId,
+			IProgressMonitor monitor) throws CoreException {
+		return cleanProject(project, Collections
+				.singletonList(GeneratedFilesManifest.getManifest(project,
+						builderId)), monitor);
+	}
 
-			}
-			resources.add(genClient);
-			resources.add(genService);
-			resources.add(project
-					.getFolder(SOAProjectConstants.FOLDER_GEN_WEB_CONTENT));
+	private static IStatus cleanProject(IProject project,
+			Collection<GeneratedFilesManifest> manifests,
+			IProgressMonitor monitor) throws CoreException {
+		// only the cleaned folders get out of sync
+		final List<String> cleanedFolders = new ArrayList<String>();
+		boolean refreshed = false;
+		try {
+			final Collection<IFolder> resources = getCleanedFolders(project);
 			logger.info("Start to clean project " + project.getName() + "...");
+			boolean tracked = manifests.isEmpty() == false;
+			for (GeneratedFilesManifest generatedFiles : manifests) {
+				tracked &= generatedFiles.isEmpty() == false;
+			}
+			if (tracked) {
+				try {
+					for (GeneratedFilesManifest generatedFiles : manifests) {
+						generatedFiles.requestClean();
+						generatedFiles.store();
+					}
+				} catch (IOException e) {
+					logger.error(e);
+					throw new SOAActionExecutionFailedException(e);
+				}
+				logger.info("The stale generated files of project "
+						+ project.getName() + " are deleted by the next build.");
+				resources.clear();
+			}
 			for (final IResource resource : resources) {
+				cleanedFolders.add(resource.getProjectRelativePath()
+						.toString());
 				if (resource.isAccessible()) {
 					try {
 						logger.info("Cleaning directory  "
@@ -644,13 +727,17 @@ public class ActionUtil {
 					}
 				}
 			}
+			CodegenInputManifest.delete(project);
 			logger.info("Clean project " + project.getName() + " finished.");
-			project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+			WorkspaceUtil.refreshFolders(project, monitor, cleanedFolders);
+			refreshed = true;
 			project.build(IncrementalProjectBuilder.CLEAN_BUILD, monitor);
 			ProgressUtil.progressOneStep(monitor);
 		} finally {
 			monitor.done();
-			WorkspaceUtil.refresh(monitor, project);
+			if (refreshed == false) {
+				WorkspaceUtil.refreshFolders(project, monitor, cleanedFolders);
+			}
 		}
 		return Status.OK_STATUS;
 
@@ -155,7 +155,7 @@ public class BuildSystemCodeGen {
 
 		CodegenInvoker codegenInvoker = CodegenInvoker.init(project);
 		codegenInvoker.execute(genTypeServiceConfig);
-		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+		BuilderUtil.refreshGeneratedFolders(project, null);
 	}
 
 	/**
@@ -233,7 +233,7 @@ public class BuildSystemCodeGen {
 				.getProject());
 		codegenInvoker.execute(genTypeClientConfig);
 		
-		consumerProject.getProject().refreshLocal(IResource.DEPTH_INFINITE,
+		BuilderUtil.refreshGeneratedFolders(consumerProject.getProject(),
 				monitor);
 	}
 
@@ -259,7 +259,7 @@ public class BuildSystemCodeGen {
 				.getProject());
 		codegenInvoker.execute(genTypeClientConfig);
 
-		consumerProject.getProject().refreshLocal(IResource.DEPTH_INFINITE,
+		BuilderUtil.refreshGeneratedFolders(consumerProject.getProject(),
 				monitor);
 	}
 
@@ -291,7 +291,7 @@ public class BuildSystemCodeGen {
 		ProgressUtil.progressOneStep(monitor);
 		codegenInvoker.execute(gentypeConsumer);
 		ProgressUtil.progressOneStep(monitor);
-		project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+		BuilderUtil.refreshGeneratedFolders(project, monitor);
 	}
 
 	/**
@@ -337,7 +337,7 @@ public class BuildSystemCodeGen {
 		ProgressUtil.progressOneStep(monitor);
 		codegenInvoker.execute(gentypeConsumer);
 		ProgressUtil.progressOneStep(monitor);
-		consumerProject.getProject().refreshLocal(IResource.DEPTH_INFINITE,
+		BuilderUtil.refreshGeneratedFolders(consumerProject.getProject(),
 				monitor);
 	}
 	
@@ -438,7 +438,7 @@ public class BuildSystemCodeGen {
 		CodegenInvoker codegenInvoker = CodegenInvoker.init(consumerProject
 				.getProject());
 		codegenInvoker.execute(genTypeConsumer);
-		consumerProject.getProject().refreshLocal(IResource.DEPTH_INFINITE,
+		BuilderUtil.refreshGeneratedFolders(consumerProject.getProject(),
 				null);
 	}
 
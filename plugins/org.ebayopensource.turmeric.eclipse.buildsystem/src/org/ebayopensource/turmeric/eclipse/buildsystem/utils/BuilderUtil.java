@@ -20,6 +20,7 @@ import org.apache.commons.lang.StringUtils;
 import org.ebayopensource.turmeric.eclipse.buildsystem.resources.SOAMessages;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants.SupportedProjectType;
 import org.ebayopensource.turmeric.eclipse.exception.core.SOANullParameterException;
 import org.ebayopensource.turmeric.eclipse.exception.resources.SOAResourceNotAccessibleException;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.model.BaseCodeGenModel;
@@ -60,6 +61,67 @@ import org.eclipse.jdt.core.JavaCore;
  */
 public class BuilderUtil {
 
+	/**
+	 * The project relative paths of the folders the code generation writes
+	 * to, in addition to the base consumer folder of impl and consumer
+	 * projects and the source folder of impl projects, into which the
+	 * service skeleton is generated.
+	 */
+	public static final String[] GENERATED_FOLDERS = {
+			SOAProjectConstants.FOLDER_GEN_SRC,
+			SOAProjectConstants.FOLDER_GEN_META_SRC,
+			SOAProjectConstants.FOLDER_GEN_WEB_CONTENT,
+			SOAProjectConstants.FOLDER_GEN_TEST,
+			SOAProjectConstants.FOLDER_META_SRC };
+
+	/**
+	 * Gets the project relative paths of the folders the code generation of
+	 * the given project writes to. These are the only folders to be refreshed
+	 * after a code generation.
+	 *
+	 * @param project the project
+	 * @return the generated folders
+	 * @throws Exception the exception
+	 */
+	public static List<String> getGeneratedFolders(final IProject project)
+			throws Exception {
+		final List<String> result = new ArrayList<String>(Arrays
+				.asList(GENERATED_FOLDERS));
+		SupportedProjectType projectType = null;
+		if (TurmericServiceUtils.isSOAImplProject(project)) {
+			projectType = SupportedProjectType.IMPL;
+		} else if (TurmericServiceUtils.isSOAConsumerProject(project)) {
+			projectType = SupportedProjectType.CONSUMER;
+		}
+		if (projectType == SupportedProjectType.IMPL) {
+			result.add(SOAProjectConstants.FOLDER_SRC);
+		}
+		if (projectType != null) {
+			final String baseConsumerFolder = SOAServiceUtil
+					.getBaseConsumerFolder(project, projectType)
+					.getProjectRelativePath().toString();
+			if (result.contains(baseConsumerFolder) == false) {
+				result.add(baseConsumerFolder);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Refreshes the generated folders of the given project in one workspace
+	 * operation.
+	 *
+	 * @param project the project
+	 * @param monitor the monitor
+	 * @throws Exception the exception
+	 * @see #getGeneratedFolders(IProject)
+	 */
+	public static void refreshGeneratedFolders(final IProject project,
+			final IProgressMonitor monitor) throws Exception {
+		WorkspaceUtil.refreshFolders(project, monitor,
+				getGeneratedFolders(project));
+	}
+
 	/**
 	 * Foundation Code generation Model for builders. This is the base code
 	 * generation model which will be specialized before used in most cases.
@@ -142,7 +204,7 @@ public class BuilderUtil {
 				serviceName);
 		if (isWSDLFileChanged(delta, wsdlFile.getFullPath()) == false)
 			return null;
-		final Definition wsdl = WSDLUtil.readWSDL(wsdlFile.getLocation()
+		final Definition wsdl = WSDLUtil.readWSDLCached(wsdlFile.getLocation()
 				.toString());
 		final SOAImplMetadata metadata = SOAImplUtil.loadServiceConfig(
 				implProject, serviceName);
@@ -172,7 +234,7 @@ public class BuilderUtil {
 				serviceName);
 		if (wsdlFile.isAccessible() == false)
 			return null;
-		final Definition wsdl = WSDLUtil.readWSDL(wsdlFile.getLocation()
+		final Definition wsdl = WSDLUtil.readWSDLCached(wsdlFile.getLocation()
 				.toString());
 		String envName = null; 
 		if (SOAConsumerUtil.isOldClientConfigDirStructure(consumerProject) == false) {
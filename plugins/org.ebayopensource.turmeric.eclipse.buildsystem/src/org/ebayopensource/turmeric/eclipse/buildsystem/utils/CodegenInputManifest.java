@@ -0,0 +1,361 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.buildsystem.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.eclipse.buildsystem.BuildSystemActivator;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * A manifest of the inputs of a code generation run. Every input (the WSDL,
+ * the schemas it imports transitively, the codegen options, the codegen
+ * class path and the folders of the workspace projects on it) is recorded
+ * together with a digest of its content, so that a
+ * builder could skip the code generation if none of the inputs has changed
+ * since the last successful run.
+ *
+ * <p>
+ * The manifest is kept in the working location of the project, outside of
+ * the workspace tree, and is deleted whenever the project is cleaned.
+ * </p>
+ */
+public class CodegenInputManifest {
+
+	/** The file name of the manifest. */
+	public static final String FILE_NAME = "codegen-input.properties";
+
+	private static final String PREFIX_FILE = "file:";
+	private static final String PREFIX_FOLDER = "folder:";
+	private static final String PREFIX_OPTION = "option:";
+	private static final String PREFIX_VALUE = "value:";
+
+	/**
+	 * schemaLocation of xs:import and xs:include, location of wsdl:import.
+	 */
+	private static final Pattern LOCATION_PATTERN = Pattern
+			.compile("(?:schemaLocation|location)\\s*=\\s*[\"']([^\"']+)[\"']");
+
+	private final File manifestFile;
+	private final Map<String, String> inputs = new TreeMap<String, String>();
+
+	/**
+	 * Instantiates a new, empty codegen input manifest.
+	 *
+	 * @param manifestFile the file the manifest is stored into
+	 */
+	public CodegenInputManifest(File manifestFile) {
+		super();
+		this.manifestFile = manifestFile;
+	}
+
+	/**
+	 * Gets the manifest file of the given project.
+	 *
+	 * @param project the project
+	 * @return the manifest file
+	 */
+	public static File getManifestFile(IProject project) {
+		return getManifestFile(project, FILE_NAME);
+	}
+
+	/**
+	 * Gets a manifest file with the given name in the working location of
+	 * the project.
+	 *
+	 * @param project the project
+	 * @param fileName the file name
+	 * @return the manifest file
+	 */
+	public static File getManifestFile(IProject project, String fileName) {
+		return project.getWorkingLocation(BuildSystemActivator.PLUGIN_ID)
+				.append(fileName).toFile();
+	}
+
+	/**
+	 * Deletes the stored manifest of the given project, so that the next build
+	 * runs the code generation.
+	 *
+	 * @param project the project
+	 */
+	public static void delete(IProject project) {
+		if (project.isAccessible()) {
+			FileUtils.deleteQuietly(getManifestFile(project));
+		}
+	}
+
+	/**
+	 * Adds the given WSDL or schema file and every local file it imports or
+	 * includes, transitively. Locations which could not be resolved to a
+	 * local file, e.g. type library references, are not followed. The
+	 * schemas of the type libraries have to be added separately, through
+	 * the class path and {@link #addFolder(File)}.
+	 *
+	 * @param file the WSDL or schema file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void addSchemaTree(File file) throws IOException {
+		addSchemaTree(file.getCanonicalFile(), new HashSet<String>());
+	}
+
+	private void addSchemaTree(File file, Set<String> visited)
+			throws IOException {
+		if (file.isFile() == false || visited.add(file.getPath()) == false) {
+			return;
+		}
+		addFile(file);
+		final String content = FileUtils.readFileToString(file);
+		final Matcher matcher = LOCATION_PATTERN.matcher(content);
+		while (matcher.find()) {
+			final String location = matcher.group(1);
+			try {
+				final URI uri = file.toURI().resolve(location);
+				if ("file".equals(uri.getScheme())) {
+					addSchemaTree(new File(uri).getCanonicalFile(), visited);
+				}
+			} catch (IllegalArgumentException e) {
+				// not a valid uri, covered by the content of the current file
+			}
+		}
+	}
+
+	/**
+	 * Adds the content of the given file. A missing file is recorded as such.
+	 *
+	 * @param file the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void addFile(File file) throws IOException {
+		final String key = PREFIX_FILE + file.getCanonicalPath();
+		if (file.isFile() == false) {
+			inputs.put(key, "");
+			return;
+		}
+		inputs.put(key, getDigest(file));
+	}
+
+	/**
+	 * Adds the files in the given folder and its sub folders. Every file is
+	 * stamped with its path, last modified time and length, the folder is
+	 * recorded with a single digest of the stamps. A missing folder is
+	 * recorded as such.
+	 *
+	 * @param folder the folder
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void addFolder(File folder) throws IOException {
+		final String key = PREFIX_FOLDER + folder.getCanonicalPath();
+		if (folder.isDirectory() == false) {
+			inputs.put(key, "");
+			return;
+		}
+		final MessageDigest digest = newDigest();
+		addFolder(folder, "", digest);
+		inputs.put(key, toHex(digest.digest()));
+	}
+
+	private static void addFolder(File folder, String path,
+			MessageDigest digest) throws IOException {
+		final File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			final String filePath = path + "/" + file.getName();
+			if (file.isDirectory()) {
+				addFolder(file, filePath, digest);
+			} else {
+				digest.update((filePath + "|" + file.lastModified() + "|"
+						+ file.length() + "\n").getBytes("UTF-8"));
+			}
+		}
+	}
+
+	/**
+	 * Gets the digest of the content of the given file.
+	 *
+	 * @param file the file
+	 * @return the digest
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static String getDigest(File file) throws IOException {
+		final MessageDigest digest = newDigest();
+		final InputStream in = new FileInputStream(file);
+		try {
+			final byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Adds the given codegen options. The order of the options does not
+	 * matter.
+	 *
+	 * @param options the options
+	 */
+	public void addOptions(Map<String, String> options) {
+		for (Map.Entry<String, String> option : options.entrySet()) {
+			inputs.put(PREFIX_OPTION + option.getKey(), String.valueOf(option
+					.getValue()));
+		}
+	}
+
+	/**
+	 * Adds an arbitrary named value, e.g. the fingerprint of the codegen class
+	 * path.
+	 *
+	 * @param name the name
+	 * @param value the value
+	 */
+	public void addValue(String name, String value) {
+		inputs.put(PREFIX_VALUE + name, String.valueOf(value));
+	}
+
+	/**
+	 * Gets the digest of all the inputs.
+	 *
+	 * @return the digest
+	 */
+	public String getDigest() {
+		final MessageDigest digest = newDigest();
+		for (Map.Entry<String, String> input : inputs.entrySet()) {
+			try {
+				digest.update((input.getKey() + "=" + input.getValue() + "\n")
+						.getBytes("UTF-8"));
+			} catch (IOException e) {
+				// UTF-8 is always supported
+				throw new IllegalStateException(e);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Compares the inputs with the stored manifest.
+	 *
+	 * @return the inputs which were added, removed or changed since the
+	 * manifest has been stored, or an empty list if nothing has changed. If
+	 * there is no stored manifest, the manifest file itself is returned.
+	 */
+	public List<String> getChangedInputs() {
+		final List<String> result = new ArrayList<String>();
+		final Properties stored = load();
+		if (stored == null) {
+			result.add(manifestFile.getPath());
+			return result;
+		}
+		for (Map.Entry<String, String> input : inputs.entrySet()) {
+			if (input.getValue().equals(stored.getProperty(input.getKey())) == false) {
+				result.add(input.getKey());
+			}
+		}
+		for (Object key : stored.keySet()) {
+			if (inputs.containsKey(key) == false) {
+				result.add(key.toString());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if is up to date.
+	 *
+	 * @return true, if none of the inputs has changed since the manifest has
+	 * been stored
+	 */
+	public boolean isUpToDate() {
+		return getChangedInputs().isEmpty();
+	}
+
+	/**
+	 * Deletes the stored manifest. Should be called before the code
+	 * generation starts, so that a failed run is never considered up to date.
+	 */
+	public void delete() {
+		FileUtils.deleteQuietly(manifestFile);
+	}
+
+	/**
+	 * Stores the manifest. Should be called after a successful code
+	 * generation only.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void store() throws IOException {
+		final Properties properties = new Properties();
+		properties.putAll(inputs);
+		FileUtils.forceMkdir(manifestFile.getParentFile());
+		final OutputStream out = new FileOutputStream(manifestFile);
+		try {
+			properties.store(out, getDigest());
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	private Properties load() {
+		if (manifestFile.isFile() == false) {
+			return null;
+		}
+		final Properties result = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(manifestFile);
+			result.load(in);
+			return result;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		final StringBuilder result = new StringBuilder();
+		for (byte b : bytes) {
+			result.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+		}
+		return result.toString();
+	}
+}
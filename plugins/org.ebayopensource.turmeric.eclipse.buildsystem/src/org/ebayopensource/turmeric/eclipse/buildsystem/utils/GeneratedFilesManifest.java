@@ -0,0 +1,352 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.buildsystem.utils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.eclipse.buildsystem.BuildSystemActivator;
+import org.eclipse.core.resources.IProject;
+
+/**
+ * A manifest of the files the code generation has written into the generated
+ * folders of a project, each with a digest of its content and its
+ * modification time.
+ *
+ * <p>
+ * The code generation always rewrites every file it generates. After a run,
+ * a file whose content is the same as recorded gets its previous modification
+ * time back, so that neither the workspace refresh nor JDT see it as changed.
+ * A clean no longer empties the generated folders up front; instead the next
+ * run which writes any file deletes the recorded files it has not written
+ * again, i.e. the ones which would be missing from a fresh generation.
+ * </p>
+ *
+ * <p>
+ * Several builders generate into the same folders of a project, so every
+ * builder has its own manifest, which only records the files written by that
+ * builder. The generated folders are listed before and after a run, a file
+ * has been written by the run if it is new or its modification time or size
+ * has changed in between. The manifests are kept in the working location of
+ * the project, next to the {@link CodegenInputManifest}.
+ * </p>
+ */
+public class GeneratedFilesManifest {
+
+	private static final String FILE_PREFIX = "generated-files-";
+	private static final String FILE_EXTENSION = ".properties";
+
+	private static final String PREFIX_FILE = "file:";
+	private static final String KEY_CLEAN = "value:clean";
+
+	/**
+	 * The modification time resolution of the coarsest file systems. A file
+	 * rewritten this soon after its previous write could keep its
+	 * modification time, so it is not deleted as stale.
+	 */
+	private static final long TIMESTAMP_RESOLUTION = 2000;
+
+	private final File projectDir;
+	private final File manifestFile;
+	/** the recorded files by project relative path */
+	private final Map<String, GeneratedFile> files = new TreeMap<String, GeneratedFile>();
+	/** the files of the generated folders before the run by path */
+	private final Map<String, GeneratedFile> filesBefore = new HashMap<String, GeneratedFile>();
+	private boolean cleanRequested = false;
+	private long startTime = 0;
+
+	/**
+	 * Instantiates a new generated files manifest and loads the stored one,
+	 * if any.
+	 *
+	 * @param projectDir the root directory of the project
+	 * @param manifestFile the file the manifest is stored into
+	 */
+	public GeneratedFilesManifest(File projectDir, File manifestFile) {
+		super();
+		this.projectDir = projectDir;
+		this.manifestFile = manifestFile;
+		load();
+	}
+
+	/**
+	 * Gets the stored manifest of the given builder of the given project.
+	 *
+	 * @param project the project
+	 * @param builderId the id of the builder
+	 * @return the manifest, empty if none has been stored yet
+	 */
+	public static GeneratedFilesManifest getManifest(IProject project,
+			String builderId) {
+		return new GeneratedFilesManifest(project.getLocation().toFile(),
+				CodegenInputManifest.getManifestFile(project, FILE_PREFIX
+						+ builderId + FILE_EXTENSION));
+	}
+
+	/**
+	 * Gets the stored manifests of all the builders of the given project.
+	 *
+	 * @param project the project
+	 * @return the manifests, never null
+	 */
+	public static List<GeneratedFilesManifest> getManifests(IProject project) {
+		final List<GeneratedFilesManifest> result = new ArrayList<GeneratedFilesManifest>();
+		final File[] manifestFiles = project.getWorkingLocation(
+				BuildSystemActivator.PLUGIN_ID).toFile().listFiles();
+		if (manifestFiles != null) {
+			for (File manifestFile : manifestFiles) {
+				if (manifestFile.getName().startsWith(FILE_PREFIX)
+						&& manifestFile.getName().endsWith(FILE_EXTENSION)) {
+					result.add(new GeneratedFilesManifest(project
+							.getLocation().toFile(), manifestFile));
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if is empty.
+	 *
+	 * @return true, if no generated file has been recorded yet
+	 */
+	public boolean isEmpty() {
+		return files.isEmpty();
+	}
+
+	/**
+	 * Gets the number of recorded files.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return files.size();
+	}
+
+	/**
+	 * Checks if a clean has been requested and not yet carried out.
+	 *
+	 * @return true, if the stale files are deleted by the next run
+	 */
+	public boolean isCleanRequested() {
+		return cleanRequested;
+	}
+
+	/**
+	 * Requests the recorded files which are not written again by the next
+	 * code generation run to be deleted.
+	 */
+	public void requestClean() {
+		this.cleanRequested = true;
+	}
+
+	/**
+	 * Marks the start of a code generation run and lists the files of the
+	 * given folders. Must be called before the code generation starts.
+	 *
+	 * @param folders the project relative paths of the generated folders
+	 */
+	public void begin(Collection<String> folders) {
+		this.startTime = System.currentTimeMillis();
+		filesBefore.clear();
+		for (String folder : folders) {
+			for (File file : listFiles(new File(projectDir, folder))) {
+				filesBefore.put(getPath(file), new GeneratedFile(null, file
+						.lastModified(), file.length()));
+			}
+		}
+	}
+
+	/**
+	 * Records the files of the given folders after a successful code
+	 * generation run. Files which have been rewritten with the recorded
+	 * content get their recorded modification time back. Files the run has
+	 * not written are recorded as before, so the ones written by another
+	 * builder are left alone. If a clean has been requested and the run has
+	 * written anything, the recorded files the run has not written are
+	 * deleted.
+	 *
+	 * @param folders the project relative paths of the generated folders, as
+	 * given to {@link #begin(Collection)}
+	 * @return the project relative paths of the deleted files
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public List<String> update(Collection<String> folders) throws IOException {
+		final Map<String, GeneratedFile> previous = new HashMap<String, GeneratedFile>(
+				files);
+		final Map<String, File> untouched = new TreeMap<String, File>();
+		files.clear();
+		int written = 0;
+		for (String folder : folders) {
+			for (File file : listFiles(new File(projectDir, folder))) {
+				final String path = getPath(file);
+				final GeneratedFile recorded = previous.get(path);
+				final GeneratedFile before = filesBefore.get(path);
+				if (before != null && before.isSameFile(file)) {
+					// not written by the run
+					if (recorded != null) {
+						untouched.put(path, file);
+						files.put(path, recorded);
+					}
+					continue;
+				}
+				written++;
+				final String digest = CodegenInputManifest.getDigest(file);
+				if (recorded != null && recorded.digest.equals(digest)) {
+					file.setLastModified(recorded.lastModified);
+				}
+				files.put(path, new GeneratedFile(digest, file.lastModified(),
+						file.length()));
+			}
+		}
+		final List<String> result = new ArrayList<String>();
+		if (cleanRequested && written > 0) {
+			for (Map.Entry<String, File> entry : untouched.entrySet()) {
+				final File file = entry.getValue();
+				if (file.lastModified() < startTime - TIMESTAMP_RESOLUTION
+						&& file.delete()) {
+					files.remove(entry.getKey());
+					result.add(entry.getKey());
+				}
+			}
+			cleanRequested = false;
+		}
+		return result;
+	}
+
+	/**
+	 * Deletes the stored manifest.
+	 */
+	public void delete() {
+		FileUtils.deleteQuietly(manifestFile);
+	}
+
+	/**
+	 * Stores the manifest.
+	 *
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void store() throws IOException {
+		final Properties properties = new Properties();
+		for (Map.Entry<String, GeneratedFile> entry : files.entrySet()) {
+			properties.setProperty(PREFIX_FILE + entry.getKey(), entry
+					.getValue().toString());
+		}
+		if (cleanRequested) {
+			properties.setProperty(KEY_CLEAN, Boolean.TRUE.toString());
+		}
+		FileUtils.forceMkdir(manifestFile.getParentFile());
+		final OutputStream out = new FileOutputStream(manifestFile);
+		try {
+			properties.store(out, null);
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	private void load() {
+		if (manifestFile.isFile() == false) {
+			return;
+		}
+		final Properties properties = new Properties();
+		InputStream in = null;
+		try {
+			in = new FileInputStream(manifestFile);
+			properties.load(in);
+		} catch (IOException e) {
+			// start over with an empty manifest
+			return;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+		for (String key : properties.stringPropertyNames()) {
+			if (key.startsWith(PREFIX_FILE)) {
+				final GeneratedFile file = GeneratedFile.valueOf(properties
+						.getProperty(key));
+				if (file != null) {
+					files.put(key.substring(PREFIX_FILE.length()), file);
+				}
+			}
+		}
+		cleanRequested = Boolean.valueOf(properties.getProperty(KEY_CLEAN));
+	}
+
+	private String getPath(File file) {
+		return file.getPath().substring(projectDir.getPath().length() + 1)
+				.replace(File.separatorChar, '/');
+	}
+
+	private static List<File> listFiles(File dir) {
+		final List<File> result = new ArrayList<File>();
+		final File[] children = dir.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				if (child.isDirectory()) {
+					result.addAll(listFiles(child));
+				} else {
+					result.add(child);
+				}
+			}
+		}
+		return result;
+	}
+
+	private static class GeneratedFile {
+		private final String digest;
+		private final long lastModified;
+		private final long length;
+
+		private GeneratedFile(String digest, long lastModified, long length) {
+			super();
+			this.digest = digest;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		private static GeneratedFile valueOf(String value) {
+			final String[] parts = StringUtils.split(value, ',');
+			if (parts == null || parts.length != 3) {
+				return null;
+			}
+			try {
+				return new GeneratedFile(parts[0], Long.parseLong(parts[1]),
+						Long.parseLong(parts[2]));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+		}
+
+		/**
+		 * The file has not been written since it was recorded.
+		 */
+		private boolean isSameFile(File file) {
+			return file.lastModified() == lastModified
+					&& file.length() == length;
+		}
+
+		@Override
+		public String toString() {
+			return digest + "," + lastModified + "," + length;
+		}
+	}
+}
@@ -8,9 +8,13 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.codegen;
 
+import org.ebayopensource.turmeric.eclipse.codegen.utils.ClassLoaderPoolInvalidator;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAClassLoaderPool;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
 import org.osgi.framework.BundleContext;
 
 
@@ -25,6 +29,8 @@ public class Activator extends Plugin {
 	// The shared instance
 	private static Activator plugin;
 	
+	private final ClassLoaderPoolInvalidator classLoaderPoolInvalidator = new ClassLoaderPoolInvalidator();
+	
 	/**
 	 * The constructor.
 	 */
@@ -42,6 +48,8 @@ public class Activator extends Plugin {
     	buf.append("SOAPlugin.start - ");
     	buf.append(JDTUtil.getBundleInfo(context.getBundle(), SOALogger.DEBUG));
         SOALogger.getLogger().info(buf);
+        JavaCore.addElementChangedListener(classLoaderPoolInvalidator, 
+        		ElementChangedEvent.POST_CHANGE);
 	}
 
 	/**
@@ -49,6 +57,8 @@ public class Activator extends Plugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		JavaCore.removeElementChangedListener(classLoaderPoolInvalidator);
+		SOAClassLoaderPool.getInstance().clear();
 		plugin = null;
 		super.stop(context);
 	}
@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.codegen.utils;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAClassLoaderPool;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+
+/**
+ * Drops the pooled codegen class loaders of a project as soon as the Java
+ * model reports a change of its class path, or the project is closed or
+ * removed.
+ *
+ * @see SOAClassLoaderPool
+ */
+public class ClassLoaderPoolInvalidator implements IElementChangedListener {
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_CLOSED;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		if (delta == null) {
+			return;
+		}
+		final IJavaElement element = delta.getElement();
+		if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				processDelta(child);
+			}
+		} else if (element.getElementType() == IJavaElement.JAVA_PROJECT) {
+			if (delta.getKind() == IJavaElementDelta.REMOVED
+					|| (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+				final String projectName = element.getJavaProject()
+						.getElementName();
+				if (SOALogger.DEBUG) {
+					logger.debug("Classpath changed, invalidating codegen class loaders of ",
+							projectName);
+				}
+				SOAClassLoaderPool.getInstance().invalidate(projectName);
+			}
+		}
+	}
+}
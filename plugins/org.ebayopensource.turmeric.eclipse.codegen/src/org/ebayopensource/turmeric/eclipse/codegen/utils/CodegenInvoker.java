@@ -8,10 +8,15 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.codegen.utils;
 
+import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.NullArgumentException;
 import org.apache.commons.lang.StringUtils;
 import org.ebayopensource.turmeric.eclipse.codegen.model.IMultiCodeGenModel;
@@ -19,24 +24,31 @@ import org.ebayopensource.turmeric.eclipse.codegen.model.IMultiCodeGenModel.IMul
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.model.BaseCodeGenModel;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAClassLoaderPool;
 import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
-import org.ebayopensource.turmeric.eclipse.utils.collections.MapUtil;
+import org.ebayopensource.turmeric.eclipse.utils.collections.MapUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
 import org.eclipse.core.resources.IProject;
+import org.osgi.framework.Bundle;
 
 /**
  * This is the main class involved in code generation and can be thought of as
  * the heart of code generation. Interfaces plugin with SOA tools code
  * generation. This touch point resolves the class path, sets the class loader
- * and finally calls the code generation engine. Also expose the class loader
- * for clients to manipulate the properties if required.
+ * and finally calls the code generation engine. Clients needing a different
+ * class loader describe it with {@link #init(IProject, String, Set, Set, List)}.
  * 
  * @author smathew
  * 
  */
 public class CodegenInvoker {
 
-	private SOAPluginClassLoader soaPluginClassLoader;
+	private String projectName;
+	private String classLoaderName;
+	private Set<URL> urls;
+	private Set<URL> classPathURLs;
+	private List<Bundle> pluginBundles;
 	private static final SOALogger logger = SOALogger.getLogger();
 
 	/**
@@ -53,6 +65,11 @@ public class CodegenInvoker {
 	 * or SUN java class loader, reason being those class loaders seem to be
 	 * using a locked stream for reading the classes from a jar file and the
 	 * custom class loader address this issue.
+	 * 
+	 * The class loader is leased from {@link SOAClassLoaderPool} for every
+	 * {@link #execute(BaseCodeGenModel)}, so that the code generation class
+	 * graph is only loaded again once the class path changes, and so that
+	 * concurrent code generation runs never share a class loader.
 	 *
 	 * @param project the project
 	 * @return the codegen invoker
@@ -62,14 +79,43 @@ public class CodegenInvoker {
 		if (project == null) {
 			throw new NullArgumentException("Project can not be null");
 		}
-		Set<URL> urls = JDTUtil.resolveClasspathToURLs(project);
-
-		SOAPluginClassLoader classLoader = new SOAPluginClassLoader("Codegen",
-				urls.toArray(new URL[0]));
+		return init(project, "Codegen", null, null, null);
+	}
 
-		CodegenInvoker codegenInvoker = new CodegenInvoker();
-		codegenInvoker.setSoaPluginClassLoader(classLoader);
-		return codegenInvoker;
+	/**
+	 * Initializes this invoker with a variant of the class loader of the
+	 * project. Pooled class loaders are shared, so they must not be modified
+	 * after creation. Every variant is pooled under its own name instead.
+	 *
+	 * @param project the project
+	 * @param classLoaderName the name of the class loader variant
+	 * @param urls the class path, or null for the resolved project class path
+	 * @param classPathURLs the class path reported by the class loader, or
+	 * null for the loaded one
+	 * @param pluginBundles the plugin bundles of the class loader, or null
+	 * @return the codegen invoker
+	 * @throws Exception the exception
+	 */
+	public static CodegenInvoker init(IProject project, String classLoaderName,
+			Set<URL> urls, Set<URL> classPathURLs, List<Bundle> pluginBundles)
+			throws Exception {
+		if (project == null) {
+			throw new NullArgumentException("Project can not be null");
+		}
+		final long start = BuildMetrics.getDefault().start();
+		try {
+			CodegenInvoker codegenInvoker = new CodegenInvoker();
+			codegenInvoker.projectName = project.getName();
+			codegenInvoker.classLoaderName = classLoaderName;
+			codegenInvoker.urls = urls != null ? urls : JDTUtil
+					.resolveClasspathToURLs(project);
+			codegenInvoker.classPathURLs = classPathURLs;
+			codegenInvoker.pluginBundles = pluginBundles;
+			return codegenInvoker;
+		} finally {
+			BuildMetrics.getDefault().record(project.getName(),
+					BuildMetrics.PHASE_CODEGEN_INIT, start);
+		}
 	}
 
 	/**
@@ -91,9 +137,13 @@ public class CodegenInvoker {
 		Map<String, String> paramMap = model.getCodeGenOptions();
 		ClassLoader oldClassLoader = Thread.currentThread()
 				.getContextClassLoader();
+		final SOAPluginClassLoader soaPluginClassLoader = SOAClassLoaderPool
+				.getInstance().acquire(projectName, classLoaderName, urls,
+						classPathURLs, pluginBundles);
+		final int loadedClassCount = soaPluginClassLoader.getLoadedClassCount();
+		final long start = BuildMetrics.getDefault().start();
 		try {
-			Thread.currentThread().setContextClassLoader(
-					getSoaPluginClassLoader());
+			Thread.currentThread().setContextClassLoader(soaPluginClassLoader);
 			if (model instanceof IMultiCodeGenModel) {
 				for (IMultiCodeGenModelIterator iterator = ((IMultiCodeGenModel) model)
 						.iterator(); iterator.hasNext();) {
@@ -111,6 +161,15 @@ public class CodegenInvoker {
 			}
 		} finally {
 			Thread.currentThread().setContextClassLoader(oldClassLoader);
+			BuildMetrics.getDefault().record(projectName,
+					BuildMetrics.PHASE_CODEGEN, start);
+			if (SOALogger.DEBUG) {
+				logger.debug("Classes loaded for ", model.getGenType(), ": ",
+						soaPluginClassLoader.getLoadedClassCount()
+								- loadedClassCount, ", ",
+						SOAClassLoaderPool.getInstance());
+			}
+			SOAClassLoaderPool.getInstance().release(soaPluginClassLoader);
 		}
 		return true;
 	}
@@ -134,18 +193,32 @@ public class CodegenInvoker {
 			paramMap.put(BaseCodeGenModel.PARAM_JDK_HOME, jdkHome);
 	}
 
-	/**
-	 * Usual getter.
+	/**
+	 * Gets the fingerprint of the jars of the codegen class path, which
+	 * changes with the version of any of the codegen jars.
 	 *
-	 * @return the soa plugin class loader
+	 * @return the class path fingerprint
+	 * @see SOAClassLoaderPool#fingerprint(java.util.Collection)
 	 */
-	public SOAPluginClassLoader getSoaPluginClassLoader() {
-		return soaPluginClassLoader;
+	public String getClassPathFingerprint() {
+		final List<URL> jarURLs = new ArrayList<URL>();
+		for (URL url : urls) {
+			final File file = FileUtils.toFile(url);
+			if (file != null && file.isFile()) {
+				jarURLs.add(url);
+			}
+		}
+		return SOAClassLoaderPool.fingerprint(jarURLs);
 	}
 
-	private void setSoaPluginClassLoader(
-			SOAPluginClassLoader soaPluginClassLoader) {
-		this.soaPluginClassLoader = soaPluginClassLoader;
+	/**
+	 * Gets the class path of the code generation class loader.
+	 *
+	 * @return the class path urls
+	 */
+	public Set<URL> getClassPathURLs() {
+		return Collections.unmodifiableSet(classPathURLs != null ? classPathURLs
+				: urls);
 	}
 
 }
@@ -100,6 +100,8 @@ public class TurmericCoreActivator extends Plugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		//write the queued records while the plugin log is still available
+		SOALogger.getLogHandler().close();
 		plugin = null;
 		super.stop(context);
 	}
@@ -0,0 +1,339 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+
+package org.ebayopensource.turmeric.eclipse.core.logging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+
+/**
+ * <p>A handler that hands the log records to a background thread, which
+ * publishes them to the delegate handler in batches. The logging thread, e.g.
+ * a builder running codegen, does not wait for the Eclipse log.</p>
+ *
+ * <p>The queue is bounded. When it is full, the debug records (below
+ * <code>INFO</code>) are discarded first, then the other records below the
+ * protected level. Records at or above the protected level, by default
+ * <code>SEVERE</code>, are never discarded; the logging thread waits for room
+ * instead. A protected level of <code>ALL</code> therefore makes every caller
+ * wait rather than lose records. The number of discarded records is reported
+ * to the delegate with the next batch.</p>
+ *
+ * <p>{@link #flush()} waits until the queued records are published and
+ * {@link #close()} publishes them and stops the background thread. Records
+ * published after that go to the delegate directly.</p>
+ */
+public class AsyncLogHandler extends Handler {
+	/**
+	 * The system property that turns the asynchronous plugin log on.
+	 */
+	public static final String PROP_ENABLED = "org.ebayopensource.turmeric.eclipse.logging.async";
+
+	/**
+	 * The system property with the maximum number of queued records.
+	 */
+	public static final String PROP_CAPACITY = PROP_ENABLED + ".capacity";
+
+	/**
+	 * The system property with the level from which records are never discarded.
+	 */
+	public static final String PROP_PROTECTED_LEVEL = PROP_ENABLED + ".protectedLevel";
+
+	/** The default maximum number of queued records. */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/** The maximum number of records published before the delegate is flushed. */
+	public static final int DEFAULT_BATCH_SIZE = 500;
+
+	private final Handler delegate;
+	private final int capacity;
+	private final int batchSize;
+	private final Level protectedLevel;
+	private final ArrayDeque<LogRecord> queue = new ArrayDeque<LogRecord>();
+	private final Thread writer;
+
+	// guarded by queue
+	private int debugCount = 0;
+	private long discardedCount = 0;
+	private long reportedCount = 0;
+	private boolean writing = false;
+	private boolean closed = false;
+
+	/**
+	 * Instantiates a new asynchronous handler with the default capacity that
+	 * never discards <code>SEVERE</code> records.
+	 *
+	 * @param delegate the handler that publishes the records
+	 */
+	public AsyncLogHandler(Handler delegate) {
+		this(delegate, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE, Level.SEVERE);
+	}
+
+	/**
+	 * Instantiates a new asynchronous handler.
+	 *
+	 * @param delegate the handler that publishes the records
+	 * @param capacity the maximum number of queued records
+	 * @param batchSize the maximum number of records published before the
+	 * delegate is flushed
+	 * @param protectedLevel the level from which records are never discarded
+	 */
+	public AsyncLogHandler(Handler delegate, int capacity, int batchSize,
+			Level protectedLevel) {
+		super();
+		if (delegate == null) {
+			throw new IllegalArgumentException("delegate must not be null");
+		}
+		if (capacity < 1 || batchSize < 1) {
+			throw new IllegalArgumentException("capacity and batch size must be positive: "
+					+ capacity + ", " + batchSize);
+		}
+		this.delegate = delegate;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.protectedLevel = protectedLevel != null ? protectedLevel : Level.SEVERE;
+		this.writer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				writeRecords();
+			}
+		}, "Turmeric Log Writer");
+		this.writer.setDaemon(true);
+		this.writer.start();
+	}
+
+	/**
+	 * Creates the asynchronous handler configured by the system properties
+	 * {@link #PROP_CAPACITY} and {@link #PROP_PROTECTED_LEVEL} if
+	 * {@link #PROP_ENABLED} is set, otherwise returns the delegate itself.
+	 *
+	 * @param delegate the handler that publishes the records
+	 * @return the handler to register
+	 */
+	public static Handler wrap(Handler delegate) {
+		if (Boolean.getBoolean(PROP_ENABLED) == false) {
+			return delegate;
+		}
+		Level protectedLevel = Level.SEVERE;
+		final String value = System.getProperty(PROP_PROTECTED_LEVEL);
+		if (value != null) {
+			try {
+				protectedLevel = Level.parse(value.trim());
+			} catch (IllegalArgumentException e) {
+				//keep the default
+				e.printStackTrace();
+			}
+		}
+		return new AsyncLogHandler(delegate,
+				Math.max(1, Integer.getInteger(PROP_CAPACITY, DEFAULT_CAPACITY)),
+				DEFAULT_BATCH_SIZE, protectedLevel);
+	}
+
+	/**
+	 * Gets the delegate.
+	 *
+	 * @return the handler that publishes the records
+	 */
+	public Handler getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Gets the discarded count.
+	 *
+	 * @return the number of records discarded because the queue was full
+	 */
+	public long getDiscardedCount() {
+		synchronized (queue) {
+			return discardedCount;
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+	 */
+	@Override
+	public void publish(LogRecord record) {
+		if (record == null || isLoggable(record) == false) {
+			return;
+		}
+		// the JDK infers a missing caller lazily from the current stack,
+		// which would be the writer thread later on
+		record.getSourceClassName();
+		if (enqueue(record) == false) {
+			delegate.publish(record);
+		}
+	}
+
+	/**
+	 * @return false if the record has to be published on the calling thread
+	 */
+	private boolean enqueue(LogRecord record) {
+		if (Thread.currentThread() == writer) {
+			//logged by the delegate itself, waiting would never end
+			return false;
+		}
+		final boolean discardable = isDiscardable(record);
+		final boolean debug = discardable && isDebug(record);
+		synchronized (queue) {
+			while (closed == false && queue.size() >= capacity) {
+				if (debug) {
+					discardedCount++;
+					return true;
+				} else if (debugCount > 0) {
+					discardOldestDebug();
+				} else if (discardable) {
+					discardedCount++;
+					return true;
+				} else {
+					try {
+						queue.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return false;
+					}
+				}
+			}
+			if (closed) {
+				return false;
+			}
+			queue.add(record);
+			if (debug) {
+				debugCount++;
+			}
+			queue.notifyAll();
+		}
+		return true;
+	}
+
+	private boolean isDiscardable(LogRecord record) {
+		return record.getLevel().intValue() < protectedLevel.intValue();
+	}
+
+	private static boolean isDebug(LogRecord record) {
+		return record.getLevel().intValue() < Level.INFO.intValue();
+	}
+
+	private void discardOldestDebug() {
+		for (Iterator<LogRecord> it = queue.iterator(); it.hasNext();) {
+			final LogRecord queued = it.next();
+			if (isDebug(queued) && isDiscardable(queued)) {
+				it.remove();
+				debugCount--;
+				discardedCount++;
+				return;
+			}
+		}
+	}
+
+	private void writeRecords() {
+		final List<LogRecord> batch = new ArrayList<LogRecord>(batchSize);
+		while (true) {
+			long discarded = 0;
+			synchronized (queue) {
+				while (queue.isEmpty() && closed == false) {
+					try {
+						queue.wait();
+					} catch (InterruptedException e) {
+						//only close() stops the writer
+					}
+				}
+				if (queue.isEmpty()) {
+					//closed and nothing left to write
+					queue.notifyAll();
+					return;
+				}
+				while (batch.size() < batchSize && queue.isEmpty() == false) {
+					final LogRecord record = queue.poll();
+					if (isDebug(record) && isDiscardable(record)) {
+						debugCount--;
+					}
+					batch.add(record);
+				}
+				discarded = discardedCount - reportedCount;
+				reportedCount = discardedCount;
+				writing = true;
+				queue.notifyAll();
+			}
+			if (discarded > 0) {
+				final LogRecord record = new LogRecord(Level.WARNING,
+						"Discarded " + discarded + " log records, the log queue was full");
+				record.setLoggerName(AsyncLogHandler.class.getName());
+				record.setSourceClassName(AsyncLogHandler.class.getName());
+				record.setSourceMethodName("publish");
+				batch.add(0, record);
+			}
+			try {
+				for (LogRecord record : batch) {
+					delegate.publish(record);
+				}
+				delegate.flush();
+			} catch (RuntimeException e) {
+				reportError(null, e, ErrorManager.WRITE_FAILURE);
+			} finally {
+				batch.clear();
+				synchronized (queue) {
+					writing = false;
+					queue.notifyAll();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Waits until all queued records are published and flushes the delegate.
+	 *
+	 * @see java.util.logging.Handler#flush()
+	 */
+	@Override
+	public void flush() {
+		if (Thread.currentThread() != writer) {
+			synchronized (queue) {
+				while ((queue.isEmpty() == false || writing) && writer.isAlive()) {
+					try {
+						queue.wait();
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						break;
+					}
+				}
+			}
+		}
+		delegate.flush();
+	}
+
+	/**
+	 * Publishes the queued records, stops the background thread and closes
+	 * the delegate.
+	 *
+	 * @see java.util.logging.Handler#close()
+	 */
+	@Override
+	public void close() throws SecurityException {
+		synchronized (queue) {
+			closed = true;
+			queue.notifyAll();
+		}
+		if (Thread.currentThread() != writer) {
+			try {
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		delegate.close();
+	}
+}
@@ -13,7 +13,8 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.OutputStream;
 import java.net.URL;
-import java.util.Hashtable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
@@ -31,11 +32,17 @@ import org.eclipse.core.runtime.Platform;
 
 /**
  * A wrapper class for logging.
+ * 
+ * <p>The logging methods check the level first, so a suppressed call neither
+ * formats the messages nor looks up the calling class and method. Looking up
+ * an existing logger does not lock.</p>
  * @author Yang Yu(yayu@ebay.com)
  *
  */
 public final class SOALogger extends Logger{ 
-	private static Hashtable<String,SOALogger> loggers = null;
+	private static final ConcurrentMap<String,SOALogger> loggers = new ConcurrentHashMap<String,SOALogger>();
+	
+	private static final CallerResolver callerResolver = new CallerResolver();
 	
 	//public static final String USAGE_TRACKING = "!USAGE_TRACKING: ";
     
@@ -50,6 +57,9 @@ public final class SOALogger extends Logger{
 	
 	private static final PluginLogDelegateHandler pluginLogHandler = new PluginLogDelegateHandler();
 	
+	/** The plugin log handler, or the asynchronous handler in front of it. */
+	private static final Handler logHandler = AsyncLogHandler.wrap(pluginLogHandler);
+	
 	/** The Constant GLOBAL_LOGGER. */
 	public static final Logger GLOBAL_LOGGER = Logger.getLogger("");
 	
@@ -64,8 +74,7 @@ public final class SOALogger extends Logger{
 		boolean trace = false;
 		ConsoleHandler consoleHandler = null;
 		try {
-			loggers = new Hashtable<String,SOALogger>();
-			GLOBAL_LOGGER.addHandler( pluginLogHandler );
+			GLOBAL_LOGGER.addHandler( logHandler );
 			String value = Platform.getDebugOption("org.ebayopensource.turmeric.eclipse.logging/debug");
 			trace = "true".equalsIgnoreCase(value);
 
@@ -151,7 +160,7 @@ public final class SOALogger extends Logger{
 	 * @return the log handler
 	 */
 	public static Handler getLogHandler() {
-		return pluginLogHandler;
+		return logHandler;
 	}
 	
 	
@@ -197,16 +206,26 @@ public final class SOALogger extends Logger{
 	 * @param clazz the clazz
 	 * @return An instance of <code>LogManager</code>
 	 */
-	public static synchronized SOALogger getLogger(String clazz)
+	public static SOALogger getLogger(String clazz)
+	{
+		final SOALogger logger = loggers.get(clazz);
+		if (logger != null) {
+			return logger;
+		}
+		return createLogger(clazz);
+	}
+	
+	private static synchronized SOALogger createLogger(String clazz)
 	{
 		java.util.logging.LogManager manager = java.util.logging.LogManager.getLogManager();
 		Logger result = manager.getLogger(clazz);
 		if (result instanceof SOALogger) {
+			// still being configured by this thread, it is published below
 		    return (SOALogger)result;
 		}
 		else if (result != null)
 		{//there is an existing logger instance
-			if (loggers.keySet().contains(clazz))
+			if (loggers.containsKey(clazz))
 			{
 				return loggers.get(clazz);
 			}
@@ -235,6 +254,8 @@ public final class SOALogger extends Logger{
 			//ignore the issue
 			e.printStackTrace();
 		}
+		// only published once configured, the lookup does not lock
+		loggers.put(clazz, logger);
 		return logger;
 	}
 	
@@ -262,13 +283,35 @@ public final class SOALogger extends Logger{
 	}
 	
 	/**
-	 * The logger name is automatically obtained.
+	 * The logger name is automatically obtained from the calling class. The
+	 * lookup still walks the call stack, so callers should keep the logger in
+	 * a static field instead of calling this method on every use.
 	 * @return An instance of <code>LogManager</code>
 	 */
 	public static SOALogger getLogger()
 	{
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-		return getLogger(elements[1].getClassName());
+		// [0] the resolver, [1] this method, [2] the caller
+		return getLogger(callerResolver.getCallerClass(2).getName());
+	}
+	
+	/**
+	 * Gives access to the classes on the call stack, which is a lot cheaper
+	 * than filling in the stack trace of a throwable.
+	 */
+	private static final class CallerResolver extends SecurityManager {
+		Class<?> getCallerClass(int depth) {
+			return getClassContext()[depth];
+		}
+	}
+	
+	/**
+	 * Logs the message with the class and method that called the public
+	 * logging method. Only called once the level is known to be enabled.
+	 */
+	private void logCaller(Level level, String message, Throwable cause) {
+		// [0] this method, [1] the logging method, [2] the caller
+		final StackTraceElement caller = new Throwable().getStackTrace()[2];
+		logp(level, caller.getClassName(), caller.getMethodName(), message, cause);
 	}
 	
 	
@@ -282,8 +325,9 @@ public final class SOALogger extends Logger{
 	 * @see java.util.logging.Level#INFO
 	 */
 	public void info(Object... msgs) {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-    	logp(Level.INFO, elements[1].getClassName(), elements[1].getMethodName(), StringUtil.toString(msgs));
+		if (isLoggable(Level.INFO)) {
+			logCaller(Level.INFO, StringUtil.toString(msgs), null);
+		}
 	}
 	
 	/**
@@ -308,9 +352,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void warning(Object... messages)
     {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-    	logp(Level.WARNING, elements[1].getClassName(), elements[1].getMethodName(), 
-    			StringUtil.toString(messages));
+		if (isLoggable(Level.WARNING)) {
+			logCaller(Level.WARNING, StringUtil.toString(messages), null);
+		}
     }
 	
 	/**
@@ -322,9 +366,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void warning(Throwable cause, Object... messages)
     {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-    	logp(Level.WARNING, elements[1].getClassName(), elements[1].getMethodName(), 
-    			StringUtil.toString(messages), cause);
+		if (isLoggable(Level.WARNING)) {
+			logCaller(Level.WARNING, StringUtil.toString(messages), cause);
+		}
     }
     /**
      * <p>This method will work if the <code>WARNING</code> logging level is enabled.</p>
@@ -334,8 +378,9 @@ public final class SOALogger extends Logger{
      */
     public void warning(Object message, Throwable cause)
     {
-    	StackTraceElement[] elements = new Throwable().getStackTrace();
-    	logp(Level.WARNING, elements[1].getClassName(), elements[1].getMethodName(), String.valueOf(message), cause);
+    	if (isLoggable(Level.WARNING)) {
+    		logCaller(Level.WARNING, String.valueOf(message), cause);
+    	}
     }
     
     //////////////////////////////////////////
@@ -348,8 +393,9 @@ public final class SOALogger extends Logger{
      * @see java.util.logging.Level#SEVERE
      */
 	public void error(String msg) {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-        logp(Level.SEVERE, elements[1].getClassName(), elements[1].getMethodName(), String.valueOf(msg));
+		if (isLoggable(Level.SEVERE)) {
+			logCaller(Level.SEVERE, String.valueOf(msg), null);
+		}
 	}
 	
 	/**
@@ -361,8 +407,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void error(Object message, Throwable cause)
     {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-        logp(Level.SEVERE, elements[1].getClassName(), elements[1].getMethodName(), String.valueOf(message), cause);
+		if (isLoggable(Level.SEVERE)) {
+			logCaller(Level.SEVERE, String.valueOf(message), cause);
+		}
     }
 	
 	/**
@@ -373,8 +420,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void error(Throwable cause)
     {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-        logp(Level.SEVERE, elements[1].getClassName(), elements[1].getMethodName(),cause.getLocalizedMessage(), cause);
+		if (isLoggable(Level.SEVERE)) {
+			logCaller(Level.SEVERE, cause.getLocalizedMessage(), cause);
+		}
     }
 	
 	/**
@@ -384,8 +432,10 @@ public final class SOALogger extends Logger{
 	 * @see java.util.logging.Level#SEVERE
 	 */
 	public void throwing(Throwable thrown) {
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-		throwing(elements[1].getClassName(), elements[1].getMethodName(), thrown);
+		if (isLoggable(Level.FINER)) {
+			StackTraceElement[] elements = new Throwable().getStackTrace();
+			throwing(elements[1].getClassName(), elements[1].getMethodName(), thrown);
+		}
 	}
     
     //////////////////////////////////////////
@@ -399,8 +449,9 @@ public final class SOALogger extends Logger{
      */
     public void debug(Object... msgs)
     {
-    	StackTraceElement[] elements = new Throwable().getStackTrace();
-        logp(Level.FINE, elements[1].getClassName(), elements[1].getMethodName(), StringUtil.toString(msgs));
+    	if (isLoggable(Level.FINE)) {
+    		logCaller(Level.FINE, StringUtil.toString(msgs), null);
+    	}
     }
     
 	//////////////////////////////////////////
@@ -414,6 +465,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void entering(Object... params)
 	{
+		if (isLoggable(Level.FINER) == false) {
+			return;
+		}
 		StackTraceElement[] elements = new Throwable().getStackTrace();
 		if (params != null)
 			entering(elements[1].getClassName(), elements[1].getMethodName(), params);
@@ -427,8 +481,10 @@ public final class SOALogger extends Logger{
 	 */
 	public void exiting()
 	{
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-		exiting(elements[1].getClassName(), elements[1].getMethodName());
+		if (isLoggable(Level.FINER)) {
+			StackTraceElement[] elements = new Throwable().getStackTrace();
+			exiting(elements[1].getClassName(), elements[1].getMethodName());
+		}
 	}
 
 	/**
@@ -439,7 +495,9 @@ public final class SOALogger extends Logger{
 	 */
 	public void exiting(Object result)
 	{
-		StackTraceElement[] elements = new Throwable().getStackTrace();
-		exiting(elements[1].getClassName(), elements[1].getMethodName(), result);
+		if (isLoggable(Level.FINER)) {
+			StackTraceElement[] elements = new Throwable().getStackTrace();
+			exiting(elements[1].getClassName(), elements[1].getMethodName(), result);
+		}
 	}
 }
@@ -0,0 +1,306 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.errorlibrary.properties.registry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.model.PropertiesSOAError;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.model.PropertiesSOAErrorDomain;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.model.PropertiesSOAErrorLibrary;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.ui.ErrorlibraryPropertiesUIActivator;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAErrDomain;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAErrLibrary;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAError;
+
+/**
+ * An on-disk snapshot of the domains and errors of the error libraries which
+ * are loaded from jars, so that the {@link TurmericErrorRegistry} does not
+ * have to open and parse every jar again. Every library is keyed by its name
+ * and stamped with its version and the path, last modification time and size
+ * of its jar; a library which has been installed again is therefore loaded
+ * again.
+ *
+ * <p>
+ * The error libraries of the workspace are never taken from the snapshot,
+ * since they are edited in place.
+ * </p>
+ */
+public class ErrorRegistrySnapshot {
+
+	/** The file name of the snapshot in the plugin state location. */
+	public static final String FILE_NAME = "error-registry.snapshot";
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean dirty = false;
+
+	/**
+	 * Instantiates a new, empty error registry snapshot.
+	 */
+	public ErrorRegistrySnapshot() {
+		super();
+	}
+
+	/**
+	 * Gets the snapshot file in the state location of this plugin.
+	 *
+	 * @return the default snapshot file
+	 */
+	public static File getDefaultFile() {
+		return ErrorlibraryPropertiesUIActivator.getDefault()
+				.getStateLocation().append(FILE_NAME).toFile();
+	}
+
+	/**
+	 * Gets the error library of the given name, version and jar if the jar
+	 * has not changed since the library has been put into the snapshot. This
+	 * check only stats the jar.
+	 *
+	 * @param name the error library name
+	 * @param version the error library version
+	 * @param jarFile the jar of the error library
+	 * @return the error library, or null if it is not in the snapshot or has
+	 * changed
+	 */
+	public synchronized ISOAErrLibrary get(String name, String version,
+			File jarFile) {
+		final Entry entry = entries.get(name);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isUpToDate(version, jarFile) == false) {
+			entries.remove(name);
+			dirty = true;
+			return null;
+		}
+		return entry.library;
+	}
+
+	/**
+	 * Adds or replaces the given error library loaded from the given jar.
+	 *
+	 * @param library the error library
+	 * @param jarFile the jar of the error library
+	 */
+	public synchronized void put(ISOAErrLibrary library, File jarFile) {
+		entries.put(library.getName(), new Entry(library, jarFile
+				.getAbsolutePath(), jarFile.lastModified(), jarFile.length()));
+		dirty = true;
+	}
+
+	/**
+	 * Drops the error libraries which are not in the given collection, e.g.
+	 * because they have been removed from the build system or are projects of
+	 * the workspace now.
+	 *
+	 * @param names the names of the error libraries to keep
+	 */
+	public synchronized void retainAll(Collection<String> names) {
+		if (entries.keySet().retainAll(names)) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Gets the number of error libraries in the snapshot.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Stores the snapshot into the given file if it has changed since it has
+	 * been loaded or stored. Failures are logged only.
+	 *
+	 * @param file the snapshot file
+	 */
+	public void storeIfDirty(File file) {
+		synchronized (this) {
+			if (dirty == false) {
+				return;
+			}
+		}
+		try {
+			store(file);
+		} catch (IOException e) {
+			logger.warning("Failed to store the error registry snapshot", e);
+		}
+	}
+
+	/**
+	 * Loads a snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @return the snapshot, or null if the file does not exist, is corrupted
+	 * or has been written by an incompatible version
+	 */
+	public static ErrorRegistrySnapshot load(File file) {
+		if (file.isFile() == false) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			final ErrorRegistrySnapshot result = new ErrorRegistrySnapshot();
+			for (int i = in.readInt(); i > 0; i--) {
+				final PropertiesSOAErrorLibrary library = new PropertiesSOAErrorLibrary(
+						in.readUTF(), readString(in));
+				final Entry entry = new Entry(library, in.readUTF(), in
+						.readLong(), in.readLong());
+				for (int j = in.readInt(); j > 0; j--) {
+					final PropertiesSOAErrorDomain domain = new PropertiesSOAErrorDomain();
+					domain.setLibrary(library);
+					domain.setName(readString(in));
+					domain.setOrganization(readString(in));
+					domain.setVersion(readString(in));
+					domain.setPackageName(readString(in));
+					library.addErrorDomain(domain);
+					for (int k = in.readInt(); k > 0; k--) {
+						final PropertiesSOAError error = new PropertiesSOAError();
+						error.setDomain(domain);
+						error.setCategory(readString(in));
+						error.setId(readString(in));
+						error.setName(readString(in));
+						error.setSeverity(readString(in));
+						error.setSubDomain(readString(in));
+						error.setMessage(readString(in));
+						error.setResolution(readString(in));
+						domain.addError(error);
+					}
+				}
+				result.entries.put(library.getName(), entry);
+			}
+			return result;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Stores the snapshot. The file is replaced atomically where the file
+	 * system supports it, so that a concurrent load never sees a partial
+	 * snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void store(File file) throws IOException {
+		final List<Entry> snapshot;
+		synchronized (this) {
+			snapshot = new ArrayList<Entry>(entries.values());
+			dirty = false;
+		}
+		FileUtils.forceMkdir(file.getParentFile());
+		final File tempFile = new File(file.getParentFile(), file.getName()
+				+ ".tmp");
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(snapshot.size());
+			for (Entry entry : snapshot) {
+				out.writeUTF(entry.library.getName());
+				writeString(out, entry.library.getVersion());
+				out.writeUTF(entry.jarPath);
+				out.writeLong(entry.lastModified);
+				out.writeLong(entry.length);
+				out.writeInt(entry.library.getDomains().size());
+				for (ISOAErrDomain domain : entry.library.getDomains()) {
+					writeString(out, domain.getName());
+					writeString(out, domain.getOrganization());
+					writeString(out, domain.getVersion());
+					writeString(out,
+							domain instanceof PropertiesSOAErrorDomain ? ((PropertiesSOAErrorDomain) domain)
+									.getPackageName()
+									: null);
+					out.writeInt(domain.getErrors().size());
+					for (ISOAError error : domain.getErrors()) {
+						writeString(out, error.getCategory());
+						writeString(out, error.getId());
+						writeString(out, error.getName());
+						writeString(out, error.getSeverity());
+						writeString(out, error.getSubDomain());
+						writeString(out, error.getMessage());
+						writeString(out, error.getResolution());
+					}
+				}
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		if (file.exists() && file.delete() == false
+				|| tempFile.renameTo(file) == false) {
+			FileUtils.deleteQuietly(tempFile);
+			throw new IOException("Failed to replace the error registry snapshot "
+					+ file);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static class Entry {
+		private final ISOAErrLibrary library;
+		private final String jarPath;
+		private final long lastModified;
+		private final long length;
+
+		private Entry(ISOAErrLibrary library, String jarPath,
+				long lastModified, long length) {
+			super();
+			this.library = library;
+			this.jarPath = jarPath;
+			this.lastModified = lastModified;
+			this.length = length;
+		}
+
+		private boolean isUpToDate(String version, File jarFile) {
+			return StringUtils.equals(version, library.getVersion())
+					&& jarPath.equals(jarFile.getAbsolutePath())
+					&& jarFile.lastModified() == lastModified
+					&& jarFile.length() == length;
+		}
+	}
+}
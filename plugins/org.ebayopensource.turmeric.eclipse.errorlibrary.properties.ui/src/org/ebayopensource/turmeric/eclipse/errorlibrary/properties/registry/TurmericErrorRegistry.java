@@ -8,11 +8,18 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.errorlibrary.properties.registry;
 
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Hashtable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.ui.utils.TurmericErrorLibraryUtils;
@@ -22,8 +29,10 @@ import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAError;
 import org.ebayopensource.turmeric.eclipse.exception.resources.SOAInvocationException;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
 import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.ProgressUtil;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.PlatformUI;
@@ -37,9 +46,9 @@ import org.eclipse.ui.progress.IProgressService;
  */
 public final class TurmericErrorRegistry {
 	private static final SOALogger logger = SOALogger.getLogger();
-	private static Map<String, ISOAErrLibrary> errorLibs = null;
-	private static Map<String, ISOAErrDomain> errorDomains = null;
-	private static Map<String, ISOAError> errors = null;
+	private static volatile RegistryMaps registry = null;
+	// guarded by the class, the loader which is allowed to publish the registry
+	private static RegistryLoader loader = null;
 
 	private TurmericErrorRegistry() {
 		super();
@@ -49,72 +58,53 @@ public final class TurmericErrorRegistry {
 		return domainName + "|" + errorName;
 	}
 	
+	private static synchronized RegistryLoader getLoader() {
+		if (loader == null) {
+			loader = new RegistryLoader();
+		}
+		return loader;
+	}
 	
-	private static void init() throws Exception {
+	/**
+	 * Gets the registry, loading it if needed. The registry is loaded once by
+	 * the first caller, later callers wait for it without holding the lock of
+	 * the class. On the UI thread the loading and the waiting run in a
+	 * background thread, so a nested call from the event loop only waits too.
+	 */
+	private static RegistryMaps getRegistry() throws Exception {
+		final RegistryMaps maps = registry;
+		if (maps != null) {
+			return maps;
+		}
 		long startTime = System.currentTimeMillis();
+		final RegistryLoader task = getLoader();
 		try {
-			synchronized(TurmericErrorRegistry.class) {
-				if (errorLibs == null) {
-					final IRunnableWithProgress runnable = new IRunnableWithProgress() {
-
-						@Override
-						public void run(IProgressMonitor monitor)
-								throws InvocationTargetException,
-								InterruptedException {
-							monitor.beginTask(
-									"Initializing Turmeric Error Library Registry...", 
-									IProgressMonitor.UNKNOWN);
-							monitor.internalWorked(10);
-							try {
-								monitor.internalWorked(20);
-								final Map<String, ISOAErrLibrary> result = new Hashtable<String, ISOAErrLibrary>();
-								errorDomains = new Hashtable<String, ISOAErrDomain>();
-								errors = new Hashtable<String, ISOAError>();
-								for(AssetInfo lib: GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
-								.getErorRegistryBridge().getErrorLibs()) {
-									try {
-										final ISOAErrLibrary errLib = 
-											TurmericErrorLibraryUtils.loadErrorLibrary(lib);
-										ProgressUtil.progressOneStep(monitor);
-										if (errLib != null) {
-											result.put(errLib.getName(), errLib);
-											for (ISOAErrDomain domain : errLib.getDomains()) {
-												errorDomains.put(domain.getName().toLowerCase(Locale.US), domain);
-												for (ISOAError error : domain.getErrors()) {
-													// add domain name as part of the key to ensure uniqueness of error type under particular domain
-													errors.put(getErrorTypeKey(domain.getName(), error.getName()), error);
-												}
-											}
-										}
-									}
-									catch (Exception e) {
-										logger.warning("Error occured while loading error library [" 
-												+ lib + "], ignoring this library.", e);
-									}
-								}
-								
-								errorLibs = result;
-							} catch (Exception e) {
-								throw new SOAInvocationException(e);
-							} finally {
-								monitor.done();
-							}
+			if (Display.getCurrent() == null) {
+				// non-UI thread, a no-op if another thread is loading already
+				task.run(ProgressUtil.getDefaultMonitor(null));
+			} else {
+				final IProgressService service = PlatformUI
+				.getWorkbench().getProgressService();
+				service.busyCursorWhile(new IRunnableWithProgress() {
+					@Override
+					public void run(IProgressMonitor monitor)
+							throws InvocationTargetException,
+							InterruptedException {
+						task.run(monitor);
+						try {
+							task.get();
+						} catch (ExecutionException e) {
+							// rethrown by the calling thread
 						}
-					};
-					if (Display.getCurrent() == null) {
-						// non-UI thread
-						runnable.run(ProgressUtil.getDefaultMonitor(null));
-					} else {
-						final IProgressService service = PlatformUI
-						.getWorkbench().getProgressService();
-						service.run(false, false, runnable);
 					}
-					while (errorLibs == null) {
-						logger.warning("Turmeirc error library registry not initialized yet, sleeping...");
-						Thread.sleep(1000);
-					}
-				}
+				});
 			}
+			return task.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw new SOAInvocationException(e.getCause());
 		} finally {
 			if (SOALogger.DEBUG) {
 				long duration = System.currentTimeMillis() - startTime;
@@ -124,6 +114,105 @@ public final class TurmericErrorRegistry {
 		}
 	}
 	
+	private static RegistryMaps loadRegistry(IProgressMonitor monitor) throws Exception {
+		monitor.beginTask(
+				"Initializing Turmeric Error Library Registry...", 
+				IProgressMonitor.UNKNOWN);
+		try {
+			final Map<AssetInfo, File> libraries = new LinkedHashMap<AssetInfo, File>();
+			for(AssetInfo lib: GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
+			.getErorRegistryBridge().getErrorLibs()) {
+				try {
+					libraries.put(lib, TurmericErrorLibraryUtils.getErrorLibraryJar(lib));
+				} catch (Exception e) {
+					logger.warning("Error occured while locating error library [" 
+							+ lib + "], ignoring this library.", e);
+				}
+			}
+			ProgressUtil.progressOneStep(monitor);
+			final File snapshotFile = ErrorRegistrySnapshot.getDefaultFile();
+			ErrorRegistrySnapshot snapshot = ErrorRegistrySnapshot.load(snapshotFile);
+			if (snapshot == null) {
+				snapshot = new ErrorRegistrySnapshot();
+			}
+			final Map<String, ISOAErrLibrary> result = loadErrorLibraries(
+					libraries, snapshot);
+			snapshot.storeIfDirty(snapshotFile);
+			final Map<String, ISOAErrDomain> domains = new ConcurrentHashMap<String, ISOAErrDomain>();
+			final Map<String, ISOAError> errorTypes = new ConcurrentHashMap<String, ISOAError>();
+			for (ISOAErrLibrary errLib : result.values()) {
+				for (ISOAErrDomain domain : errLib.getDomains()) {
+					domains.put(domain.getName().toLowerCase(Locale.US), domain);
+					for (ISOAError error : domain.getErrors()) {
+						// add domain name as part of the key to ensure uniqueness of error type under particular domain
+						errorTypes.put(getErrorTypeKey(domain.getName(), error.getName()), error);
+					}
+				}
+			}
+			return new RegistryMaps(result, domains, errorTypes);
+		} finally {
+			monitor.done();
+		}
+	}
+	
+	/**
+	 * Loads the given error libraries concurrently. The libraries of the
+	 * workspace are always loaded from their projects, the ones of the build
+	 * system are taken from the snapshot unless their jar has changed, and
+	 * are put into the snapshot otherwise. Libraries which fail to load are
+	 * logged and ignored.
+	 *
+	 * @param libraries the error libraries with their jars, or with null for
+	 * the error library projects of the workspace
+	 * @param snapshot the snapshot of the libraries of the build system
+	 * @return the loaded error libraries by name
+	 */
+	public static Map<String, ISOAErrLibrary> loadErrorLibraries(
+			final Map<AssetInfo, File> libraries,
+			final ErrorRegistrySnapshot snapshot) {
+		final Map<String, ISOAErrLibrary> result = new ConcurrentHashMap<String, ISOAErrLibrary>();
+		final Map<AssetInfo, Collection<AssetInfo>> tasks = new LinkedHashMap<AssetInfo, Collection<AssetInfo>>();
+		final Collection<String> names = new ArrayList<String>();
+		for (AssetInfo lib : libraries.keySet()) {
+			tasks.put(lib, Collections.<AssetInfo> emptyList());
+			if (libraries.get(lib) != null) {
+				names.add(lib.getName());
+			}
+		}
+		snapshot.retainAll(names);
+		final DependencyTaskExecutor<AssetInfo> executor = new DependencyTaskExecutor<AssetInfo>(
+				DependencyTaskExecutor.getDefaultThreadCount(tasks.size()),
+				"SOA Error Library Loader");
+		final Map<AssetInfo, Throwable> failures = executor.execute(tasks,
+				new DependencyTaskExecutor.Task<AssetInfo>() {
+					@Override
+					public void execute(AssetInfo lib) throws Exception {
+						final File jarFile = libraries.get(lib);
+						ISOAErrLibrary errLib = null;
+						if (jarFile == null) {
+							errLib = TurmericErrorLibraryUtils.loadErrorLibrary(lib);
+						} else {
+							errLib = snapshot.get(lib.getName(), lib.getVersion(), jarFile);
+							if (errLib == null) {
+								errLib = TurmericErrorLibraryUtils
+										.loadErrorLibraryFromJar(lib, jarFile);
+								if (errLib != null) {
+									snapshot.put(errLib, jarFile);
+								}
+							}
+						}
+						if (errLib != null) {
+							result.put(errLib.getName(), errLib);
+						}
+					}
+				});
+		for (Map.Entry<AssetInfo, Throwable> failure : failures.entrySet()) {
+			logger.warning("Error occured while loading error library [" 
+					+ failure.getKey() + "], ignoring this library.", failure.getValue());
+		}
+		return result;
+	}
+	
 	/**
 	 * Gets the error libraries.
 	 *
@@ -131,10 +220,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an exception if there is an error
 	 */
 	public static Collection<ISOAErrLibrary> getErrorLibraries() throws Exception {
-		if (errorLibs == null) {
-			init();
-		}
-		return errorLibs.values();
+		return getRegistry().errorLibs.values();
 	}
 	
 	/**
@@ -145,10 +231,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an exception if there is an error
 	 */
 	public static ISOAErrLibrary getErrorLibraryByName(String errorLibName) throws Exception {
-		getErrorLibraries();
-		if (errorLibs != null)
-			return errorLibs.get(errorLibName);
-		return null;
+		return getRegistry().errorLibs.get(errorLibName);
 	}
 	
 	/**
@@ -159,10 +242,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an exception if there is an error
 	 */
 	public static ISOAErrDomain getErrorDomainByName(String errorDomainName) throws Exception {
-		getErrorLibraries();
-		if (errorDomains != null)
-			return errorDomains.get(errorDomainName.toLowerCase(Locale.US));
-		return null;
+		return getRegistry().errorDomains.get(errorDomainName.toLowerCase(Locale.US));
 	}
 	
 	/**
@@ -174,10 +254,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception .
 	 */
 	public static ISOAError getErrorByName(String domainName, String errorName) throws Exception {
-		getErrorLibraries();
-		if (errors != null)
-			return errors.get(getErrorTypeKey(domainName, errorName));
-		return null;
+		return getRegistry().errors.get(getErrorTypeKey(domainName, errorName));
 	}
 	
 	/**
@@ -188,8 +265,8 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an error
 	 */
 	public static boolean addErrorLibrary(ISOAErrLibrary errorLib) throws Exception {
-		getErrorLibraries();
-		if (errorLibs != null && errorLibs.containsKey(errorLib.getName()) == false) {
+		final Map<String, ISOAErrLibrary> errorLibs = getRegistry().errorLibs;
+		if (errorLibs.containsKey(errorLib.getName()) == false) {
 			errorLibs.put(errorLib.getName(), errorLib);
 			return true;
 		}
@@ -205,13 +282,12 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an error
 	 */
 	public static boolean addErrorDomain(String errorLibName, ISOAErrDomain errorDomain) throws Exception {
-		getErrorLibraries();
 		if (containsErrorLibrary(errorLibName) == false) {
 			return false;
 		}
 		String errorDomainName = errorDomain.getName().toLowerCase(Locale.US);
 		if (containsErrorDomain(errorDomainName) == false) {
-			errorDomains.put(errorDomainName, errorDomain);
+			getRegistry().errorDomains.put(errorDomainName, errorDomain);
 			getErrorLibraryByName(errorLibName).getDomains().add(errorDomain);
 			return true;
 		}
@@ -227,13 +303,13 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception if a critical error occurs and exception is thrown.
 	 */
 	public static boolean addError(String errorDomainName, ISOAError error) throws Exception {
-		getErrorLibraries();
 		String lowerErrorDomainName = errorDomainName.toLowerCase(Locale.US);
 		if (containsErrorDomain(lowerErrorDomainName) == false) {
 			return false;
 		}
+		final Map<String, ISOAError> errors = getRegistry().errors;
 		String errorTypeKey = getErrorTypeKey(errorDomainName, error.getName());
-		if (errors != null && errors.containsKey(errorTypeKey) == false) {
+		if (errors.containsKey(errorTypeKey) == false) {
 			errors.put(errorTypeKey, error);
 			getErrorDomainByName(lowerErrorDomainName).getErrors().add(error);
 			return true;
@@ -249,11 +325,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception if a critical error occurs an exception is thrown
 	 */
 	public static ISOAErrLibrary removeErrorLibrary(String errorLibName) throws Exception {
-		getErrorLibraries();
-		if (errorLibs != null) {
-			return errorLibs.remove(errorLibName);
-		}
-		return null;
+		return getRegistry().errorLibs.remove(errorLibName);
 	}
 	
 	/**
@@ -264,12 +336,9 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an exception
 	 */
 	public static ISOAErrDomain removeErrorDomain(ISOAErrDomain domain) throws Exception {
-		getErrorLibraries();
-		if (errorDomains != null) {
-			errorDomains.remove(domain.getName().toLowerCase(Locale.US));
-			if (domain.getLibrary() != null) {
-				domain.getLibrary().getDomains().remove(domain);
-			}
+		getRegistry().errorDomains.remove(domain.getName().toLowerCase(Locale.US));
+		if (domain.getLibrary() != null) {
+			domain.getLibrary().getDomains().remove(domain);
 		}
 		return domain;
 	}
@@ -283,12 +352,9 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an error occurred
 	 */
 	public static ISOAError removeError(String domainName, ISOAError error) throws Exception {
-		getErrorLibraries();
-		if (errors != null) {
-			errors.remove(getErrorTypeKey(domainName, error.getName()));
-			if (error.getDomain() != null) {
-				error.getDomain().getErrors().remove(error);
-			}
+		getRegistry().errors.remove(getErrorTypeKey(domainName, error.getName()));
+		if (error.getDomain() != null) {
+			error.getDomain().getErrors().remove(error);
 		}
 		return error;
 	}
@@ -301,11 +367,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an error has occurred
 	 */
 	public static boolean containsErrorLibrary(String errorLibName) throws Exception {
-		getErrorLibraries();
-		if (errorLibs != null) {
-			return errorLibs.containsKey(errorLibName);
-		}
-		return false;
+		return getRegistry().errorLibs.containsKey(errorLibName);
 	}
 	
 	/**
@@ -316,11 +378,7 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an error has occurred
 	 */
 	public static boolean containsErrorDomain(String errorDomainName) throws Exception {
-		getErrorLibraries();
-		if (errorDomains != null) {
-			return errorDomains.containsKey(errorDomainName.toLowerCase(Locale.US));
-		}
-		return false;
+		return getRegistry().errorDomains.containsKey(errorDomainName.toLowerCase(Locale.US));
 	}
 
 	/**
@@ -332,26 +390,21 @@ public final class TurmericErrorRegistry {
 	 * @throws Exception an exception
 	 */
 	public static boolean containsError(String domainName, String errorName) throws Exception {
-		getErrorLibraries();
-		if (errors != null) {
-			return errors.containsKey(getErrorTypeKey(domainName, errorName));
-		}
-		return false;
+		return getRegistry().errors.containsKey(getErrorTypeKey(domainName, errorName));
 	}
 	
 	/**
-	 * Refresh.
+	 * Refresh. A load which is still running is not published anymore.
 	 *
 	 * @throws Exception an exception
 	 */
 	
 	public static void refresh() throws Exception {
 		synchronized(TurmericErrorRegistry.class) {
-	        errorLibs = null;
-	        errorDomains = null;
-	        errors = null;
+	        registry = null;
+	        loader = null;
 	    }
-		init();
+		getRegistry();
 	}
 
 	/* (non-Javadoc)
@@ -362,6 +415,90 @@ public final class TurmericErrorRegistry {
 		throw new CloneNotSupportedException();
 	}
 	
+	/**
+	 * The maps of the registry, published together once they are complete.
+	 */
+	private static final class RegistryMaps {
+		private final Map<String, ISOAErrLibrary> errorLibs;
+		private final Map<String, ISOAErrDomain> errorDomains;
+		private final Map<String, ISOAError> errors;
+
+		private RegistryMaps(Map<String, ISOAErrLibrary> errorLibs,
+				Map<String, ISOAErrDomain> errorDomains,
+				Map<String, ISOAError> errors) {
+			this.errorLibs = errorLibs;
+			this.errorDomains = errorDomains;
+			this.errors = errors;
+		}
+	}
+	
+	/**
+	 * Loads the registry once and publishes it before the waiting callers are
+	 * released, unless the registry has been refreshed meanwhile.
+	 */
+	private static final class RegistryLoader extends FutureTask<RegistryMaps> {
+		private final LoadCall call;
+
+		private RegistryLoader() {
+			this(new LoadCall());
+		}
+
+		private RegistryLoader(LoadCall call) {
+			super(call);
+			this.call = call;
+		}
+
+		/**
+		 * Runs the loading with the given monitor, or returns right away if
+		 * it is running or done already.
+		 */
+		private void run(IProgressMonitor monitor) {
+			call.setMonitor(monitor);
+			run();
+		}
+
+		@Override
+		protected void set(RegistryMaps maps) {
+			synchronized (TurmericErrorRegistry.class) {
+				if (loader == this) {
+					registry = maps;
+				}
+			}
+			super.set(maps);
+		}
+
+		@Override
+		protected void setException(Throwable t) {
+			synchronized (TurmericErrorRegistry.class) {
+				// let the next caller start over
+				if (loader == this) {
+					loader = null;
+				}
+			}
+			super.setException(t);
+		}
+	}
+	
+	private static final class LoadCall implements Callable<RegistryMaps> {
+		private IProgressMonitor monitor = null;
+
+		// the progress is reported to the monitor of the first caller
+		private synchronized void setMonitor(IProgressMonitor monitor) {
+			if (this.monitor == null) {
+				this.monitor = monitor;
+			}
+		}
+
+		private synchronized IProgressMonitor getMonitor() {
+			return monitor != null ? monitor : new NullProgressMonitor();
+		}
+
+		@Override
+		public RegistryMaps call() throws Exception {
+			return loadRegistry(getMonitor());
+		}
+	}
+	
 	
 
 }
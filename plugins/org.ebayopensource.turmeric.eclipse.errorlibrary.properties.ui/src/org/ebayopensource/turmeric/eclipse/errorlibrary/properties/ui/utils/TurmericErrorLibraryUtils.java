@@ -240,14 +240,43 @@ public final class TurmericErrorLibraryUtils {
 		return result;
 	}
 	
-	private static ISOAErrLibrary loadErrorLibraryFromJar(AssetInfo assetInfo) throws Exception {
+	/**
+	 * Gets the jar of the given error library if it is not a project of the
+	 * workspace.
+	 *
+	 * @param assetInfo the asset info
+	 * @return the jar file, or null if the error library is a workspace
+	 * project or has no known location
+	 * @throws Exception the exception
+	 */
+	public static File getErrorLibraryJar(AssetInfo assetInfo) throws Exception {
+		if (WorkspaceUtil.getProject(assetInfo.getName()).isAccessible()) {
+			return null;
+		}
 		String assetLocation = GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
 		.getAssetRegistry().getAssetLocation(assetInfo);
+		return assetLocation != null ? new File(assetLocation) : null;
+	}
+	
+	private static ISOAErrLibrary loadErrorLibraryFromJar(AssetInfo assetInfo) throws Exception {
+		return loadErrorLibraryFromJar(assetInfo, getErrorLibraryJar(assetInfo));
+	}
+	
+	/**
+	 * Load error library from the given jar.
+	 *
+	 * @param assetInfo the asset info
+	 * @param file the jar of the error library
+	 * @return the iSOA err library, or null if the jar could not be read or
+	 * does not contain the error library
+	 * @throws Exception the exception
+	 */
+	public static ISOAErrLibrary loadErrorLibraryFromJar(AssetInfo assetInfo, File file) 
+	throws Exception {
 		String defaultErrorPropertyName = StringUtil.formatString(
 				PropertiesSOAConstants.PROPS_FILE_DEFAULT_ERROR_PROPERTIES,
 				PropertiesSOAConstants.DEFAULT_LOCALE);
-		if (assetLocation != null) {
-			File file = new File(assetLocation);
+		if (file != null) {
 			if (file.canRead() == false)
 				return null;
 			URL url = file.toURI().toURL();
@@ -0,0 +1,500 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.maven.core.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.Model;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants;
+import org.ebayopensource.turmeric.eclipse.maven.core.Activator;
+
+/**
+ * An in-memory and on-disk cache of the metadata of the artifacts of the
+ * local repository, so that listing the libraries and services of the build
+ * system does not have to resolve every artifact and open every jar again.
+ * Every artifact is keyed by its coordinates and stamped with the last
+ * modification time and size of its POM and jar, an artifact which has been
+ * installed again is therefore resolved again.
+ *
+ * <p>
+ * Only the raw metadata is cached: the POM properties and dependencies and
+ * the service metadata properties from the jar. The asset infos are created
+ * from it on every listing, since they depend on the projects of the
+ * workspace. Every entry records whether the service metadata has been read,
+ * so that an artifact listed as a library first is read again when it is
+ * listed as a service.
+ * </p>
+ */
+public class ArtifactMetadataCache {
+
+	/** The file name of the cache in the plugin state location. */
+	public static final String FILE_NAME = "artifact-metadata.cache";
+
+	private static final int FORMAT_VERSION = 2;
+
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	private static ArtifactMetadataCache defaultCache;
+
+	private final Map<String, Entry> entries = new HashMap<String, Entry>();
+	private boolean dirty = false;
+
+	/**
+	 * Instantiates a new, empty artifact metadata cache.
+	 */
+	public ArtifactMetadataCache() {
+		super();
+	}
+
+	/**
+	 * Gets the cache shared by all the listings, loading it from the state
+	 * location of the maven core plugin on the first call.
+	 *
+	 * @return the default cache
+	 */
+	public static synchronized ArtifactMetadataCache getDefault() {
+		if (defaultCache == null) {
+			defaultCache = load(getDefaultFile());
+			if (defaultCache == null) {
+				defaultCache = new ArtifactMetadataCache();
+			}
+		}
+		return defaultCache;
+	}
+
+	/**
+	 * Gets the cache file in the state location of the maven core plugin.
+	 *
+	 * @return the default cache file
+	 */
+	public static File getDefaultFile() {
+		return Activator.getDefault().getStateLocation().append(FILE_NAME)
+				.toFile();
+	}
+
+	/**
+	 * Gets the cache key of the given artifact coordinates.
+	 *
+	 * @param groupId the group id
+	 * @param artifactId the artifact id
+	 * @param version the version
+	 * @return the key
+	 */
+	public static String getKey(String groupId, String artifactId,
+			String version) {
+		return groupId + ":" + artifactId + ":" + version;
+	}
+
+	/**
+	 * Gets the jar file of the artifact of the given POM file in the local
+	 * repository.
+	 *
+	 * @param pomFile the POM file
+	 * @return the jar file next to the POM, which might not exist
+	 */
+	public static File getJarFile(File pomFile) {
+		final String name = pomFile.getName();
+		final int index = name.lastIndexOf('.');
+		return new File(pomFile.getParentFile(), (index > 0 ? name.substring(
+				0, index) : name)
+				+ "." + SOAProjectConstants.FILE_EXTENSION_JAR);
+	}
+
+	/**
+	 * Gets the metadata of the given artifact if neither its POM nor its jar
+	 * has changed since it has been cached. This check only stats the files.
+	 *
+	 * @param key the artifact key
+	 * @return the entry, or null if the artifact is not cached or has changed
+	 */
+	public synchronized Entry get(String key) {
+		final Entry entry = entries.get(key);
+		if (entry == null) {
+			return null;
+		}
+		if (entry.isUpToDate() == false) {
+			entries.remove(key);
+			dirty = true;
+			return null;
+		}
+		return entry;
+	}
+
+	/**
+	 * Adds or replaces the metadata of an artifact.
+	 *
+	 * @param entry the entry
+	 */
+	public synchronized void put(Entry entry) {
+		entries.put(entry.getKey(), entry);
+		dirty = true;
+	}
+
+	/**
+	 * Drops all the cached metadata.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Gets the number of cached artifacts.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Stores the cache into the default file if it has changed since it has
+	 * been loaded or stored. Failures are logged only.
+	 */
+	public void storeIfDirty() {
+		synchronized (this) {
+			if (dirty == false) {
+				return;
+			}
+		}
+		try {
+			store(getDefaultFile());
+		} catch (IOException e) {
+			logger.warning("Failed to store the artifact metadata cache", e);
+		}
+	}
+
+	/**
+	 * Loads a cache.
+	 *
+	 * @param file the cache file
+	 * @return the cache, or null if the file does not exist, is corrupted or
+	 * has been written by an incompatible version
+	 */
+	public static ArtifactMetadataCache load(File file) {
+		if (file.isFile() == false) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			final ArtifactMetadataCache result = new ArtifactMetadataCache();
+			for (int i = in.readInt(); i > 0; i--) {
+				final Entry entry = new Entry(in.readUTF(), in.readUTF(), in
+						.readUTF(), new File(in.readUTF()), readProperties(in),
+						readProperties(in), in.readBoolean());
+				for (int j = 0; j < entry.stamps.length; j++) {
+					entry.stamps[j] = in.readLong();
+				}
+				for (int j = in.readInt(); j > 0; j--) {
+					final Dependency dependency = new Dependency();
+					dependency.setGroupId(readString(in));
+					dependency.setArtifactId(readString(in));
+					dependency.setType(readString(in));
+					dependency.setVersion(readString(in));
+					entry.dependencies.add(dependency);
+				}
+				result.entries.put(entry.getKey(), entry);
+			}
+			return result;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Stores the cache. The file is replaced atomically where the file system
+	 * supports it, so that a concurrent load never sees a partial cache.
+	 *
+	 * @param file the cache file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void store(File file) throws IOException {
+		final List<Entry> snapshot;
+		synchronized (this) {
+			snapshot = new ArrayList<Entry>(entries.values());
+			dirty = false;
+		}
+		FileUtils.forceMkdir(file.getParentFile());
+		final File tempFile = new File(file.getParentFile(), file.getName()
+				+ ".tmp");
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(snapshot.size());
+			for (Entry entry : snapshot) {
+				out.writeUTF(entry.groupId);
+				out.writeUTF(entry.artifactId);
+				out.writeUTF(entry.version);
+				out.writeUTF(entry.pomFile.getAbsolutePath());
+				writeProperties(out, entry.properties);
+				writeProperties(out, entry.serviceMetadata);
+				out.writeBoolean(entry.serviceMetadataRead);
+				for (long stamp : entry.stamps) {
+					out.writeLong(stamp);
+				}
+				out.writeInt(entry.dependencies.size());
+				for (Dependency dependency : entry.dependencies) {
+					writeString(out, dependency.getGroupId());
+					writeString(out, dependency.getArtifactId());
+					writeString(out, dependency.getType());
+					writeString(out, dependency.getVersion());
+				}
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		if (file.exists() && file.delete() == false
+				|| tempFile.renameTo(file) == false) {
+			FileUtils.deleteQuietly(tempFile);
+			throw new IOException("Failed to replace the artifact cache "
+					+ file);
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static void writeProperties(DataOutputStream out,
+			Properties properties) throws IOException {
+		out.writeInt(properties != null ? properties.size() : -1);
+		if (properties != null) {
+			for (String name : properties.stringPropertyNames()) {
+				out.writeUTF(name);
+				out.writeUTF(properties.getProperty(name));
+			}
+		}
+	}
+
+	private static Properties readProperties(DataInputStream in)
+			throws IOException {
+		final int size = in.readInt();
+		if (size < 0) {
+			return null;
+		}
+		final Properties result = new Properties();
+		for (int i = 0; i < size; i++) {
+			result.setProperty(in.readUTF(), in.readUTF());
+		}
+		return result;
+	}
+
+	/**
+	 * The cached metadata of a single artifact.
+	 */
+	public static class Entry {
+		private final String groupId;
+		private final String artifactId;
+		private final String version;
+		private final File pomFile;
+		private final File jarFile;
+		private final Properties properties;
+		private final Properties serviceMetadata;
+		private final boolean serviceMetadataRead;
+		private final List<Dependency> dependencies = new ArrayList<Dependency>();
+		/** the last modification time and size of the POM and the jar */
+		private final long[] stamps = new long[4];
+
+		/**
+		 * Instantiates a new entry and stamps it with the current state of the
+		 * POM and the jar.
+		 *
+		 * @param groupId the group id
+		 * @param artifactId the artifact id
+		 * @param version the version
+		 * @param pomFile the POM file of the artifact
+		 * @param properties the POM properties
+		 * @param serviceMetadata the service metadata properties, or null if the
+		 * artifact is not a service or the jar has not been read
+		 * @param serviceMetadataRead true, if the service metadata has been
+		 * read from the jar
+		 * @param dependencies the POM dependencies
+		 */
+		public Entry(String groupId, String artifactId, String version,
+				File pomFile, Properties properties,
+				Properties serviceMetadata, boolean serviceMetadataRead,
+				List<?> dependencies) {
+			this(groupId, artifactId, version, pomFile, properties,
+					serviceMetadata, serviceMetadataRead);
+			for (Object dependency : dependencies) {
+				if (dependency instanceof Dependency) {
+					final Dependency copy = new Dependency();
+					copy.setGroupId(((Dependency) dependency).getGroupId());
+					copy.setArtifactId(((Dependency) dependency)
+							.getArtifactId());
+					copy.setType(((Dependency) dependency).getType());
+					copy.setVersion(((Dependency) dependency).getVersion());
+					this.dependencies.add(copy);
+				}
+			}
+			final long[] current = stamp();
+			System.arraycopy(current, 0, stamps, 0, stamps.length);
+		}
+
+		private Entry(String groupId, String artifactId, String version,
+				File pomFile, Properties properties,
+				Properties serviceMetadata, boolean serviceMetadataRead) {
+			super();
+			this.groupId = groupId;
+			this.artifactId = artifactId;
+			this.version = version;
+			this.pomFile = pomFile;
+			this.jarFile = ArtifactMetadataCache.getJarFile(pomFile);
+			this.properties = properties != null ? properties
+					: new Properties();
+			this.serviceMetadata = serviceMetadata;
+			this.serviceMetadataRead = serviceMetadataRead;
+		}
+
+		private long[] stamp() {
+			return new long[] { pomFile.lastModified(), pomFile.length(),
+					jarFile.lastModified(), jarFile.length() };
+		}
+
+		private boolean isUpToDate() {
+			final long[] current = stamp();
+			for (int i = 0; i < stamps.length; i++) {
+				if (current[i] != stamps[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Gets the cache key.
+		 *
+		 * @return the key
+		 */
+		public String getKey() {
+			return ArtifactMetadataCache.getKey(groupId, artifactId, version);
+		}
+
+		/**
+		 * Gets the group id.
+		 *
+		 * @return the group id
+		 */
+		public String getGroupId() {
+			return groupId;
+		}
+
+		/**
+		 * Gets the artifact id.
+		 *
+		 * @return the artifact id
+		 */
+		public String getArtifactId() {
+			return artifactId;
+		}
+
+		/**
+		 * Gets the version.
+		 *
+		 * @return the version
+		 */
+		public String getVersion() {
+			return version;
+		}
+
+		/**
+		 * Gets the POM file.
+		 *
+		 * @return the POM file
+		 */
+		public File getPomFile() {
+			return pomFile;
+		}
+
+		/**
+		 * Gets the jar file next to the POM, which might not exist.
+		 *
+		 * @return the jar file
+		 */
+		public File getJarFile() {
+			return jarFile;
+		}
+
+		/**
+		 * Gets the service metadata properties.
+		 *
+		 * @return the service metadata, or null if the artifact is not a
+		 * service or the jar has not been read
+		 */
+		public Properties getServiceMetadata() {
+			return serviceMetadata;
+		}
+
+		/**
+		 * Checks if the service metadata has been read from the jar.
+		 *
+		 * @return true, if the service metadata has been read
+		 */
+		public boolean isServiceMetadataRead() {
+			return serviceMetadataRead;
+		}
+
+		/**
+		 * Gets the POM dependencies.
+		 *
+		 * @return the dependencies
+		 */
+		public List<Dependency> getDependencies() {
+			return Collections.unmodifiableList(dependencies);
+		}
+
+		/**
+		 * Creates a POM model holding the cached properties and dependencies.
+		 *
+		 * @return the model
+		 */
+		public Model toModel() {
+			final Model result = new Model();
+			result.setGroupId(groupId);
+			result.setArtifactId(artifactId);
+			result.setVersion(version);
+			result.setProperties(properties);
+			result.setDependencies(new ArrayList<Dependency>(dependencies));
+			return result;
+		}
+	}
+}
@@ -14,13 +14,15 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -56,8 +58,10 @@ import org.ebayopensource.turmeric.eclipse.resources.model.SOAImplProject;
 import org.ebayopensource.turmeric.eclipse.resources.model.SOAIntfMetadata;
 import org.ebayopensource.turmeric.eclipse.resources.model.SOAIntfProject;
 import org.ebayopensource.turmeric.eclipse.resources.util.SOAIntfUtil;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
 import org.ebayopensource.turmeric.eclipse.utils.collections.ListUtil;
 import org.ebayopensource.turmeric.eclipse.utils.collections.SetUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
 import org.ebayopensource.turmeric.eclipse.utils.core.VersionUtil;
 import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
@@ -624,21 +628,126 @@ public class MavenCoreUtils {
 	private static Set<AssetInfo> getAllLibraries(String groupID)
 			throws Exception {
 		final Set<AssetInfo> result = new LinkedHashSet<AssetInfo>();
+		for (final ArtifactMetadataCache.Entry entry : resolveArtifacts(
+				groupID, false)) {
+			final AssetInfo info = getLibraryInfo(entry);
+			if (info != null)
+				result.add(info);
+		}
+		return result;
+	}
+
+	/**
+	 * Resolves the metadata of all the artifacts of the given group. Only
+	 * the artifacts which are not in the {@link ArtifactMetadataCache} yet,
+	 * have been installed again or lack the service metadata are resolved.
+	 * The maven embedder is not thread safe, so the artifacts are resolved
+	 * one by one, only the service metadata is read from the jars
+	 * concurrently.
+	 *
+	 * @param groupID the group id
+	 * @param services true to read the service metadata from the jars
+	 * @return the metadata of the artifacts, in the order of the index
+	 * @throws Exception the exception
+	 */
+	private static List<ArtifactMetadataCache.Entry> resolveArtifacts(
+			final String groupID, final boolean services) throws Exception {
+		final ArtifactMetadataCache cache = ArtifactMetadataCache.getDefault();
+		final Map<String, ArtifactMetadataCache.Entry> resolved = Collections
+				.synchronizedMap(new HashMap<String, ArtifactMetadataCache.Entry>());
+		final Map<String, Artifact> artifacts = new LinkedHashMap<String, Artifact>();
+		final Map<String, MavenProject> projects = new LinkedHashMap<String, MavenProject>();
 		for (final Artifact artifact : mavenEclipseAPI().findGroup(groupID)) {
+			final String key = ArtifactMetadataCache.getKey(artifact
+					.getGroupId(), artifact.getArtifactId(), artifact
+					.getVersion());
+			artifacts.put(key, artifact);
+			final ArtifactMetadataCache.Entry entry = cache.get(key);
+			if (entry != null
+					&& (services == false || entry.isServiceMetadataRead())) {
+				resolved.put(key, entry);
+				continue;
+			}
 			try {
-				final MavenProject project = mavenEclipseAPI()
-						.resolveArtifactAsProject(artifact);
-				final AssetInfo info = getLibraryInfo(project);
-				if (info != null)
-					result.add(info);
+				projects.put(key, mavenEclipseAPI().resolveArtifactAsProject(
+						artifact));
 			} catch (Exception e) {
 				logger.warning("Error Occured when loading artifact ["
 						+ artifact + "], ignoring this artifact", e);
 			}
 		}
+		if (services == false) {
+			// the POM has been read by the embedder already
+			for (Map.Entry<String, MavenProject> project : projects.entrySet()) {
+				final ArtifactMetadataCache.Entry entry = createCacheEntry(
+						project.getValue(), false);
+				cache.put(entry);
+				resolved.put(project.getKey(), entry);
+			}
+		} else if (projects.isEmpty() == false) {
+			final Map<String, List<String>> tasks = new LinkedHashMap<String, List<String>>();
+			for (String key : projects.keySet()) {
+				tasks.put(key, Collections.<String> emptyList());
+			}
+			final DependencyTaskExecutor<String> executor = new DependencyTaskExecutor<String>(
+					DependencyTaskExecutor.getDefaultThreadCount(tasks.size()),
+					"SOA Artifact Metadata Reader");
+			final Map<String, Throwable> failures = executor.execute(tasks,
+					new DependencyTaskExecutor.Task<String>() {
+						@Override
+						public void execute(String key) throws Exception {
+							final ArtifactMetadataCache.Entry entry = createCacheEntry(
+									projects.get(key), services);
+							cache.put(entry);
+							resolved.put(key, entry);
+						}
+					});
+			for (Map.Entry<String, Throwable> failure : failures.entrySet()) {
+				logger.warning("Error Occured when loading artifact ["
+						+ artifacts.get(failure.getKey())
+						+ "], ignoring this artifact", failure.getValue());
+			}
+		}
+		if (projects.isEmpty() == false) {
+			cache.storeIfDirty();
+		}
+		final List<ArtifactMetadataCache.Entry> result = new ArrayList<ArtifactMetadataCache.Entry>();
+		for (String key : artifacts.keySet()) {
+			if (resolved.containsKey(key)) {
+				result.add(resolved.get(key));
+			}
+		}
 		return result;
 	}
 
+	private static ArtifactMetadataCache.Entry createCacheEntry(
+			final MavenProject mProject, final boolean service)
+			throws IOException {
+		Properties serviceMetadata = null;
+		if (service) {
+			final String jarEntryPath = StringUtil.toString(
+					SOAProjectConstants.FOLDER_META_INF,
+					SOAIntfProject.FOLDER_SOA_COMMON_CONFIG,
+					WorkspaceUtil.PATH_SEPERATOR, mProject.getArtifactId(),
+					WorkspaceUtil.PATH_SEPERATOR,
+					SOAProjectConstants.PROPS_FILE_SERVICE_METADATA);
+			InputStream io = null;
+			try {
+				io = getInputStreamFromJar(mProject, jarEntryPath);
+				if (io != null) {
+					serviceMetadata = new Properties();
+					serviceMetadata.load(io);
+				}
+			} finally {
+				IOUtils.closeQuietly(io);
+			}
+		}
+		return new ArtifactMetadataCache.Entry(mProject.getGroupId(), mProject
+				.getArtifactId(), mProject.getVersion(), mProject.getFile(),
+				mProject.getProperties(), serviceMetadata, service, mProject
+						.getModel().getDependencies());
+	}
+
 	/**
 	 * Gets the all error libraries.
 	 *
@@ -659,15 +768,14 @@ public class MavenCoreUtils {
 	public static Set<? extends AssetInfo> getAllServicesInLocalRepository()
 			throws Exception {
 		final Set<AssetInfo> services = SetUtil.linkedSet();
-		final IMavenEclipseApi api = mavenEclipseAPI();
-		for (final Artifact artifact : api
-				.findGroup(getMavenOrgProviderInstance().getProjectGroupId(
-						SupportedProjectType.INTERFACE))) {
+		for (final ArtifactMetadataCache.Entry entry : resolveArtifacts(
+				getMavenOrgProviderInstance().getProjectGroupId(
+						SupportedProjectType.INTERFACE), true)) {
 			try {
-				final MavenProject project = api
-						.resolveArtifactAsProject(artifact);
-				services.add(getIntfProjectInfoFromProperties(
-						artifact.getArtifactId(), project));
+				final MavenProjectInfo info = getIntfProjectInfoFromProperties(
+						entry.getArtifactId(), null, entry);
+				if (info != null)
+					services.add(info);
 			} catch (Exception e) {
 				logger.warning(e);
 			}
@@ -701,13 +809,7 @@ public class MavenCoreUtils {
 	private static File getJarFileForService(final MavenProject mProject) {
 		if (SOALogger.DEBUG)
 			logger.entering(mProject);
-		File jarFile = null;
-
-		IPath jarPath = new Path(mProject.getFile().toString());
-		// resolve the jar file path in the file system
-		jarPath = jarPath.removeFileExtension().addFileExtension(
-				SOAProjectConstants.FILE_EXTENSION_JAR);
-		jarFile = jarPath.toFile();
+		final File jarFile = ArtifactMetadataCache.getJarFile(mProject.getFile());
 		/*if (mProject.getVersion().endsWith("-SNAPSHOT")) {
 			//snapshot version
 			File newFile = new File(jarFile.getParentFile(), mProject.getArtifactId() + "-" + mProject.getVersion() 
@@ -737,11 +839,9 @@ public class MavenCoreUtils {
 
 		InputStream io = null;
 		if (file.exists() && file.canRead()) {
-			final JarFile jarFile = new JarFile(file);
-			final JarEntry jarEntry = jarFile.getJarEntry(jarEntryPath);
-			if (jarEntry != null) {
-				io = jarFile.getInputStream(jarEntry);
-			} else {
+			// the jar handle is released when the caller closes the stream
+			io = JarFileCache.getDefault().getInputStream(file, jarEntryPath);
+			if (io == null) {
 				logger.warning("Can not find the jar entry->" + jarEntryPath);
 			}
 		} else {
@@ -756,8 +856,19 @@ public class MavenCoreUtils {
 	private static MavenProjectInfo getIntfProjectInfoFromProperties(
 			final String projectName, final MavenProject mProject)
 			throws Exception {
+		return getIntfProjectInfoFromProperties(projectName, mProject, null);
+	}
+
+	/**
+	 * Gets the interface project info from the workspace project if
+	 * available, otherwise from the given cached metadata, or from the given
+	 * resolved project if there is no cached metadata.
+	 */
+	private static MavenProjectInfo getIntfProjectInfoFromProperties(
+			final String projectName, final MavenProject mProject,
+			final ArtifactMetadataCache.Entry cachedMetadata) throws Exception {
 		if (SOALogger.DEBUG)
-			logger.entering(projectName, mProject);
+			logger.entering(projectName, mProject, cachedMetadata);
 
 		MavenProjectInfo result = null;
 
@@ -769,33 +880,20 @@ public class MavenCoreUtils {
 			result = getInterfaceProjectInfo(project);
 		} else {
 			// the service only exist in the repository
+			final ArtifactMetadataCache.Entry metadata = cachedMetadata != null ? cachedMetadata
+					: createCacheEntry(mProject, true);
 			if (SOALogger.DEBUG)
 				logger.debug(
 						"Project is NOT accessible, reading from the local repository->",
-						mProject);
-			final Properties props = mProject.getProperties();
+						metadata.getKey());
+			final Model pom = metadata.toModel();
 			// the service name should be same as the interface project name
 			final String serviceName = projectName;
-			final String implProjectName = props
-					.getProperty(SOAMavenConstants.POM_PROP_KEY_IMPL_PROJECT_NAME);
-			Properties metadataProps = null;
-			InputStream io = null;
-			try {
-				final String jarEntryPath = StringUtil.toString(
-						SOAProjectConstants.FOLDER_META_INF,
-						SOAIntfProject.FOLDER_SOA_COMMON_CONFIG,
-						WorkspaceUtil.PATH_SEPERATOR, serviceName,
-						WorkspaceUtil.PATH_SEPERATOR,
-						SOAProjectConstants.PROPS_FILE_SERVICE_METADATA);
-				io = getInputStreamFromJar(mProject, jarEntryPath);
-				metadataProps = new Properties();
-				metadataProps.load(io);
-			} finally {
-				IOUtils.closeQuietly(io);
-			}
+			final String implProjectName = pom.getProperties().getProperty(
+					SOAMavenConstants.POM_PROP_KEY_IMPL_PROJECT_NAME);
 
 			result = createProjectInfoFromMetadataProps(serviceName,
-					metadataProps);
+					metadata.getServiceMetadata());
 
 			if (result != null) {
 				result.setImplementationProjectName(implProjectName);
@@ -811,7 +909,7 @@ public class MavenCoreUtils {
 				 * ", using the default logic with \"Impl\" as suffix ->",
 				 * result.getImplementationProjectName()); }
 				 */
-				processDependencies(mProject.getModel(), result);
+				processDependencies(pom, result);
 			}
 		}
 
@@ -820,16 +918,17 @@ public class MavenCoreUtils {
 		return result;
 	}
 
-	private static MavenAssetInfo getLibraryInfo(final MavenProject mProject) {
+	private static MavenAssetInfo getLibraryInfo(
+			final ArtifactMetadataCache.Entry metadata) {
 		File jarFile = null;
-		if (WorkspaceUtil.getProject(mProject.getArtifactId()).isAccessible() == false) {
-			jarFile = getJarFileForService(mProject);
+		if (WorkspaceUtil.getProject(metadata.getArtifactId()).isAccessible() == false) {
+			jarFile = metadata.getJarFile();
 		}
 		final String dir = jarFile != null && jarFile.exists() ? jarFile
 				.getParent() : "";
 		final MavenAssetInfo assetInfo = new MavenAssetInfo(
-				mProject.getGroupId(), mProject.getArtifactId(),
-				mProject.getVersion(), dir, null, IAssetInfo.TYPE_LIBRARY);
+				metadata.getGroupId(), metadata.getArtifactId(),
+				metadata.getVersion(), dir, null, IAssetInfo.TYPE_LIBRARY);
 		if (jarFile != null && StringUtils.isNotBlank(dir))
 			assetInfo.setJarNames(ListUtil.array(jarFile.getName()));
 		return assetInfo;
@@ -1037,6 +1136,10 @@ public class MavenCoreUtils {
 					serviceName, serviceVersion, serviceLayer);
 			result.setType(IAssetInfo.TYPE_SERVICE_LIBRARY);
 			result.setInterfaceProjectName(serviceName);
+			result.setServiceDomain(StringUtils.trim(metadataProps
+					.getProperty(SOAProjectConstants.PROPS_SERVICE_DOMAIN_NAME)));
+			result.setServiceNamespacePart(StringUtils.trim(metadataProps
+					.getProperty(SOAProjectConstants.PROPS_SERVICE_NAMESPACE_PART)));
 		}
 		return result;
 	}
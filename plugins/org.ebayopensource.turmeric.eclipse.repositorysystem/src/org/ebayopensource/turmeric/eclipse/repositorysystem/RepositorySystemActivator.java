@@ -9,6 +9,7 @@
 package org.ebayopensource.turmeric.eclipse.repositorysystem;
 
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
@@ -26,6 +27,9 @@ public class RepositorySystemActivator extends Plugin {
 	/** The Constant PLUGIN_ID. */
 	public static final String PLUGIN_ID = "org.ebayopensource.turmeric.eclipse.repositorysystem";
 
+	/** The delay of the type registry initialization after the activation. */
+	private static final long TYPE_REGISTRY_INIT_DELAY = 2000;
+
 	// The shared instance
 	/** The plugin. */
 	private static RepositorySystemActivator plugin;
@@ -48,6 +52,9 @@ public class RepositorySystemActivator extends Plugin {
     	buf.append("SOAPlugin.start - ");
     	buf.append(JDTUtil.getBundleInfo(context.getBundle(), SOALogger.DEBUG));
         SOALogger.getLogger().info(buf);
+        // the activation must not wait for the repository system
+        SOAGlobalRegistryAdapter.getInstance().scheduleInitialization(
+        		TYPE_REGISTRY_INIT_DELAY);
 	}
 	
 
@@ -9,15 +9,29 @@
 package org.ebayopensource.turmeric.eclipse.repositorysystem.core;
 
 import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
+import org.apache.commons.io.FileUtils;
 import org.ebayopensource.turmeric.common.config.LibraryType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryType;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.RepositorySystemActivator;
 import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
 import org.ebayopensource.turmeric.eclipse.soatools.Activator;
 import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
@@ -30,8 +44,15 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.IJobChangeEvent;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobChangeAdapter;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.ui.PlatformUI;
 import org.osgi.framework.Bundle;
 
 /**
@@ -45,10 +66,13 @@ import org.osgi.framework.Bundle;
  */
 public class SOAGlobalRegistryAdapter {
 
-	private static SOATypeRegistry soaTypeRegistry = null;
-	private static Set<String> typeLibNamesForSOATools;
-	private static Set<File> typeLibLocationsForSOATools;
-	private static SOAPluginClassLoader typeLibclassLoader;
+	/** set once populated, never modified outside the registry lock */
+	private static volatile SOATypeRegistry soaTypeRegistry = null;
+	private static volatile GlobalRegistryJob registryJob = null;
+	private static final long WAIT_INTERVAL = 200;
+	/** replaced as a whole, never modified */
+	private static volatile TypeLibraryClassPath typeLibClassPath = null;
+	private static final ReentrantLock registryLock = new ReentrantLock();
 	private static final SOALogger logger = SOALogger.getLogger();
 	private static final SOAGlobalRegistryAdapter registryAdapter = new SOAGlobalRegistryAdapter();
 	
@@ -67,49 +91,267 @@ public class SOAGlobalRegistryAdapter {
 	public static SOAGlobalRegistryAdapter getInstance() {
 		return registryAdapter;
 	}
+
+	/**
+	 * Gets the lock guarding the changes of the type registry and of its
+	 * class path. The registry is not thread safe, so its population and
+	 * every later change hold this lock, and so do the builders while they
+	 * read the registry. The lock must not be held while waiting for the
+	 * initialization.
+	 *
+	 * @return the registry lock
+	 */
+	public Lock getRegistryLock() {
+		return registryLock;
+	}
 	
 	/**
-	 * Gets the global registry.
+	 * Starts the initialization of the global registry in the background, if
+	 * it has not been started yet, and returns immediately.
+	 *
+	 * @return the handle of the initialization, never null
+	 */
+	public Future<SOATypeRegistry> getGlobalRegistryAsync() {
+		return startInitialization(0);
+	}
+
+	/**
+	 * Schedules the initialization of the global registry in the background
+	 * after the given delay, e.g. on plugin activation. The initialization
+	 * starts right away once the registry is actually asked for.
+	 *
+	 * @param delay the delay in milliseconds
+	 */
+	public void scheduleInitialization(long delay) {
+		startInitialization(delay);
+	}
+
+	private Future<SOATypeRegistry> startInitialization(long delay) {
+		GlobalRegistryJob job = registryJob;
+		if (job == null) {
+			synchronized (SOAGlobalRegistryAdapter.class) {
+				job = registryJob;
+				if (job == null) {
+					job = new GlobalRegistryJob(
+							"Initializing SOA Type Registry");
+					job.setUser(false);
+					registryJob = job;
+					job.schedule(delay);
+					return job.task;
+				}
+			}
+		}
+		if (delay == 0) {
+			// no-op unless the job is still sleeping
+			job.wakeUp();
+		}
+		return job.task;
+	}
+
+	/**
+	 * Gets the global registry if it has been initialized already. Callers
+	 * which could proceed without the types should use this method, and
+	 * refresh once the {@link #getGlobalRegistryAsync() initialization} is
+	 * done.
+	 *
+	 * @return the global registry, or null if it is not available yet
+	 */
+	public SOATypeRegistry getGlobalRegistryIfAvailable() {
+		if (soaTypeRegistry == null) {
+			getGlobalRegistryAsync();
+		}
+		return soaTypeRegistry;
+	}
+
+	/**
+	 * Gets the global registry, waiting for its initialization if needed. The
+	 * UI stays responsive if called from the UI thread, and a progress dialog
+	 * is displayed if the initialization takes long.
 	 *
 	 * @return the global registry
 	 * @throws Exception the exception
 	 */
 	public SOATypeRegistry getGlobalRegistry() throws Exception {
-		if (soaTypeRegistry == null) {
-			long startTime = System.currentTimeMillis();
-			synchronized (SOAGlobalRegistryAdapter.class) {
-				if (soaTypeRegistry == null) {
-					Job job = new GlobalRegistryJob("Retrieve Global Registry");
-					job.setUser(false);
-					job.schedule();
-					
-					try {
-//						if (Display.getCurrent() == null) {
-//							// non-UI thread
-//							runnable.run(ProgressUtil.getDefaultMonitor(null));
-//						} else {
-//							final IProgressService service = PlatformUI
-//							.getWorkbench().getProgressService();
-//							service.run(false, false, runnable);
-//						}
-					    int cnt = 0;
-//						while ((job.getState() == Job.RUNNING || job.getState() == Job.WAITING)) {
-					    while (cnt < 5 && soaTypeRegistry == null) {
-							logger.warning("SOA types registry not initialized yet, sleeping...");
-							Thread.sleep(1000);
-							cnt++;
-						}
-					} finally {
-						if (SOALogger.DEBUG) {
-							long duration = System.currentTimeMillis() - startTime;
-							logger.info("Time taken for initializing SOA global type registry is ", 
-									duration, " ms.");
+		final SOATypeRegistry typeReg = soaTypeRegistry;
+		if (typeReg != null) {
+			return typeReg;
+		}
+		if (Display.getCurrent() == null || !PlatformUI.isWorkbenchRunning()) {
+			// non-UI thread
+			return getGlobalRegistry(new NullProgressMonitor());
+		}
+		final SOATypeRegistry[] result = new SOATypeRegistry[1];
+		try {
+			PlatformUI.getWorkbench().getProgressService().busyCursorWhile(
+					new IRunnableWithProgress() {
+						public void run(IProgressMonitor monitor)
+								throws InvocationTargetException,
+								InterruptedException {
+							try {
+								result[0] = getGlobalRegistry(monitor);
+							} catch (OperationCanceledException e) {
+								throw new InterruptedException();
+							} catch (InterruptedException e) {
+								throw e;
+							} catch (Exception e) {
+								throw new InvocationTargetException(e);
+							}
 						}
+					});
+		} catch (InvocationTargetException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
+			}
+			throw e;
+		}
+		return result[0];
+	}
+
+	/**
+	 * Gets the global registry, waiting for its initialization if needed. This
+	 * is meant for builders and jobs, which could be cancelled while waiting.
+	 *
+	 * @param monitor the monitor to be checked for cancellation
+	 * @return the global registry
+	 * @throws OperationCanceledException if the monitor has been cancelled
+	 * @throws Exception the exception thrown by the initialization
+	 */
+	public SOATypeRegistry getGlobalRegistry(IProgressMonitor monitor)
+			throws Exception {
+		final Future<SOATypeRegistry> future = getGlobalRegistryAsync();
+		while (true) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			try {
+				return future.get(WAIT_INTERVAL, TimeUnit.MILLISECONDS);
+			} catch (TimeoutException e) {
+				// check the monitor again
+			} catch (CancellationException e) {
+				throw new OperationCanceledException(
+						"SOA type registry initialization has been cancelled");
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof Exception) {
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Restores the jar based type libraries from the snapshot taken by the
+	 * last full initialization, as long as their jars are unchanged, and
+	 * populates the type library projects of the workspace. A background job
+	 * then resolves the type libraries again and repopulates only the ones
+	 * which have changed.
+	 *
+	 * @return true, if the registry has been restored
+	 */
+	private boolean restoreFromSnapshot() {
+		final TypeRegistrySnapshot snapshot = TypeRegistrySnapshot
+				.load(TypeRegistrySnapshot.getDefaultFile());
+		if (snapshot == null) {
+			return false;
+		}
+		final ClassLoader originalClassLoader = Thread.currentThread()
+				.getContextClassLoader();
+		try {
+			final Set<String> libraryNames = new HashSet<String>();
+			final Set<File> jars = new HashSet<File>();
+			for (String name : snapshot.getLibraryNames()) {
+				if (snapshot.isUpToDate(name)
+						&& !WorkspaceUtil.getProject(name).isAccessible()) {
+					libraryNames.add(name);
+					jars.addAll(snapshot.getJars(name));
+				}
+			}
+			// adds the type library projects of the workspace
+			final TypeLibraryClassPath classPath = publishClassPath(
+					libraryNames, jars, null);
+
+			final ITypeRegistryBridge typeRegistryBridge = GlobalRepositorySystem
+					.instanceOf().getActiveRepositorySystem()
+					.getTypeRegistryBridge();
+			Thread.currentThread().setContextClassLoader(
+					SOAGlobalRegistryFactory.class.getClassLoader());
+			final SOATypeRegistry typeReg = typeRegistryBridge
+					.getSOATypeRegistry();
+			registryLock.lock();
+			try {
+				classPath.classLoader.setPluginBundles(typeRegistryBridge
+						.getPluginBundles());
+				Thread.currentThread().setContextClassLoader(
+						classPath.classLoader);
+				for (String name : libraryNames) {
+					try {
+						typeReg.addTypeLibraryToRegistry(snapshot
+								.getLibrary(name));
+					} catch (Exception e) {
+						// will be populated again by the revalidation
+						logger.warning("Failed to restore type library->",
+								name, " from the snapshot: ", e
+										.getLocalizedMessage());
 					}
 				}
+				logUpdateDetails(typeReg
+						.populateRegistryWithTypeLibrariesDetailed(new ArrayList<String>(
+								classPath.projectLibraryNames)));
+				soaTypeRegistry = typeReg;
+			} finally {
+				registryLock.unlock();
+			}
+		} catch (Exception e) {
+			logger.warning("Failed to restore the SOA type registry snapshot",
+					e);
+			return false;
+		} finally {
+			Thread.currentThread().setContextClassLoader(originalClassLoader);
+		}
+		final Job job = new RegistryRevalidationJob(snapshot);
+		job.setSystem(true);
+		job.schedule();
+		return true;
+	}
+
+	/**
+	 * Takes a snapshot of the jar based type libraries of the given registry.
+	 *
+	 * @param typeReg the populated type registry
+	 * @param classPath the class path the type libraries have been resolved
+	 * into, ignored unless it has been created from the repository system
+	 */
+	private void storeSnapshot(SOATypeRegistry typeReg,
+			TypeLibraryClassPath classPath) {
+		if (classPath.jarLibraries == null) {
+			return;
+		}
+		final TypeRegistrySnapshot snapshot = new TypeRegistrySnapshot();
+		try {
+			for (AssetInfo assetInfo : classPath.jarLibraries) {
+				// invalid libraries are not part of the registry
+				final TypeLibraryType library = typeReg
+						.getTypeLibrary(assetInfo.getName());
+				if (library != null) {
+					snapshot.addLibrary(assetInfo.getName(), assetInfo
+							.getVersion(), assetInfo.getFiles(true), library);
+				}
+			}
+			snapshot.store(TypeRegistrySnapshot.getDefaultFile());
+		} catch (Exception e) {
+			logger.warning("Failed to store the SOA type registry snapshot", e);
+		}
+	}
+
+	private void logUpdateDetails(List<RegistryUpdateDetails> libraries) {
+		if (libraries != null) {
+			for (RegistryUpdateDetails details : libraries) {
+				if (details.isUpdateSucess() == false) {
+					logger.warning("Invalid type library->", 
+							details.getLibraryName(), ". Detailed Error: ", details.getMessage());
+				}
 			}
 		}
-		return soaTypeRegistry;
 	}
 
 	/**
@@ -123,23 +365,26 @@ public class SOAGlobalRegistryAdapter {
 	 */
 	public void populateRegistry(String... typelibNames)
 			throws Exception {
-		getGlobalRegistry();
+		final SOATypeRegistry typeReg = getGlobalRegistry();
+		final List<AssetInfo> jarLibraries = resolveJarTypeLibraries();
 
 		ClassLoader originalClassLoader = Thread.currentThread()
 				.getContextClassLoader();
+		registryLock.lock();
 		try {
-			init();
+			final SOAPluginClassLoader classLoader = publishClassPath(
+					jarLibraries).classLoader;
 			ArrayList<Bundle> bundles = new ArrayList<Bundle>();
 			bundles.add(Activator.getDefault().getBundle());
-			typeLibclassLoader.setPluginBundles(bundles);
+			classLoader.setPluginBundles(bundles);
 			if (SOALogger.DEBUG) {
 				logger.debug("In populate Registry URLs are:",
-						typeLibclassLoader.getM_classPathURLs());
+						classLoader.getM_classPathURLs());
 			}
 
-			Thread.currentThread().setContextClassLoader(typeLibclassLoader);
+			Thread.currentThread().setContextClassLoader(classLoader);
 			final List<RegistryUpdateDetails> libraries = 
-				soaTypeRegistry.populateRegistryWithTypeLibrariesDetailed(ListUtil.arrayList(
+				typeReg.populateRegistryWithTypeLibrariesDetailed(ListUtil.arrayList(
 						typelibNames));
 			if (libraries != null) {
 				for (RegistryUpdateDetails details : libraries) {
@@ -151,6 +396,7 @@ public class SOAGlobalRegistryAdapter {
 			}
 		} finally {
 			Thread.currentThread().setContextClassLoader(originalClassLoader);
+			registryLock.unlock();
 		}
 
 	}
@@ -161,7 +407,13 @@ public class SOAGlobalRegistryAdapter {
 	 * development
 	 */
 	public void invalidateRegistry() {
-		soaTypeRegistry = null;
+		synchronized (SOAGlobalRegistryAdapter.class) {
+			soaTypeRegistry = null;
+			registryJob = null;
+		}
+		if (RepositorySystemActivator.getDefault() != null) {
+			FileUtils.deleteQuietly(TypeRegistrySnapshot.getDefaultFile());
+		}
 	}
 
 	/**
@@ -170,8 +422,36 @@ public class SOAGlobalRegistryAdapter {
 	 * @throws Exception the exception
 	 */
 	public void init() throws Exception {
-		typeLibNamesForSOATools = new HashSet<String>();
-		typeLibLocationsForSOATools = new HashSet<File>();
+		publishClassPath(resolveJarTypeLibraries());
+	}
+	
+	/**
+	 * Refresh type dependency in soa type registry.
+	 *
+	 * @param typeLibraryName the type library name
+	 * @throws CoreException the core exception
+	 * @throws Exception the exception
+	 */
+	public void refreshTypeDependencyInSOATypeRegistry(String typeLibraryName) throws CoreException, Exception{
+		ClassLoader current = Thread.currentThread().getContextClassLoader();
+		registryLock.lock();
+		try{
+			Thread.currentThread().setContextClassLoader(refreshClassPath().classLoader);
+			GlobalRepositorySystem.instanceOf().getActiveRepositorySystem().getTypeRegistryBridge()
+			.processTypeDepXMLFile(typeLibraryName);
+		}finally{
+			Thread.currentThread().setContextClassLoader(current);
+			registryLock.unlock();
+		}
+	}
+
+	/**
+	 * Resolves the latest jar based type libraries through the repository
+	 * system, except the ones which are type library projects of the
+	 * workspace. This can take long, so it is done without holding any lock.
+	 */
+	private static List<AssetInfo> resolveJarTypeLibraries() throws Exception {
+		final List<AssetInfo> result = new ArrayList<AssetInfo>();
 		// adding the jars
 		ITypeRegistryBridge typeRegistryBridge = GlobalRepositorySystem
 				.instanceOf().getActiveRepositorySystem()
@@ -182,42 +462,56 @@ public class SOAGlobalRegistryAdapter {
 				// Filtering the jars if we have a project here in workspace
 				if (!WorkspaceUtil.getProject(assetInfo.getName())
 						.isAccessible()) {
-					// add the typlib Name String
-					typeLibNamesForSOATools.add(assetInfo.getName());
-					// add the jar files
-					Set<File> fileSet = assetInfo.getFiles(true);
-					typeLibLocationsForSOATools.addAll(fileSet);
+					result.add(assetInfo);
 				}
 			}
 		}
+		return result;
+	}
 
-		populateClassLoader();
+	/**
+	 * Creates and publishes the class path of the given jar based type
+	 * libraries and of the type library projects of the workspace.
+	 */
+	private static TypeLibraryClassPath publishClassPath(
+			List<AssetInfo> jarLibraries) throws Exception {
+		final Set<String> libraryNames = new HashSet<String>();
+		final Set<File> jars = new HashSet<File>();
+		for (AssetInfo assetInfo : jarLibraries) {
+			libraryNames.add(assetInfo.getName());
+			jars.addAll(assetInfo.getFiles(true));
+		}
+		return publishClassPath(libraryNames, jars, jarLibraries);
 	}
-	
+
 	/**
-	 * Refresh type dependency in soa type registry.
-	 *
-	 * @param typeLibraryName the type library name
-	 * @throws CoreException the core exception
-	 * @throws Exception the exception
+	 * Publishes the class path again with the current jar based type
+	 * libraries, so the type library projects added or removed since are
+	 * taken into account.
 	 */
-	public void refreshTypeDependencyInSOATypeRegistry(String typeLibraryName) throws CoreException, Exception{
-		populateClassLoader();
-		ClassLoader current = Thread.currentThread().getContextClassLoader();
-		try{
-			Thread.currentThread().setContextClassLoader(typeLibclassLoader);
-			GlobalRepositorySystem.instanceOf().getActiveRepositorySystem().getTypeRegistryBridge()
-			.processTypeDepXMLFile(typeLibraryName);
-		}finally{
-			Thread.currentThread().setContextClassLoader(current);
+	private static TypeLibraryClassPath refreshClassPath() throws Exception {
+		final TypeLibraryClassPath classPath = typeLibClassPath;
+		if (classPath == null) {
+			return publishClassPath(resolveJarTypeLibraries());
 		}
+		return publishClassPath(classPath.jarLibraryNames, classPath.jars,
+				classPath.jarLibraries);
 	}
 
-	private void populateClassLoader() throws CoreException, Exception {
+	/**
+	 * Creates the class path of the given jar based type libraries and of the
+	 * type library projects of the workspace, and replaces the current one
+	 * with it. The class loader is reused if the class path is unchanged.
+	 * Only the file system is checked, so the class lock is held throughout.
+	 */
+	private static synchronized TypeLibraryClassPath publishClassPath(
+			Set<String> jarLibraryNames, Set<File> jars,
+			List<AssetInfo> jarLibraries) throws Exception {
 		Set<URL> urlsSet = new HashSet<URL>();
-		for (File file : typeLibLocationsForSOATools) {
+		for (File file : jars) {
 			urlsSet.add(file.toURI().toURL());
 		}
+		final Set<String> projectLibraryNames = new HashSet<String>();
 		// adding type lib projects in workspace
 		for (IProject project : WorkspaceUtil.getAllProjectsInWorkSpace()) {
 			if (project.isAccessible()
@@ -228,17 +522,79 @@ public class SOAGlobalRegistryAdapter {
 				urlsSet.add(project.getFolder(
 						SOATypeLibraryConstants.FOLDER_META_SRC).getLocation()
 						.toFile().toURI().toURL());
-				typeLibNamesForSOATools.add(project.getName());
+				projectLibraryNames.add(project.getName());
 			}
 		}
-		if (SOALogger.DEBUG) {
-			for (URL url : urlsSet) {
-				logger.debug("populate classloader" + url);
+		final Set<String> stamps = getClassPathStamps(urlsSet);
+		final TypeLibraryClassPath previous = typeLibClassPath;
+		final SOAPluginClassLoader classLoader;
+		if (previous != null && stamps.equals(previous.stamps)) {
+			// neither the class path nor the content of its directories
+			// has changed
+			classLoader = previous.classLoader;
+		} else {
+			if (SOALogger.DEBUG) {
+				for (URL url : urlsSet) {
+					logger.debug("populate classloader" + url);
+				}
 			}
+			classLoader = new SOAPluginClassLoader("SOATools", urlsSet
+					.toArray(new URL[0]));
+		}
+		typeLibClassPath = new TypeLibraryClassPath(jarLibraryNames, jars,
+				jarLibraries, projectLibraryNames, classLoader, stamps);
+		if (previous != null && previous.classLoader != classLoader) {
+			// release the jar handles of the previous class loader, the
+			// handles still in use are closed on their release
+			previous.classLoader.dispose();
 		}
-		typeLibclassLoader = new SOAPluginClassLoader("SOATools", urlsSet
-				.toArray(new URL[0]));
+		return typeLibClassPath;
+	}
 
+	/**
+	 * The class loader indexes the jars and skips the locations which do not
+	 * exist yet, so every location is stamped with its kind, and every jar
+	 * with its last modification time and size. A class loader keeps the
+	 * classes it has loaded from a directory, e.g. gen-meta-src, so every
+	 * directory is stamped with its content as well.
+	 */
+	private static Set<String> getClassPathStamps(Set<URL> urls) {
+		final Set<String> result = new HashSet<String>();
+		for (URL url : urls) {
+			final File file = FileUtils.toFile(url);
+			if (file == null || file.exists() == false) {
+				result.add(url + "|-");
+			} else if (file.isDirectory()) {
+				final long[] stamp = new long[3];
+				addDirectoryStamp(file, stamp);
+				result.add(url + "|d|" + stamp[0] + "|" + stamp[1] + "|"
+						+ stamp[2]);
+			} else {
+				result.add(url + "|" + file.lastModified() + "|"
+						+ file.length());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the number of files, their total size and their latest
+	 * modification time below the given directory to the given stamp.
+	 */
+	private static void addDirectoryStamp(File directory, long[] stamp) {
+		final File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			if (file.isDirectory()) {
+				addDirectoryStamp(file, stamp);
+			} else {
+				stamp[0]++;
+				stamp[1] += file.length();
+				stamp[2] = Math.max(stamp[2], file.lastModified());
+			}
+		}
 	}
 	
 	/**
@@ -248,77 +604,268 @@ public class SOAGlobalRegistryAdapter {
 	 * @throws Exception the exception
 	 */
 	public void addTypeToRegistry(LibraryType libraryType) throws Exception {
-		populateClassLoader();
 		ClassLoader current = Thread.currentThread().getContextClassLoader();
+		registryLock.lock();
 		try{
-			Thread.currentThread().setContextClassLoader(typeLibclassLoader);
+			Thread.currentThread().setContextClassLoader(refreshClassPath().classLoader);
 			GlobalRepositorySystem.instanceOf().getActiveRepositorySystem().getTypeRegistryBridge()
 			.getSOATypeRegistry().addTypeToRegistry(libraryType);
 		}finally{
 			Thread.currentThread().setContextClassLoader(current);
+			registryLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the type from registry.
+	 *
+	 * @param libraryType the library type
+	 * @throws Exception the exception
+	 */
+	public void removeTypeFromRegistry(LibraryType libraryType) throws Exception {
+		registryLock.lock();
+		try {
+			GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
+					.getTypeRegistryBridge().getSOATypeRegistry()
+					.removeTypeFromRegistry(libraryType);
+		} finally {
+			registryLock.unlock();
+		}
+	}
+
+	/**
+	 * The class path of the type libraries, built from the jar based type
+	 * libraries of the repository system and the type library projects of the
+	 * workspace.
+	 */
+	private static class TypeLibraryClassPath {
+		private final Set<String> jarLibraryNames;
+		private final Set<File> jars;
+		/** null, if restored from the snapshot */
+		private final List<AssetInfo> jarLibraries;
+		private final Set<String> projectLibraryNames;
+		private final SOAPluginClassLoader classLoader;
+		/** the class path the class loader was built from */
+		private final Set<String> stamps;
+
+		private TypeLibraryClassPath(Set<String> jarLibraryNames,
+				Set<File> jars, List<AssetInfo> jarLibraries,
+				Set<String> projectLibraryNames,
+				SOAPluginClassLoader classLoader, Set<String> stamps) {
+			super();
+			this.jarLibraryNames = Collections.unmodifiableSet(jarLibraryNames);
+			this.jars = Collections.unmodifiableSet(jars);
+			this.jarLibraries = jarLibraries != null ? Collections
+					.unmodifiableList(jarLibraries) : null;
+			this.projectLibraryNames = Collections
+					.unmodifiableSet(projectLibraryNames);
+			this.classLoader = classLoader;
+			this.stamps = stamps;
+		}
+
+		private List<String> getLibraryNames() {
+			final List<String> result = new ArrayList<String>(jarLibraryNames);
+			result.addAll(projectLibraryNames);
+			return result;
 		}
 	}
 	
+	/**
+	 * Initializes the global registry, from the snapshot if possible, and
+	 * completes the {@link Future} returned by
+	 * {@link SOAGlobalRegistryAdapter#getGlobalRegistryAsync()}.
+	 */
 	private class GlobalRegistryJob extends Job {
+		private final FutureTask<SOATypeRegistry> task;
+		private volatile IProgressMonitor monitor = new NullProgressMonitor();
 
 		public GlobalRegistryJob(String name) {
 			super(name);
+			this.task = new FutureTask<SOATypeRegistry>(
+					new Callable<SOATypeRegistry>() {
+						public SOATypeRegistry call() throws Exception {
+							return initializeRegistry(monitor);
+						}
+					});
+			addJobChangeListener(new JobChangeAdapter() {
+				@Override
+				public void done(IJobChangeEvent event) {
+					if (!task.isDone()) {
+						// cancelled before it has been run
+						task.cancel(false);
+					}
+					if (!event.getResult().isOK()) {
+						// let the next caller start over
+						synchronized (SOAGlobalRegistryAdapter.class) {
+							if (registryJob == GlobalRegistryJob.this) {
+								registryJob = null;
+							}
+						}
+					}
+				}
+			});
 		}
 
 		@Override
 		protected IStatus run(IProgressMonitor monitor) {
-					monitor.beginTask(
-							"Initializing SOA Type Registry...", 100);
-					monitor.internalWorked(10);
-					final ClassLoader originalClassLoader = Thread
-							.currentThread().getContextClassLoader();
-					
-					try {
-						init();
-						monitor.worked(20);
-						Thread thread = Thread.currentThread();
-						ClassLoader loader = thread.getContextClassLoader();
-						thread.setContextClassLoader(SOAGlobalRegistryFactory.class.getClassLoader());
-						SOATypeRegistry typeReg = GlobalRepositorySystem
-						.instanceOf().getActiveRepositorySystem()
-						.getTypeRegistryBridge().getSOATypeRegistry();
-						thread.setContextClassLoader(loader);
-
-						monitor.worked(40);
-						typeLibclassLoader.setPluginBundles(
-								(GlobalRepositorySystem
-										.instanceOf().getActiveRepositorySystem()
-										.getTypeRegistryBridge().getPluginBundles()));
-						monitor.worked(10);
-						Thread.currentThread().setContextClassLoader(
-								typeLibclassLoader);
-						monitor.worked(10);
-						List<RegistryUpdateDetails> libraries = 
-							typeReg.populateRegistryWithTypeLibrariesDetailed(ListUtil.arrayList(
-								typeLibNamesForSOATools));
-						if (libraries != null) {
-							for (RegistryUpdateDetails details : libraries) {
-								if (details.isUpdateSucess() == false) {
-									logger.warning("Invalid type library->", 
-											details.getLibraryName(), ". Detailed Error: ", details.getMessage());
-								}
-							}
-						}
-						monitor.worked(10);
-						soaTypeRegistry = typeReg;
-					} catch (Exception e) {
-						logger.error(e);
-						monitor.done();
-						return Status.CANCEL_STATUS;
-					} finally {
-						Thread.currentThread().setContextClassLoader(
-								originalClassLoader);
-						monitor.done();
-					}
-			
+			this.monitor = monitor;
+			task.run();
+			try {
+				task.get();
+			} catch (Exception e) {
+				return Status.CANCEL_STATUS;
+			}
 			return Status.OK_STATUS;
 		}
+
+		@Override
+		protected void canceling() {
+			task.cancel(true);
+		}
+	}
+
+	private SOATypeRegistry initializeRegistry(IProgressMonitor monitor)
+			throws Exception {
+		final long startTime = System.currentTimeMillis();
+		if (restoreFromSnapshot()) {
+			if (SOALogger.DEBUG) {
+				long duration = System.currentTimeMillis() - startTime;
+				logger.info("Time taken for restoring SOA global type registry is ", 
+						duration, " ms.");
+			}
+			return soaTypeRegistry;
+		}
+		monitor.beginTask(
+				"Initializing SOA Type Registry...", 100);
+		monitor.internalWorked(10);
+		final ClassLoader originalClassLoader = Thread
+				.currentThread().getContextClassLoader();
 		
+		try {
+			final TypeLibraryClassPath classPath = publishClassPath(resolveJarTypeLibraries());
+			monitor.worked(20);
+			Thread thread = Thread.currentThread();
+			ClassLoader loader = thread.getContextClassLoader();
+			thread.setContextClassLoader(SOAGlobalRegistryFactory.class.getClassLoader());
+			SOATypeRegistry typeReg = GlobalRepositorySystem
+			.instanceOf().getActiveRepositorySystem()
+			.getTypeRegistryBridge().getSOATypeRegistry();
+			thread.setContextClassLoader(loader);
+
+			monitor.worked(40);
+			// the registry is shared with the bridge, so it is populated
+			// under the registry lock although it is not published yet
+			registryLock.lock();
+			try {
+				classPath.classLoader.setPluginBundles(
+						(GlobalRepositorySystem
+								.instanceOf().getActiveRepositorySystem()
+								.getTypeRegistryBridge().getPluginBundles()));
+				monitor.worked(10);
+				Thread.currentThread().setContextClassLoader(
+						classPath.classLoader);
+				monitor.worked(10);
+				logUpdateDetails(typeReg.populateRegistryWithTypeLibrariesDetailed(
+						classPath.getLibraryNames()));
+				monitor.worked(10);
+				soaTypeRegistry = typeReg;
+				storeSnapshot(typeReg, classPath);
+			} finally {
+				registryLock.unlock();
+			}
+			return typeReg;
+		} catch (Exception e) {
+			logger.error(e);
+			throw e;
+		} finally {
+			Thread.currentThread().setContextClassLoader(
+					originalClassLoader);
+			monitor.done();
+			if (SOALogger.DEBUG) {
+				long duration = System.currentTimeMillis() - startTime;
+				logger.info("Time taken for initializing SOA global type registry is ", 
+						duration, " ms.");
+			}
+		}
+	}
+
+	/**
+	 * Resolves the type libraries of a registry restored from a snapshot and
+	 * repopulates the ones whose version or jars have changed since. The type
+	 * libraries are resolved without holding any lock, the new class path and
+	 * the changes of the registry are then published together under the
+	 * registry lock.
+	 */
+	private class RegistryRevalidationJob extends Job {
+		private final TypeRegistrySnapshot snapshot;
+
+		public RegistryRevalidationJob(TypeRegistrySnapshot snapshot) {
+			super("Revalidate SOA Type Registry");
+			this.snapshot = snapshot;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final SOATypeRegistry typeReg = soaTypeRegistry;
+			if (typeReg == null) {
+				// invalidated in the meantime
+				return Status.OK_STATUS;
+			}
+			final ClassLoader originalClassLoader = Thread.currentThread()
+					.getContextClassLoader();
+			try {
+				final List<AssetInfo> jarLibraries = resolveJarTypeLibraries();
+				final List<String> changedLibraries = new ArrayList<String>();
+				final Set<String> libraryNames = new HashSet<String>();
+				for (AssetInfo assetInfo : jarLibraries) {
+					libraryNames.add(assetInfo.getName());
+					if (!snapshot.isUpToDate(assetInfo.getName(), assetInfo
+							.getVersion(), assetInfo.getFiles(true))) {
+						changedLibraries.add(assetInfo.getName());
+					}
+				}
+				final List<String> removedLibraries = new ArrayList<String>();
+				for (String name : snapshot.getLibraryNames()) {
+					if (!libraryNames.contains(name)
+							&& !WorkspaceUtil.getProject(name).isAccessible()) {
+						removedLibraries.add(name);
+					}
+				}
+				registryLock.lock();
+				try {
+					if (soaTypeRegistry != typeReg) {
+						// invalidated in the meantime
+						return Status.OK_STATUS;
+					}
+					final TypeLibraryClassPath classPath = publishClassPath(jarLibraries);
+					classPath.classLoader.setPluginBundles(GlobalRepositorySystem
+							.instanceOf().getActiveRepositorySystem()
+							.getTypeRegistryBridge().getPluginBundles());
+					Thread.currentThread().setContextClassLoader(
+							classPath.classLoader);
+					for (String name : removedLibraries) {
+						typeReg.removeLibraryFromRegistry(name);
+					}
+					if (!changedLibraries.isEmpty()) {
+						logger.info("Repopulating changed type libraries->",
+								changedLibraries);
+						logUpdateDetails(typeReg
+								.populateRegistryWithTypeLibrariesDetailed(changedLibraries));
+					}
+					storeSnapshot(typeReg, classPath);
+				} finally {
+					registryLock.unlock();
+				}
+			} catch (Exception e) {
+				logger.warning("Failed to revalidate the SOA type registry",
+						e);
+				return Status.CANCEL_STATUS;
+			} finally {
+				Thread.currentThread().setContextClassLoader(
+						originalClassLoader);
+			}
+			return Status.OK_STATUS;
+		}
 	}
 
 }
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.repositorysystem.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.common.config.TypeInformationType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryType;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.RepositorySystemActivator;
+
+/**
+ * A compact on-disk snapshot of the jar based type libraries of the SOA type
+ * registry. Every library is keyed by its name, its version and the last
+ * modification time and size of its jars, so that a warm startup could
+ * restore the unchanged libraries without resolving and parsing them again.
+ *
+ * <p>
+ * Type library projects of the workspace are never part of the snapshot.
+ * </p>
+ */
+public class TypeRegistrySnapshot {
+
+	/** The file name of the snapshot in the plugin state location. */
+	public static final String FILE_NAME = "type-registry.snapshot";
+
+	private static final int FORMAT_VERSION = 1;
+
+	private final Map<String, LibraryEntry> libraries = new LinkedHashMap<String, LibraryEntry>();
+
+	/**
+	 * Instantiates a new, empty snapshot.
+	 */
+	public TypeRegistrySnapshot() {
+		super();
+	}
+
+	/**
+	 * Gets the snapshot file in the state location of the repository system
+	 * plugin.
+	 *
+	 * @return the default snapshot file
+	 */
+	public static File getDefaultFile() {
+		return RepositorySystemActivator.getDefault().getStateLocation()
+				.append(FILE_NAME).toFile();
+	}
+
+	/**
+	 * Adds a type library.
+	 *
+	 * @param name the library name
+	 * @param version the version of the library asset, could be null
+	 * @param jars the jars of the library
+	 * @param library the library as populated in the type registry
+	 */
+	public void addLibrary(String name, String version, Collection<File> jars,
+			TypeLibraryType library) {
+		final Map<String, long[]> stamps = new TreeMap<String, long[]>();
+		for (File jar : jars) {
+			stamps.put(jar.getAbsolutePath(), stamp(jar));
+		}
+		libraries.put(name, new LibraryEntry(toString(version), stamps,
+				copy(library)));
+	}
+
+	/**
+	 * Removes a type library.
+	 *
+	 * @param name the library name
+	 */
+	public void removeLibrary(String name) {
+		libraries.remove(name);
+	}
+
+	/**
+	 * Gets the names of all the libraries of the snapshot.
+	 *
+	 * @return the library names
+	 */
+	public Set<String> getLibraryNames() {
+		return Collections.unmodifiableSet(libraries.keySet());
+	}
+
+	/**
+	 * Gets a copy of the given library, as it has been populated in the type
+	 * registry.
+	 *
+	 * @param name the library name
+	 * @return the library, or null if not part of the snapshot
+	 */
+	public TypeLibraryType getLibrary(String name) {
+		final LibraryEntry entry = libraries.get(name);
+		return entry != null ? copy(entry.library) : null;
+	}
+
+	/**
+	 * Gets the jars of the given library.
+	 *
+	 * @param name the library name
+	 * @return the jars, never null
+	 */
+	public Set<File> getJars(String name) {
+		final Set<File> result = new LinkedHashSet<File>();
+		final LibraryEntry entry = libraries.get(name);
+		if (entry != null) {
+			for (String path : entry.jars.keySet()) {
+				result.add(new File(path));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Checks if none of the jars of the given library has changed since the
+	 * snapshot has been taken. This check does not resolve the library.
+	 *
+	 * @param name the library name
+	 * @return true, if the library is part of the snapshot and its jars are
+	 * unchanged
+	 */
+	public boolean isUpToDate(String name) {
+		final LibraryEntry entry = libraries.get(name);
+		if (entry == null || entry.jars.isEmpty()) {
+			return false;
+		}
+		for (Map.Entry<String, long[]> jar : entry.jars.entrySet()) {
+			final long[] current = stamp(new File(jar.getKey()));
+			if (current[0] != jar.getValue()[0]
+					|| current[1] != jar.getValue()[1]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if the given resolved library matches the snapshot, i.e. it has
+	 * the same version and the same, unchanged jars.
+	 *
+	 * @param name the library name
+	 * @param version the version of the library asset
+	 * @param jars the jars of the library
+	 * @return true, if the library does not need to be populated again
+	 */
+	public boolean isUpToDate(String name, String version, Collection<File> jars) {
+		final LibraryEntry entry = libraries.get(name);
+		if (entry == null || entry.version.equals(toString(version)) == false
+				|| entry.jars.size() != jars.size()) {
+			return false;
+		}
+		for (File jar : jars) {
+			if (entry.jars.containsKey(jar.getAbsolutePath()) == false) {
+				return false;
+			}
+		}
+		return isUpToDate(name);
+	}
+
+	/**
+	 * Loads a snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @return the snapshot, or null if the file does not exist, is corrupted
+	 * or has been written by an incompatible version
+	 */
+	public static TypeRegistrySnapshot load(File file) {
+		if (file.isFile() == false) {
+			return null;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(
+					new FileInputStream(file)));
+			if (in.readInt() != FORMAT_VERSION) {
+				return null;
+			}
+			final TypeRegistrySnapshot result = new TypeRegistrySnapshot();
+			for (int i = in.readInt(); i > 0; i--) {
+				final String name = in.readUTF();
+				final String version = in.readUTF();
+				final Map<String, long[]> jars = new TreeMap<String, long[]>();
+				for (int j = in.readInt(); j > 0; j--) {
+					jars.put(in.readUTF(), new long[] { in.readLong(),
+							in.readLong() });
+				}
+				final TypeLibraryType library = new TypeLibraryType();
+				library.setLibraryName(name);
+				library.setVersion(readString(in));
+				library.setCategory(readString(in));
+				library.setLibraryNamespace(readString(in));
+				for (int j = in.readInt(); j > 0; j--) {
+					final TypeInformationType type = new TypeInformationType();
+					type.setXmlTypeName(readString(in));
+					type.setJavaTypeName(readString(in));
+					type.setVersion(readString(in));
+					library.getType().add(type);
+				}
+				result.libraries.put(name, new LibraryEntry(version, jars,
+						library));
+			}
+			return result;
+		} catch (IOException e) {
+			return null;
+		} finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Stores the snapshot. The file is replaced atomically where the file
+	 * system supports it, so that a concurrent load never sees a partial
+	 * snapshot.
+	 *
+	 * @param file the snapshot file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void store(File file) throws IOException {
+		FileUtils.forceMkdir(file.getParentFile());
+		final File tempFile = new File(file.getParentFile(), file.getName()
+				+ ".tmp");
+		final DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(tempFile)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(libraries.size());
+			for (Map.Entry<String, LibraryEntry> library : libraries
+					.entrySet()) {
+				final LibraryEntry entry = library.getValue();
+				out.writeUTF(library.getKey());
+				out.writeUTF(entry.version);
+				out.writeInt(entry.jars.size());
+				for (Map.Entry<String, long[]> jar : entry.jars.entrySet()) {
+					out.writeUTF(jar.getKey());
+					out.writeLong(jar.getValue()[0]);
+					out.writeLong(jar.getValue()[1]);
+				}
+				writeString(out, entry.library.getVersion());
+				writeString(out, entry.library.getCategory());
+				writeString(out, entry.library.getLibraryNamespace());
+				out.writeInt(entry.library.getType().size());
+				for (TypeInformationType type : entry.library.getType()) {
+					writeString(out, type.getXmlTypeName());
+					writeString(out, type.getJavaTypeName());
+					writeString(out, type.getVersion());
+				}
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		if (file.exists() && file.delete() == false
+				|| tempFile.renameTo(file) == false) {
+			FileUtils.deleteQuietly(tempFile);
+			throw new IOException("Failed to replace the snapshot " + file);
+		}
+	}
+
+	private static long[] stamp(File jar) {
+		return new long[] { jar.lastModified(), jar.length() };
+	}
+
+	private static String toString(String value) {
+		return value != null ? value : "";
+	}
+
+	private static void writeString(DataOutputStream out, String value)
+			throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	private static TypeLibraryType copy(TypeLibraryType library) {
+		final TypeLibraryType result = new TypeLibraryType();
+		result.setLibraryName(library.getLibraryName());
+		result.setVersion(library.getVersion());
+		result.setCategory(library.getCategory());
+		result.setLibraryNamespace(library.getLibraryNamespace());
+		for (TypeInformationType type : library.getType()) {
+			final TypeInformationType typeCopy = new TypeInformationType();
+			typeCopy.setXmlTypeName(type.getXmlTypeName());
+			typeCopy.setJavaTypeName(type.getJavaTypeName());
+			typeCopy.setVersion(type.getVersion());
+			result.getType().add(typeCopy);
+		}
+		return result;
+	}
+
+	private static class LibraryEntry {
+		private final String version;
+		/** the jar paths mapped to their last modification time and size */
+		private final Map<String, long[]> jars;
+		private final TypeLibraryType library;
+
+		private LibraryEntry(String version, Map<String, long[]> jars,
+				TypeLibraryType library) {
+			super();
+			this.version = version;
+			this.jars = jars;
+			this.library = library;
+		}
+	}
+}
@@ -72,27 +72,48 @@ public class RepositoryUtils {
 		Set<ProjectInfo> projectSet = new TreeSet<ProjectInfo>();
 		IProject[] projects = WorkspaceUtil.getAllProjectsInWorkSpace();
 		for (IProject project : projects) {
-			if (project.isAccessible()) {
-				if (TurmericServiceUtils.isSOAInterfaceProject(project)) {
-					final Properties props = SOAIntfUtil.loadMetadataProps(
-							project, project.getName());
-					if (props != null) {
-						final String adminName = props.containsKey(SOAProjectConstants.PROP_KEY_ADMIN_NAME) ?
-								props.getProperty(SOAProjectConstants.PROP_KEY_ADMIN_NAME) : 
-									props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_NAME);
-						final ProjectInfo info = new ProjectInfo(
-								StringUtils.trim(adminName),
-								StringUtils.trim(props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_VERSION)),
-								project.getLocation().toString(),
-								StringUtils.trim(props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_LAYER)),
-								IAssetInfo.TYPE_SERVICE_LIBRARY);
-
-						projectSet.add(info);
-					}
-				}
+			final ProjectInfo info = getInterfaceProjectInfo(project);
+			if (info != null) {
+				projectSet.add(info);
 			}
 		}
 		return projectSet;
 	}
 
+	/**
+	 * Gets the service information of the given interface project.
+	 *
+	 * @param project the project
+	 * @return the project info, or null if the project is not an accessible
+	 * interface project with a service metadata file
+	 * @throws Exception the exception
+	 */
+	public static ProjectInfo getInterfaceProjectInfo(IProject project)
+			throws Exception {
+		if (project.isAccessible() == false
+				|| TurmericServiceUtils.isSOAInterfaceProject(project) == false) {
+			return null;
+		}
+		final Properties props = SOAIntfUtil.loadMetadataProps(
+				project, project.getName());
+		if (props == null) {
+			return null;
+		}
+		final String adminName = props.containsKey(SOAProjectConstants.PROP_KEY_ADMIN_NAME) ?
+				props.getProperty(SOAProjectConstants.PROP_KEY_ADMIN_NAME) : 
+					props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_NAME);
+		final ProjectInfo info = new ProjectInfo(
+				StringUtils.trim(adminName),
+				StringUtils.trim(props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_VERSION)),
+				project.getLocation().toString(),
+				StringUtils.trim(props.getProperty(SOAProjectConstants.PROP_KEY_SERVICE_LAYER)),
+				IAssetInfo.TYPE_SERVICE_LIBRARY);
+		info.setInterfaceProjectName(project.getName());
+		info.setServiceDomain(StringUtils.trim(props.getProperty(
+				SOAProjectConstants.PROPS_SERVICE_DOMAIN_NAME)));
+		info.setServiceNamespacePart(StringUtils.trim(props.getProperty(
+				SOAProjectConstants.PROPS_SERVICE_NAMESPACE_PART)));
+		return info;
+	}
+
 }
@@ -28,6 +28,8 @@ public class ProjectInfo extends AssetInfo {
 	private final String serviceLayer; //we still need this in order to show the service layer info
 	private String interfaceProjectName;
 	private String implementationProjectName;
+	private String serviceDomain;
+	private String serviceNamespacePart;
 	private Set<String> requiredLibraries = new TreeSet<String>();
 	private Set<String> requiredProjects = new TreeSet<String>();
 	private Set<String> requiredServices = new TreeSet<String>();
@@ -160,4 +162,40 @@ public class ProjectInfo extends AssetInfo {
 	public String getServiceLayer() {
 		return serviceLayer;
 	}
+
+	/**
+	 * Gets the service domain.
+	 *
+	 * @return the service domain, or null if not known
+	 */
+	public String getServiceDomain() {
+		return serviceDomain;
+	}
+
+	/**
+	 * Sets the service domain.
+	 *
+	 * @param serviceDomain the new service domain
+	 */
+	public void setServiceDomain(String serviceDomain) {
+		this.serviceDomain = serviceDomain;
+	}
+
+	/**
+	 * Gets the service namespace part.
+	 *
+	 * @return the service namespace part, or null if not known
+	 */
+	public String getServiceNamespacePart() {
+		return serviceNamespacePart;
+	}
+
+	/**
+	 * Sets the service namespace part.
+	 *
+	 * @param serviceNamespacePart the new service namespace part
+	 */
+	public void setServiceNamespacePart(String serviceNamespacePart) {
+		this.serviceNamespacePart = serviceNamespacePart;
+	}
 }
@@ -574,7 +574,7 @@ public class SOAIntfUtil {
 		if (SOALogger.DEBUG)
 			logger.entering(wsdlLocation, metadata);
 		if (StringUtils.isNotBlank(wsdlLocation)) {
-			final Definition wsdl = WSDLUtil.readWSDL(wsdlLocation);
+			final Definition wsdl = WSDLUtil.readWSDLCached(wsdlLocation);
 			setInformationFromWsdl(wsdl, metadata);
 		}
 		if (SOALogger.DEBUG)
@@ -778,7 +778,7 @@ public class SOAIntfUtil {
 	 *
 	 * @param serviceName the service name
 	 * @param requiredServiceProjectPath the required service project path
-	 * @return the wSDL url from intf project
+	 * @return the wSDL url from intf project, shared and read only
 	 * @throws Exception the exception
 	 */
 	public static Definition getWSDLUrlFromIntfProject(
@@ -947,7 +947,8 @@ public class SOAIntfUtil {
 				if (SOALogger.DEBUG)
 					logger.debug("Directly loading WSDL from the project->",
 							wsdlFile.getLocation());
-				result = WSDLUtil.readWSDL(wsdlFile.getLocation().toString());
+				result = WSDLUtil.readWSDLCached(wsdlFile.getLocation()
+						.toString());
 			}
 		}
 
@@ -965,7 +966,7 @@ public class SOAIntfUtil {
 						SOAProjectConstants.WSDL_EXT);
 				if (SOALogger.DEBUG)
 					logger.debug("Reading WSDL from ", file, "!", jarEntryLoc);
-				result = WSDLUtil.readWSDLFromJarFile(file, jarEntryLoc);
+				result = WSDLUtil.readWSDLFromJarFileCached(file, jarEntryLoc);
 			} else {
 				final IPath wsdlPath = intfProjectPath.append(
 						SOAIntfProject.META_SRC_WSDL).append(serviceName)
@@ -973,7 +974,7 @@ public class SOAIntfUtil {
 				if (wsdlPath.toFile().exists()) {
 					if (SOALogger.DEBUG)
 						logger.debug("Loading WSDL from ", wsdlPath);
-					result = WSDLUtil.readWSDL(wsdlPath.toString());
+					result = WSDLUtil.readWSDLCached(wsdlPath.toString());
 				}
 			}
 		}
@@ -56,8 +56,8 @@ public class SOASearchPage extends DialogPage implements ISearchPage {
 	
 	private Text serviceNameText;
 	private CCombo serviceLayerList;
-	//private CCombo serviceDomainList;
-	//private static final List<String> DOMAIN_LIST = new ArrayList<String>();
+	private Text serviceDomainText;
+	private Text serviceNamespaceText;
 	
 	/**
 	 * Instantiates a new sOA search page.
@@ -95,7 +95,8 @@ public class SOASearchPage extends DialogPage implements ISearchPage {
 				buildSystemBtn.getSelection(), 
 				serviceNameText.getText(), 
 				serviceLayerList.getText(), 
-				"")); 
+				serviceDomainText.getText(), 
+				serviceNamespaceText.getText())); 
 		return true;
 	}
 
@@ -206,7 +207,7 @@ public class SOASearchPage extends DialogPage implements ISearchPage {
 		serviceNameText = new Text(group, SWT.BORDER);
 		serviceNameText.setLayoutData(data);
 		UIUtil.decorateControl(null, serviceNameText, 
-				"the name of the service for searching");
+				"the name of the service for searching, '*' matches any characters");
 		
 		label = new Label(group, SWT.NONE);
 		label.setText("Service &Layer:");
@@ -220,6 +221,20 @@ public class SOASearchPage extends DialogPage implements ISearchPage {
 		Collections.reverse(layers);
 		serviceLayerList.setItems(
 				layers.toArray(new String[0]));
+		
+		label = new Label(group, SWT.NONE);
+		label.setText("Service &Domain:");
+		serviceDomainText = new Text(group, SWT.BORDER);
+		serviceDomainText.setLayoutData(data);
+		UIUtil.decorateControl(null, serviceDomainText, 
+				"the domain of the service for searching, '*' matches any characters");
+		
+		label = new Label(group, SWT.NONE);
+		label.setText("Service Na&mespace:");
+		serviceNamespaceText = new Text(group, SWT.BORDER);
+		serviceNamespaceText.setLayoutData(data);
+		UIUtil.decorateControl(null, serviceNamespaceText, 
+				"the namespace part of the service for searching, '*' matches any characters");
 	}
 
 }
@@ -12,9 +12,6 @@
 package org.ebayopensource.turmeric.eclipse.services.search;
 
 import org.apache.commons.lang.StringUtils;
-import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
-import org.ebayopensource.turmeric.eclipse.repositorysystem.utils.RepositoryUtils;
-import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
 import org.ebayopensource.turmeric.eclipse.resources.model.ProjectInfo;
 import org.ebayopensource.turmeric.eclipse.services.search.SOASearchResult.SOASearchResultService;
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -42,6 +39,7 @@ public class SOASearchQuery implements ISearchQuery{
 	private String serviceName;
 	private String serviceLayer;
 	private String serviceDomain;
+	private String serviceNamespace;
 
 	/**
 	 * Instantiates a new sOA search query.
@@ -67,6 +65,21 @@ public class SOASearchQuery implements ISearchQuery{
 		this.serviceDomain = serviceDomain;
 	}
 
+	/**
+	 * Instantiates a new sOA search query.
+	 *
+	 * @param searchBuildSystem the search build system
+	 * @param serviceName the service name
+	 * @param serviceLayer the service layer
+	 * @param serviceDomain the service domain
+	 * @param serviceNamespace the service namespace part
+	 */
+	public SOASearchQuery(boolean searchBuildSystem, String serviceName,
+			String serviceLayer, String serviceDomain, String serviceNamespace) {
+		this(searchBuildSystem, serviceName, serviceLayer, serviceDomain);
+		this.serviceNamespace = serviceNamespace;
+	}
+
 	/**
 	 * Gets the service name.
 	 *
@@ -121,6 +134,24 @@ public class SOASearchQuery implements ISearchQuery{
 		this.serviceDomain = serviceDomain;
 	}
 
+	/**
+	 * Gets the service namespace part.
+	 *
+	 * @return the service namespace part
+	 */
+	public String getServiceNamespace() {
+		return serviceNamespace;
+	}
+
+	/**
+	 * Sets the service namespace part.
+	 *
+	 * @param serviceNamespace the new service namespace part
+	 */
+	public void setServiceNamespace(String serviceNamespace) {
+		this.serviceNamespace = serviceNamespace;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -167,6 +198,12 @@ public class SOASearchQuery implements ISearchQuery{
 			buf.append("Domain->");
 			buf.append(serviceDomain);
 		}
+		if (StringUtils.isNotBlank(serviceNamespace)) {
+			if (buf.length() > 0)
+				buf.append(", ");
+			buf.append("Namespace->");
+			buf.append(serviceNamespace);
+		}
 		
 		return buf.toString();
 	}
@@ -209,33 +246,17 @@ public class SOASearchQuery implements ISearchQuery{
 		monitor.beginTask("Searching for SOA Services...", IProgressMonitor.UNKNOWN);
 		try {
 			SOASearchResult result = (SOASearchResult)getSearchResult();
-			if (searchBuildSystem == false) {
-				//searching in the current workspace
-				for (ProjectInfo project : RepositoryUtils
-						.getInterfaceProjectsFromWorkSpace()) {
-					if (matches(project)) {
-						SOASearchResultService service = new SOASearchResultService(project.getName(), 
-								project.getServiceLayer(), project.getVersion());
-						
-						if (result.getMatchCount(service) == 0) {
-							result.addMatch(new Match(service, 
-									Match.UNIT_LINE, 0, 0));
-						}
-						
-					}
-					monitor.worked(100);
-				}
+			//the workspace or the build system is only listed by the first search
+			for (ProjectInfo project : ServiceSearchIndex.getIndex(searchBuildSystem)
+					.search(serviceName, serviceLayer, serviceDomain, serviceNamespace)) {
+				SOASearchResultService service = new SOASearchResultService(project.getName(), 
+						project.getServiceLayer(), project.getVersion());
 				
-			} else {
-				for (AssetInfo project : GlobalRepositorySystem.instanceOf()
-						.getActiveRepositorySystem().getAssetRegistry().getAllAvailableServices()) {
-					if (project instanceof ProjectInfo && matches((ProjectInfo)project)) {
-						result.addMatch(new Match(new SOASearchResultService(project.getName(), 
-								((ProjectInfo)project).getServiceLayer(), project.getVersion()), 
-								Match.UNIT_LINE, 0, 0));
-					}
-					monitor.worked(100);
+				if (result.getMatchCount(service) == 0) {
+					result.addMatch(new Match(service, 
+							Match.UNIT_LINE, 0, 0));
 				}
+				monitor.worked(100);
 			}
 		} catch (Exception e) {
 			e.printStackTrace();
@@ -243,17 +264,5 @@ public class SOASearchQuery implements ISearchQuery{
 		monitor.done();
 		return Status.OK_STATUS;
 	}
-	
-	private boolean matches(ProjectInfo project) {
-		if (StringUtils.isNotBlank(serviceName)
-				&& serviceName.equals(project.getName()) == false) {
-			return false;
-		}
-		if (StringUtils.isNotBlank(serviceLayer)
-				&& serviceLayer.equals(project.getServiceLayer()) == false) {
-			return false;
-		}
-		return true;
-	}
 
 }
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.services.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.ISOARepositorySystem;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.utils.RepositoryUtils;
+import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
+import org.ebayopensource.turmeric.eclipse.resources.model.ProjectInfo;
+
+/**
+ * An index of the services by name, layer, domain and namespace part, used by
+ * the SOA search. There is one index of the interface projects of the
+ * workspace and one of the services of the build system, each built on the
+ * first search and then kept up to date by the
+ * {@link ServiceSearchIndexUpdater}.
+ *
+ * <p>
+ * Services installed into the build system from outside of the workspace do
+ * not send any event, so the build system index is built again once it is
+ * older than {@link #BUILD_SYSTEM_MAX_AGE}, or after {@link #invalidate(boolean)}
+ * which the refresh of the services view calls.
+ * </p>
+ *
+ * <p>
+ * The name, domain and namespace patterns are case insensitive prefixes in
+ * which every '*' matches any sequence of characters, the layer has to match
+ * exactly. Blank criteria match every service.
+ * </p>
+ */
+public class ServiceSearchIndex {
+	/**
+	 * The time in milliseconds after which the build system index is built
+	 * again on the next search.
+	 */
+	public static final long BUILD_SYSTEM_MAX_AGE = 5 * 60 * 1000L;
+
+	private static final char WILDCARD = '*';
+
+	private static ServiceSearchIndex workspaceIndex;
+	private static ServiceSearchIndex buildSystemIndex;
+	private static String buildSystemId;
+	private static long buildSystemTime;
+
+	/** the services by interface project name */
+	private final Map<String, ProjectInfo> services = new HashMap<String, ProjectInfo>();
+	private final SortedMap<String, Set<String>> names = new TreeMap<String, Set<String>>();
+	private final Map<String, Set<String>> layers = new HashMap<String, Set<String>>();
+	private final SortedMap<String, Set<String>> domains = new TreeMap<String, Set<String>>();
+	private final SortedMap<String, Set<String>> namespaces = new TreeMap<String, Set<String>>();
+
+	/**
+	 * Instantiates a new, empty service search index.
+	 */
+	public ServiceSearchIndex() {
+		super();
+	}
+
+	/**
+	 * Instantiates a new service search index of the given services.
+	 *
+	 * @param services the services
+	 */
+	public ServiceSearchIndex(Collection<? extends AssetInfo> services) {
+		this();
+		for (AssetInfo service : services) {
+			if (service instanceof ProjectInfo) {
+				update((ProjectInfo) service);
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of the workspace or of the build system, building it on
+	 * the first call. The build system index is built again if the active
+	 * repository system has changed or the index is older than
+	 * {@link #BUILD_SYSTEM_MAX_AGE}.
+	 *
+	 * @param buildSystem true for the services of the build system, false for
+	 * the interface projects of the workspace
+	 * @return the index
+	 * @throws Exception the exception
+	 */
+	public static synchronized ServiceSearchIndex getIndex(boolean buildSystem)
+			throws Exception {
+		if (buildSystem == false) {
+			if (workspaceIndex == null) {
+				workspaceIndex = new ServiceSearchIndex(RepositoryUtils
+						.getInterfaceProjectsFromWorkSpace());
+			}
+			return workspaceIndex;
+		}
+		final ISOARepositorySystem repositorySystem = GlobalRepositorySystem
+				.instanceOf().getActiveRepositorySystem();
+		final long now = System.currentTimeMillis();
+		if (buildSystemIndex == null
+				|| StringUtils.equals(buildSystemId, repositorySystem.getId()) == false
+				|| now - buildSystemTime > BUILD_SYSTEM_MAX_AGE) {
+			buildSystemIndex = new ServiceSearchIndex(repositorySystem
+					.getAssetRegistry().getAllAvailableServices());
+			buildSystemId = repositorySystem.getId();
+			buildSystemTime = now;
+		}
+		return buildSystemIndex;
+	}
+
+	/**
+	 * Gets the index of the workspace or of the build system.
+	 *
+	 * @param buildSystem true for the services of the build system, false for
+	 * the interface projects of the workspace
+	 * @return the index, or null if it has not been built yet
+	 */
+	public static synchronized ServiceSearchIndex getIndexIfAvailable(
+			boolean buildSystem) {
+		return buildSystem ? buildSystemIndex : workspaceIndex;
+	}
+
+	/**
+	 * Drops the index of the workspace or of the build system, it is built
+	 * again on the next search.
+	 *
+	 * @param buildSystem true for the services of the build system, false for
+	 * the interface projects of the workspace
+	 */
+	public static synchronized void invalidate(boolean buildSystem) {
+		if (buildSystem) {
+			buildSystemIndex = null;
+			buildSystemId = null;
+		} else {
+			workspaceIndex = null;
+		}
+	}
+
+	/**
+	 * Adds or replaces the given service.
+	 *
+	 * @param service the service
+	 */
+	public synchronized void update(ProjectInfo service) {
+		final String key = getKey(service);
+		remove(key);
+		services.put(key, service);
+		addPosting(names, service.getName(), key);
+		addPosting(layers, service.getServiceLayer(), key);
+		addPosting(domains, service.getServiceDomain(), key);
+		addPosting(namespaces, service.getServiceNamespacePart(), key);
+	}
+
+	/**
+	 * Removes the service of the given interface project.
+	 *
+	 * @param interfaceProjectName the interface project name
+	 * @return true, if the service was indexed
+	 */
+	public synchronized boolean remove(String interfaceProjectName) {
+		final ProjectInfo service = services.remove(interfaceProjectName);
+		if (service == null) {
+			return false;
+		}
+		removePosting(names, service.getName(), interfaceProjectName);
+		removePosting(layers, service.getServiceLayer(), interfaceProjectName);
+		removePosting(domains, service.getServiceDomain(), interfaceProjectName);
+		removePosting(namespaces, service.getServiceNamespacePart(),
+				interfaceProjectName);
+		return true;
+	}
+
+	/**
+	 * Checks if the service of the given interface project is indexed.
+	 *
+	 * @param interfaceProjectName the interface project name
+	 * @return true, if the service is indexed
+	 */
+	public synchronized boolean contains(String interfaceProjectName) {
+		return services.containsKey(interfaceProjectName);
+	}
+
+	/**
+	 * Gets the number of indexed services.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return services.size();
+	}
+
+	/**
+	 * Searches the services matching all the given criteria.
+	 *
+	 * @param namePattern the service name pattern
+	 * @param layer the service layer
+	 * @param domainPattern the service domain pattern
+	 * @param namespacePattern the service namespace part pattern
+	 * @return the matching services
+	 */
+	public synchronized List<ProjectInfo> search(String namePattern,
+			String layer, String domainPattern, String namespacePattern) {
+		Set<String> keys = null;
+		keys = retain(keys, getMatches(names, namePattern));
+		if (StringUtils.isNotBlank(layer)) {
+			keys = retain(keys, getPostings(layers, layer.trim()));
+		}
+		keys = retain(keys, getMatches(domains, domainPattern));
+		keys = retain(keys, getMatches(namespaces, namespacePattern));
+		final List<ProjectInfo> result = new ArrayList<ProjectInfo>();
+		if (keys == null) {
+			result.addAll(services.values());
+		} else {
+			for (String key : keys) {
+				result.add(services.get(key));
+			}
+		}
+		return result;
+	}
+
+	private static String getKey(ProjectInfo service) {
+		return StringUtils.isNotBlank(service.getInterfaceProjectName()) ? service
+				.getInterfaceProjectName()
+				: service.getName();
+	}
+
+	private static Set<String> retain(Set<String> keys, Set<String> matches) {
+		if (matches == null) {
+			return keys;
+		}
+		if (keys == null) {
+			return new HashSet<String>(matches);
+		}
+		keys.retainAll(matches);
+		return keys;
+	}
+
+	private static Set<String> getPostings(Map<String, Set<String>> postings,
+			String value) {
+		final Set<String> result = postings.get(value.toLowerCase());
+		return result != null ? result : new HashSet<String>(0);
+	}
+
+	/**
+	 * Looks up the leading segment of the pattern in the sorted values and
+	 * matches the values in range against the remaining segments.
+	 *
+	 * @return the keys of the matching services, or null if the pattern is
+	 * blank
+	 */
+	private static Set<String> getMatches(
+			SortedMap<String, Set<String>> postings, String pattern) {
+		final String key = StringUtils.trimToEmpty(pattern).toLowerCase();
+		if (key.length() == 0) {
+			return null;
+		}
+		final String[] segments = StringUtils.splitPreserveAllTokens(key,
+				WILDCARD);
+		final String prefix = segments[0];
+		final SortedMap<String, Set<String>> candidates = prefix.length() > 0 ? postings
+				.subMap(prefix, prefix + Character.MAX_VALUE)
+				: postings;
+		final Set<String> result = new HashSet<String>();
+		for (Map.Entry<String, Set<String>> candidate : candidates.entrySet()) {
+			if (matches(candidate.getKey(), segments)) {
+				result.addAll(candidate.getValue());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * The first segment is anchored at the start of the value, the others
+	 * have to follow in order.
+	 */
+	private static boolean matches(String value, String[] segments) {
+		if (value.startsWith(segments[0]) == false) {
+			return false;
+		}
+		int index = segments[0].length();
+		for (int i = 1; i < segments.length; i++) {
+			index = value.indexOf(segments[i], index);
+			if (index < 0) {
+				return false;
+			}
+			index += segments[i].length();
+		}
+		return true;
+	}
+
+	private static void addPosting(Map<String, Set<String>> postings,
+			String value, String key) {
+		if (StringUtils.isBlank(value)) {
+			return;
+		}
+		final String lowerValue = value.trim().toLowerCase();
+		Set<String> keys = postings.get(lowerValue);
+		if (keys == null) {
+			keys = new HashSet<String>();
+			postings.put(lowerValue, keys);
+		}
+		keys.add(key);
+	}
+
+	private static void removePosting(Map<String, Set<String>> postings,
+			String value, String key) {
+		if (StringUtils.isBlank(value)) {
+			return;
+		}
+		final String lowerValue = value.trim().toLowerCase();
+		final Set<String> keys = postings.get(lowerValue);
+		if (keys != null) {
+			keys.remove(key);
+			if (keys.isEmpty()) {
+				postings.remove(lowerValue);
+			}
+		}
+	}
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.services.search;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.utils.RepositoryUtils;
+import org.ebayopensource.turmeric.eclipse.resources.model.ProjectInfo;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Keeps the {@link ServiceSearchIndex} instances in sync with the interface
+ * projects of the workspace. Added, removed, opened and closed projects and
+ * changed service metadata files are re-read in a background job.
+ *
+ * <p>
+ * The build system index refreshes the services which are in the workspace
+ * as well, the same way the asset registry prefers the metadata of the
+ * workspace projects to the one of the local repository. A new interface
+ * project drops the build system index, since the service could have been
+ * installed into the build system in the meantime.
+ * </p>
+ */
+public class ServiceSearchIndexUpdater implements IResourceChangeListener {
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	/** the names of the changed projects, guarded by itself */
+	private final Set<String> pendingProjects = new LinkedHashSet<String>();
+	private final Job updateJob = new Job("Updating SOA Service Search Index") {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			applyPendingChanges(monitor);
+			return Status.OK_STATUS;
+		}
+	};
+
+	/**
+	 * Instantiates a new service search index updater.
+	 */
+	public ServiceSearchIndexUpdater() {
+		super();
+		updateJob.setSystem(true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null
+				|| (ServiceSearchIndex.getIndexIfAvailable(false) == null && ServiceSearchIndex
+						.getIndexIfAvailable(true) == null)) {
+			return;
+		}
+		final Set<String> projects = new LinkedHashSet<String>();
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					final IResource resource = delta.getResource();
+					if (resource instanceof IProject) {
+						if (delta.getKind() == IResourceDelta.ADDED
+								|| delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & (IResourceDelta.OPEN | IResourceDelta.DESCRIPTION)) != 0) {
+							projects.add(resource.getName());
+							return false;
+						}
+						return true;
+					}
+					if (resource.getType() == IResource.FILE
+							&& SOAProjectConstants.PROPS_FILE_SERVICE_METADATA
+									.equals(resource.getName())) {
+						projects.add(resource.getProject().getName());
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			logger.error(e);
+			return;
+		}
+		if (projects.isEmpty() == false) {
+			synchronized (pendingProjects) {
+				pendingProjects.addAll(projects);
+			}
+			updateJob.schedule();
+		}
+	}
+
+	private void applyPendingChanges(IProgressMonitor monitor) {
+		final List<String> projects;
+		synchronized (pendingProjects) {
+			projects = new ArrayList<String>(pendingProjects);
+			pendingProjects.clear();
+		}
+		monitor.beginTask(updateJob.getName(), projects.size());
+		for (String projectName : projects) {
+			try {
+				final ProjectInfo service = RepositoryUtils
+						.getInterfaceProjectInfo(WorkspaceUtil
+								.getProject(projectName));
+				final ServiceSearchIndex workspaceIndex = ServiceSearchIndex
+						.getIndexIfAvailable(false);
+				if (workspaceIndex != null) {
+					if (service != null) {
+						workspaceIndex.update(service);
+					} else {
+						workspaceIndex.remove(projectName);
+					}
+				}
+				final ServiceSearchIndex buildSystemIndex = ServiceSearchIndex
+						.getIndexIfAvailable(true);
+				if (buildSystemIndex != null && service != null) {
+					if (buildSystemIndex.contains(projectName)) {
+						buildSystemIndex.update(service);
+					} else {
+						ServiceSearchIndex.invalidate(true);
+					}
+				}
+			} catch (Exception e) {
+				logger.error(e);
+			}
+			monitor.worked(1);
+		}
+		monitor.done();
+	}
+}
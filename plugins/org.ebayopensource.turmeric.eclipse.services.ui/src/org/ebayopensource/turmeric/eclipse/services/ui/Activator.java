@@ -1,6 +1,9 @@
 package org.ebayopensource.turmeric.eclipse.services.ui;
 
+import org.ebayopensource.turmeric.eclipse.services.search.ServiceSearchIndexUpdater;
 import org.ebayopensource.turmeric.eclipse.ui.UIActivator;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
@@ -19,6 +22,8 @@ public class Activator extends AbstractUIPlugin {
 	// The shared instance
 	private static Activator plugin;
 	
+	private ServiceSearchIndexUpdater serviceSearchIndexUpdater;
+	
 	/**
 	 * The constructor.
 	 */
@@ -32,6 +37,9 @@ public class Activator extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		serviceSearchIndexUpdater = new ServiceSearchIndexUpdater();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				serviceSearchIndexUpdater, IResourceChangeEvent.POST_CHANGE);
 	}
 
 	/**
@@ -39,6 +47,11 @@ public class Activator extends AbstractUIPlugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (serviceSearchIndexUpdater != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					serviceSearchIndexUpdater);
+			serviceSearchIndexUpdater = null;
+		}
 		plugin = null;
 		super.stop(context);
 	}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.services.ui.actions;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.SOAParallelBuildJob;
+import org.ebayopensource.turmeric.eclipse.buildsystem.utils.ActionUtil;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.TrackingEvent;
+import org.ebayopensource.turmeric.eclipse.utils.ui.UIUtil;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jface.action.IAction;
+import org.eclipse.jface.viewers.ISelection;
+import org.eclipse.jface.viewers.IStructuredSelection;
+import org.eclipse.ui.IObjectActionDelegate;
+import org.eclipse.ui.IWorkbenchPart;
+
+
+/**
+ * Runs the code generation of the selected Turmeric projects on multiple
+ * threads.
+ *
+ * @see SOAParallelBuildJob
+ */
+public class ParallelBuild implements IObjectActionDelegate {
+	private static final SOALogger logger = SOALogger.getLogger();
+	private IStructuredSelection selection;
+
+	/**
+	 * Instantiates a new parallel build action.
+	 */
+	public ParallelBuild() {
+		super();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @see org.eclipse.ui.IObjectActionDelegate#setActivePart(org.eclipse.jface.action.IAction, org.eclipse.ui.IWorkbenchPart)
+	 */
+	@Override
+	public void setActivePart(final IAction action,
+			final IWorkbenchPart targetPart) {
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 *  @see org.eclipse.ui.IActionDelegate#run(org.eclipse.jface.action.IAction)
+	 */
+	@Override
+	public void run(final IAction action) {
+		try {
+			if (SOALogger.DEBUG)
+				logger.entering(action, selection);
+
+			if (selection == null)
+				return;
+
+			final Set<IProject> projects = new LinkedHashSet<IProject>();
+			for (Iterator<?> it = selection.iterator(); it.hasNext();) {
+				final IProject project = ActionUtil.preValidateAction(
+						it.next(), logger);
+				if (project != null) {
+					projects.add(project);
+				}
+			}
+			if (projects.isEmpty())
+				return;
+
+			GlobalRepositorySystem.instanceOf().getActiveRepositorySystem()
+			.trackingUsage(new TrackingEvent(
+					getClass().getName(),
+					TrackingEvent.TRACKING_ACTION));
+			UIUtil.runJobInUIDialog(new SOAParallelBuildJob(projects))
+					.schedule();
+		} catch (Exception e) {
+			logger.error(e);
+			UIUtil.showErrorDialog(e);
+		} finally {
+			if (SOALogger.DEBUG)
+				logger.exiting();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see org.eclipse.ui.IActionDelegate#selectionChanged(org.eclipse.jface.action.IAction, org.eclipse.jface.viewers.ISelection)
+	 */
+	@Override
+	public void selectionChanged(final IAction action,
+			final ISelection selection) {
+		this.selection = (IStructuredSelection) selection;
+	}
+
+}
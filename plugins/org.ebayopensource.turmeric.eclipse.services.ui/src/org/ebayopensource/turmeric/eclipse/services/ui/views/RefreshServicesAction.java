@@ -8,6 +8,7 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.services.ui.views;
 
+import org.ebayopensource.turmeric.eclipse.services.search.ServiceSearchIndex;
 import org.ebayopensource.turmeric.eclipse.ui.UIActivator;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.resource.ImageDescriptor;
@@ -59,6 +60,8 @@ public class RefreshServicesAction extends Action {
 	 */
 	@Override
 	public void run() {
+		// picks up the services installed into the build system meanwhile
+		ServiceSearchIndex.invalidate(true);
 		if (structuredViewer != null) {
 			structuredViewer.refresh();
 		}
@@ -62,6 +62,7 @@ import org.ebayopensource.turmeric.eclipse.ui.UIActivator;
 import org.ebayopensource.turmeric.eclipse.ui.model.typelib.ComplexTypeCCParamModel;
 import org.ebayopensource.turmeric.eclipse.ui.model.typelib.ComplexTypeParamModel;
 import org.ebayopensource.turmeric.eclipse.ui.wizards.pages.typelib.ComplexTypeWizardElementPage;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
 import org.ebayopensource.turmeric.eclipse.utils.io.IOUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.ProgressUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
@@ -222,16 +223,32 @@ public class TypeLibraryUtil {
 			String baseLocation) throws CoreException, IOException {
 
 		if (baseLocation.toLowerCase().startsWith("jar:file:/")) {
-			JarFile jarFile = new JarFile(getJarFile(baseLocation.substring(10,
-					baseLocation.length())));
-			Enumeration<JarEntry> entries = jarFile.entries();
-			while (entries.hasMoreElements()) {
-				JarEntry entry = entries.nextElement();
-				if (entry.getName().startsWith(
-						SOATypeLibraryConstants.INFO_DEP_XML_PATH_IN_JAR)
-						&& entry.getName().endsWith(
-								SOATypeLibraryConstants.FILE_TYPE_DEP_XML)) {
-					return jarFile.getInputStream(entry);
+			final File file = getJarFile(baseLocation.substring(10,
+					baseLocation.length()));
+			final JarFileCache jarFileCache = JarFileCache.getDefault();
+			String entryName = null;
+			JarFile jarFile = jarFileCache.acquire(file);
+			try {
+				Enumeration<JarEntry> entries = jarFile.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					if (entry.getName().startsWith(
+							SOATypeLibraryConstants.INFO_DEP_XML_PATH_IN_JAR)
+							&& entry.getName().endsWith(
+									SOATypeLibraryConstants.FILE_TYPE_DEP_XML)) {
+						entryName = entry.getName();
+						break;
+					}
+				}
+			} finally {
+				jarFileCache.release(jarFile);
+			}
+			if (entryName != null) {
+				// the jar handle is released when the caller closes the stream
+				final InputStream result = jarFileCache.getInputStream(file,
+						entryName);
+				if (result != null) {
+					return result;
 				}
 			}
 		} else {
@@ -726,17 +743,22 @@ public class TypeLibraryUtil {
 		// this is a jar location if base location starts with jar for eg:
 		// "jar:file:/D:/Views/soapost22/v3jars/services/MarketPlaceServiceCommonTypeLibrary/3.0.0/java50/MarketPlaceServiceCommonTypeLibrary.jar!/types/BaseServiceResponse.xsd"
 		if (baseLocationStr.toLowerCase().startsWith("jar:file:/")) {
-			JarFile jarFile = new JarFile(getJarFile(baseLocationStr.substring(
-					10, baseLocationStr.length())));
-			Enumeration<JarEntry> entries = jarFile.entries();
-			while (entries.hasMoreElements()) {
-				JarEntry entry = entries.nextElement();
-				if (entry.getName().startsWith(
-						SOATypeLibraryConstants.INFO_DEP_XML_PATH_IN_JAR)
-						&& entry.getName().endsWith(
-								SOATypeLibraryConstants.FILE_TYPE_INFO_XML)) {
-					return getTypeLibName(entry, jarFile);
+			JarFile jarFile = JarFileCache.getDefault().acquire(
+					getJarFile(baseLocationStr.substring(10, baseLocationStr
+							.length())));
+			try {
+				Enumeration<JarEntry> entries = jarFile.entries();
+				while (entries.hasMoreElements()) {
+					JarEntry entry = entries.nextElement();
+					if (entry.getName().startsWith(
+							SOATypeLibraryConstants.INFO_DEP_XML_PATH_IN_JAR)
+							&& entry.getName().endsWith(
+									SOATypeLibraryConstants.FILE_TYPE_INFO_XML)) {
+						return getTypeLibName(entry, jarFile);
+					}
 				}
+			} finally {
+				JarFileCache.getDefault().release(jarFile);
 			}
 		} else {
 			// New style has the type library name also. So removing an
@@ -920,11 +942,13 @@ public class TypeLibraryUtil {
 	public static boolean isNewTypLibrary(URL jarURL, String projectName)
 			throws IOException {
 		File file = new File(jarURL.getPath());
-		JarFile jarFile;
-		jarFile = new JarFile(file);
-		return jarFile.getEntry(SOATypeLibraryConstants.TYPES_LOCATION_IN_JAR
-				+ WorkspaceUtil.PATH_SEPERATOR + projectName) != null;
-
+		JarFile jarFile = JarFileCache.getDefault().acquire(file);
+		try {
+			return jarFile.getEntry(SOATypeLibraryConstants.TYPES_LOCATION_IN_JAR
+					+ WorkspaceUtil.PATH_SEPERATOR + projectName) != null;
+		} finally {
+			JarFileCache.getDefault().release(jarFile);
+		}
 	}
 
 	/**
@@ -1,11 +1,20 @@
 package org.ebayopensource.turmeric.eclipse.buildsystem;
 
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.namespace.QName;
 
@@ -26,6 +35,7 @@ import org.ebayopensource.turmeric.eclipse.resources.util.SOAServiceUtil;
 import org.ebayopensource.turmeric.eclipse.typelibrary.TypeLibraryActivator;
 import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
 import org.ebayopensource.turmeric.eclipse.utils.collections.CollectionUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.ProgressUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
 import org.ebayopensource.turmeric.tools.library.SOATypeRegistry;
@@ -53,6 +63,22 @@ import org.eclipse.xsd.XSDTypeDefinition;
  */
 public class SynchronizeWsdlAndDepXML {
 
+	private static final int PARSER_THREADS = DependencyTaskExecutor
+			.getDefaultThreadCount(Integer.MAX_VALUE);
+
+	// shared by all the synchronizations, the threads are daemons
+	private static final ExecutorService PARSER_POOL = Executors
+			.newFixedThreadPool(PARSER_THREADS, new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger(0);
+
+				public Thread newThread(Runnable runnable) {
+					final Thread thread = new Thread(runnable,
+							"SOA XSD Parser-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
 	private Definition definition = null;
 	private IProject project = null;
 
@@ -122,25 +148,36 @@ public class SynchronizeWsdlAndDepXML {
 	 * @throws Exception the exception
 	 */
 	public void syncronizeXSDandDepXml(XSDSchema schema, QName type) throws Exception {
-		IFile typeDepFile = TurmericCoreActivator.getDependencyFile(project);
-		if (!typeDepFile.exists()) {
-			TypeDepMarshaller.createDefaultDepXml(project,
-					new NullProgressMonitor());
-			WorkspaceUtil.refresh(typeDepFile);
+		IFile typeDepFile = getDependencyFile();
+		TypeLibraryDependencyType typeLibraryDependencyType = TypeDepMarshaller
+				.unmarshallIt(typeDepFile);
+		if (syncronizeXSDandDepXml(schema, type, typeLibraryDependencyType)) {
+			TypeDepMarshaller.marshallIt(typeLibraryDependencyType,
+					typeDepFile);
 		}
+	}
+
+	/**
+	 * Synchronizes the in memory type dependencies with the given xsd.
+	 *
+	 * @param schema the schema
+	 * @param type the type
+	 * @param typeLibraryDependencyType the type dependencies to be updated
+	 * @return true, if the type dependencies have been modified and need to
+	 * be marshalled
+	 * @throws Exception the exception
+	 * @see #syncronizeXSDandDepXml(XSDSchema, QName)
+	 */
+	private boolean syncronizeXSDandDepXml(XSDSchema schema, QName type,
+			TypeLibraryDependencyType typeLibraryDependencyType)
+			throws Exception {
 		Map<LibraryType, XSDSchemaDirective> importedTypes = TypeLibraryActivator.getAllTypeLibImports(schema);
 
-		TypeLibraryDependencyType typeLibraryDependencyType = TypeDepMarshaller
-				.unmarshallIt(typeDepFile);
 		// No imports for this type
 		// so remove the entry if there is one
 		if (importedTypes == null || importedTypes.size() == 0) {
-			if (TypeDepMarshaller.removeTypeEntryIfExists(
-					typeLibraryDependencyType, type.getLocalPart())) {
-				TypeDepMarshaller.marshallIt(typeLibraryDependencyType,
-						typeDepFile);
-				return;
-			}
+			return TypeDepMarshaller.removeTypeEntryIfExists(
+					typeLibraryDependencyType, type.getLocalPart());
 		} else {
 
 			Set<QName> xsdImportedTypes = new HashSet<QName>();
@@ -182,13 +219,20 @@ public class SynchronizeWsdlAndDepXML {
 				TypeDepMarshaller.addAllReferredTypes(typeDependencyType,
 						importedTypes.keySet(), oldReferredTpes);
 			}
-			if (marshallReqd) {
-				TypeDepMarshaller.marshallIt(typeLibraryDependencyType,
-						typeDepFile);
-			}
+			return marshallReqd;
 		}
 	}
 
+	private IFile getDependencyFile() throws Exception {
+		IFile typeDepFile = TurmericCoreActivator.getDependencyFile(project);
+		if (!typeDepFile.exists()) {
+			TypeDepMarshaller.createDefaultDepXml(project,
+					new NullProgressMonitor());
+			WorkspaceUtil.refresh(typeDepFile);
+		}
+		return typeDepFile;
+	}
+
 	/**
 	 * Syncronize all xs dsand dep xml.
 	 *
@@ -200,9 +244,12 @@ public class SynchronizeWsdlAndDepXML {
 	}
 
 /**
- * Wrapper method, Internally uses.
+ * Synchronizes the type dependencies with all the given xsds in a single
+ * pass. The type dependency file is unmarshalled once, the xsds are parsed
+ * in parallel a few at a time, the differences are applied in memory and
+ * the file is marshalled at most once at the end.
  *
- * @param xsdFiles the xsd files
+ * @param xsdFiles the xsd files, or null for all the xsds of the project
  * @throws CoreException the core exception
  * @throws Exception the exception
  * @see {@link TypeLibSynhcronizer#syncronizeXSDandDepXml(XSDSchema, IProject, QName)
@@ -210,15 +257,10 @@ public class SynchronizeWsdlAndDepXML {
 	public void syncronizeAllXSDsandDepXml(List<IFile> xsdFiles)
 			throws CoreException, Exception {
 		// there could be some deleted XSDs also
-		IFile typeDepFile = TurmericCoreActivator.getDependencyFile(project);
+		IFile typeDepFile = getDependencyFile();
 		List<IFile> allXSDFiles = xsdFiles != null ? xsdFiles : TypeLibraryUtil
 				.getAllXsdFiles(project, true);
 		List<String> allXSDStr = new ArrayList<String>();
-		if (!typeDepFile.exists()) {
-			TypeDepMarshaller.createDefaultDepXml(project,
-					new NullProgressMonitor());
-			WorkspaceUtil.refresh(typeDepFile);
-		}
 
 		for (IFile file : allXSDFiles) {
 			if (file.exists()) {
@@ -238,17 +280,59 @@ public class SynchronizeWsdlAndDepXML {
 				marshallIt = true;
 			}
 		}
+
+		final List<IFile> accessibleFiles = new ArrayList<IFile>();
+		for (IFile file : allXSDFiles) {
+			if (file.isAccessible()) {
+				accessibleFiles.add(file);
+			}
+		}
+		// the type registry is not thread safe, so only the parsing is
+		// done in parallel. At most one schema per parser thread is parsed
+		// ahead, every schema is dropped once it has been processed.
+		final LinkedList<Future<XSDSchema>> parsed = new LinkedList<Future<XSDSchema>>();
+		int next = 0;
+		try {
+			for (int i = 0; i < accessibleFiles.size(); i++) {
+				while (next < accessibleFiles.size()
+						&& next <= i + PARSER_THREADS) {
+					parsed.add(parseSchema(accessibleFiles.get(next++)));
+				}
+				marshallIt |= syncronizeXSDandDepXml(getSchema(parsed
+						.removeFirst()), TypeLibraryUtil
+						.toQName(accessibleFiles.get(i)),
+						typeLibraryDependencyType);
+			}
+		} finally {
+			for (Future<XSDSchema> future : parsed) {
+				future.cancel(true);
+			}
+		}
 		if (marshallIt) {
 			TypeDepMarshaller
 					.marshallIt(typeLibraryDependencyType, typeDepFile);
 		}
+	}
 
-		for (IFile file : allXSDFiles) {
-			if (file.isAccessible()) {
-				XSDSchema xsdSchema = TypeLibraryUtil.parseSchema(file
-						.getLocation().toFile().toURI().toURL());
-				syncronizeXSDandDepXml(xsdSchema, TypeLibraryUtil.toQName(file));
+	private static Future<XSDSchema> parseSchema(IFile file) throws Exception {
+		final URL url = file.getLocation().toFile().toURI().toURL();
+		return PARSER_POOL.submit(new Callable<XSDSchema>() {
+			@Override
+			public XSDSchema call() throws Exception {
+				return TypeLibraryUtil.parseSchema(url);
+			}
+		});
+	}
+
+	private static XSDSchema getSchema(Future<XSDSchema> future)
+			throws Exception {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof Exception) {
+				throw (Exception) e.getCause();
 			}
+			throw e;
 		}
 	}
 
@@ -18,10 +18,13 @@ import org.ebayopensource.turmeric.common.config.LibraryType;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
 import org.ebayopensource.turmeric.eclipse.exception.core.SOABadParameterException;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
+import org.ebayopensource.turmeric.eclipse.typelibrary.builders.TypeRegistryUpdater;
 import org.ebayopensource.turmeric.eclipse.typelibrary.resources.SOAMessages;
 import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
 import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
 import org.ebayopensource.turmeric.tools.library.SOATypeRegistry;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.wst.wsdl.Definition;
 import org.eclipse.wst.wsdl.Types;
@@ -54,6 +57,8 @@ public class TypeLibraryActivator extends Plugin {
 	// The shared instance
 	private static TypeLibraryActivator plugin;
 
+	private TypeRegistryUpdater typeRegistryUpdater;
+
 	/**
 	 * The constructor.
 	 */
@@ -68,6 +73,9 @@ public class TypeLibraryActivator extends Plugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		typeRegistryUpdater = new TypeRegistryUpdater();
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				typeRegistryUpdater, IResourceChangeEvent.POST_CHANGE);
 	}
 
 	/**
@@ -75,6 +83,11 @@ public class TypeLibraryActivator extends Plugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		if (typeRegistryUpdater != null) {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					typeRegistryUpdater);
+			typeRegistryUpdater = null;
+		}
 		plugin = null;
 		super.stop(context);
 
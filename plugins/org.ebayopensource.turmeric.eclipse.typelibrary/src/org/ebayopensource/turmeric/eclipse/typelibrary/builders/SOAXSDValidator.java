@@ -16,6 +16,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Platform;
+import org.eclipse.wst.common.uriresolver.internal.provisional.URIResolverPlugin;
 import org.eclipse.wst.xml.core.internal.XMLCorePlugin;
 import org.eclipse.wst.xml.core.internal.preferences.XMLCorePreferenceNames;
 import org.eclipse.wst.xml.core.internal.validation.core.ValidationMessage;
@@ -27,10 +28,27 @@ import org.eclipse.wst.xsd.core.internal.validation.eclipse.XSDValidator;
 /**
  * The Class SOAXSDValidator.
  *
+ * <p>
+ * The WTP validator keeps state between the validations and is not known to
+ * be thread safe, so every thread validates with its own one instead of the
+ * shared {@link XSDValidator#getInstance()}.
+ * </p>
+ *
  * @author smathew
  */
 public class SOAXSDValidator extends AbstractSOAValidator {
 
+	@SuppressWarnings("restriction")
+	private static final ThreadLocal<XSDValidator> xsdValidators = new ThreadLocal<XSDValidator>() {
+		@Override
+		protected XSDValidator initialValue() {
+			// configured the way XSDValidator.getInstance() does
+			final XSDValidator result = new XSDValidator();
+			result.setURIResolver(URIResolverPlugin.createResolver());
+			return result;
+		}
+	};
+
 	/* (non-Javadoc)
 	 * @see org.ebayopensource.turmeric.eclipse.validator.core.AbstractSOAValidator#validate(java.lang.Object)
 	 */
@@ -41,7 +59,7 @@ public class SOAXSDValidator extends AbstractSOAValidator {
 		IStatus status = super.validate(obj);
 		if (obj instanceof IFile) {
 			final IFile file = (IFile)obj;
-			XSDValidator xsdValidator = XSDValidator.getInstance();
+			XSDValidator xsdValidator = xsdValidators.get();
 			try {
 				XSDValidationConfiguration config = new XSDValidationConfiguration();
 				boolean honourAllSchemaLocations = Platform.getPreferencesService().getBoolean(
@@ -10,32 +10,49 @@ package org.ebayopensource.turmeric.eclipse.typelibrary.builders;
 
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.common.config.ReferredType;
+import org.ebayopensource.turmeric.common.config.ReferredTypeLibraryType;
+import org.ebayopensource.turmeric.common.config.TypeDependencyType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryDependencyType;
+import org.ebayopensource.turmeric.eclipse.buildsystem.TypeDepMarshaller;
 import org.ebayopensource.turmeric.eclipse.codegen.utils.CodegenInvoker;
 import org.ebayopensource.turmeric.eclipse.core.TurmericCoreActivator;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOAProjectConstants.SupportedProjectType;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
+import org.ebayopensource.turmeric.eclipse.exception.validation.ValidationInterruptedException;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.RepositorySystemActivator;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.GlobalRepositorySystem;
 import org.ebayopensource.turmeric.eclipse.resources.util.SOAServiceUtil;
 import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
-import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.EclipseMessageUtils;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.jdt.core.JavaCore;
+import org.osgi.framework.Bundle;
 
 
 /**
@@ -66,6 +83,100 @@ public class TypeLibraryBuilderUtils {
 		return typeLibraryDeltaVisitor.getModifiedXsds();
 	}
 
+	/**
+	 * Computes the XSDs to be regenerated for the given delta. These are the
+	 * modified XSDs plus all types of the same library referring to one of
+	 * them, directly or transitively, according to TypeDependencies.xml.
+	 *
+	 * @param delta the resource delta
+	 * @param project the type library project
+	 * @return the file names of the affected XSDs, or null if an XSD has been
+	 * removed and the whole library has to be regenerated
+	 * @throws Exception the exception
+	 */
+	public static Set<String> getAffectedXsds(IResourceDelta delta,
+			IProject project) throws Exception {
+		if (isXsdRemoved(delta)) {
+			return null;
+		}
+		final Set<String> affectedTypes = new TreeSet<String>();
+		for (IFile file : getModifiedXsds(delta, project)) {
+			affectedTypes.add(StringUtils.removeEnd(file.getName(),
+					SOATypeLibraryConstants.EXT_XSD));
+		}
+		if (affectedTypes.isEmpty()) {
+			return affectedTypes;
+		}
+
+		final IFile depFile = TypeLibraryUtil.getDependencyFile(project);
+		if (depFile.isAccessible()) {
+			final TypeLibraryDependencyType typeLibDeps = TypeDepMarshaller
+					.unmarshallIt(depFile);
+			// referred type -> types referring to it within this library
+			final Map<String, Set<String>> referringTypes = new HashMap<String, Set<String>>();
+			for (TypeDependencyType type : typeLibDeps.getType()) {
+				for (ReferredTypeLibraryType referredLib : type
+						.getReferredTypeLibrary()) {
+					if (StringUtils.equals(referredLib.getName(), typeLibDeps
+							.getLibraryName()) == false) {
+						continue;
+					}
+					for (ReferredType referredType : referredLib
+							.getReferredType()) {
+						if (referringTypes.containsKey(referredType.getName()) == false) {
+							referringTypes.put(referredType.getName(),
+									new HashSet<String>());
+						}
+						referringTypes.get(referredType.getName()).add(
+								type.getName());
+					}
+				}
+			}
+			final LinkedList<String> queue = new LinkedList<String>(
+					affectedTypes);
+			while (queue.isEmpty() == false) {
+				final Set<String> referring = referringTypes.get(queue
+						.removeFirst());
+				if (referring != null) {
+					for (String typeName : referring) {
+						if (affectedTypes.add(typeName)) {
+							queue.add(typeName);
+						}
+					}
+				}
+			}
+		}
+
+		final Set<String> result = new TreeSet<String>();
+		for (IFile file : TypeLibraryUtil.getAllXsdFiles(project, true)) {
+			if (affectedTypes.contains(StringUtils.removeEnd(file.getName(),
+					SOATypeLibraryConstants.EXT_XSD))) {
+				result.add(file.getName());
+			}
+		}
+		return result;
+	}
+
+	private static boolean isXsdRemoved(IResourceDelta delta)
+			throws CoreException {
+		final boolean[] result = new boolean[] { false };
+		delta.accept(new IResourceDeltaVisitor() {
+			@Override
+			public boolean visit(IResourceDelta childDelta)
+					throws CoreException {
+				final String path = childDelta.getProjectRelativePath()
+						.toString();
+				if (childDelta.getKind() == IResourceDelta.REMOVED
+						&& path.startsWith(SOATypeLibraryConstants.FOLDER_META_SRC_TYPES)
+						&& path.endsWith(SOATypeLibraryConstants.EXT_XSD)) {
+					result[0] = true;
+				}
+				return result[0] == false;
+			}
+		});
+		return result[0];
+	}
+
 	/**
 	 * Examine if the project is not null, accessible, has type lib nature. It
 	 * also examines the readability and writability aspect.
@@ -127,13 +238,54 @@ public class TypeLibraryBuilderUtils {
 	 */
 	public static MultiStatus validateXSDS(IProject project,
 			boolean complainAboutMissingXSDs) throws Exception {
-		SOAXSDValidator sOAXSdValidator = new SOAXSDValidator();
+		return validateXSDS(project, complainAboutMissingXSDs, null,
+				new HashMap<String, IStatus>());
+	}
+
+	/**
+	 * Validate the given xsds of the library, reusing the previous status of
+	 * the others. The xsds are validated concurrently.
+	 *
+	 * @param project -
+	 * the parent project
+	 * @param complainAboutMissingXSDs -
+	 * if this is true if there is a missing xsd file( opposed to the
+	 * type info x),
+	 * @param xsdNames the file names of the xsds to be validated, or null to
+	 * validate all of them
+	 * @param xsdStatuses the status of the previous validation by xsd file
+	 * name, updated with the result of this one
+	 * @return the multi status of all the xsds of the library
+	 * @throws Exception the exception
+	 */
+	public static MultiStatus validateXSDS(IProject project,
+			boolean complainAboutMissingXSDs, Set<String> xsdNames,
+			Map<String, IStatus> xsdStatuses) throws Exception {
+		final List<IFile> xsdFiles = TypeLibraryUtil.getAllXsdFiles(project,
+				true);
+		if (xsdNames == null) {
+			xsdStatuses.clear();
+		}
+		final Set<String> names = new HashSet<String>();
+		final List<IFile> modifiedFiles = new ArrayList<IFile>();
+		for (IFile file : xsdFiles) {
+			if (file != null && file.isAccessible()) {
+				names.add(file.getName());
+				if (xsdNames == null || xsdNames.contains(file.getName())
+						|| xsdStatuses.containsKey(file.getName()) == false) {
+					modifiedFiles.add(file);
+				}
+			}
+		}
+		xsdStatuses.keySet().retainAll(names);
+		xsdStatuses.putAll(validateXSDs(modifiedFiles));
+
 		ArrayList<IStatus> statusList = new ArrayList<IStatus>();
 		MultiStatus multiStatus = (MultiStatus) EclipseMessageUtils
 				.createEmptyOKMultiStatus("XSD Validation");
-		for (IFile file : TypeLibraryUtil.getAllXsdFiles(project, true)) {
+		for (IFile file : xsdFiles) {
 			if (file != null && file.isAccessible()) {
-				statusList.add(sOAXSdValidator.validate(file));
+				statusList.add(xsdStatuses.get(file.getName()));
 			} else {
 				if (complainAboutMissingXSDs)
 					statusList
@@ -151,6 +303,46 @@ public class TypeLibraryBuilderUtils {
 		return multiStatus;
 	}
 
+	/**
+	 * Validates the given xsds on a bounded pool of worker threads, since the
+	 * validation of an xsd does not depend on the one of the others. Every
+	 * task uses its own validator, which validates with the WTP validator of
+	 * its thread.
+	 *
+	 * @return the status by xsd file name
+	 */
+	private static Map<String, IStatus> validateXSDs(List<IFile> files)
+			throws Exception {
+		final Map<String, IStatus> result = new ConcurrentHashMap<String, IStatus>();
+		if (files.isEmpty()) {
+			return result;
+		}
+		final Map<IFile, List<IFile>> tasks = new HashMap<IFile, List<IFile>>();
+		for (IFile file : files) {
+			tasks.put(file, Collections.<IFile> emptyList());
+		}
+		final DependencyTaskExecutor<IFile> executor = new DependencyTaskExecutor<IFile>(
+				DependencyTaskExecutor.getDefaultThreadCount(files.size()),
+				"SOA XSD Validator");
+		final Map<IFile, Throwable> failures = executor.execute(tasks,
+				new DependencyTaskExecutor.Task<IFile>() {
+					@Override
+					public void execute(IFile file) throws Exception {
+						result.put(file.getName(), new SOAXSDValidator()
+								.validate(file));
+					}
+				});
+		if (failures.isEmpty() == false) {
+			// the build is aborted as it was by the sequential validation
+			final Throwable failure = failures.values().iterator().next();
+			if (failure instanceof Exception) {
+				throw (Exception) failure;
+			}
+			throw new ValidationInterruptedException(failure);
+		}
+		return result;
+	}
+
 	/**
 	 * Checks an interface project's health against soa standards. We might have
 	 * to move it to interface package. but a small problem is that this checks
@@ -255,13 +447,14 @@ public class TypeLibraryBuilderUtils {
 	}
 
 	/**
-	 * Creates a Codegen Invoker and populates its class loader with type
+	 * Creates a Codegen Invoker whose class loader is populated with type
 	 * libraries. In addition there is a cryptic process that this function
 	 * performs. 1) Find out the output location typically project\bin. 2)
 	 * Removes it from the classpath. 3) Add meta src and meta inf folders to
 	 * the class path. This is to make sure that the latest XSDs and xml
 	 * modified by the user are present in the class path and not the stale old
-	 * output xsds and xmls.
+	 * output xsds and xmls. The class loader is pooled as a separate type
+	 * library variant of the project class loader.
 	 *
 	 * @param project the project
 	 * @return the codegen invoker
@@ -269,15 +462,12 @@ public class TypeLibraryBuilderUtils {
 	 */
 	public static CodegenInvoker initForTypeLib(IProject project)
 			throws Exception {
-		CodegenInvoker codegenInvoker = CodegenInvoker.init(project);
-		SOAPluginClassLoader soaPluginClassLoader = codegenInvoker
-				.getSoaPluginClassLoader();
+		Set<URL> urls = JDTUtil.resolveClasspathToURLs(project);
 		ArrayList<IProject> typeLibProjects = WorkspaceUtil
 				.getProjectsByNature(TypeLibraryProjectNature.getTypeLibraryNatureId());
-		soaPluginClassLoader.setPluginBundles(
-				(GlobalRepositorySystem
-						.instanceOf().getActiveRepositorySystem()
-						.getTypeRegistryBridge().getPluginBundles()));
+		List<Bundle> pluginBundles = GlobalRepositorySystem.instanceOf()
+				.getActiveRepositorySystem().getTypeRegistryBridge()
+				.getPluginBundles();
 		// Output location of each project
 		ArrayList<URL> outPutUrls = new ArrayList<URL>();
 		ArrayList<URL> metasrcmetainfUrls = new ArrayList<URL>();
@@ -294,7 +484,7 @@ public class TypeLibraryBuilderUtils {
 					SOATypeLibraryConstants.FOLDER_META_SRC).getLocation()
 					.toFile().toURI().toURL());
 		}
-		Set<URL> classPathList = soaPluginClassLoader.getM_classPathURLs();
+		Set<URL> classPathList = new LinkedHashSet<URL>(urls);
 		Iterator<URL> iterator = classPathList.iterator();
 		while (iterator.hasNext()) {
 			URL nextUrl = iterator.next();
@@ -310,12 +500,11 @@ public class TypeLibraryBuilderUtils {
 			}
 		}
 		classPathList.addAll(metasrcmetainfUrls);
-		soaPluginClassLoader.setM_classPathURLs(classPathList);
 
 		if (SOALogger.DEBUG) {
-			logger.debug("Init for Type Lib, Final Urls are: "
-					+ soaPluginClassLoader.getM_classPathURLs());
+			logger.debug("Init for Type Lib, Final Urls are: " + classPathList);
 		}
-		return codegenInvoker;
+		return CodegenInvoker.init(project, "CodegenTypeLib", urls,
+				classPathList, pluginBundles);
 	}
 }
@@ -8,13 +8,18 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.typelibrary.builders;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
 
 import org.ebayopensource.turmeric.eclipse.buildsystem.SynchronizeWsdlAndDepXML;
 import org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder;
 import org.ebayopensource.turmeric.eclipse.buildsystem.utils.BuilderUtil;
+import org.ebayopensource.turmeric.eclipse.buildsystem.utils.CodegenInputManifest;
 import org.ebayopensource.turmeric.eclipse.codegen.utils.CodegenInvoker;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
 import org.ebayopensource.turmeric.eclipse.resources.util.MarkerUtil;
 import org.ebayopensource.turmeric.eclipse.typelibrary.TypeLibraryActivator;
@@ -24,6 +29,10 @@ import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 
@@ -39,8 +48,19 @@ public class TypeLibraryProjectBuilder extends AbstractSOAProjectBuilder {
 	/** The Constant BUILDER_ID. */
 	public static final String BUILDER_ID = TypeLibraryActivator.PLUGIN_ID
 			+ ".TypeLibraryProjectBuilder";
-	//private static final SOALogger logger = SOALogger.getLogger();
+	private static final SOALogger logger = SOALogger.getLogger();
 
+	/**
+	 * Keeps the namespace and version of the library and the codegen class
+	 * path of the last successful code generation.
+	 */
+	private static final String LIBRARY_STATE_FILE = "typelib-codegen.properties";
+
+	/**
+	 * The xsd validation status of the last build by xsd file name, so that
+	 * an incremental build only validates the affected xsds.
+	 */
+	private final Map<String, IStatus> xsdStatuses = new HashMap<String, IStatus>();
 	
 	/* (non-Javadoc)
 	 * @see org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder#shouldBuild(org.eclipse.core.resources.IResourceDelta, org.eclipse.core.resources.IProject)
@@ -52,6 +72,14 @@ public class TypeLibraryProjectBuilder extends AbstractSOAProjectBuilder {
 				SOATypeLibraryConstants.EXT_XSD);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder#requiresTypeRegistry()
+	 */
+	@Override
+	protected boolean requiresTypeRegistry() {
+		return true;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder#checkProjectHealth(org.eclipse.core.resources.IProject)
 	 */
@@ -67,32 +95,52 @@ public class TypeLibraryProjectBuilder extends AbstractSOAProjectBuilder {
 	 * @see org.ebayopensource.turmeric.eclipse.buildsystem.eclipse.AbstractSOAProjectBuilder#doBuild(int, java.util.Map, org.eclipse.core.resources.IProject, org.eclipse.core.resources.IResourceDelta, org.eclipse.core.runtime.IProgressMonitor)
 	 */
 	@Override
-	protected IProject[] doBuild(int kind, Map args, IProject project,
+	protected IProject[] doBuild(int kind, Map args, final IProject project,
 			IResourceDelta delta, IProgressMonitor monitor) throws Exception {
-		IStatus status = TypeLibraryBuilderUtils.validateXSDS(project, false);
+		// the modified xsds and the ones referring to them, null for all
+		Set<String> validatedXsds = null;
+		if (kind != CLEAN_BUILD && kind != FULL_BUILD && delta != null
+				&& xsdStatuses.isEmpty() == false) {
+			validatedXsds = TypeLibraryBuilderUtils.getAffectedXsds(delta,
+					project);
+		}
+		final IStatus status = TypeLibraryBuilderUtils.validateXSDS(project,
+				false, validatedXsds, xsdStatuses);
 		if (status.isOK() == false) {
-			MarkerUtil.createSOAProblemMarkerRecursive(status, project);
+			// one workspace operation for the markers of all the xsds
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					MarkerUtil.createSOAProblemMarkerRecursive(status, project);
+				}
+			}, project, IWorkspace.AVOID_UPDATE, monitor);
 			//return null;
 		}
 		// Only for clean or full build we need the synchronize
 		// dependency to pitch in
 		if (kind == CLEAN_BUILD || kind == FULL_BUILD) {
+			final Lock registryLock = lockTypeRegistry(monitor);
 			try {
 				SynchronizeWsdlAndDepXML synch = new SynchronizeWsdlAndDepXML(project);
 				synch.syncronizeAllXSDsandDepXml();
 				synch.synchronizeTypeDepandProjectDep(monitor);
 				} catch (Exception e) {
 				// Silently ignore. This is just an attempt
+			} finally {
+				registryLock.unlock();
 			}
 		} else {
 			final List<IFile> modifiedXsds = TypeLibraryBuilderUtils.getModifiedXsds(delta, project);
 			if (modifiedXsds.isEmpty() == false) {
+				final Lock registryLock = lockTypeRegistry(monitor);
 				try {
 					SynchronizeWsdlAndDepXML synch = new SynchronizeWsdlAndDepXML(project);
 					synch.syncronizeAllXSDsandDepXml(TypeLibraryUtil.getAllXsdFiles(project, true));
 					synch.synchronizeTypeDepandProjectDep(monitor);
 				} catch (Exception e) {
 					// Silently ignore. This is just an attempt
+				} finally {
+					registryLock.unlock();
 				}
 			}
 		}
@@ -100,10 +148,50 @@ public class TypeLibraryProjectBuilder extends AbstractSOAProjectBuilder {
 				.initForTypeLib(project);
 		BaseTypeLibCodegenModel codeGenModel = TypeLibModelTransformer
 				.buildBaseTypeLibModel(project);
+		final CodegenInputManifest libraryState = new CodegenInputManifest(
+				CodegenInputManifest.getManifestFile(project,
+						LIBRARY_STATE_FILE));
+		libraryState.addValue("namespace", codeGenModel.getLibNamespace());
+		libraryState.addValue("version", codeGenModel.getLibraryVersion());
+		libraryState.addValue("codegen", codegenInvoker
+				.getClassPathFingerprint());
+
+		// null means the whole library
+		Set<String> xsdNames = null;
+		if (delta != null) {
+			final List<String> changedInputs = libraryState.getChangedInputs();
+			if (changedInputs.isEmpty()) {
+				xsdNames = TypeLibraryBuilderUtils.getAffectedXsds(delta,
+						project);
+			} else {
+				logger.info("Regenerating the whole type library "
+						+ project.getName() + ", changed: " + changedInputs);
+			}
+		}
+		if (xsdNames != null && xsdNames.isEmpty()) {
+			if (SOALogger.DEBUG) {
+				logger.debug("No types affected in ", project.getName(),
+						", codegen skipped");
+			}
+			return null;
+		}
+		if (SOALogger.DEBUG && xsdNames != null) {
+			logger.debug("Regenerating types of ", project.getName(), ": ",
+					xsdNames);
+		}
 		codeGenModel = TypeLibModelTransformer
 				.transformToGenTypeIncrOrCleanBuildTypeLibrary(
-						codeGenModel, project, delta);
-		codegenInvoker.execute(codeGenModel);
+						codeGenModel, project, xsdNames);
+		libraryState.delete();
+		// the class loader delegates to the registry bundles, so the code
+		// generation reads the shared type registry
+		final Lock registryLock = lockTypeRegistry(monitor);
+		try {
+			codegenInvoker.execute(codeGenModel);
+		} finally {
+			registryLock.unlock();
+		}
+		libraryState.store();
 		return null;
 	}
 
@@ -0,0 +1,324 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.typelibrary.builders;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+
+import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.common.config.LibraryType;
+import org.ebayopensource.turmeric.common.config.TypeInformationType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryType;
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
+import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.ebayopensource.turmeric.tools.library.SOATypeRegistry;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Keeps the SOA type registry in sync with the type library projects of the
+ * workspace. The XSD, TypeInformation.xml and TypeDependencies.xml deltas of
+ * every type library project are translated into per type add, update and
+ * remove operations, so that neither the registry nor the type library class
+ * loader has to be rebuilt.
+ *
+ * <p>
+ * The registry is only patched if it has been initialized already, an
+ * initialization in progress picks up the current state of the workspace
+ * anyway. Deleted type library projects are handled by the move delete hook
+ * of the type library UI.
+ * </p>
+ *
+ * <p>
+ * The registry is not thread safe, so every change goes through the
+ * {@link SOAGlobalRegistryAdapter}, and the changes of a project are applied
+ * while holding its registry lock, which the builders hold while running the
+ * code generation.
+ * </p>
+ */
+public class TypeRegistryUpdater implements IResourceChangeListener {
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	/** the pending changes by project name, guarded by itself */
+	private final Map<String, ProjectChanges> pendingChanges = new LinkedHashMap<String, ProjectChanges>();
+	private final Job updateJob = new Job("Updating SOA Type Registry") {
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			applyPendingChanges(monitor);
+			return Status.OK_STATUS;
+		}
+	};
+
+	/**
+	 * Instantiates a new type registry updater.
+	 */
+	public TypeRegistryUpdater() {
+		super();
+		updateJob.setSystem(true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null
+				|| SOAGlobalRegistryAdapter.getInstance()
+						.getGlobalRegistryIfAvailable() == null) {
+			return;
+		}
+		final Map<String, ProjectChanges> changes = new HashMap<String, ProjectChanges>();
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					final IResource resource = delta.getResource();
+					if (resource instanceof IProject) {
+						final IProject project = (IProject) resource;
+						return project.isAccessible()
+								&& project.hasNature(TypeLibraryProjectNature
+										.getTypeLibraryNatureId());
+					}
+					if (resource instanceof IFile) {
+						collectChanges((IFile) resource, delta.getKind(),
+								changes);
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			logger.error(e);
+			return;
+		}
+		if (changes.isEmpty() == false) {
+			synchronized (pendingChanges) {
+				for (ProjectChanges projectChanges : changes.values()) {
+					final ProjectChanges pending = pendingChanges
+							.get(projectChanges.projectName);
+					if (pending == null) {
+						pendingChanges.put(projectChanges.projectName,
+								projectChanges);
+					} else {
+						pending.merge(projectChanges);
+					}
+				}
+			}
+			updateJob.schedule();
+		}
+	}
+
+	private static void collectChanges(IFile file, int kind,
+			Map<String, ProjectChanges> changes) {
+		final IProject project = file.getProject();
+		final String path = file.getProjectRelativePath().toString();
+		final String metaInf = WorkspaceUtil.PATH_SEPERATOR
+				+ project.getName() + WorkspaceUtil.PATH_SEPERATOR;
+		if (path.startsWith(SOATypeLibraryConstants.FOLDER_META_SRC_TYPES)
+				&& path.endsWith(SOATypeLibraryConstants.EXT_XSD)) {
+			if (kind == IResourceDelta.REMOVED) {
+				getChanges(project, changes).removedTypes.add(TypeLibraryUtil
+						.getXsdTypeNameFromFileName(file.getName()));
+			}
+		} else if (path
+				.equals(SOATypeLibraryConstants.FOLDER_GEN_META_SRC_META_INF
+						+ metaInf + SOATypeLibraryConstants.FILE_TYPE_INFO_XML)) {
+			if (kind != IResourceDelta.REMOVED) {
+				getChanges(project, changes).typeInformationChanged = true;
+			}
+		} else if (path.equals(SOATypeLibraryConstants.FOLDER_META_SRC_META_INF
+				+ metaInf + SOATypeLibraryConstants.FILE_TYPE_DEP_XML)) {
+			if (kind != IResourceDelta.REMOVED) {
+				getChanges(project, changes).typeDependenciesChanged = true;
+			}
+		}
+	}
+
+	private static ProjectChanges getChanges(IProject project,
+			Map<String, ProjectChanges> changes) {
+		ProjectChanges result = changes.get(project.getName());
+		if (result == null) {
+			result = new ProjectChanges(project.getName());
+			changes.put(project.getName(), result);
+		}
+		return result;
+	}
+
+	private void applyPendingChanges(IProgressMonitor monitor) {
+		final List<ProjectChanges> changes;
+		synchronized (pendingChanges) {
+			changes = new ArrayList<ProjectChanges>(pendingChanges.values());
+			pendingChanges.clear();
+		}
+		final SOAGlobalRegistryAdapter adapter = SOAGlobalRegistryAdapter
+				.getInstance();
+		final SOATypeRegistry registry = adapter.getGlobalRegistryIfAvailable();
+		if (registry == null) {
+			// invalidated in the meantime, the next initialization is complete
+			return;
+		}
+		monitor.beginTask(updateJob.getName(), changes.size());
+		for (ProjectChanges projectChanges : changes) {
+			if (monitor.isCanceled()) {
+				// do not lose the remaining changes
+				synchronized (pendingChanges) {
+					for (ProjectChanges remaining : changes
+							.subList(changes.indexOf(projectChanges), changes
+									.size())) {
+						if (pendingChanges.containsKey(remaining.projectName) == false) {
+							pendingChanges.put(remaining.projectName, remaining);
+						}
+					}
+				}
+				break;
+			}
+			final IProject project = WorkspaceUtil
+					.getProject(projectChanges.projectName);
+			try {
+				if (project.isAccessible()) {
+					applyChanges(adapter, registry, project, projectChanges);
+				}
+			} catch (Exception e) {
+				logger.error(e);
+			}
+			monitor.worked(1);
+		}
+		monitor.done();
+	}
+
+	private static void applyChanges(SOAGlobalRegistryAdapter adapter,
+			SOATypeRegistry registry, IProject project, ProjectChanges changes)
+			throws Exception {
+		final String libraryName = project.getName();
+		final Lock registryLock = adapter.getRegistryLock();
+		registryLock.lock();
+		try {
+			if (registry.getTypeLibrary(libraryName) != null) {
+				applyLibraryChanges(adapter, registry, project, changes);
+				return;
+			}
+		} finally {
+			registryLock.unlock();
+		}
+		// not known to the registry yet, e.g. a new or imported project, the
+		// type libraries are resolved without holding the registry lock
+		adapter.populateRegistry(libraryName);
+	}
+
+	private static void applyLibraryChanges(SOAGlobalRegistryAdapter adapter,
+			SOATypeRegistry registry, IProject project, ProjectChanges changes)
+			throws Exception {
+		final String libraryName = project.getName();
+		for (String typeName : changes.removedTypes) {
+			final LibraryType libraryType = registry.getType(typeName,
+					libraryName);
+			if (libraryType != null) {
+				adapter.removeTypeFromRegistry(libraryType);
+				logger.info("Removed type ", typeName,
+						" from the type registry");
+			}
+		}
+		if (changes.typeInformationChanged
+				&& TypeLibraryUtil.getTypeInformationFile(project)
+						.isAccessible()) {
+			synchronizeTypes(adapter, registry, project);
+		}
+		if (changes.typeDependenciesChanged) {
+			adapter.refreshTypeDependencyInSOATypeRegistry(libraryName);
+		}
+	}
+
+	/**
+	 * Adds the types which are new or have a new version in
+	 * TypeInformation.xml, and removes the types which are gone.
+	 */
+	private static void synchronizeTypes(SOAGlobalRegistryAdapter adapter,
+			SOATypeRegistry registry, IProject project) throws Exception {
+		final String libraryName = project.getName();
+		final TypeLibraryType libraryInfo = registry
+				.getTypeLibrary(libraryName);
+		final Map<String, LibraryType> registeredTypes = new HashMap<String, LibraryType>();
+		final List<LibraryType> typesOfLibrary = registry
+				.getTypesOfLibrary(libraryName);
+		if (typesOfLibrary != null) {
+			for (LibraryType libraryType : typesOfLibrary) {
+				registeredTypes.put(libraryType.getName(), libraryType);
+			}
+		}
+		final Set<String> typeNames = new HashSet<String>();
+		for (TypeInformationType typeInfo : TypeLibraryUtil
+				.getTypeLibraryType(project).getType()) {
+			final String typeName = typeInfo.getXmlTypeName();
+			typeNames.add(typeName);
+			final LibraryType registered = registeredTypes.get(typeName);
+			if (registered != null
+					&& StringUtils.equals(registered.getVersion(), typeInfo
+							.getVersion())) {
+				continue;
+			}
+			if (registered != null) {
+				adapter.removeTypeFromRegistry(registered);
+			}
+			final LibraryType libraryType = new LibraryType();
+			libraryType.setName(typeName);
+			libraryType.setVersion(typeInfo.getVersion());
+			libraryType.setNamespace(libraryInfo.getLibraryNamespace());
+			libraryType.setPackage(StringUtils.substringBeforeLast(typeInfo
+					.getJavaTypeName(), "."));
+			libraryType.setLibraryInfo(libraryInfo);
+			adapter.addTypeToRegistry(libraryType);
+			logger.info(registered != null ? "Updated type " : "Added type ",
+					typeName, " in the type registry");
+		}
+		for (Map.Entry<String, LibraryType> registered : registeredTypes
+				.entrySet()) {
+			if (typeNames.contains(registered.getKey()) == false) {
+				adapter.removeTypeFromRegistry(registered.getValue());
+				logger.info("Removed type ", registered.getKey(),
+						" from the type registry");
+			}
+		}
+	}
+
+	private static class ProjectChanges {
+		private final String projectName;
+		private final Set<String> removedTypes = new HashSet<String>();
+		private boolean typeInformationChanged;
+		private boolean typeDependenciesChanged;
+
+		private ProjectChanges(String projectName) {
+			super();
+			this.projectName = projectName;
+		}
+
+		private void merge(ProjectChanges other) {
+			removedTypes.addAll(other.removedTypes);
+			typeInformationChanged |= other.typeInformationChanged;
+			typeDependenciesChanged |= other.typeDependenciesChanged;
+		}
+	}
+}
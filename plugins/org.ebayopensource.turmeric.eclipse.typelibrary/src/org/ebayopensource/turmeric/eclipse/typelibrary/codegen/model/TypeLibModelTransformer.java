@@ -11,6 +11,7 @@ package org.ebayopensource.turmeric.eclipse.typelibrary.codegen.model;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
@@ -80,9 +81,36 @@ public class TypeLibModelTransformer {
 			return transformToGenTypeCleanBuildTypeLibrary(
 					baseTypeLibCodegenModel, project);
 		} else {
+			final List<String> types = new ArrayList<String>();
+			for (IFile file : TypeLibraryBuilderUtils.getModifiedXsds(delta,
+					project)) {
+				types.add(file.getName());
+			}
 			return transformToGenTypeIncrBuildTypeLibrary(
-					baseTypeLibCodegenModel, project, TypeLibraryBuilderUtils
-							.getModifiedXsds(delta, project));
+					baseTypeLibCodegenModel, project, types);
+		}
+	}
+
+	/**
+	 * Builds a clean build model if the given list of XSDs is null, and an
+	 * incremental model for the given XSDs otherwise.
+	 *
+	 * @param baseTypeLibCodegenModel the base type lib codegen model
+	 * @param project the project
+	 * @param xsdNames the file names of the XSDs to be regenerated, or null
+	 * @return the base type lib codegen model
+	 * @throws Exception the exception
+	 * @see TypeLibraryBuilderUtils#getAffectedXsds(IResourceDelta, IProject)
+	 */
+	public static BaseTypeLibCodegenModel transformToGenTypeIncrOrCleanBuildTypeLibrary(
+			BaseTypeLibCodegenModel baseTypeLibCodegenModel, IProject project,
+			Collection<String> xsdNames) throws Exception {
+		if (xsdNames == null) {
+			return transformToGenTypeCleanBuildTypeLibrary(
+					baseTypeLibCodegenModel, project);
+		} else {
+			return transformToGenTypeIncrBuildTypeLibrary(
+					baseTypeLibCodegenModel, project, xsdNames);
 		}
 	}
 
@@ -105,7 +133,7 @@ public class TypeLibModelTransformer {
 
 	private static BaseTypeLibCodegenModel transformToGenTypeIncrBuildTypeLibrary(
 			BaseTypeLibCodegenModel baseTypeLibCodegenModel, IProject project,
-			List<IFile> types) throws Exception {
+			Collection<String> types) throws Exception {
 		GenTypeIncrBuildTypeLibrary genTypeIncrBuildTypeLibrary = new GenTypeIncrBuildTypeLibrary();
 		genTypeIncrBuildTypeLibrary.setLibraryName(baseTypeLibCodegenModel
 				.getLibraryName());
@@ -113,11 +141,7 @@ public class TypeLibModelTransformer {
 				.getProjectRoot());
 		genTypeIncrBuildTypeLibrary.setXjcClassPath(baseTypeLibCodegenModel
 				.getXjcClassPath());
-		ArrayList<String> strTypesList = new ArrayList<String>();
-		for (IFile file : types) {
-			strTypesList.add(file.getName());
-		}
-		genTypeIncrBuildTypeLibrary.setTypes(strTypesList);
+		genTypeIncrBuildTypeLibrary.setTypes(new ArrayList<String>(types));
 		return genTypeIncrBuildTypeLibrary;
 	}
 
@@ -209,20 +209,28 @@ public class ImportTypesFromXSDParser extends DefaultHandler {
 		return "NoNameType" + noTypeNameCounter;
 	}
 
-	private static Map<String, LibraryType> LIB_TYPE_MAPPING = new HashMap<String, LibraryType>();
-
-	static {
-		List<LibraryType> allTypesList;
-		try {
-			allTypesList = SOAGlobalRegistryAdapter.getInstance()
-					.getGlobalRegistry().getAllTypes();
-			for (LibraryType libType : allTypesList) {
-				String namespace = libType.getNamespace();
-				String typeName = libType.getName();
-				LIB_TYPE_MAPPING.put(namespace + ":" + typeName, libType);
+	/**
+	 * The types of the type libraries by "namespace:typename". They are read
+	 * from the global registry when the first dependency is resolved instead
+	 * of when the parser class is loaded, so that schemas without dependencies
+	 * could be cut without the registry.
+	 */
+	private static class LibraryTypes {
+		private static final Map<String, LibraryType> LIB_TYPE_MAPPING = new HashMap<String, LibraryType>();
+
+		static {
+			List<LibraryType> allTypesList;
+			try {
+				allTypesList = SOAGlobalRegistryAdapter.getInstance()
+						.getGlobalRegistry().getAllTypes();
+				for (LibraryType libType : allTypesList) {
+					String namespace = libType.getNamespace();
+					String typeName = libType.getName();
+					LIB_TYPE_MAPPING.put(namespace + ":" + typeName, libType);
+				}
+			} catch (Exception e) {
+				e.printStackTrace();
 			}
-		} catch (Exception e) {
-			e.printStackTrace();
 		}
 	}
 
@@ -393,7 +401,7 @@ public class ImportTypesFromXSDParser extends DefaultHandler {
 
 	private static LibraryType findTypeInTypeLibrary(String namespace,
 			String typeName) {
-		return LIB_TYPE_MAPPING.get(namespace + ":" + typeName);
+		return LibraryTypes.LIB_TYPE_MAPPING.get(namespace + ":" + typeName);
 	}
 
 	/**
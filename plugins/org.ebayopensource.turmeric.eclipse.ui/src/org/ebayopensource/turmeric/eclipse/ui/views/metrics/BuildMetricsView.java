@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.ui.views.metrics;
+
+import java.io.File;
+import java.util.Locale;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.ebayopensource.turmeric.eclipse.ui.UIActivator;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics.PhaseMetrics;
+import org.eclipse.jface.action.Action;
+import org.eclipse.jface.action.IToolBarManager;
+import org.eclipse.jface.dialogs.MessageDialog;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.FileDialog;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.ISharedImages;
+import org.eclipse.ui.PlatformUI;
+import org.eclipse.ui.part.ViewPart;
+
+/**
+ * Shows the time taken by the phases of the SOA builds, per project and
+ * phase, as recorded into {@link BuildMetrics#getDefault()}. The metrics
+ * could be exported as CSV or JSON.
+ */
+public class BuildMetricsView extends ViewPart {
+
+	/** The view id. */
+	public static final String VIEW_ID = "org.ebayopensource.turmeric.eclipse.ui.views.buildMetrics";
+
+	private static final SOALogger logger = SOALogger.getLogger();
+
+	private static final String[] COLUMNS = { "Project", "Phase", "Count",
+			"Total (ms)", "Average (ms)", "Min (ms)", "Max (ms)", "Last (ms)" };
+	private static final int[] COLUMN_WIDTHS = { 200, 150, 60, 90, 90, 90, 90,
+			90 };
+
+	private TableViewer metricsViewer;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createPartControl(Composite parent) {
+		final Table table = new Table(parent, SWT.H_SCROLL | SWT.V_SCROLL
+				| SWT.FULL_SELECTION | SWT.SINGLE);
+		table.setHeaderVisible(true);
+		table.setLinesVisible(true);
+		for (int i = 0; i < COLUMNS.length; i++) {
+			final TableColumn column = new TableColumn(table, i < 2 ? SWT.LEFT
+					: SWT.RIGHT);
+			column.setText(COLUMNS[i]);
+			column.setWidth(COLUMN_WIDTHS[i]);
+		}
+		metricsViewer = new TableViewer(table);
+		metricsViewer.setContentProvider(new ArrayContentProvider());
+		metricsViewer.setLabelProvider(new MetricsLabelProvider());
+		createToolbar();
+		refresh();
+	}
+
+	private void createToolbar() {
+		final IToolBarManager mgr = getViewSite().getActionBars()
+				.getToolBarManager();
+		final Action refreshAction = new Action("Refresh") {
+			@Override
+			public void run() {
+				refresh();
+			}
+		};
+		refreshAction.setToolTipText("Refresh the build metrics");
+		refreshAction.setImageDescriptor(UIActivator
+				.getImageDescriptor("icons/refresh.gif"));
+		mgr.add(refreshAction);
+
+		final Action clearAction = new Action("Clear") {
+			@Override
+			public void run() {
+				BuildMetrics.getDefault().clear();
+				refresh();
+			}
+		};
+		clearAction.setToolTipText("Clear the build metrics");
+		clearAction.setImageDescriptor(PlatformUI.getWorkbench()
+				.getSharedImages().getImageDescriptor(
+						ISharedImages.IMG_ELCL_REMOVEALL));
+		mgr.add(clearAction);
+
+		final Action exportAction = new Action("Export...") {
+			@Override
+			public void run() {
+				export();
+			}
+		};
+		exportAction.setToolTipText("Export the build metrics as CSV or JSON");
+		exportAction.setImageDescriptor(UIActivator
+				.getImageDescriptor("icons/export.gif"));
+		mgr.add(exportAction);
+	}
+
+	private void refresh() {
+		if (metricsViewer != null
+				&& metricsViewer.getControl().isDisposed() == false) {
+			metricsViewer.setInput(BuildMetrics.getDefault().getMetrics());
+		}
+	}
+
+	private void export() {
+		final FileDialog dialog = new FileDialog(getSite().getShell(),
+				SWT.SAVE);
+		dialog.setFilterExtensions(new String[] { "*.csv", "*.json" });
+		dialog.setFilterNames(new String[] { "CSV (*.csv)", "JSON (*.json)" });
+		dialog.setFileName("build-metrics.csv");
+		dialog.setOverwrite(true);
+		final String path = dialog.open();
+		if (path == null) {
+			return;
+		}
+		try {
+			BuildMetrics.getDefault().export(new File(path));
+		} catch (Exception e) {
+			logger.error(e);
+			MessageDialog.openError(getSite().getShell(), "Export Failed",
+					"Failed to export the build metrics to " + path + ": "
+							+ e.getLocalizedMessage());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setFocus() {
+		refresh();
+		metricsViewer.getControl().setFocus();
+	}
+
+	private static class MetricsLabelProvider extends LabelProvider implements
+			ITableLabelProvider {
+
+		@Override
+		public Image getColumnImage(Object element, int columnIndex) {
+			return null;
+		}
+
+		@Override
+		public String getColumnText(Object element, int columnIndex) {
+			final PhaseMetrics metrics = (PhaseMetrics) element;
+			switch (columnIndex) {
+			case 0:
+				return metrics.getProjectName();
+			case 1:
+				return metrics.getPhase();
+			case 2:
+				return String.valueOf(metrics.getCount());
+			case 3:
+				return formatMillis(metrics.getTotalTime());
+			case 4:
+				return formatMillis(metrics.getAverageTime());
+			case 5:
+				return formatMillis(metrics.getMinTime());
+			case 6:
+				return formatMillis(metrics.getMaxTime());
+			case 7:
+				return formatMillis(metrics.getLastTime());
+			default:
+				return "";
+			}
+		}
+
+		private static String formatMillis(long nanos) {
+			return String.format(Locale.US, "%.1f", nanos / 1000000d);
+		}
+	}
+}
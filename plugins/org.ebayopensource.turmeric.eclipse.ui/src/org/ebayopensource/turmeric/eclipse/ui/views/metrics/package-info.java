@@ -0,0 +1,4 @@
+/**
+ * Views of the build metrics.
+ */
+package org.ebayopensource.turmeric.eclipse.ui.views.metrics;
\ No newline at end of file
@@ -8,11 +8,20 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.ui.views.registry;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
 import org.ebayopensource.turmeric.common.config.LibraryType;
 import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
 import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
 import org.ebayopensource.turmeric.eclipse.ui.resources.SOAMessages;
 import org.ebayopensource.turmeric.tools.library.SOATypeRegistry;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.jface.viewers.ViewerComparator;
@@ -25,6 +34,7 @@ import org.eclipse.swt.layout.FillLayout;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Table;
@@ -50,11 +60,14 @@ public class RegistryView extends ViewPart {
 	/** The Constant VIEW_ID. */
 	public static final String VIEW_ID = "org.ebayopensource.turmeric.eclipse.typelibrary.registryView"; 
 	private static final SOALogger logger = SOALogger.getLogger();
+	/** the quick search runs once the user stopped typing for this long */
+	private static final long SEARCH_DELAY = 40;
 	private TreeViewer typeLibraryViewer;
 	private TypeViewer typeViewer;
 	private Text typeNameText;
 	private TypeLibrarySelectionChangedListener typeLibrarySelectionChangedListener;
 	private TypeSelectionListener typeSelectionListener;
+	private final TypeSearchJob typeSearchJob = new TypeSearchJob();
 
 	/*
 	 * (non-Javadoc)
@@ -94,6 +107,7 @@ public class RegistryView extends ViewPart {
 	 */
 	@Override
 	public void dispose() {
+		typeSearchJob.cancel();
 		if (typeLibraryViewer != null
 				&& typeLibrarySelectionChangedListener != null) {
 			typeLibraryViewer
@@ -161,12 +175,22 @@ public class RegistryView extends ViewPart {
 		typeGroup.setToolTipText(SOAMessages.TYPES_WKS);
 		typeGroup.setLayoutData(new GridData(GridData.FILL_BOTH));
 		typeGroup.setLayout(layout);
+		// a virtual table only creates the items which are visible
 		final Table typeTable = toolkit.createTable(typeGroup, SWT.H_SCROLL
-				| SWT.V_SCROLL | SWT.MULTI | SWT.FULL_SELECTION);
+				| SWT.V_SCROLL | SWT.MULTI | SWT.FULL_SELECTION | SWT.VIRTUAL);
 		// typeTable.setLayoutData(new GridData(GridData.FILL_BOTH));
 		// RefreshRegistryAction refreshAction = new RefreshRegistryAction(
 		// typeLibraryViewer);
-		typeViewer = new TypeViewer(typeTable);
+		typeViewer = new TypeViewer(typeTable) {
+			@Override
+			protected void inputChanged(Object input, Object oldInput) {
+				super.inputChanged(input, oldInput);
+				if (typeNameText != null && typeNameText.isDisposed() == false) {
+					// index the new types and search them again
+					typeSearchJob.search(typeNameText.getText(), input);
+				}
+			}
+		};
 		typeViewer.setInput(typeRegistry);
 
 		typeLibrarySelectionChangedListener = new TypeLibrarySelectionChangedListener(
@@ -189,6 +213,9 @@ public class RegistryView extends ViewPart {
 	 * usual text.equals(text) and remove the ones not satisfying. The heavy
 	 * lifting is done by the eclipse framework.
 	 * 
+	 * The search itself is done by the {@link TypeSearchJob} in the
+	 * background, once the user stopped typing.
+	 * 
 	 * @author smathew
 	 * 
 	 */
@@ -202,16 +229,108 @@ public class RegistryView extends ViewPart {
 			if (e.getSource() instanceof Text) {
 				String entered = ((Text) e.getSource()).getText();
 				if (typeViewer != null) {
-					for (ViewerFilter filter : typeViewer.getFilters()) {
-						if (filter instanceof TypeFilterHonSearch) {
-							// there is one already. remove it first
-							typeViewer.removeFilter(filter);
-						}
+					typeSearchJob.search(entered, typeViewer.getInput());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Searches the types in the {@link TypeSearchIndex} of the current input,
+	 * and replaces the search filter of the type viewer with the result. The
+	 * index is built as soon as the input is set, and rebuilt only when the
+	 * types of the registry have changed.
+	 */
+	class TypeSearchJob extends Job {
+		private volatile String key = "";
+		private volatile Object input;
+		// only accessed by the job
+		private TypeSearchIndex index;
+
+		TypeSearchJob() {
+			super("Searching SOA types");
+			setSystem(true);
+		}
+
+		/**
+		 * Searches the given key after the {@link RegistryView#SEARCH_DELAY},
+		 * a pending search is replaced.
+		 *
+		 * @param key the key
+		 * @param input the input of the type viewer
+		 */
+		void search(String key, Object input) {
+			this.key = key;
+			this.input = input;
+			cancel();
+			schedule(SEARCH_DELAY);
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			final String currentKey = key;
+			final Object currentInput = input;
+			Set<LibraryType> matches = null;
+			if (currentInput instanceof SOATypeRegistry) {
+				try {
+					final List<LibraryType> types = ((SOATypeRegistry) currentInput)
+							.getAllTypes();
+					if (index == null || index.isIndexOf(types) == false) {
+						index = new TypeSearchIndex(types);
+					}
+					if (monitor.isCanceled()) {
+						return Status.CANCEL_STATUS;
+					}
+					if (StringUtils.isNotBlank(currentKey)) {
+						matches = index.search(currentKey);
+					}
+				} catch (Exception e) {
+					// match the key in the filter instead
+					logger.warning(e);
+				}
+			}
+			if (monitor.isCanceled()) {
+				return Status.CANCEL_STATUS;
+			}
+			final Set<LibraryType> result = matches;
+			Display.getDefault().asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					if (currentKey.equals(key) && currentInput == input) {
+						setSearchFilter(currentKey, result, currentInput);
 					}
-					typeViewer.addFilter(new TypeFilterHonSearch(entered));
 				}
+			});
+			return Status.OK_STATUS;
+		}
+	}
+
+	private void setSearchFilter(String key, Set<LibraryType> matches,
+			Object input) {
+		if (typeViewer == null || typeViewer.getControl().isDisposed()) {
+			return;
+		}
+		final List<ViewerFilter> filters = new ArrayList<ViewerFilter>();
+		for (ViewerFilter filter : typeViewer.getFilters()) {
+			if ((filter instanceof TypeFilterHonSearch) == false) {
+				filters.add(filter);
+			}
+		}
+		if (StringUtils.isBlank(key)) {
+			if (filters.size() == typeViewer.getFilters().length) {
+				// nothing to remove
+				return;
 			}
+		} else {
+			filters.add(matches != null ? new TypeFilterHonSearch(key,
+					matches, input) : new TypeFilterHonSearch(key));
 		}
+		// replacing all the filters at once refreshes the viewer only once
+		typeViewer.setFilters(filters.toArray(new ViewerFilter[filters
+				.size()]));
 	}
 
 	/**
@@ -8,6 +8,7 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.ui.views.registry;
 
+import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -26,6 +27,10 @@ public class TypeFilterHonSearch extends ViewerFilter {
 
 	private Pattern pattern;
 	private boolean emptyKey = false;
+	/** the types found by the {@link TypeSearchIndex}, or null */
+	private Set<LibraryType> matches;
+	/** the viewer input the matches have been searched in */
+	private Object input;
 
 	/**
 	 * Instantiates a new type filter hon search.
@@ -45,6 +50,22 @@ public class TypeFilterHonSearch extends ViewerFilter {
 		}
 	}
 
+	/**
+	 * Instantiates a new type filter hon search, which selects the types
+	 * already found by a search of the {@link TypeSearchIndex}. The key is
+	 * matched again only if the input of the viewer has changed since.
+	 *
+	 * @param key the key
+	 * @param matches the matching types
+	 * @param input the viewer input the matches have been searched in
+	 */
+	public TypeFilterHonSearch(String key, Set<LibraryType> matches,
+			Object input) {
+		this(StringUtils.trimToEmpty(key));
+		this.matches = matches;
+		this.input = input;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.eclipse.jface.viewers.ViewerFilter#select(org.eclipse.jface.viewers.Viewer, java.lang.Object, java.lang.Object)
 	 */
@@ -55,6 +76,9 @@ public class TypeFilterHonSearch extends ViewerFilter {
 		}
 		if (element instanceof LibraryType) {
 			LibraryType type = (LibraryType) element;
+			if (matches != null && viewer.getInput() == input) {
+				return matches.contains(type);
+			}
 			if (StringUtils.isEmpty(type.getName()) == false) {
 				return patternMatch(type.getName().toLowerCase());
 			}
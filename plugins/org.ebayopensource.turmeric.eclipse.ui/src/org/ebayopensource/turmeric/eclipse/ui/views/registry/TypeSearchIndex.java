@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.ui.views.registry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.common.config.LibraryType;
+
+/**
+ * An immutable search index over the names of the types of the registry. The
+ * query syntax is the one of the quick search of the registry view: the query
+ * is a case insensitive prefix of the type name, and every '*' matches any
+ * sequence of characters.
+ *
+ * <p>
+ * The leading segment of a query is looked up in the sorted names, any other
+ * segment in the trigrams of the names, so that only the candidates are
+ * matched against the full query.
+ * </p>
+ *
+ * @see TypeFilterHonSearch
+ */
+public class TypeSearchIndex {
+	private static final int GRAM_LENGTH = 3;
+	private static final char WILDCARD = '*';
+
+	private final LibraryType[] types;
+	/** the lower case names, by type id */
+	private final String[] names;
+	/** the type ids sorted by name */
+	private final Integer[] sortedIds;
+	/** the sorted type ids of every trigram */
+	private final Map<String, int[]> grams;
+
+	/**
+	 * Builds the index of the given types.
+	 *
+	 * @param types the types
+	 */
+	public TypeSearchIndex(List<LibraryType> types) {
+		super();
+		this.types = types.toArray(new LibraryType[types.size()]);
+		this.names = new String[this.types.length];
+		this.sortedIds = new Integer[this.types.length];
+		final Map<String, List<Integer>> postings = new HashMap<String, List<Integer>>();
+		for (int id = 0; id < this.types.length; id++) {
+			final String name = this.types[id] != null ? StringUtils
+					.defaultString(this.types[id].getName()).toLowerCase() : "";
+			names[id] = name;
+			sortedIds[id] = id;
+			for (int i = 0; i + GRAM_LENGTH <= name.length(); i++) {
+				final String gram = name.substring(i, i + GRAM_LENGTH);
+				List<Integer> posting = postings.get(gram);
+				if (posting == null) {
+					posting = new ArrayList<Integer>();
+					postings.put(gram, posting);
+				}
+				// ids are added in ascending order
+				if (posting.isEmpty()
+						|| posting.get(posting.size() - 1).intValue() != id) {
+					posting.add(id);
+				}
+			}
+		}
+		Arrays.sort(sortedIds, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return names[o1.intValue()].compareTo(names[o2.intValue()]);
+			}
+		});
+		grams = new HashMap<String, int[]>(postings.size());
+		for (Map.Entry<String, List<Integer>> posting : postings.entrySet()) {
+			final int[] ids = new int[posting.getValue().size()];
+			for (int i = 0; i < ids.length; i++) {
+				ids[i] = posting.getValue().get(i).intValue();
+			}
+			grams.put(posting.getKey(), ids);
+		}
+	}
+
+	/**
+	 * Checks if this index has been built from exactly the given types, in
+	 * the same order.
+	 *
+	 * @param types the types
+	 * @return true, if the index is still valid for the given types
+	 */
+	public boolean isIndexOf(List<LibraryType> types) {
+		if (types.size() != this.types.length) {
+			return false;
+		}
+		int id = 0;
+		for (LibraryType type : types) {
+			if (type != this.types[id++]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Gets the number of indexed types.
+	 *
+	 * @return the size
+	 */
+	public int size() {
+		return types.length;
+	}
+
+	/**
+	 * Searches the types matching the given query.
+	 *
+	 * @param query the query
+	 * @return the matching types in the order of the indexed list, compared by
+	 * identity
+	 */
+	public Set<LibraryType> search(String query) {
+		final Set<LibraryType> result = Collections
+				.newSetFromMap(new IdentityHashMap<LibraryType, Boolean>());
+		final String key = StringUtils.trimToEmpty(query).toLowerCase();
+		final String[] segments = StringUtils.splitPreserveAllTokens(key,
+				WILDCARD);
+		final String prefix = segments.length > 0 ? segments[0] : "";
+		for (int id : getCandidates(prefix, segments)) {
+			if (matches(names[id], segments)) {
+				result.add(types[id]);
+			}
+		}
+		return result;
+	}
+
+	private int[] getCandidates(String prefix, String[] segments) {
+		if (prefix.length() > 0) {
+			int low = lowerBound(prefix);
+			final List<Integer> ids = new ArrayList<Integer>();
+			for (; low < sortedIds.length
+					&& names[sortedIds[low].intValue()].startsWith(prefix); low++) {
+				ids.add(sortedIds[low]);
+			}
+			final int[] result = new int[ids.size()];
+			for (int i = 0; i < result.length; i++) {
+				result[i] = ids.get(i).intValue();
+			}
+			Arrays.sort(result);
+			return result;
+		}
+		int[] result = null;
+		for (String segment : segments) {
+			for (int i = 0; i + GRAM_LENGTH <= segment.length(); i++) {
+				final int[] posting = grams.get(segment.substring(i, i
+						+ GRAM_LENGTH));
+				if (posting == null) {
+					return new int[0];
+				}
+				result = result == null ? posting : intersect(result, posting);
+			}
+		}
+		if (result == null) {
+			result = new int[types.length];
+			for (int id = 0; id < result.length; id++) {
+				result[id] = id;
+			}
+		}
+		return result;
+	}
+
+	private int lowerBound(String prefix) {
+		int low = 0;
+		int high = sortedIds.length;
+		while (low < high) {
+			final int mid = (low + high) >>> 1;
+			if (names[sortedIds[mid].intValue()].compareTo(prefix) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static int[] intersect(int[] ids1, int[] ids2) {
+		final int[] result = new int[Math.min(ids1.length, ids2.length)];
+		int size = 0;
+		for (int i = 0, j = 0; i < ids1.length && j < ids2.length;) {
+			if (ids1[i] < ids2[j]) {
+				i++;
+			} else if (ids1[i] > ids2[j]) {
+				j++;
+			} else {
+				result[size++] = ids1[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, size);
+	}
+
+	/**
+	 * The first segment is anchored at the start of the name, the others have
+	 * to follow in order. A query never has to match the end of the name.
+	 */
+	private static boolean matches(String name, String[] segments) {
+		if (segments.length == 0) {
+			return true;
+		}
+		if (name.startsWith(segments[0]) == false) {
+			return false;
+		}
+		int index = segments[0].length();
+		for (int i = 1; i < segments.length; i++) {
+			index = name.indexOf(segments[i], index);
+			if (index < 0) {
+				return false;
+			}
+			index += segments[i].length();
+		}
+		return true;
+	}
+}
@@ -8,7 +8,19 @@
  *******************************************************************************/
 package org.ebayopensource.turmeric.eclipse.utils;
 
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.ClasspathURLCache;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.ProjectNatureIndex;
+import org.ebayopensource.turmeric.eclipse.utils.wsdl.WSDLDefinitionCache;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.JavaCore;
 import org.osgi.framework.BundleContext;
 
 /**
@@ -29,6 +41,8 @@ public class UtilsActivator extends Plugin {
 	// The shared instance
 	private static UtilsActivator plugin;
 	
+	private final Job jarFileCacheJob = new JarFileCacheIdleJob();
+	
 	/**
 	 * The constructor.
 	 */
@@ -42,6 +56,17 @@ public class UtilsActivator extends Plugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				WSDLDefinitionCache.getDefault(),
+				IResourceChangeEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				ProjectNatureIndex.getDefault(),
+				IResourceChangeEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(ClasspathURLCache.getDefault(),
+				ElementChangedEvent.POST_CHANGE);
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(
+				JarFileCache.getDefault(), IResourceChangeEvent.POST_CHANGE);
+		jarFileCacheJob.schedule(JarFileCache.DEFAULT_MAX_IDLE_TIME);
 	}
 
 	/**
@@ -49,6 +74,18 @@ public class UtilsActivator extends Plugin {
 	 */
 	@Override
 	public void stop(BundleContext context) throws Exception {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+				WSDLDefinitionCache.getDefault());
+		WSDLDefinitionCache.getDefault().clear();
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+				ProjectNatureIndex.getDefault());
+		ProjectNatureIndex.getDefault().clear();
+		JavaCore.removeElementChangedListener(ClasspathURLCache.getDefault());
+		ClasspathURLCache.getDefault().clear();
+		jarFileCacheJob.cancel();
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+				JarFileCache.getDefault());
+		JarFileCache.getDefault().close();
 		plugin = null;
 		super.stop(context);
 	}
@@ -62,4 +99,26 @@ public class UtilsActivator extends Plugin {
 		return plugin;
 	}
 
+	/**
+	 * Closes the handles of the shared jar file cache which have not been
+	 * used for a while, so that the jars are not kept open between builds.
+	 */
+	private static class JarFileCacheIdleJob extends Job {
+
+		public JarFileCacheIdleJob() {
+			super("Closing idle jar files");
+			setSystem(true);
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			JarFileCache.getDefault().closeIdle(
+					JarFileCache.DEFAULT_MAX_IDLE_TIME);
+			if (plugin != null && monitor.isCanceled() == false) {
+				schedule(JarFileCache.DEFAULT_MAX_IDLE_TIME);
+			}
+			return Status.OK_STATUS;
+		}
+	}
+
 }
@@ -0,0 +1,415 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.classloader;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A bounded LRU cache of open {@link JarFile} handles. Handles are keyed by
+ * the canonical path of the jar and are reopened if the jar has been modified
+ * since it was opened. Evicted handles are closed, so the number of open file
+ * handles never exceeds the capacity of the cache.
+ *
+ * <p>
+ * Handles are obtained through {@link #acquire(File)} or
+ * {@link #getInputStream(File, String)} and are reference counted: an evicted or
+ * outdated handle which is still in use is only closed once it has been
+ * released, so the capacity can be exceeded by the handles in use.
+ * </p>
+ *
+ * <p>
+ * As a resource change listener, the cache closes the handles of changed or
+ * removed jars in the workspace, and of every jar of a project which is
+ * closed or removed. Handles which have not been used for a while are closed
+ * by {@link #closeIdle(long)}.
+ * </p>
+ */
+public class JarFileCache implements IResourceChangeListener {
+
+	/** The default maximum number of open jar files. */
+	public static final int DEFAULT_MAX_OPEN_FILES = 64;
+
+	/** The default time in milliseconds after which an unused handle is closed. */
+	public static final long DEFAULT_MAX_IDLE_TIME = 60000;
+
+	private static final String EXT_JAR = "jar";
+
+	private static final Logger logger = Logger.getLogger(JarFileCache.class
+			.getName());
+
+	private static final JarFileCache DEFAULT = new JarFileCache();
+
+	private final Map<String, CachedJarFile> jarFiles = new LinkedHashMap<String, CachedJarFile>(
+			16, 0.75f, true);
+	/** the handles in use, including the ones which are not cached anymore */
+	private final Map<JarFile, CachedJarFile> acquired = new IdentityHashMap<JarFile, CachedJarFile>();
+	private final int maxOpenFiles;
+
+	/**
+	 * Instantiates a new jar file cache with the default capacity.
+	 */
+	public JarFileCache() {
+		this(DEFAULT_MAX_OPEN_FILES);
+	}
+
+	/**
+	 * Instantiates a new jar file cache.
+	 *
+	 * @param maxOpenFiles the maximum number of open jar files
+	 */
+	public JarFileCache(int maxOpenFiles) {
+		super();
+		this.maxOpenFiles = Math.max(1, maxOpenFiles);
+	}
+
+	/**
+	 * Gets the cache shared by all the readers of jar metadata.
+	 *
+	 * @return the shared cache
+	 */
+	public static JarFileCache getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Returns the cached handle of the given jar file, opening it if it is
+	 * not cached or has been modified since it was opened.
+	 */
+	private CachedJarFile open(File file) throws IOException {
+		final String key = file.getCanonicalPath();
+		final long lastModified = file.lastModified();
+		CachedJarFile cached = jarFiles.get(key);
+		if (cached != null) {
+			if (cached.lastModified == lastModified) {
+				return cached;
+			}
+			jarFiles.remove(key);
+			retire(cached);
+		}
+		cached = new CachedJarFile(new JarFile(file), lastModified);
+		jarFiles.put(key, cached);
+		evict();
+		return cached;
+	}
+
+	/**
+	 * Returns an open handle of the given jar file and keeps it open until it
+	 * is passed to {@link #release(JarFile)}.
+	 *
+	 * @param file the jar file
+	 * @return the open jar file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public synchronized JarFile acquire(File file) throws IOException {
+		final CachedJarFile cached = open(file);
+		cached.references++;
+		cached.lastUsed = System.currentTimeMillis();
+		acquired.put(cached.jarFile, cached);
+		return cached.jarFile;
+	}
+
+	/**
+	 * Releases a handle obtained through {@link #acquire(File)}. The handle is
+	 * closed if it has been evicted in the meantime and is not in use anymore.
+	 *
+	 * @param jarFile the jar file
+	 */
+	public void release(JarFile jarFile) {
+		synchronized (this) {
+			final CachedJarFile cached = acquired.get(jarFile);
+			if (cached == null || --cached.references > 0) {
+				return;
+			}
+			cached.lastUsed = System.currentTimeMillis();
+			acquired.remove(jarFile);
+			if (cached.retired == false) {
+				return;
+			}
+		}
+		close(jarFile);
+	}
+
+	/**
+	 * Opens a stream of an entry of the given jar file. The handle of the jar
+	 * file is released when the stream is closed.
+	 *
+	 * @param file the jar file
+	 * @param entryName the name of the entry
+	 * @return the stream, or null if the jar file does not contain the entry
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public InputStream getInputStream(File file, String entryName)
+			throws IOException {
+		final JarFile jarFile = acquire(file);
+		boolean released = true;
+		try {
+			final JarEntry jarEntry = jarFile.getJarEntry(entryName);
+			if (jarEntry == null) {
+				return null;
+			}
+			final InputStream result = new ReleasingInputStream(jarFile
+					.getInputStream(jarEntry), jarFile);
+			released = false;
+			return result;
+		} finally {
+			if (released) {
+				release(jarFile);
+			}
+		}
+	}
+
+	private void evict() {
+		final Iterator<CachedJarFile> it = jarFiles.values().iterator();
+		while (jarFiles.size() > maxOpenFiles && it.hasNext()) {
+			final CachedJarFile cached = it.next();
+			it.remove();
+			retire(cached);
+		}
+	}
+
+	/**
+	 * Closes a handle which is not cached anymore, or marks it to be closed
+	 * on its last release.
+	 */
+	private void retire(CachedJarFile cached) {
+		if (cached.references > 0) {
+			cached.retired = true;
+		} else {
+			close(cached.jarFile);
+		}
+	}
+
+	/**
+	 * Gets the number of open jar files, including the ones which are not
+	 * cached anymore but still in use.
+	 *
+	 * @return the open file count
+	 */
+	public synchronized int getOpenFileCount() {
+		int result = jarFiles.size();
+		for (CachedJarFile cached : acquired.values()) {
+			if (cached.retired) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of jar files which have been acquired and not released
+	 * yet.
+	 *
+	 * @return the acquired file count
+	 */
+	public synchronized int getAcquiredFileCount() {
+		return acquired.size();
+	}
+
+	/**
+	 * Closes the handle of the given jar file, once it is not in use anymore.
+	 * The next acquisition opens the jar again.
+	 *
+	 * @param file the jar file
+	 */
+	public synchronized void invalidate(File file) {
+		final CachedJarFile cached = jarFiles.remove(getKey(file));
+		if (cached != null) {
+			retire(cached);
+		}
+	}
+
+	/**
+	 * Closes the handles of all the jar files in the given folder and its sub
+	 * folders, once they are not in use anymore.
+	 *
+	 * @param folder the folder
+	 */
+	public synchronized void invalidateFolder(File folder) {
+		final String prefix = getKey(folder) + File.separator;
+		for (Iterator<Map.Entry<String, CachedJarFile>> it = jarFiles
+				.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<String, CachedJarFile> entry = it.next();
+			if (entry.getKey().startsWith(prefix)) {
+				it.remove();
+				retire(entry.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Closes the handles which are not in use and have not been used for the
+	 * given time.
+	 *
+	 * @param maxIdleTime the time in milliseconds
+	 */
+	public synchronized void closeIdle(long maxIdleTime) {
+		final long limit = System.currentTimeMillis() - maxIdleTime;
+		for (Iterator<CachedJarFile> it = jarFiles.values().iterator(); it
+				.hasNext();) {
+			final CachedJarFile cached = it.next();
+			if (cached.references == 0 && cached.lastUsed <= limit) {
+				it.remove();
+				close(cached.jarFile);
+			}
+		}
+	}
+
+	/**
+	 * Closes all open jar files which are not in use, the ones in use are
+	 * closed on their last release.
+	 */
+	public void close() {
+		final List<CachedJarFile> toClose = new ArrayList<CachedJarFile>();
+		synchronized (this) {
+			for (CachedJarFile cached : jarFiles.values()) {
+				if (cached.references > 0) {
+					cached.retired = true;
+				} else {
+					toClose.add(cached);
+				}
+			}
+			jarFiles.clear();
+		}
+		for (CachedJarFile cached : toClose) {
+			close(cached.jarFile);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		synchronized (this) {
+			if (jarFiles.isEmpty()) {
+				return;
+			}
+		}
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					final IResource resource = delta.getResource();
+					if (resource instanceof IProject) {
+						if (delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							invalidate(resource, true);
+							return false;
+						}
+					} else if (resource instanceof IFile
+							&& delta.getKind() != IResourceDelta.ADDED
+							&& EXT_JAR.equalsIgnoreCase(resource
+									.getFileExtension())) {
+						invalidate(resource, false);
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			logger.log(Level.WARNING, "Failed to process the resource delta", e);
+			close();
+		}
+	}
+
+	private void invalidate(IResource resource, boolean folder) {
+		final IPath location = resource.getLocation();
+		if (location == null) {
+			// e.g. the project has been deleted already
+			close();
+		} else if (folder) {
+			invalidateFolder(location.toFile());
+		} else {
+			invalidate(location.toFile());
+		}
+	}
+
+	private static String getKey(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	private static void close(JarFile jarFile) {
+		try {
+			jarFile.close();
+		} catch (IOException e) {
+			if (logger.isLoggable(Level.FINE)) {
+				logger.fine("Failed to close " + jarFile.getName() + ": " + e);
+			}
+		}
+	}
+
+	private static class CachedJarFile {
+		private final JarFile jarFile;
+		private final long lastModified;
+		/** the number of acquisitions which have not been released yet */
+		private int references = 0;
+		/** true, if the handle is not cached anymore */
+		private boolean retired = false;
+		/** the time of the last acquisition or release */
+		private long lastUsed = System.currentTimeMillis();
+
+		private CachedJarFile(JarFile jarFile, long lastModified) {
+			super();
+			this.jarFile = jarFile;
+			this.lastModified = lastModified;
+		}
+	}
+
+	private class ReleasingInputStream extends FilterInputStream {
+		private final JarFile jarFile;
+		private boolean closed = false;
+
+		private ReleasingInputStream(InputStream in, JarFile jarFile) {
+			super(in);
+			this.jarFile = jarFile;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				super.close();
+			} finally {
+				release(jarFile);
+			}
+		}
+	}
+}
@@ -0,0 +1,432 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.classloader;
+
+import java.io.File;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.commons.io.FileUtils;
+import org.osgi.framework.Bundle;
+
+/**
+ * A pool of {@link SOAPluginClassLoader} instances by name and class path.
+ * Loading the code generation class graph (service generator, JAXB, XJC) is
+ * expensive, so a class loader is reused as long as the fingerprint of its
+ * class path is unchanged: the url, last modified time and length of every
+ * jar, and the url of every folder. The folders are looked up lazily by the
+ * class loader, so their content is not part of the fingerprint.
+ *
+ * <p>
+ * A pooled class loader is leased to one thread at a time, so the static
+ * state of the code generation classes is never shared by concurrent runs.
+ * Every {@link #acquire(String, String, Collection)} has to be paired
+ * with a {@link #release(SOAPluginClassLoader)}. The same thread may acquire
+ * a class loader again before releasing it. A class loader dropped from the
+ * pool while leased is only disposed once it has been released. Pooled class
+ * loaders are never modified, variants of a class path are pooled under a
+ * different name.
+ * </p>
+ *
+ * <p>
+ * The pool is LRU ordered and bounded both by the number of loaders and by the
+ * total size of the jars they hold. Leased class loaders are not evicted.
+ * </p>
+ */
+public final class SOAClassLoaderPool {
+
+	/** The default maximum number of pooled class loaders. */
+	public static final int DEFAULT_MAX_ENTRIES = 32;
+
+	/** The default maximum total size in bytes of the jars held by the pool. */
+	public static final long DEFAULT_MAX_WEIGHT = 512L * 1024L * 1024L;
+
+	private static final Logger logger = Logger
+			.getLogger(SOAClassLoaderPool.class.getName());
+
+	private static final SOAClassLoaderPool INSTANCE = new SOAClassLoaderPool(
+			DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+
+	/** the pooled class loaders by key, the same key may be pooled twice */
+	private final Map<SOAPluginClassLoader, PoolEntry> entries = new LinkedHashMap<SOAPluginClassLoader, PoolEntry>(
+			16, 0.75f, true);
+	/** the class loaders dropped from the pool while leased */
+	private final Map<SOAPluginClassLoader, PoolEntry> dropped = new LinkedHashMap<SOAPluginClassLoader, PoolEntry>();
+	private final int maxEntries;
+	private final long maxWeight;
+	private long totalWeight = 0;
+	private long hitCount = 0;
+	private long missCount = 0;
+	private long evictionCount = 0;
+
+	/**
+	 * Instantiates a new class loader pool.
+	 *
+	 * @param maxEntries the maximum number of pooled class loaders
+	 * @param maxWeight the maximum total size in bytes of the pooled jars
+	 */
+	public SOAClassLoaderPool(int maxEntries, long maxWeight) {
+		super();
+		this.maxEntries = Math.max(1, maxEntries);
+		this.maxWeight = maxWeight;
+	}
+
+	/**
+	 * Gets the shared pool instance.
+	 *
+	 * @return the shared instance
+	 */
+	public static SOAClassLoaderPool getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Leases a pooled class loader of the given name and class path to the
+	 * current thread, creating it if every such class loader is leased to
+	 * another thread.
+	 *
+	 * @param owner the owner of the lease, typically the project name
+	 * @param name the name of the class loader
+	 * @param urls the resolved class path
+	 * @return the pooled class loader, to be released by the current thread
+	 */
+	public SOAPluginClassLoader acquire(String owner, String name,
+			Collection<URL> urls) {
+		return acquire(owner, name, urls, null, null);
+	}
+
+	/**
+	 * Leases a pooled class loader of the given name and class path to the
+	 * current thread, creating it if every such class loader is leased to
+	 * another thread. The class path reported by a new class loader and its
+	 * plugin bundles are set before it is pooled.
+	 *
+	 * @param owner the owner of the lease, typically the project name
+	 * @param name the name of the class loader, e.g. of the class path variant
+	 * @param urls the resolved class path
+	 * @param classPathURLs the class path reported by
+	 * {@link SOAPluginClassLoader#getURLs()}, or null for the resolved one
+	 * @param pluginBundles the plugin bundles of a new class loader, or null
+	 * @return the pooled class loader, to be released by the current thread
+	 */
+	public synchronized SOAPluginClassLoader acquire(String owner, String name,
+			Collection<URL> urls, Collection<URL> classPathURLs,
+			List<Bundle> pluginBundles) {
+		final StringBuilder buf = new StringBuilder(name);
+		buf.append('|').append(fingerprint(urls));
+		if (classPathURLs != null) {
+			buf.append('|').append(fingerprint(classPathURLs));
+		}
+		buf.append('|').append(getBundleNames(pluginBundles));
+		final String key = buf.toString();
+		final Thread thread = Thread.currentThread();
+		PoolEntry entry = null;
+		for (PoolEntry candidate : entries.values()) {
+			if (candidate.key.equals(key)
+					&& (candidate.holder == null || candidate.holder == thread)) {
+				entry = candidate;
+				break;
+			}
+		}
+		if (entry != null) {
+			hitCount++;
+			// moves the entry to the end of the LRU order
+			entries.get(entry.classLoader);
+		} else {
+			missCount++;
+			final SOAPluginClassLoader classLoader = new SOAPluginClassLoader(
+					name, urls.toArray(new URL[0]));
+			if (classPathURLs != null) {
+				classLoader.setM_classPathURLs(new LinkedHashSet<URL>(
+						classPathURLs));
+			}
+			if (pluginBundles != null) {
+				classLoader.setPluginBundles(new ArrayList<Bundle>(
+						pluginBundles));
+			}
+			entry = new PoolEntry(key, classLoader, weight(urls));
+			entries.put(classLoader, entry);
+			totalWeight += entry.weight;
+			if (logger.isLoggable(Level.FINE)) {
+				logger.fine("Created pooled class loader for " + owner + " -> "
+						+ key);
+			}
+		}
+		entry.holder = thread;
+		entry.leaseCount++;
+		entry.owners.add(owner);
+		evict();
+		return entry.classLoader;
+	}
+
+	/**
+	 * Ends a lease of the given class loader.
+	 *
+	 * @param classLoader the class loader returned by
+	 * {@link #acquire(String, String, Collection)}
+	 */
+	public synchronized void release(SOAPluginClassLoader classLoader) {
+		PoolEntry entry = entries.get(classLoader);
+		if (entry == null) {
+			entry = dropped.get(classLoader);
+		}
+		if (entry == null || entry.leaseCount == 0) {
+			throw new IllegalStateException("Class loader is not leased: "
+					+ classLoader);
+		}
+		entry.leaseCount--;
+		if (entry.leaseCount == 0) {
+			entry.holder = null;
+			if (dropped.remove(classLoader) != null) {
+				entry.classLoader.dispose();
+			} else {
+				evict();
+			}
+		}
+	}
+
+	/**
+	 * Drops the pooled class loaders which have been leased by the given
+	 * owner.
+	 *
+	 * @param owner the owner, typically the project name
+	 */
+	public synchronized void invalidate(String owner) {
+		for (Iterator<PoolEntry> it = entries.values().iterator(); it.hasNext();) {
+			final PoolEntry entry = it.next();
+			if (entry.owners.contains(owner)) {
+				it.remove();
+				drop(entry);
+				if (logger.isLoggable(Level.FINE)) {
+					logger.fine("Invalidated pooled class loader of " + owner
+							+ " -> " + entry.key);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Drops all pooled class loaders.
+	 */
+	public synchronized void clear() {
+		for (PoolEntry entry : entries.values()) {
+			drop(entry);
+		}
+		entries.clear();
+	}
+
+	private void evict() {
+		final Iterator<PoolEntry> it = entries.values().iterator();
+		while ((entries.size() > maxEntries || totalWeight > maxWeight)
+				&& it.hasNext()) {
+			final PoolEntry entry = it.next();
+			if (entry.leaseCount == 0) {
+				it.remove();
+				drop(entry);
+				evictionCount++;
+			}
+		}
+	}
+
+	/**
+	 * Disposes the class loader of an entry removed from the pool, or defers
+	 * it to its release.
+	 */
+	private void drop(PoolEntry entry) {
+		totalWeight -= entry.weight;
+		if (entry.leaseCount == 0) {
+			entry.classLoader.dispose();
+		} else {
+			dropped.put(entry.classLoader, entry);
+		}
+	}
+
+	/**
+	 * Computes the fingerprint of the given class path, which is based on the
+	 * url, the last modified time and the length of every jar, and on the url
+	 * and the existence of every folder. The order of the urls does not
+	 * matter.
+	 *
+	 * @param urls the jars and folders
+	 * @return the fingerprint
+	 */
+	public static String fingerprint(Collection<URL> urls) {
+		final Set<String> sorted = new TreeSet<String>();
+		for (URL url : urls) {
+			sorted.add(url.toString());
+		}
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("MD5");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		for (String url : sorted) {
+			File file = null;
+			try {
+				file = FileUtils.toFile(new URL(url));
+			} catch (Exception e) {
+				// fall back to the url only
+			}
+			final StringBuilder buf = new StringBuilder(url);
+			if (file != null && file.isDirectory()) {
+				// the class loader skips the folders which do not exist yet
+				buf.append("|d");
+			} else if (file != null) {
+				buf.append('|').append(file.lastModified()).append('|').append(
+						file.length());
+			}
+			buf.append('\n');
+			digest.update(buf.toString().getBytes());
+		}
+		final StringBuilder result = new StringBuilder();
+		for (byte b : digest.digest()) {
+			result.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+		}
+		return result.toString();
+	}
+
+	private static String getBundleNames(List<Bundle> pluginBundles) {
+		final StringBuilder result = new StringBuilder();
+		if (pluginBundles != null) {
+			for (Bundle bundle : pluginBundles) {
+				result.append(bundle.getSymbolicName()).append(',');
+			}
+		}
+		return result.toString();
+	}
+
+	private static long weight(Collection<URL> urls) {
+		long result = 0;
+		for (URL url : urls) {
+			final File file = FileUtils.toFile(url);
+			if (file != null && file.isFile()) {
+				result += file.length();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the number of pooled class loaders.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Gets the number of class loaders currently leased, including the ones
+	 * dropped from the pool meanwhile.
+	 *
+	 * @return the leased count
+	 */
+	public synchronized int getLeasedCount() {
+		int result = dropped.size();
+		for (PoolEntry entry : entries.values()) {
+			if (entry.leaseCount > 0) {
+				result++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the total size in bytes of the jars held by the pool.
+	 *
+	 * @return the total weight
+	 */
+	public synchronized long getTotalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * Gets the number of requests served by an existing class loader.
+	 *
+	 * @return the hit count
+	 */
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	/**
+	 * Gets the number of requests which required a new class loader.
+	 *
+	 * @return the miss count
+	 */
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * Gets the number of class loaders evicted because of the pool limits.
+	 *
+	 * @return the eviction count
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * Gets the number of classes defined by the currently pooled class
+	 * loaders.
+	 *
+	 * @return the loaded class count
+	 */
+	public synchronized long getLoadedClassCount() {
+		long result = 0;
+		for (PoolEntry entry : entries.values()) {
+			result += entry.classLoader.getLoadedClassCount();
+		}
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public synchronized String toString() {
+		return "SOAClassLoaderPool[size=" + entries.size() + ", weight="
+				+ totalWeight + ", hits=" + hitCount + ", misses=" + missCount
+				+ ", evictions=" + evictionCount + "]";
+	}
+
+	private static class PoolEntry {
+		private final String key;
+		private final SOAPluginClassLoader classLoader;
+		private final long weight;
+		/** the owners which have leased the class loader so far */
+		private final Set<String> owners = new HashSet<String>();
+		/** the thread the class loader is leased to, if any */
+		private Thread holder = null;
+		private int leaseCount = 0;
+
+		private PoolEntry(String key, SOAPluginClassLoader classLoader,
+				long weight) {
+			super();
+			this.key = key;
+			this.classLoader = classLoader;
+			this.weight = weight;
+		}
+	}
+}
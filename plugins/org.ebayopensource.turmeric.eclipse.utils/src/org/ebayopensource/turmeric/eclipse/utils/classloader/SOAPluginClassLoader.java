@@ -16,9 +16,13 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Level;
@@ -46,6 +50,13 @@ public class SOAPluginClassLoader extends URLClassLoader {
 	private Set<URL> m_dirURLs = new TreeSet<URL>(URL_COMPARATOR);
 	private Set<URL> m_classPathURLs = new TreeSet<URL>(URL_COMPARATOR);
 	private List<Bundle> pluginBundles = new ArrayList<Bundle>();
+	private final AtomicInteger loadedClassCount = new AtomicInteger(0);
+	private final JarFileCache jarFileCache = new JarFileCache();
+	/**
+	 * Maps the name of every entry of the jars to the owning jar, the first
+	 * jar wins. Built lazily on the first resource lookup.
+	 */
+	private volatile Map<String, File> entryIndex = null;
 	private static final Logger logger = Logger
 			.getLogger(SOAPluginClassLoader.class.getName());
 
@@ -57,7 +68,11 @@ public class SOAPluginClassLoader extends URLClassLoader {
 	 */
 	public SOAPluginClassLoader(String name, URL[] urls) {
 		super(EMPTY_URLS);
+		init(urls);
+	}
 
+
+	private void init(URL[] urls) {
 		for (int i = 0; i < urls.length; i++) {
 			File file = FileUtils.toFile(urls[i]);
 			if (file.isDirectory()) {
@@ -148,7 +163,9 @@ public class SOAPluginClassLoader extends URLClassLoader {
 			}
 			baos.close();
 			is.close();
-			return defineClass(name, buf, 0, buf.length);
+			final Class<?> result = defineClass(name, buf, 0, buf.length);
+			loadedClassCount.incrementAndGet();
+			return result;
 		} catch (IOException e) {
 			throw new ClassNotFoundException(name, e);
 		}
@@ -175,30 +192,107 @@ public class SOAPluginClassLoader extends URLClassLoader {
 		} catch (Exception exception) {
 		}
 
-		for (URL url : m_jarURLs) {
+		final File file = getEntryIndex().get(resourceName);
+		if (file != null) {
+			try {
+				// the handle must not be evicted while the entry is looked up
+				final JarFile jarFile = jarFileCache.acquire(file);
+				try {
+					JarEntry jarEntry = jarFile.getJarEntry(resourceName);
+					if (jarEntry != null) {
+						return SOAToolFileUrlHandler.createUrl(jarFileCache,
+								file, jarEntry);
+					}
+				} finally {
+					jarFileCache.release(jarFile);
+				}
+			} catch (IOException e) {
+				e.printStackTrace(); // KEEPME
+			}
+		}
+
+		return super.findResource(resourceName);
+	}
 
+	private Map<String, File> getEntryIndex() {
+		Map<String, File> result = entryIndex;
+		if (result == null) {
+			synchronized (jarFileCache) {
+				result = entryIndex;
+				if (result == null) {
+					result = buildEntryIndex();
+					entryIndex = result;
+				}
+			}
+		}
+		return result;
+	}
+
+	private Map<String, File> buildEntryIndex() {
+		final Map<String, File> result = new HashMap<String, File>();
+		for (URL url : m_jarURLs) {
+			final File file = FileUtils.toFile(url);
+			JarFile jarFile = null;
 			try {
-				File file = FileUtils.toFile(url);
-				JarFile jarFile;
 				jarFile = new JarFile(file);
-				JarEntry jarEntry = jarFile.getJarEntry(resourceName);
-				if (jarEntry != null) {
-					SOAToolFileUrlHandler handler = new SOAToolFileUrlHandler(
-							jarFile, jarEntry);
-					URL retUrl = new URL("jar", "", -1, new File(jarFile
-							.getName()).toURI().toURL()
-							+ "!/" + jarEntry.getName(), handler);
-					handler.setExpectedUrl(retUrl);
-					return retUrl;
-
+				for (Enumeration<JarEntry> entries = jarFile.entries(); entries
+						.hasMoreElements();) {
+					final String name = entries.nextElement().getName();
+					if (result.containsKey(name) == false) {
+						result.put(name, file);
+					}
+					if (name.endsWith("/")) {
+						// directories could be looked up without the trailing slash
+						final String dirName = name.substring(0,
+								name.length() - 1);
+						if (result.containsKey(dirName) == false) {
+							result.put(dirName, file);
+						}
+					}
 				}
 			} catch (IOException e) {
 				e.printStackTrace(); // KEEPME
+			} finally {
+				if (jarFile != null) {
+					try {
+						jarFile.close();
+					} catch (IOException e) {
+						// ignore
+					}
+				}
 			}
-
 		}
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine("Indexed " + result.size() + " entries of "
+					+ m_jarURLs.size() + " jars");
+		}
+		return result;
+	}
 
-		return super.findResource(resourceName);
+	/**
+	 * Closes all jar files opened by this class loader. The class loader
+	 * remains usable, jar files are reopened on demand.
+	 */
+	public void dispose() {
+		jarFileCache.close();
+	}
+
+	/**
+	 * Gets the number of jar files currently held open by this class loader.
+	 *
+	 * @return the open jar file count
+	 */
+	public int getOpenJarFileCount() {
+		return jarFileCache.getOpenFileCount();
+	}
+
+	/**
+	 * Gets the number of classes defined by this class loader so far.
+	 *
+	 * @return the loaded class count
+	 */
+	public int getLoadedClassCount() {
+		return loadedClassCount.get();
 	}
 
 	/**
@@ -11,6 +11,7 @@ package org.ebayopensource.turmeric.eclipse.utils.classloader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.net.URLConnection;
@@ -59,8 +60,30 @@ public class SOAToolFileUrlHandler extends URLStreamHandler {
 		return url;
 	}
 
+	/**
+	 * Creates the url of an entry of a jar whose handle is owned by the given
+	 * jar file cache.
+	 *
+	 * @param jarFileCache the jar file cache
+	 * @param file the jar file
+	 * @param jarEntry the jar entry
+	 * @return the uRL
+	 * @throws MalformedURLException the malformed url exception
+	 */
+	public static URL createUrl(JarFileCache jarFileCache, File file,
+			JarEntry jarEntry) throws MalformedURLException {
+		SOAToolFileUrlHandler handler = new SOAToolFileUrlHandler(
+				jarFileCache, file, jarEntry);
+		URL url = new URL("jar", "", -1, file.toURI().toURL() + "!/"
+				+ jarEntry.getName(), handler);
+		handler.setExpectedUrl(url);
+		return url;
+	}
+
 	private URL expectedUrl;
 	private final JarFile jarFile;
+	private final JarFileCache jarFileCache;
+	private final File file;
 	private final JarEntry jarEntry;
 
 	/**
@@ -76,9 +99,86 @@ public class SOAToolFileUrlHandler extends URLStreamHandler {
 			throw new NullPointerException("jarEntry is null");
 
 		this.jarFile = jarFile;
+		this.jarFileCache = null;
+		this.file = new File(jarFile.getName());
+		this.jarEntry = jarEntry;
+	}
+
+	/**
+	 * Instantiates a new sOA tool file url handler. The jar file handle is
+	 * obtained from the given cache whenever a connection is opened, so that
+	 * the cache is free to close it in the meantime.
+	 *
+	 * @param jarFileCache the jar file cache
+	 * @param file the jar file
+	 * @param jarEntry the jar entry
+	 */
+	public SOAToolFileUrlHandler(JarFileCache jarFileCache, File file,
+			JarEntry jarEntry) {
+		if (jarFileCache == null)
+			throw new NullPointerException("jarFileCache is null");
+		if (file == null)
+			throw new NullPointerException("file is null");
+		if (jarEntry == null)
+			throw new NullPointerException("jarEntry is null");
+
+		this.jarFile = null;
+		this.jarFileCache = jarFileCache;
+		this.file = file;
 		this.jarEntry = jarEntry;
 	}
 
+	/**
+	 * Creates the connection of the given entry, or of the entry of this
+	 * handler if the entry path is null. A cache backed handle is only held
+	 * while the entry is looked up.
+	 */
+	private JarFileUrlConnection createConnection(URL url, String entryPath)
+			throws IOException {
+		final JarFile jar = jarFileCache != null ? jarFileCache.acquire(file)
+				: jarFile;
+		try {
+			final JarEntry entry = entryPath != null ? jar
+					.getJarEntry(entryPath) : jarEntry;
+			if (entry == null) {
+				throw new FileNotFoundException("Entry not found: " + url);
+			}
+			return createConnection(url, jar, entry);
+		} finally {
+			if (jarFileCache != null) {
+				jarFileCache.release(jar);
+			}
+		}
+	}
+
+	/**
+	 * Creates the connection of an entry. The streams of a cache backed
+	 * connection hold a reference on the jar handle until they are closed, so
+	 * that the cache does not close the handle while it is read.
+	 */
+	private JarFileUrlConnection createConnection(URL url, JarFile jar,
+			final JarEntry entry) throws IOException {
+		JarFileUrlConnection urlConnection;
+		if (jarFileCache != null) {
+			urlConnection = new JarFileUrlConnection(url, jar, entry) {
+				@Override
+				public InputStream getInputStream() throws IOException {
+					final InputStream result = jarFileCache.getInputStream(
+							file, entry.getName());
+					if (result == null) {
+						throw new FileNotFoundException("Entry not found: "
+								+ getURL());
+					}
+					return result;
+				}
+			};
+		} else {
+			urlConnection = new JarFileUrlConnection(url, jar, entry);
+		}
+		urlConnection.setDefaultUseCaches(false);
+		return urlConnection;
+	}
+
 	/**
 	 * Sets the expected url.
 	 *
@@ -122,26 +222,16 @@ public class SOAToolFileUrlHandler extends URLStreamHandler {
 			}
 			file = file.substring("file:".length());
 
-			if (!jarFile.getName().equals(file)) {
+			if (!this.file.getPath().equals(file)) {
 				URLConnection retUrlConnection = new URL(url.toExternalForm())
 						.openConnection();
 				retUrlConnection.setDefaultUseCaches(false);
 				return retUrlConnection;
 			}
 
-			JarEntry newEntry = jarFile.getJarEntry(entryPath);
-			if (newEntry == null) {
-				throw new FileNotFoundException("Entry not found: " + url);
-			}
-			JarFileUrlConnection urlConnection = new JarFileUrlConnection(url,
-					jarFile, newEntry);
-			urlConnection.setDefaultUseCaches(false);
-			return urlConnection;
+			return createConnection(url, entryPath);
 
 		}
-		JarFileUrlConnection urlConnection = new JarFileUrlConnection(url,
-				jarFile, jarEntry);
-		urlConnection.setDefaultUseCaches(false);
-		return urlConnection;
+		return createConnection(url, null);
 	}
 }
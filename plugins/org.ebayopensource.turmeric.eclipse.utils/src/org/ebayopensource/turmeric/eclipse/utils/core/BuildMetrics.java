@@ -0,0 +1,353 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Collects the time taken by the phases of the SOA builds, per project and
+ * per phase. Recording a phase costs two {@link System#nanoTime()} calls and
+ * an uncontended lock, so the metrics are always on.
+ *
+ * <p>
+ * Usage:
+ * </p>
+ * <pre>
+ * final long start = BuildMetrics.getDefault().start();
+ * try {
+ *     ...
+ * } finally {
+ *     BuildMetrics.getDefault().record(project.getName(),
+ *             BuildMetrics.PHASE_CODEGEN, start);
+ * }
+ * </pre>
+ */
+public class BuildMetrics {
+
+	/** Emptying the generated folders before a full build. */
+	public static final String PHASE_CLEAN = "clean";
+
+	/** Checking the resource delta for changes which need a build. */
+	public static final String PHASE_SHOULD_BUILD = "shouldBuild";
+
+	/** Checking the health of the project and its build system. */
+	public static final String PHASE_HEALTH_CHECK = "checkProjectHealth";
+
+	/** Validating the WSDL with the WTP validator. */
+	public static final String PHASE_VALIDATE = "validateUsingWTP";
+
+	/** Creating the code generation class loader. */
+	public static final String PHASE_CODEGEN_INIT = "CodegenInvoker.init";
+
+	/** Running the code generation. */
+	public static final String PHASE_CODEGEN = "execute";
+
+	/** Refreshing the generated folders. */
+	public static final String PHASE_REFRESH = "refreshLocal";
+
+	/** The whole build of a project by its builder. */
+	public static final String PHASE_BUILD = "build";
+
+	private static final BuildMetrics defaultMetrics = new BuildMetrics();
+
+	private final ConcurrentMap<String, PhaseMetrics> metrics = new ConcurrentHashMap<String, PhaseMetrics>();
+
+	/**
+	 * Instantiates new, empty build metrics.
+	 */
+	public BuildMetrics() {
+		super();
+	}
+
+	/**
+	 * Gets the metrics all the builds record into.
+	 *
+	 * @return the default build metrics
+	 */
+	public static BuildMetrics getDefault() {
+		return defaultMetrics;
+	}
+
+	/**
+	 * Marks the start of a phase.
+	 *
+	 * @return the start time to be passed to
+	 * {@link #record(String, String, long)}
+	 */
+	public long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Records a phase which has started at the given time and ends now.
+	 *
+	 * @param projectName the project name
+	 * @param phase the phase
+	 * @param startTime the start time returned by {@link #start()}
+	 */
+	public void record(String projectName, String phase, long startTime) {
+		final long duration = System.nanoTime() - startTime;
+		if (projectName == null || phase == null) {
+			return;
+		}
+		final String key = projectName + "|" + phase;
+		PhaseMetrics phaseMetrics = metrics.get(key);
+		if (phaseMetrics == null) {
+			phaseMetrics = new PhaseMetrics(projectName, phase);
+			final PhaseMetrics existing = metrics.putIfAbsent(key,
+					phaseMetrics);
+			if (existing != null) {
+				phaseMetrics = existing;
+			}
+		}
+		phaseMetrics.add(duration);
+	}
+
+	/**
+	 * Gets a snapshot of the recorded metrics, sorted by project and phase.
+	 *
+	 * @return the metrics
+	 */
+	public List<PhaseMetrics> getMetrics() {
+		final List<PhaseMetrics> result = new ArrayList<PhaseMetrics>();
+		for (PhaseMetrics phaseMetrics : metrics.values()) {
+			result.add(phaseMetrics.copy());
+		}
+		Collections.sort(result, new Comparator<PhaseMetrics>() {
+			@Override
+			public int compare(PhaseMetrics o1, PhaseMetrics o2) {
+				final int result = o1.projectName.compareTo(o2.projectName);
+				return result != 0 ? result : o1.phase.compareTo(o2.phase);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Drops all the recorded metrics.
+	 */
+	public void clear() {
+		metrics.clear();
+	}
+
+	/**
+	 * Formats the metrics as CSV with a header line, the times are in
+	 * milliseconds.
+	 *
+	 * @return the CSV text
+	 */
+	public String toCSV() {
+		final StringBuilder result = new StringBuilder();
+		result.append("project,phase,count,total,average,min,max,last\n");
+		for (PhaseMetrics phaseMetrics : getMetrics()) {
+			result.append(quoteCSV(phaseMetrics.projectName)).append(',');
+			result.append(quoteCSV(phaseMetrics.phase)).append(',');
+			result.append(phaseMetrics.count).append(',');
+			result.append(formatMillis(phaseMetrics.getTotalTime())).append(',');
+			result.append(formatMillis(phaseMetrics.getAverageTime())).append(',');
+			result.append(formatMillis(phaseMetrics.getMinTime())).append(',');
+			result.append(formatMillis(phaseMetrics.getMaxTime())).append(',');
+			result.append(formatMillis(phaseMetrics.getLastTime())).append('\n');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Formats the metrics as a JSON array of objects, the times are in
+	 * milliseconds.
+	 *
+	 * @return the JSON text
+	 */
+	public String toJSON() {
+		final StringBuilder result = new StringBuilder();
+		result.append("[");
+		boolean first = true;
+		for (PhaseMetrics phaseMetrics : getMetrics()) {
+			result.append(first ? "\n" : ",\n");
+			first = false;
+			result.append("  {\"project\": ").append(
+					quoteJSON(phaseMetrics.projectName));
+			result.append(", \"phase\": ").append(quoteJSON(phaseMetrics.phase));
+			result.append(", \"count\": ").append(phaseMetrics.count);
+			result.append(", \"total\": ").append(
+					formatMillis(phaseMetrics.getTotalTime()));
+			result.append(", \"average\": ").append(
+					formatMillis(phaseMetrics.getAverageTime()));
+			result.append(", \"min\": ").append(
+					formatMillis(phaseMetrics.getMinTime()));
+			result.append(", \"max\": ").append(
+					formatMillis(phaseMetrics.getMaxTime()));
+			result.append(", \"last\": ").append(
+					formatMillis(phaseMetrics.getLastTime()));
+			result.append("}");
+		}
+		result.append(first ? "]\n" : "\n]\n");
+		return result.toString();
+	}
+
+	/**
+	 * Exports the metrics into the given file, as JSON if the file name ends
+	 * with .json and as CSV otherwise.
+	 *
+	 * @param file the file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public void export(File file) throws IOException {
+		final String content = file.getName().toLowerCase(Locale.US)
+				.endsWith(".json") ? toJSON() : toCSV();
+		FileUtils.writeStringToFile(file, content, "UTF-8");
+	}
+
+	private static String formatMillis(long nanos) {
+		return String.format(Locale.US, "%.3f", nanos / 1000000d);
+	}
+
+	private static String quoteCSV(String value) {
+		if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+				&& value.indexOf('\n') < 0) {
+			return value;
+		}
+		return "\"" + value.replace("\"", "\"\"") + "\"";
+	}
+
+	private static String quoteJSON(String value) {
+		final StringBuilder result = new StringBuilder("\"");
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				result.append('\\').append(c);
+			} else if (c < ' ') {
+				result.append(String.format("\\u%04x", (int) c));
+			} else {
+				result.append(c);
+			}
+		}
+		return result.append('"').toString();
+	}
+
+	/**
+	 * The metrics of a single phase of a single project. The times are in
+	 * nanoseconds.
+	 */
+	public static class PhaseMetrics {
+		private final String projectName;
+		private final String phase;
+		private long count = 0;
+		private long totalTime = 0;
+		private long minTime = Long.MAX_VALUE;
+		private long maxTime = 0;
+		private long lastTime = 0;
+
+		private PhaseMetrics(String projectName, String phase) {
+			super();
+			this.projectName = projectName;
+			this.phase = phase;
+		}
+
+		private synchronized void add(long duration) {
+			count++;
+			totalTime += duration;
+			minTime = Math.min(minTime, duration);
+			maxTime = Math.max(maxTime, duration);
+			lastTime = duration;
+		}
+
+		private synchronized PhaseMetrics copy() {
+			final PhaseMetrics result = new PhaseMetrics(projectName, phase);
+			result.count = count;
+			result.totalTime = totalTime;
+			result.minTime = minTime;
+			result.maxTime = maxTime;
+			result.lastTime = lastTime;
+			return result;
+		}
+
+		/**
+		 * Gets the project name.
+		 *
+		 * @return the project name
+		 */
+		public String getProjectName() {
+			return projectName;
+		}
+
+		/**
+		 * Gets the phase.
+		 *
+		 * @return the phase
+		 */
+		public String getPhase() {
+			return phase;
+		}
+
+		/**
+		 * Gets the number of times the phase has been recorded.
+		 *
+		 * @return the count
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Gets the total time.
+		 *
+		 * @return the total time
+		 */
+		public long getTotalTime() {
+			return totalTime;
+		}
+
+		/**
+		 * Gets the average time.
+		 *
+		 * @return the average time
+		 */
+		public long getAverageTime() {
+			return count > 0 ? totalTime / count : 0;
+		}
+
+		/**
+		 * Gets the min time.
+		 *
+		 * @return the min time
+		 */
+		public long getMinTime() {
+			return count > 0 ? minTime : 0;
+		}
+
+		/**
+		 * Gets the max time.
+		 *
+		 * @return the max time
+		 */
+		public long getMaxTime() {
+			return maxTime;
+		}
+
+		/**
+		 * Gets the time of the latest run.
+		 *
+		 * @return the last time
+		 */
+		public long getLastTime() {
+			return lastTime;
+		}
+	}
+}
@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Executes a set of tasks on a bounded worker pool while honoring the
+ * dependencies among them. A task is started only once all of the tasks it
+ * depends on have completed, so independent tasks run at the same time.
+ *
+ * <p>
+ * Dependencies on keys which are not part of the task set are ignored. If the
+ * dependencies contain a cycle, the pending task with the fewest unfinished
+ * dependencies is forced, so the tasks of the cycle run one at a time.
+ * </p>
+ *
+ * <p>
+ * The tasks depending on a failed task, directly or transitively, are not
+ * executed. They are reported as failed with a {@link DependencyFailure}.
+ * </p>
+ *
+ * @param <K> the type of the task keys
+ */
+public class DependencyTaskExecutor<K> {
+
+	/**
+	 * The work to be done for a single key.
+	 *
+	 * @param <K> the type of the task keys
+	 */
+	public static interface Task<K> {
+
+		/**
+		 * Executes the task of the given key.
+		 *
+		 * @param key the key
+		 * @throws Exception the exception
+		 */
+		public void execute(K key) throws Exception;
+	}
+
+	/**
+	 * The failure cause of a task which was skipped because a task it depends
+	 * on has failed.
+	 */
+	public static class DependencyFailure extends Exception {
+		private static final long serialVersionUID = 1L;
+		private final Object dependency;
+
+		/**
+		 * Instantiates a new dependency failure.
+		 *
+		 * @param dependency the key of the failed task
+		 */
+		public DependencyFailure(Object dependency) {
+			super("Skipped, the task of " + dependency + " has failed");
+			this.dependency = dependency;
+		}
+
+		/**
+		 * Gets the key of the failed task.
+		 *
+		 * @return the dependency
+		 */
+		public Object getDependency() {
+			return dependency;
+		}
+	}
+
+	private static final Logger logger = Logger
+			.getLogger(DependencyTaskExecutor.class.getName());
+
+	private final int maxThreads;
+	private final String threadNamePrefix;
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Instantiates a new dependency task executor.
+	 *
+	 * @param maxThreads the maximum number of tasks running at the same time
+	 * @param threadNamePrefix the name prefix of the worker threads
+	 */
+	public DependencyTaskExecutor(int maxThreads, String threadNamePrefix) {
+		super();
+		this.maxThreads = Math.max(1, maxThreads);
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/**
+	 * Gets the default number of worker threads for the given number of
+	 * tasks, which is the number of available processors at most.
+	 *
+	 * @param taskCount the number of tasks
+	 * @return the thread count
+	 */
+	public static int getDefaultThreadCount(int taskCount) {
+		return Math.max(1, Math.min(Runtime.getRuntime()
+				.availableProcessors(), taskCount));
+	}
+
+	/**
+	 * Gets the maximum number of tasks running at the same time.
+	 *
+	 * @return the max threads
+	 */
+	public int getMaxThreads() {
+		return maxThreads;
+	}
+
+	/**
+	 * Stops starting new tasks. Running tasks are not interrupted.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Checks if is cancelled.
+	 *
+	 * @return true, if is cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Executes the task for every key of the given dependency map and waits
+	 * for all of them to complete. The tasks depending on a failing task are
+	 * skipped.
+	 *
+	 * @param dependencies the keys mapped to the keys they depend on
+	 * @param task the task
+	 * @return the keys of the failed and skipped tasks mapped to the failure
+	 * cause, a {@link DependencyFailure} for the skipped ones, never null
+	 * @throws InterruptedException if the calling thread is interrupted
+	 */
+	public Map<K, Throwable> execute(
+			Map<K, ? extends Collection<K>> dependencies, final Task<K> task)
+			throws InterruptedException {
+		final Map<K, Throwable> failures = new LinkedHashMap<K, Throwable>();
+		final Map<K, Integer> remaining = new LinkedHashMap<K, Integer>();
+		final Map<K, List<K>> dependents = new HashMap<K, List<K>>();
+		for (K key : dependencies.keySet()) {
+			final Set<K> required = new HashSet<K>();
+			if (dependencies.get(key) != null) {
+				for (K dependency : dependencies.get(key)) {
+					if (dependencies.containsKey(dependency)
+							&& !key.equals(dependency)
+							&& required.add(dependency)) {
+						if (!dependents.containsKey(dependency)) {
+							dependents.put(dependency, new ArrayList<K>());
+						}
+						dependents.get(dependency).add(key);
+					}
+				}
+			}
+			remaining.put(key, required.size());
+		}
+
+		final LinkedList<K> ready = new LinkedList<K>();
+		for (Map.Entry<K, Integer> entry : remaining.entrySet()) {
+			if (entry.getValue() == 0) {
+				ready.add(entry.getKey());
+			}
+		}
+
+		final Set<K> started = new HashSet<K>();
+		final ExecutorService pool = Executors.newFixedThreadPool(Math.min(
+				maxThreads, Math.max(1, remaining.size())),
+				new WorkerThreadFactory(threadNamePrefix));
+		final CompletionService<K> completionService = new ExecutorCompletionService<K>(
+				pool);
+		int running = 0;
+		try {
+			while (started.size() < remaining.size() || running > 0) {
+				while (!cancelled && !ready.isEmpty() && running < maxThreads) {
+					final K key = ready.removeFirst();
+					if (!started.add(key)) {
+						// skipped while waiting in a cycle
+						continue;
+					}
+					running++;
+					completionService.submit(new Callable<K>() {
+						public K call() throws Exception {
+							try {
+								task.execute(key);
+							} catch (Throwable t) {
+								throw new TaskFailure(key, t);
+							}
+							return key;
+						}
+					});
+				}
+				if (running == 0) {
+					if (cancelled || started.size() == remaining.size()) {
+						break;
+					}
+					// only a dependency cycle can get us here, break it up
+					final K key = nextInCycle(remaining, started);
+					if (logger.isLoggable(Level.WARNING)) {
+						logger.warning("Dependency cycle detected, forcing the execution of "
+								+ key);
+					}
+					ready.add(key);
+					continue;
+				}
+				final K key = completedKey(completionService.take(), failures);
+				running--;
+				if (failures.containsKey(key)) {
+					skipDependents(key, key, dependents, started, failures);
+				} else if (dependents.containsKey(key)) {
+					for (K dependent : dependents.get(key)) {
+						final int count = remaining.get(dependent) - 1;
+						remaining.put(dependent, count);
+						if (count == 0 && !started.contains(dependent)) {
+							ready.add(dependent);
+						}
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			pool.shutdownNow();
+			throw e;
+		} finally {
+			pool.shutdown();
+		}
+		return failures;
+	}
+
+	private K completedKey(Future<K> future,
+			Map<K, Throwable> failures) throws InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			final TaskFailure failure = (TaskFailure) e.getCause();
+			failures.put(failure.<K> getKey(), failure.getCause());
+			return failure.<K> getKey();
+		}
+	}
+
+	private void skipDependents(K key, K failedKey,
+			Map<K, List<K>> dependents, Set<K> started,
+			Map<K, Throwable> failures) {
+		if (!dependents.containsKey(key)) {
+			return;
+		}
+		for (K dependent : dependents.get(key)) {
+			if (started.add(dependent)) {
+				failures.put(dependent, new DependencyFailure(failedKey));
+				if (logger.isLoggable(Level.FINE)) {
+					logger.fine("Skipping " + dependent + ", " + failedKey
+							+ " has failed");
+				}
+				skipDependents(dependent, failedKey, dependents, started,
+						failures);
+			}
+		}
+	}
+
+	private K nextInCycle(Map<K, Integer> remaining, Set<K> started) {
+		K result = null;
+		for (Map.Entry<K, Integer> entry : remaining.entrySet()) {
+			if (!started.contains(entry.getKey())
+					&& (result == null || entry.getValue() < remaining
+							.get(result))) {
+				result = entry.getKey();
+			}
+		}
+		return result;
+	}
+
+	private static class TaskFailure extends Exception {
+		private static final long serialVersionUID = 1L;
+		private final Object key;
+
+		private TaskFailure(Object key, Throwable cause) {
+			super(cause);
+			this.key = key;
+		}
+
+		@SuppressWarnings("unchecked")
+		private <K> K getKey() {
+			return (K) key;
+		}
+	}
+
+	private static class WorkerThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger(0);
+		private final String prefix;
+
+		private WorkerThreadFactory(String prefix) {
+			super();
+			this.prefix = prefix;
+		}
+
+		public Thread newThread(Runnable runnable) {
+			final Thread thread = new Thread(runnable, prefix + "-"
+					+ count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
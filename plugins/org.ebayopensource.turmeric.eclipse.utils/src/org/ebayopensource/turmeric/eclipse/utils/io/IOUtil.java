@@ -25,6 +25,7 @@ import java.util.jar.JarFile;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
 import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAToolFileUrlHandler;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.ProgressUtil;
 import org.eclipse.core.resources.IFile;
@@ -185,8 +186,8 @@ public class IOUtil {
 	/**
 	 * In the normal jar URLs usage in Windows Java puts a lock on it. And the
 	 * SOA Tool Handler will create a non locking URL by setting the caching
-	 * off. There is obviously a performance compromise made here by disabling
-	 * the cache.
+	 * off. The jar handle is borrowed from the shared {@link JarFileCache}
+	 * whenever the URL is opened instead of being kept open by the URL.
 	 *
 	 * @param jarFileUrl the jar file url
 	 * @param jarEntryPath the jar entry path
@@ -196,18 +197,16 @@ public class IOUtil {
 	public static URL getNonLockingURL(URL jarFileUrl, String jarEntryPath)
 			throws IOException {
 		File file = FileUtils.toFile(jarFileUrl);
-		JarFile jarFile;
-		jarFile = new JarFile(file);
-		JarEntry jarEntry = jarFile.getJarEntry(jarEntryPath);
-		if (jarEntry != null) {
-			SOAToolFileUrlHandler handler = new SOAToolFileUrlHandler(jarFile,
-					jarEntry);
-			URL retUrl = new URL("jar", "", -1, new File(jarFile.getName())
-					.toURI().toURL()
-					+ "!/" + jarEntry.getName(), handler);
-			handler.setExpectedUrl(retUrl);
-			return retUrl;
-
+		final JarFileCache jarFileCache = JarFileCache.getDefault();
+		JarFile jarFile = jarFileCache.acquire(file);
+		try {
+			JarEntry jarEntry = jarFile.getJarEntry(jarEntryPath);
+			if (jarEntry != null) {
+				return SOAToolFileUrlHandler.createUrl(jarFileCache, file,
+						jarEntry);
+			}
+		} finally {
+			jarFileCache.release(jarFile);
 		}
 		return null;
 	}
@@ -0,0 +1,224 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.plugin;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.ebayopensource.turmeric.eclipse.utils.collections.SetUtil;
+import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+
+/**
+ * A cache of the class path urls of Java projects, as resolved by
+ * {@link JDTUtil#resolveClasspathToURLs(org.eclipse.core.resources.IProject)}.
+ * Every entry remembers the projects which were visited to resolve it, the
+ * project itself and every required project, directly or transitively.
+ *
+ * <p>
+ * As a Java element changed listener, the cache drops every entry which
+ * visited a project whose class path has changed, or which was added,
+ * removed, opened or closed.
+ * </p>
+ */
+public class ClasspathURLCache implements IElementChangedListener {
+
+	private static final int CLASSPATH_FLAGS = IJavaElementDelta.F_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+			| IJavaElementDelta.F_OPENED
+			| IJavaElementDelta.F_CLOSED;
+
+	private static final Logger logger = Logger
+			.getLogger(ClasspathURLCache.class.getName());
+
+	private static final ClasspathURLCache INSTANCE = new ClasspathURLCache();
+
+	private final Map<String, CachedClasspath> classpaths = new HashMap<String, CachedClasspath>();
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+	private final AtomicLong invalidationCount = new AtomicLong(0);
+	// incremented by every invalidation, a class path resolved meanwhile is not cached
+	private long generation = 0;
+
+	/**
+	 * Instantiates a new class path url cache.
+	 */
+	public ClasspathURLCache() {
+		super();
+	}
+
+	/**
+	 * Gets the cache shared by all the plugins.
+	 *
+	 * @return the shared cache
+	 */
+	public static ClasspathURLCache getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the class path urls of the given project, resolving them if they
+	 * are not cached yet.
+	 *
+	 * @param javaProject the Java project
+	 * @return a new, modifiable set of the class path urls
+	 * @throws JavaModelException the java model exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public Set<URL> getClasspathURLs(IJavaProject javaProject)
+			throws JavaModelException, IOException {
+		if (javaProject == null) {
+			return SetUtil.linkedSet();
+		}
+		final String projectName = javaProject.getElementName();
+		final long resolvedGeneration;
+		synchronized (this) {
+			final CachedClasspath cached = classpaths.get(projectName);
+			if (cached != null) {
+				hitCount.incrementAndGet();
+				return SetUtil.linkedSet(cached.urls);
+			}
+			resolvedGeneration = generation;
+		}
+		missCount.incrementAndGet();
+		final Set<URL> urls = SetUtil.linkedSet();
+		final Set<String> projectNames = SetUtil.set(new String[0]);
+		JDTUtil.resolveClasspathToURLs(javaProject, urls, projectNames);
+		synchronized (this) {
+			if (resolvedGeneration == generation) {
+				classpaths.put(projectName, new CachedClasspath(urls,
+						projectNames));
+			}
+		}
+		return SetUtil.linkedSet(urls);
+	}
+
+	/**
+	 * Drops the class path of every project which depends on the given
+	 * project, including the project itself.
+	 *
+	 * @param projectName the name of the project
+	 */
+	public synchronized void invalidate(String projectName) {
+		generation++;
+		for (Iterator<CachedClasspath> it = classpaths.values().iterator(); it.hasNext();) {
+			if (it.next().projectNames.contains(projectName)) {
+				it.remove();
+				invalidationCount.incrementAndGet();
+			}
+		}
+		if (logger.isLoggable(Level.FINE)) {
+			logger.fine("Invalidated the cached class paths depending on " + projectName);
+		}
+	}
+
+	/**
+	 * Drops all cached class paths.
+	 */
+	public synchronized void clear() {
+		generation++;
+		classpaths.clear();
+	}
+
+	/**
+	 * Gets the number of cached class paths.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return classpaths.size();
+	}
+
+	/**
+	 * Gets the number of lookups served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of lookups which had to resolve the class path.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * Gets the number of cached class paths dropped because of a change.
+	 *
+	 * @return the invalidation count
+	 */
+	public long getInvalidationCount() {
+		return invalidationCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return StringUtil.toString("ClasspathURLCache[size=", size(),
+				", hits=", getHitCount(), ", misses=", getMissCount(),
+				", invalidations=", getInvalidationCount(), "]");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void elementChanged(ElementChangedEvent event) {
+		processDelta(event.getDelta());
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		if (delta == null) {
+			return;
+		}
+		final IJavaElement element = delta.getElement();
+		if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				processDelta(child);
+			}
+		} else if (element.getElementType() == IJavaElement.JAVA_PROJECT) {
+			if (delta.getKind() == IJavaElementDelta.ADDED
+					|| delta.getKind() == IJavaElementDelta.REMOVED
+					|| (delta.getFlags() & CLASSPATH_FLAGS) != 0) {
+				invalidate(element.getElementName());
+			}
+		}
+	}
+
+	private static class CachedClasspath {
+		private final Set<URL> urls;
+		private final Set<String> projectNames;
+
+		private CachedClasspath(Set<URL> urls, Set<String> projectNames) {
+			super();
+			this.urls = Collections.unmodifiableSet(urls);
+			this.projectNames = projectNames;
+		}
+	}
+}
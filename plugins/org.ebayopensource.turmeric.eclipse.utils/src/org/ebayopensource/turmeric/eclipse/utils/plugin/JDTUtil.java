@@ -250,6 +250,8 @@ public class JDTUtil {
 	/**
 	 * Resolves the projects class path container entries
 	 * Explodes the container out and return a Set of URL Path.
+	 * The result is cached until the class path of the project, or of
+	 * a project it requires, changes.
 	 *
 	 * @param project the project
 	 * @return the sets the
@@ -262,21 +264,24 @@ public class JDTUtil {
 
 	private static Set<URL> resolveClasspathToURLs(final IJavaProject javaProject)
 			throws JavaModelException, IOException {
-		final Set<URL> classpath = SetUtil.linkedSet();
-		resolveClasspathToURLs(javaProject, classpath, SetUtil
-				.set(new String[0]));
-		return classpath;
+		return ClasspathURLCache.getDefault().getClasspathURLs(javaProject);
 	}
 
-	private static void resolveClasspathToURLs(final IJavaProject javaProject,
+	/**
+	 * Resolves the class path of the given project and all the projects it
+	 * requires. Missing projects are added to the visited ones as well.
+	 */
+	static void resolveClasspathToURLs(final IJavaProject javaProject,
 			final Set<URL> resolvedEntries, final Set<String> visited)
 			throws JavaModelException, IOException {
-		if (javaProject == null || !javaProject.exists())
+		if (javaProject == null)
 			return;
 		final String projectName = javaProject.getProject().getName();
 		if (visited.contains(projectName))
 			return;
 		visited.add(projectName);
+		if (!javaProject.exists())
+			return;
 		for (final IClasspathEntry entry : javaProject
 				.getResolvedClasspath(true)) {
 			if (entry.getEntryKind() == IClasspathEntry.CPE_PROJECT) {
@@ -330,6 +335,7 @@ public class JDTUtil {
 			natureIDs.addAll(additionalNatureIds);
 			description.setNatureIds(natureIDs.toArray(new String[0]));
 			project.setDescription(description, monitor);
+			ProjectNatureIndex.getDefault().update(project);
 			return true;
 		}
 		return false;
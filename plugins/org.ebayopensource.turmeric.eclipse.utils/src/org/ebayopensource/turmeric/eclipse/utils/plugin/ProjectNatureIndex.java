@@ -0,0 +1,189 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.plugin;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.runtime.CoreException;
+
+/**
+ * An index of the open projects in the workspace by their nature ids, which
+ * answers {@link WorkspaceUtil#getProjectsByNature(String...)} without reading
+ * the description of every project.
+ *
+ * <p>
+ * The index is built on the first query. As a resource change listener, it
+ * then reads the description again of every project which is created,
+ * deleted, opened, closed or whose .project file changes. Since the resource
+ * change events are sent when a workspace operation ends, the nature helpers
+ * of {@link ProjectUtil} and {@link JDTUtil} update the index right away with
+ * {@link #update(IProject)}.
+ * </p>
+ */
+public class ProjectNatureIndex implements IResourceChangeListener {
+
+	// a project deleted and created again in one operation is only replaced
+	private static final int PROJECT_FLAGS = IResourceDelta.OPEN
+			| IResourceDelta.DESCRIPTION | IResourceDelta.REPLACED;
+
+	private static final Logger logger = Logger
+			.getLogger(ProjectNatureIndex.class.getName());
+
+	private static final ProjectNatureIndex INSTANCE = new ProjectNatureIndex();
+
+	private final Map<String, Set<String>> natureProjects = new HashMap<String, Set<String>>();
+	private final Map<String, String[]> projectNatures = new HashMap<String, String[]>();
+	private boolean initialized = false;
+
+	/**
+	 * Instantiates a new project nature index.
+	 */
+	public ProjectNatureIndex() {
+		super();
+	}
+
+	/**
+	 * Gets the index shared by all the plugins.
+	 *
+	 * @return the shared index
+	 */
+	public static ProjectNatureIndex getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the open projects having at least one of the given natures, in the
+	 * order of their names.
+	 *
+	 * @param natureIds the nature ids
+	 * @return the projects
+	 */
+	public synchronized ArrayList<IProject> getProjects(String... natureIds) {
+		initialize();
+		final Set<String> projectNames = new TreeSet<String>();
+		for (String natureId : natureIds) {
+			final Set<String> names = natureProjects.get(natureId);
+			if (names != null) {
+				projectNames.addAll(names);
+			}
+		}
+		final ArrayList<IProject> result = new ArrayList<IProject>(
+				projectNames.size());
+		for (String projectName : projectNames) {
+			final IProject project = WorkspaceUtil.getProject(projectName);
+			if (project.isAccessible()) {
+				result.add(project);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the natures of the given project again, or drops the project if
+	 * it is closed or does not exist anymore.
+	 *
+	 * @param project the project
+	 */
+	public synchronized void update(IProject project) {
+		if (initialized == false) {
+			return;
+		}
+		final String projectName = project.getName();
+		final String[] oldNatureIds = projectNatures.remove(projectName);
+		if (oldNatureIds != null) {
+			for (String natureId : oldNatureIds) {
+				final Set<String> names = natureProjects.get(natureId);
+				names.remove(projectName);
+				if (names.isEmpty()) {
+					natureProjects.remove(natureId);
+				}
+			}
+		}
+		add(project);
+	}
+
+	/**
+	 * Drops the index, the next query builds it again.
+	 */
+	public synchronized void clear() {
+		natureProjects.clear();
+		projectNatures.clear();
+		initialized = false;
+	}
+
+	private void initialize() {
+		if (initialized) {
+			return;
+		}
+		for (IProject project : WorkspaceUtil.getAllProjectsInWorkSpace()) {
+			add(project);
+		}
+		initialized = true;
+	}
+
+	private void add(IProject project) {
+		if (project.isOpen() == false || project.isAccessible() == false) {
+			return;
+		}
+		final String[] natureIds;
+		try {
+			natureIds = project.getDescription().getNatureIds();
+		} catch (CoreException e) {
+			// the project is being deleted or closed
+			if (logger.isLoggable(Level.FINE)) {
+				logger.log(Level.FINE, "Could not read the natures of "
+						+ project.getName(), e);
+			}
+			return;
+		}
+		projectNatures.put(project.getName(), natureIds);
+		for (String natureId : natureIds) {
+			Set<String> names = natureProjects.get(natureId);
+			if (names == null) {
+				names = new TreeSet<String>();
+				natureProjects.put(natureId, names);
+			}
+			names.add(project.getName());
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null) {
+			return;
+		}
+		synchronized (this) {
+			if (initialized == false) {
+				return;
+			}
+			for (IResourceDelta delta : event.getDelta().getAffectedChildren()) {
+				if (delta.getResource().getType() == IResource.PROJECT
+						&& (delta.getKind() == IResourceDelta.ADDED
+								|| delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & PROJECT_FLAGS) != 0)) {
+					update((IProject) delta.getResource());
+				}
+			}
+		}
+	}
+}
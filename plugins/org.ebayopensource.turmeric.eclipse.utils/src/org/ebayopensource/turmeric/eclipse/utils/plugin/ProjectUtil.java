@@ -56,6 +56,7 @@ public class ProjectUtil {
 			list.addAll(newIds);
 			description.setNatureIds(list.toArray(new String[0]));
 			project.setDescription(description, monitor);
+			ProjectNatureIndex.getDefault().update(project);
 		}
 	}
 	
@@ -76,5 +77,6 @@ public class ProjectUtil {
 		natures.removeAll(ListUtil.array(natureIDs));
 		description.setNatureIds(natures.toArray(new String[0]));
 		project.setDescription(description, monitor);
+		ProjectNatureIndex.getDefault().update(project);
 	}
 }
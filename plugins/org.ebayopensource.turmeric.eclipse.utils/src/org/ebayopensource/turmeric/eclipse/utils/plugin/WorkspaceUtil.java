@@ -12,16 +12,17 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
+import java.util.TreeSet;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.ebayopensource.turmeric.eclipse.exception.core.SOANullParameterException;
 import org.ebayopensource.turmeric.eclipse.exception.resources.SOAResourceNotAccessibleException;
-import org.ebayopensource.turmeric.eclipse.utils.collections.CollectionUtil;
-import org.ebayopensource.turmeric.eclipse.utils.collections.SetUtil;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IFolder;
@@ -31,12 +32,14 @@ import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IWorkspace;
 import org.eclipse.core.resources.IWorkspaceDescription;
 import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
 
 
@@ -312,6 +315,93 @@ public class WorkspaceUtil {
 		resource.refreshLocal(IResource.DEPTH_INFINITE, monitor);
 	}
 
+	/**
+	 * Refreshes the given folders of the project instead of the whole project,
+	 * all of them in one workspace operation so that a single resource delta
+	 * is fired. Folders which exist neither in the workspace nor in the file
+	 * system are skipped.
+	 *
+	 * @param project the project
+	 * @param progressMonitor the progress monitor
+	 * @param folders the project relative paths of the folders, an empty path
+	 * stands for the project itself
+	 * @throws CoreException the core exception
+	 */
+	public static void refreshFolders(final IProject project,
+			final IProgressMonitor progressMonitor,
+			final Collection<String> folders) throws CoreException {
+		final List<String> roots = getRefreshRoots(folders);
+		if (project == null || roots.isEmpty()) {
+			return;
+		}
+		final IWorkspaceRunnable runnable = new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				final long start = BuildMetrics.getDefault().start();
+				try {
+					refreshRoots(monitor);
+				} finally {
+					BuildMetrics.getDefault().record(project.getName(),
+							BuildMetrics.PHASE_REFRESH, start);
+				}
+			}
+
+			private void refreshRoots(IProgressMonitor monitor)
+					throws CoreException {
+				for (String root : roots) {
+					final IResource resource = root.length() == 0 ? project
+							: project.getFolder(root);
+					if (resource.exists()
+							|| (resource.getLocation() != null && resource
+									.getLocation().toFile().exists())) {
+						resource.refreshLocal(IResource.DEPTH_INFINITE,
+								monitor);
+					}
+				}
+			}
+		};
+		// refreshing the project itself needs a wider rule than the project
+		final ISchedulingRule rule = roots.contains("") ? getWorkspace()
+				.getRuleFactory().refreshRule(project) : project;
+		getWorkspace().run(runnable, rule, IWorkspace.AVOID_UPDATE,
+				ProgressUtil.getDefaultMonitor(progressMonitor));
+	}
+
+	/**
+	 * Gets the folders to be refreshed for the given folders, that is the
+	 * given ones without the folders nested in one of the others.
+	 *
+	 * @param folders the project relative paths of the folders
+	 * @return the sorted paths of the folders to be refreshed
+	 */
+	public static List<String> getRefreshRoots(final Collection<String> folders) {
+		final Set<String> paths = new TreeSet<String>();
+		for (String folder : folders) {
+			if (folder != null) {
+				paths.add(StringUtils.strip(folder.trim().replace('\\', '/'),
+						PATH_SEPERATOR));
+			}
+		}
+		final List<String> result = new ArrayList<String>();
+		for (String path : paths) {
+			// sorted, so a parent folder is always kept before its children
+			if (isNested(path, result) == false) {
+				result.add(path);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isNested(String path, List<String> parents) {
+		for (String parent : parents) {
+			if (parent.length() == 0
+					|| path.startsWith(parent + PATH_SEPERATOR)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * This method assumes the path is relative to the workspace root or is
 	 * indeed a true absolute location.
@@ -547,26 +637,11 @@ public class WorkspaceUtil {
 	 * @return the projects by nature
 	 * @throws CoreException the core exception
 	 * Returns the projects with this nature Only open projects are returned
+	 * @see ProjectNatureIndex
 	 */
 	public static ArrayList<IProject> getProjectsByNature(String... natureIds)
 			throws CoreException {
-		Set<String> searchNatureSet = SetUtil.hashSet(natureIds);
-		IProject projects[] = getWorkspaceRoot().getProjects();
-		ArrayList<IProject> resultProjects = new ArrayList<IProject>();
-		for (IProject project : projects) {
-			if (project.isOpen() && project.isAccessible()) {
-				String[] projectNatureIds = project.getDescription()
-						.getNatureIds();
-				Set<String> projectNatureSet = SetUtil
-						.hashSet(projectNatureIds);
-				if (!CollectionUtil.intersection(projectNatureSet,
-						searchNatureSet).isEmpty()) {
-					resultProjects.add(project);
-				}
-			}
-
-		}
-		return resultProjects;
+		return ProjectNatureIndex.getDefault().getProjects(natureIds);
 	}
 
 	/**
@@ -0,0 +1,355 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.wsdl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.wsdl.Definition;
+import javax.wsdl.WSDLException;
+
+import org.apache.commons.io.FileUtils;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
+import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * A bounded cache of parsed WSDL definitions. Local WSDL files are keyed by
+ * their canonical path and stamped with their last modification time and
+ * size, WSDL files inside jars are keyed by the jar path plus the entry path
+ * and stamped with the CRC of the entry, so a modified WSDL is parsed again.
+ * The definitions are softly referenced and are released under memory
+ * pressure.
+ *
+ * <p>
+ * The cached definitions are shared between all callers and must be treated
+ * as read only. Callers which modify or write the definition should read
+ * their own copy through {@link WSDLUtil#readWSDL(String)}.
+ * </p>
+ *
+ * <p>
+ * As a resource change listener, the cache drops the definitions of changed
+ * WSDL files, and every definition of a project in which a schema has
+ * changed, since the schemas could be imported by the WSDL.
+ * </p>
+ */
+public class WSDLDefinitionCache implements IResourceChangeListener {
+
+	/** The default maximum number of cached definitions. */
+	public static final int DEFAULT_MAX_SIZE = 32;
+
+	private static final String EXT_WSDL = "wsdl";
+	private static final String EXT_XSD = "xsd";
+	private static final String PREFIX_FILE_URL = "file:";
+
+	private static final Logger logger = Logger
+			.getLogger(WSDLDefinitionCache.class.getName());
+
+	private static final WSDLDefinitionCache INSTANCE = new WSDLDefinitionCache(
+			DEFAULT_MAX_SIZE);
+
+	private final Map<String, CachedDefinition> definitions = new LinkedHashMap<String, CachedDefinition>(
+			16, 0.75f, true);
+	private final int maxSize;
+	private final AtomicLong hitCount = new AtomicLong(0);
+	private final AtomicLong missCount = new AtomicLong(0);
+
+	/**
+	 * Instantiates a new WSDL definition cache.
+	 *
+	 * @param maxSize the maximum number of cached definitions
+	 */
+	public WSDLDefinitionCache(int maxSize) {
+		super();
+		this.maxSize = Math.max(1, maxSize);
+	}
+
+	/**
+	 * Gets the cache shared by all the plugins.
+	 *
+	 * @return the shared cache
+	 */
+	public static WSDLDefinitionCache getDefault() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Gets the definition of the given WSDL. Only local files are cached,
+	 * any other location is read every time.
+	 *
+	 * @param wsdlLocation the file path or the url of the WSDL
+	 * @return the shared, read only definition
+	 * @throws WSDLException If the any errors encountered during the deserialization.
+	 */
+	public Definition getDefinition(String wsdlLocation) throws WSDLException {
+		final File file = toFile(wsdlLocation);
+		if (file == null) {
+			return WSDLUtil.readWSDL(wsdlLocation);
+		}
+		final String key = getKey(file);
+		final String stamp = file.lastModified() + ":" + file.length();
+		Definition result = get(key, stamp);
+		if (result == null) {
+			result = WSDLUtil.readWSDL(wsdlLocation);
+			put(key, stamp, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Gets the definition of a WSDL inside the given jar file.
+	 *
+	 * @param file the jar file
+	 * @param jarEntryLocation the path of the WSDL inside the jar
+	 * @return the shared, read only definition, or null if the jar does not
+	 * contain the WSDL
+	 * @throws WSDLException If the any errors encountered during the deserialization.
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public Definition getDefinition(File file, String jarEntryLocation)
+			throws WSDLException, IOException {
+		if (file.exists() == false || file.canRead() == false) {
+			return null;
+		}
+		final JarFile jarFile = JarFileCache.getDefault().acquire(file);
+		try {
+			final JarEntry jarEntry = jarFile.getJarEntry(jarEntryLocation);
+			if (jarEntry == null) {
+				return null;
+			}
+			final String key = getKey(file) + WSDLUtil.JAR_FILE_SEPARATOR
+					+ jarEntryLocation;
+			final String stamp = jarEntry.getCrc() + ":" + jarEntry.getSize();
+			Definition result = get(key, stamp);
+			if (result == null) {
+				result = WSDLUtil.readWSDL(StringUtil.toString(
+						WSDLUtil.URL_PREFIX_JAR_FILE, file.getAbsolutePath(),
+						WSDLUtil.JAR_FILE_SEPARATOR, jarEntryLocation),
+						jarFile.getInputStream(jarEntry));
+				put(key, stamp, result);
+			}
+			return result;
+		} finally {
+			JarFileCache.getDefault().release(jarFile);
+		}
+	}
+
+	private synchronized Definition get(String key, String stamp) {
+		final CachedDefinition cached = definitions.get(key);
+		final Definition result = cached != null
+				&& cached.stamp.equals(stamp) ? cached.definition.get() : null;
+		if (result != null) {
+			hitCount.incrementAndGet();
+		} else {
+			missCount.incrementAndGet();
+			if (cached != null) {
+				definitions.remove(key);
+			}
+		}
+		return result;
+	}
+
+	private synchronized void put(String key, String stamp,
+			Definition definition) {
+		definitions.put(key, new CachedDefinition(stamp, definition));
+		final Iterator<CachedDefinition> it = definitions.values().iterator();
+		while (definitions.size() > maxSize && it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+	}
+
+	/**
+	 * Drops the definition of the given WSDL file, or the definitions of all
+	 * the WSDL files inside the given jar.
+	 *
+	 * @param file the WSDL file or jar file
+	 */
+	public synchronized void invalidate(File file) {
+		final String key = getKey(file);
+		final String jarPrefix = key + WSDLUtil.JAR_FILE_SEPARATOR;
+		for (Iterator<String> it = definitions.keySet().iterator(); it
+				.hasNext();) {
+			final String current = it.next();
+			if (current.equals(key) || current.startsWith(jarPrefix)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops the definitions of all the WSDL files in the given folder and
+	 * its sub folders.
+	 *
+	 * @param folder the folder
+	 */
+	public synchronized void invalidateFolder(File folder) {
+		final String prefix = getKey(folder) + File.separator;
+		for (Iterator<String> it = definitions.keySet().iterator(); it
+				.hasNext();) {
+			if (it.next().startsWith(prefix)) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Drops all the definitions. The statistics are kept.
+	 */
+	public synchronized void clear() {
+		definitions.clear();
+	}
+
+	/**
+	 * Gets the number of cached definitions, including the ones which have
+	 * been released already.
+	 *
+	 * @return the size
+	 */
+	public synchronized int size() {
+		return definitions.size();
+	}
+
+	/**
+	 * Gets the number of lookups served from the cache.
+	 *
+	 * @return the hit count
+	 */
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	/**
+	 * Gets the number of lookups which had to parse the WSDL.
+	 *
+	 * @return the miss count
+	 */
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return StringUtil.toString("WSDLDefinitionCache[size=", size(),
+				", hits=", getHitCount(), ", misses=", getMissCount(), "]");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void resourceChanged(IResourceChangeEvent event) {
+		if (event.getDelta() == null || size() == 0) {
+			return;
+		}
+		try {
+			event.getDelta().accept(new IResourceDeltaVisitor() {
+				@Override
+				public boolean visit(IResourceDelta delta) throws CoreException {
+					final IResource resource = delta.getResource();
+					if (resource instanceof IProject) {
+						if (delta.getKind() == IResourceDelta.REMOVED
+								|| (delta.getFlags() & IResourceDelta.OPEN) != 0) {
+							invalidate(resource, true);
+							return false;
+						}
+					} else if (resource instanceof IFile
+							&& delta.getKind() != IResourceDelta.ADDED) {
+						if (EXT_WSDL.equalsIgnoreCase(resource
+								.getFileExtension())) {
+							invalidate(resource, false);
+						} else if (EXT_XSD.equalsIgnoreCase(resource
+								.getFileExtension())) {
+							invalidate(resource.getProject(), true);
+						}
+					}
+					return true;
+				}
+			});
+		} catch (CoreException e) {
+			logger.log(Level.WARNING, "Failed to process the resource delta", e);
+			clear();
+		}
+	}
+
+	private void invalidate(IResource resource, boolean folder) {
+		final IPath location = resource.getLocation();
+		if (location == null) {
+			// e.g. the project has been deleted already
+			clear();
+		} else if (folder) {
+			invalidateFolder(location.toFile());
+		} else {
+			invalidate(location.toFile());
+		}
+	}
+
+	/**
+	 * Converts the given location to a local file.
+	 *
+	 * @return the existing local file, or null if the location is remote
+	 */
+	private static File toFile(String location) {
+		if (location == null) {
+			return null;
+		}
+		File result = null;
+		if (location.startsWith(PREFIX_FILE_URL)) {
+			try {
+				result = FileUtils.toFile(new URL(location));
+			} catch (MalformedURLException e) {
+				return null;
+			}
+		} else if (WSDLUtil.isValidURL(location) == false) {
+			result = new File(location);
+		}
+		return result != null && result.isFile() ? result : null;
+	}
+
+	private static String getKey(File file) {
+		try {
+			return file.getCanonicalPath();
+		} catch (IOException e) {
+			return file.getAbsolutePath();
+		}
+	}
+
+	private static class CachedDefinition {
+		private final String stamp;
+		private final SoftReference<Definition> definition;
+
+		private CachedDefinition(String stamp, Definition definition) {
+			super();
+			this.stamp = stamp;
+			this.definition = new SoftReference<Definition>(definition);
+		}
+	}
+}
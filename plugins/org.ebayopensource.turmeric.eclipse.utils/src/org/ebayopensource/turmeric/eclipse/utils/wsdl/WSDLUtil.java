@@ -24,8 +24,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.logging.Logger;
 
 import javax.wsdl.Definition;
@@ -45,6 +43,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.lang.StringUtils;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
 import org.ebayopensource.turmeric.eclipse.utils.lang.StringUtil;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
 import org.eclipse.core.runtime.FileLocator;
@@ -144,6 +143,36 @@ public final class WSDLUtil {
 		final WSDLReader reader = WSDLFactory.newInstance().newWSDLReader();
 		return reader.readWSDL(wsdlLocation);
 	}
+
+	/**
+	 * Read wsdl through the shared {@link WSDLDefinitionCache}. The returned
+	 * definition is shared and must not be modified.
+	 *
+	 * @param wsdlLocation The fully qualified location of the WSDL file.
+	 * @return The read only WSDL definition instance.
+	 * @throws WSDLException If the any errors encountered during the deserialization.
+	 */
+	public static Definition readWSDLCached(final String wsdlLocation)
+			throws WSDLException {
+		return WSDLDefinitionCache.getDefault().getDefinition(wsdlLocation);
+	}
+
+	/**
+	 * Reading wsdl from the provided jar file through the shared
+	 * {@link WSDLDefinitionCache}. The returned definition is shared and must
+	 * not be modified.
+	 *
+	 * @param file the file
+	 * @param jarEntryLocation the jar entry location
+	 * @return The read only WSDL definition, or null is could not read it.
+	 * @throws WSDLException the wSDL exception
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Definition readWSDLFromJarFileCached(final File file,
+			final String jarEntryLocation) throws WSDLException, IOException {
+		return WSDLDefinitionCache.getDefault().getDefinition(file,
+				jarEntryLocation);
+	}
 	
 	/**
 	 * This is intended to be used for wsdl file inside jar file.
@@ -170,13 +199,12 @@ public final class WSDLUtil {
 	public static Definition readWSDLFromJarFile(final File file, 
 			final String jarEntryLocation)
 	throws WSDLException, IOException {
-		InputStream wsdlStream = null;
 		if (file.exists() && file.canRead()) {
-			final JarFile jarFile = new JarFile(file);
-			final JarEntry jarEntry = jarFile.getJarEntry(jarEntryLocation);
-			if (jarEntry != null) {
+			// the handle is released once readWSDL closes the stream
+			final InputStream wsdlStream = JarFileCache.getDefault()
+					.getInputStream(file, jarEntryLocation);
+			if (wsdlStream != null) {
 				// found the wsdl file
-				wsdlStream = jarFile.getInputStream(jarEntry);
 				return WSDLUtil.readWSDL(StringUtil.toString(
 						URL_PREFIX_JAR_FILE, file.getAbsolutePath(), 
 						JAR_FILE_SEPARATOR, jarEntryLocation), 
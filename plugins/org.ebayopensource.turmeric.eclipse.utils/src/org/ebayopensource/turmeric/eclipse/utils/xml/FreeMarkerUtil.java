@@ -18,10 +18,11 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URL;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.io.IOUtils;
 
-import freemarker.cache.TemplateLoader;
 import freemarker.cache.URLTemplateLoader;
 import freemarker.template.Configuration;
 import freemarker.template.DefaultObjectWrapper;
@@ -29,10 +30,22 @@ import freemarker.template.TemplateException;
 
 /**
  * The Class FreeMarkerUtil.
+ * 
+ * <p>
+ * There is one long-lived configuration per template source, so a template
+ * is located, read and parsed once and only merged with the data model on
+ * every call. The template cache of the configuration checks the template
+ * for modifications every few seconds.
+ * </p>
  *
  * @author yayu
  */
 public final class FreeMarkerUtil {
+	/**
+	 * The configurations by template source. URLs are keyed by their external
+	 * form, as URL.hashCode() resolves the host.
+	 */
+	private static final ConcurrentMap<Object, Configuration> CONFIGURATIONS = new ConcurrentHashMap<Object, Configuration>();
 
 	/**
 	 * 
@@ -76,48 +89,77 @@ public final class FreeMarkerUtil {
 	public static void generate(final Map<String, ?> data,
 			final Object templateParentFolder, final String templateName,
 			final Writer writer) throws IOException, TemplateException {
-
-		final Configuration cfg = new Configuration();
-		final TemplateLoader tempLoader = cfg.getTemplateLoader();
 		try {
-
-			// Specify the data source where the template files come from.
-			// Here I set a file directory for it:
-			if (templateParentFolder instanceof File) {
-				cfg.setDirectoryForTemplateLoading((File) templateParentFolder);
-			} else if (templateParentFolder instanceof Class<?>) {
-				cfg.setClassForTemplateLoading((Class<?>) templateParentFolder,
-						"");
-			} else if (templateParentFolder instanceof URL) {
-				final URL url = (URL) templateParentFolder;
-
-				cfg.setTemplateLoader(new URLTemplateLoader() {
-
-					@Override
-					protected URL getURL(String arg0) {
-						return url;
-					}
-
-				});
-			} else {
-				throw new IllegalArgumentException(
-						"Illegal Argument for template loading->"
-								+ templateParentFolder);
-			}
-
-			// Specify how templates will see the data-model. This is an
-			// advanced topic...
-			// but just use this:
-			cfg.setObjectWrapper(new DefaultObjectWrapper());
-
-			freemarker.template.Template temp = cfg.getTemplate(templateName);
+			freemarker.template.Template temp = getConfiguration(
+					templateParentFolder).getTemplate(templateName);
 
 			temp.process(data, writer);
 		} finally {
 			IOUtils.closeQuietly(writer);
-			cfg.setTemplateLoader(tempLoader);
 		}
 
 	}
 
+	/**
+	 * Gets the shared configuration of the given template source, creating
+	 * it on the first call.
+	 *
+	 * @param templateParentFolder the template parent folder, a directory, the
+	 * class to load the templates with or the URL of the template
+	 * @return the configuration
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static Configuration getConfiguration(
+			final Object templateParentFolder) throws IOException {
+		final Object key = templateParentFolder instanceof URL ? ((URL) templateParentFolder)
+				.toExternalForm()
+				: templateParentFolder;
+		Configuration cfg = key != null ? CONFIGURATIONS.get(key) : null;
+		if (cfg == null) {
+			cfg = createConfiguration(templateParentFolder);
+			final Configuration existing = CONFIGURATIONS.putIfAbsent(key, cfg);
+			if (existing != null) {
+				cfg = existing;
+			}
+		}
+		return cfg;
+	}
+
+	private static Configuration createConfiguration(
+			final Object templateParentFolder) throws IOException {
+		final Configuration cfg = new Configuration();
+		// Specify the data source where the template files come from.
+		if (templateParentFolder instanceof File) {
+			cfg.setDirectoryForTemplateLoading((File) templateParentFolder);
+		} else if (templateParentFolder instanceof Class<?>) {
+			cfg.setClassForTemplateLoading((Class<?>) templateParentFolder,
+					"");
+		} else if (templateParentFolder instanceof URL) {
+			final URL url = (URL) templateParentFolder;
+
+			cfg.setTemplateLoader(new URLTemplateLoader() {
+
+				@Override
+				protected URL getURL(String arg0) {
+					return url;
+				}
+
+			});
+		} else {
+			throw new IllegalArgumentException(
+					"Illegal Argument for template loading->"
+							+ templateParentFolder);
+		}
+
+		// Specify how templates will see the data-model.
+		cfg.setObjectWrapper(new DefaultObjectWrapper());
+		return cfg;
+	}
+
+	/**
+	 * Drops all the shared configurations and their cached templates.
+	 */
+	public static void clearConfigurations() {
+		CONFIGURATIONS.clear();
+	}
 }
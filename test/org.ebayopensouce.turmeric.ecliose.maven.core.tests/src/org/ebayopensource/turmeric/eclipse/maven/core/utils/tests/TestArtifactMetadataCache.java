@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.maven.core.utils.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Reader;
+import org.ebayopensource.turmeric.eclipse.maven.core.utils.ArtifactMetadataCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link ArtifactMetadataCache} against a synthetic local repository.
+ */
+public class TestArtifactMetadataCache {
+	private static final int ARTIFACT_COUNT = 300;
+	private static final String GROUP_ID = "org.ebayopensource.services";
+	private static final String VERSION = "1.0.0";
+	private static final String METADATA_ENTRY = "META-INF/soa/common/config/%s/service_metadata.properties";
+
+	private File repository;
+	private final List<File> pomFiles = new ArrayList<File>();
+
+	@Before
+	public void setUp() throws Exception {
+		repository = File.createTempFile("artifactcache", "");
+		repository.delete();
+		for (int i = 0; i < ARTIFACT_COUNT; i++) {
+			final String artifactId = "Service" + i + "V1";
+			final File dir = new File(repository, GROUP_ID.replace('.', '/')
+					+ "/" + artifactId + "/" + VERSION);
+			final File pomFile = new File(dir, artifactId + "-" + VERSION
+					+ ".pom");
+			FileUtils.writeStringToFile(pomFile, "<project>"
+					+ "<modelVersion>4.0.0</modelVersion>" + "<groupId>"
+					+ GROUP_ID + "</groupId><artifactId>" + artifactId
+					+ "</artifactId><version>" + VERSION + "</version>"
+					+ "<properties><implProjectName>" + artifactId
+					+ "Impl</implProjectName></properties>" + "<dependencies>"
+					+ "<dependency><groupId>" + GROUP_ID
+					+ "</groupId><artifactId>Service" + (i + 1)
+					+ "V1</artifactId><version>" + VERSION
+					+ "</version></dependency>" + "</dependencies></project>");
+			final JarOutputStream out = new JarOutputStream(
+					new FileOutputStream(ArtifactMetadataCache
+							.getJarFile(pomFile)));
+			try {
+				out.putNextEntry(new JarEntry(String.format(METADATA_ENTRY,
+						artifactId)));
+				out.write(("service_layer=COMMON\nservice_version=" + VERSION
+						+ "\ndomainName=Domain" + (i % 5) + "\n").getBytes());
+				out.closeEntry();
+			} finally {
+				IOUtils.closeQuietly(out);
+			}
+			pomFiles.add(pomFile);
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(repository);
+	}
+
+	/**
+	 * Reads the POM and the service metadata of an artifact, the minimal work
+	 * of a cache miss.
+	 */
+	private static ArtifactMetadataCache.Entry resolve(File pomFile,
+			boolean service) throws Exception {
+		final FileReader reader = new FileReader(pomFile);
+		final Model pom;
+		try {
+			pom = new MavenXpp3Reader().read(reader);
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+		if (service == false) {
+			return new ArtifactMetadataCache.Entry(pom.getGroupId(), pom
+					.getArtifactId(), pom.getVersion(), pomFile, pom
+					.getProperties(), null, false, pom.getDependencies());
+		}
+		final Properties metadata = new Properties();
+		final JarFile jarFile = new JarFile(ArtifactMetadataCache
+				.getJarFile(pomFile));
+		try {
+			final InputStream in = jarFile.getInputStream(jarFile
+					.getJarEntry(String.format(METADATA_ENTRY, pom
+							.getArtifactId())));
+			try {
+				metadata.load(in);
+			} finally {
+				IOUtils.closeQuietly(in);
+			}
+		} finally {
+			jarFile.close();
+		}
+		return new ArtifactMetadataCache.Entry(pom.getGroupId(), pom
+				.getArtifactId(), pom.getVersion(), pomFile, pom
+				.getProperties(), metadata, true, pom.getDependencies());
+	}
+
+	private static String getKey(File pomFile) {
+		return ArtifactMetadataCache.getKey(GROUP_ID, pomFile.getParentFile()
+				.getParentFile().getName(), VERSION);
+	}
+
+	@Test
+	public void testRepeatListing() throws Exception {
+		final ArtifactMetadataCache cache = new ArtifactMetadataCache();
+		for (File pomFile : pomFiles) {
+			if (cache.get(getKey(pomFile)) == null) {
+				cache.put(resolve(pomFile, true));
+			}
+		}
+
+		final File file = new File(repository, ArtifactMetadataCache.FILE_NAME);
+		cache.store(file);
+		final ArtifactMetadataCache loaded = ArtifactMetadataCache.load(file);
+		assertNotNull(loaded);
+		assertEquals(ARTIFACT_COUNT, loaded.size());
+
+		for (File pomFile : pomFiles) {
+			assertNotNull(loaded.get(getKey(pomFile)));
+		}
+
+		final ArtifactMetadataCache.Entry entry = loaded.get(getKey(pomFiles
+				.get(7)));
+		assertEquals("Service7V1", entry.getArtifactId());
+		assertTrue(entry.isServiceMetadataRead());
+		assertEquals("Service7V1Impl", entry.toModel().getProperties()
+				.getProperty("implProjectName"));
+		assertEquals("Domain2", entry.getServiceMetadata().getProperty(
+				"domainName"));
+		assertEquals(1, entry.getDependencies().size());
+		assertEquals("Service8V1", entry.getDependencies().get(0)
+				.getArtifactId());
+	}
+
+	@Test
+	public void testReinstalledArtifact() throws Exception {
+		final ArtifactMetadataCache cache = new ArtifactMetadataCache();
+		final File pomFile = pomFiles.get(0);
+		cache.put(resolve(pomFile, true));
+		assertNotNull(cache.get(getKey(pomFile)));
+
+		final File jarFile = ArtifactMetadataCache.getJarFile(pomFile);
+		FileUtils.writeByteArrayToFile(jarFile, new byte[0]);
+		assertNull(cache.get(getKey(pomFile)));
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testLibraryEntryWithoutServiceMetadata() throws Exception {
+		final ArtifactMetadataCache cache = new ArtifactMetadataCache();
+		final File pomFile = pomFiles.get(0);
+		cache.put(resolve(pomFile, false));
+
+		final File file = new File(repository, ArtifactMetadataCache.FILE_NAME);
+		cache.store(file);
+		final ArtifactMetadataCache.Entry entry = ArtifactMetadataCache.load(
+				file).get(getKey(pomFile));
+		assertNotNull(entry);
+		// listed as a library first, the jar has to be read for a service
+		assertFalse(entry.isServiceMetadataRead());
+		assertNull(entry.getServiceMetadata());
+	}
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks a fresh {@link SOAPluginClassLoader} over the jars of the type
+ * classes, a hundred classes per jar, loading every class or looking up
+ * every class file as a resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClassLoaderBenchmark {
+	/** The number of classes. */
+	@Param( { "10", "100", "1000", "5000" })
+	public int size;
+
+	private SyntheticTypeLibrary library;
+	private URL[] urls;
+	private List<String> classNames;
+
+	@Setup
+	public void setUp() throws IOException {
+		library = new SyntheticTypeLibrary(size);
+		final List<File> jars = library.writeClassJars();
+		urls = new URL[jars.size()];
+		for (int i = 0; i < urls.length; i++) {
+			urls[i] = jars.get(i).toURI().toURL();
+		}
+		classNames = library.getClassNames();
+	}
+
+	@TearDown
+	public void tearDown() {
+		library.delete();
+	}
+
+	@Benchmark
+	public int loadClasses() throws ClassNotFoundException {
+		final SOAPluginClassLoader loader = new SOAPluginClassLoader(
+				"benchmark", urls);
+		try {
+			for (String className : classNames) {
+				loader.loadClass(className);
+			}
+			return loader.getLoadedClassCount();
+		} finally {
+			loader.dispose();
+		}
+	}
+
+	@Benchmark
+	public int findResources() {
+		final SOAPluginClassLoader loader = new SOAPluginClassLoader(
+				"benchmark", urls);
+		try {
+			int found = 0;
+			for (String className : classNames) {
+				if (loader.getResource(className.replace('.', '/') + ".class") != null) {
+					found++;
+				}
+			}
+			return found;
+		} finally {
+			loader.dispose();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.ebayopensource.turmeric.eclipse.utils.xml.FreeMarkerUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import freemarker.template.TemplateException;
+
+/**
+ * Benchmarks generating a thousand web.xml files with
+ * {@link FreeMarkerUtil}, with the shared configuration and with a new one
+ * for every file as before the configurations were shared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FreeMarkerBenchmark {
+	private static final int FILE_COUNT = 1000;
+	private static final String TEMPLATE_NAME = "webxml";
+	private static final String TEMPLATE = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<web-app xmlns=\"http://java.sun.com/xml/ns/javaee\" version=\"2.5\">\n"
+			+ "<servlet><servlet-name>${adminName}</servlet-name>\n"
+			+ "<servlet-class>org.ebayopensource.turmeric.runtime.spf.pipeline.SPFServlet</servlet-class>\n"
+			+ "<init-param><param-name>SOA_SERVICE_NAME</param-name><param-value>${adminName}</param-value></init-param>\n"
+			+ "</servlet>\n"
+			+ "<servlet-mapping><servlet-name>${adminName}</servlet-name><url-pattern>${urlPattern}</url-pattern></servlet-mapping>\n"
+			+ "</web-app>\n";
+
+	private File templateFolder;
+	private final Map<String, String> data = new HashMap<String, String>();
+
+	@Setup
+	public void setUp() throws IOException {
+		templateFolder = File.createTempFile("templates", "");
+		templateFolder.delete();
+		FileUtils.writeStringToFile(new File(templateFolder, TEMPLATE_NAME),
+				TEMPLATE, "UTF-8");
+	}
+
+	@TearDown
+	public void tearDown() {
+		FileUtils.deleteQuietly(templateFolder);
+		FreeMarkerUtil.clearConfigurations();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_COUNT)
+	public int generate() throws IOException, TemplateException {
+		return generate(false);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(FILE_COUNT)
+	public int generateWithNewConfiguration() throws IOException,
+			TemplateException {
+		return generate(true);
+	}
+
+	private int generate(boolean newConfiguration) throws IOException,
+			TemplateException {
+		int length = 0;
+		for (int i = 0; i < FILE_COUNT; i++) {
+			if (newConfiguration) {
+				FreeMarkerUtil.clearConfigurations();
+			}
+			final StringWriter writer = new StringWriter();
+			data.put("adminName", "BenchmarkService" + i + "V1");
+			data.put("urlPattern", "/BenchmarkService" + i + "/*");
+			FreeMarkerUtil.generate(data, templateFolder, TEMPLATE_NAME, writer);
+			length += writer.getBuffer().length();
+		}
+		return length;
+	}
+}
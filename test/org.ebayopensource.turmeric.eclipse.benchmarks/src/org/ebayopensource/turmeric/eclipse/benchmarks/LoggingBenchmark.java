@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link SOALogger} calls below the logger level and the logger
+ * lookup, next to the stack trace capture every call used to pay.
+ *
+ * <p>
+ * SOALogger registers a LogManager property change listener, an API which
+ * is gone since Java 9, so this benchmark needs a Java 6 to 8 VM.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoggingBenchmark {
+	private SOALogger logger;
+	private Level level;
+	private final Object argument = new Object();
+	private int counter = 0;
+
+	@Setup
+	public void setUp() {
+		logger = SOALogger.getLogger();
+		level = logger.getLevel();
+		logger.setLevel(Level.WARNING);
+	}
+
+	@TearDown
+	public void tearDown() {
+		logger.setLevel(level);
+	}
+
+	@Benchmark
+	public void suppressedInfo() {
+		logger.info("Suppressed message ", counter++, " of ", argument);
+	}
+
+	@Benchmark
+	public void suppressedDebug() {
+		logger.debug("Suppressed message ", counter++, " of ", argument);
+	}
+
+	@Benchmark
+	public SOALogger getLogger() {
+		return SOALogger.getLogger();
+	}
+
+	@Benchmark
+	public StackTraceElement[] stackTraceCapture() {
+		return new Throwable().getStackTrace();
+	}
+}
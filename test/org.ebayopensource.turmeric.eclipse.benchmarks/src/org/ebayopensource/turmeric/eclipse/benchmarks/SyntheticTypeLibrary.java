@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.common.config.ReferredType;
+import org.ebayopensource.turmeric.common.config.ReferredTypeLibraryType;
+import org.ebayopensource.turmeric.common.config.TypeDependencyType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryDependencyType;
+
+/**
+ * A synthetic type library of a given number of types, written as an XSD, as
+ * a WSDL embedding the types, as a type dependency model and as jars of
+ * (empty) type classes. Every type refers to the previous one, so the size
+ * drives both the document size and the number of dependencies.
+ */
+public class SyntheticTypeLibrary {
+	/** The name of the type library. */
+	public static final String LIBRARY_NAME = "BenchmarkTypeLibrary";
+
+	/** The name of the type library all types refer to as well. */
+	public static final String COMMON_LIBRARY_NAME = "BenchmarkCommonTypeLibrary";
+
+	/** The namespace of the types and of the service. */
+	public static final String NAMESPACE = "http://www.ebayopensource.org/turmeric/benchmark/types";
+
+	/** The version of the type library and its types. */
+	public static final String VERSION = "1.0.0";
+
+	/** The package of the type classes. */
+	public static final String PACKAGE_NAME = "org.ebayopensource.turmeric.benchmark.types";
+
+	private static final String XSD_NS = "http://www.w3.org/2001/XMLSchema";
+	private static final String WSDL_NS = "http://schemas.xmlsoap.org/wsdl/";
+	private static final String SOAP_NS = "http://schemas.xmlsoap.org/wsdl/soap/";
+	private static final int TYPES_PER_OPERATION = 10;
+	private static final int TYPES_PER_JAR = 100;
+	private static final int COMMON_TYPE_COUNT = 20;
+
+	private final int size;
+	private final File dir;
+
+	/**
+	 * Instantiates a new synthetic type library in a new temporary folder.
+	 *
+	 * @param size the number of types
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public SyntheticTypeLibrary(int size) throws IOException {
+		super();
+		this.size = size;
+		this.dir = File.createTempFile(LIBRARY_NAME, "");
+		dir.delete();
+		FileUtils.forceMkdir(dir);
+	}
+
+	/**
+	 * Gets the number of types.
+	 *
+	 * @return the size
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Gets the folder the files are written to.
+	 *
+	 * @return the folder
+	 */
+	public File getDir() {
+		return dir;
+	}
+
+	/**
+	 * Gets the name of the type with the given index.
+	 *
+	 * @param index the index
+	 * @return the type name
+	 */
+	public static String getTypeName(int index) {
+		return "BenchmarkType" + index;
+	}
+
+	/**
+	 * Gets the fully qualified names of the type classes.
+	 *
+	 * @return the class names
+	 */
+	public List<String> getClassNames() {
+		final List<String> result = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			result.add(PACKAGE_NAME + "." + getTypeName(i));
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the schema of the types.
+	 *
+	 * @param references true if every type refers to the previous one, false
+	 * for types of built-in types only
+	 * @return the XSD content
+	 */
+	public String createSchema(boolean references) {
+		final StringBuilder buf = new StringBuilder(size * 512);
+		buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		appendSchema(buf, references, false);
+		return buf.toString();
+	}
+
+	/**
+	 * Creates a document literal WSDL with the types embedded and one
+	 * operation for every ten types.
+	 *
+	 * @return the WSDL content
+	 */
+	public String createWSDL() {
+		final int operationCount = Math.max(1, size / TYPES_PER_OPERATION);
+		final StringBuilder buf = new StringBuilder(size * 1024);
+		buf.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		buf.append("<wsdl:definitions name=\"BenchmarkServiceV1\" targetNamespace=\"")
+				.append(NAMESPACE).append("\" xmlns:wsdl=\"").append(WSDL_NS)
+				.append("\" xmlns:soap=\"").append(SOAP_NS)
+				.append("\" xmlns:xs=\"").append(XSD_NS)
+				.append("\" xmlns:tns=\"").append(NAMESPACE).append("\">\n");
+		buf.append("<wsdl:types>\n");
+		appendSchema(buf, true, true);
+		buf.append("</wsdl:types>\n");
+		for (int i = 0; i < operationCount; i++) {
+			buf.append("<wsdl:message name=\"operation").append(i)
+					.append("Request\"><wsdl:part name=\"params\" element=\"tns:operation")
+					.append(i).append("Request\"/></wsdl:message>\n");
+			buf.append("<wsdl:message name=\"operation").append(i)
+					.append("Response\"><wsdl:part name=\"params\" element=\"tns:operation")
+					.append(i).append("Response\"/></wsdl:message>\n");
+		}
+		buf.append("<wsdl:portType name=\"BenchmarkServiceV1Interface\">\n");
+		for (int i = 0; i < operationCount; i++) {
+			buf.append("<wsdl:operation name=\"operation").append(i)
+					.append("\"><wsdl:input message=\"tns:operation").append(i)
+					.append("Request\"/><wsdl:output message=\"tns:operation")
+					.append(i).append("Response\"/></wsdl:operation>\n");
+		}
+		buf.append("</wsdl:portType>\n");
+		buf.append("<wsdl:binding name=\"BenchmarkServiceV1Binding\" type=\"tns:BenchmarkServiceV1Interface\">\n");
+		buf.append("<soap:binding style=\"document\" transport=\"http://schemas.xmlsoap.org/soap/http\"/>\n");
+		for (int i = 0; i < operationCount; i++) {
+			buf.append("<wsdl:operation name=\"operation").append(i)
+					.append("\"><soap:operation soapAction=\"operation")
+					.append(i).append("\"/>")
+					.append("<wsdl:input><soap:body use=\"literal\"/></wsdl:input>")
+					.append("<wsdl:output><soap:body use=\"literal\"/></wsdl:output>")
+					.append("</wsdl:operation>\n");
+		}
+		buf.append("</wsdl:binding>\n");
+		buf.append("<wsdl:service name=\"BenchmarkServiceV1\"><wsdl:port name=\"BenchmarkServiceV1Port\" binding=\"tns:BenchmarkServiceV1Binding\">")
+				.append("<soap:address location=\"http://localhost:8080/services/BenchmarkServiceV1\"/>")
+				.append("</wsdl:port></wsdl:service>\n");
+		buf.append("</wsdl:definitions>\n");
+		return buf.toString();
+	}
+
+	private void appendSchema(StringBuilder buf, boolean references,
+			boolean operations) {
+		buf.append("<xs:schema targetNamespace=\"").append(NAMESPACE)
+				.append("\" xmlns:xs=\"").append(XSD_NS)
+				.append("\" xmlns:tns=\"").append(NAMESPACE)
+				.append("\" elementFormDefault=\"qualified\">\n");
+		for (int i = 0; i < size; i++) {
+			buf.append("<xs:complexType name=\"").append(getTypeName(i))
+					.append("\">\n");
+			buf.append("<xs:annotation><xs:documentation>Synthetic type ")
+					.append(i).append(" of ").append(LIBRARY_NAME)
+					.append("</xs:documentation></xs:annotation>\n");
+			buf.append("<xs:sequence>\n");
+			buf.append("<xs:element name=\"id\" type=\"xs:long\"/>\n");
+			buf.append("<xs:element name=\"name\" type=\"xs:string\" minOccurs=\"0\"/>\n");
+			buf.append("<xs:element name=\"values\" type=\"xs:int\" minOccurs=\"0\" maxOccurs=\"unbounded\"/>\n");
+			if (references && i > 0) {
+				buf.append("<xs:element name=\"parent\" type=\"tns:")
+						.append(getTypeName(i - 1))
+						.append("\" minOccurs=\"0\"/>\n");
+			}
+			buf.append("</xs:sequence>\n");
+			buf.append("</xs:complexType>\n");
+		}
+		if (operations) {
+			final int operationCount = Math.max(1, size / TYPES_PER_OPERATION);
+			for (int i = 0; i < operationCount; i++) {
+				buf.append("<xs:element name=\"operation").append(i)
+						.append("Request\" type=\"tns:").append(
+								getTypeName(i * TYPES_PER_OPERATION))
+						.append("\"/>\n");
+				buf.append("<xs:element name=\"operation").append(i)
+						.append("Response\" type=\"tns:").append(
+								getTypeName(Math.min(size - 1, i
+										* TYPES_PER_OPERATION + 1)))
+						.append("\"/>\n");
+			}
+		}
+		buf.append("</xs:schema>\n");
+	}
+
+	/**
+	 * Creates the type dependency model of the library. Every type refers to
+	 * the previous type of this library and to one of the common library.
+	 *
+	 * @return the type library dependency type
+	 */
+	public TypeLibraryDependencyType createTypeDependencies() {
+		final TypeLibraryDependencyType result = new TypeLibraryDependencyType();
+		result.setLibraryName(LIBRARY_NAME);
+		result.setVersion(VERSION);
+		for (int i = 0; i < size; i++) {
+			final TypeDependencyType type = new TypeDependencyType();
+			type.setName(getTypeName(i));
+			type.setVersion(VERSION);
+			if (i > 0) {
+				type.getReferredTypeLibrary().add(
+						createReferredTypeLibrary(LIBRARY_NAME,
+								getTypeName(i - 1)));
+			}
+			type.getReferredTypeLibrary().add(
+					createReferredTypeLibrary(COMMON_LIBRARY_NAME, "CommonType"
+							+ (i % COMMON_TYPE_COUNT)));
+			result.getType().add(type);
+		}
+		return result;
+	}
+
+	private static ReferredTypeLibraryType createReferredTypeLibrary(
+			String libraryName, String typeName) {
+		final ReferredTypeLibraryType result = new ReferredTypeLibraryType();
+		result.setName(libraryName);
+		result.setVersion(VERSION);
+		final ReferredType referredType = new ReferredType();
+		referredType.setName(typeName);
+		referredType.setVersion(VERSION);
+		result.getReferredType().add(referredType);
+		return result;
+	}
+
+	/**
+	 * Writes the schema with references to a file.
+	 *
+	 * @return the XSD file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public File writeSchema() throws IOException {
+		return write(LIBRARY_NAME + ".xsd", createSchema(true));
+	}
+
+	/**
+	 * Writes the schema of built-in types only to a file.
+	 *
+	 * @return the XSD file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public File writeFlatSchema() throws IOException {
+		return write(LIBRARY_NAME + "Flat.xsd", createSchema(false));
+	}
+
+	/**
+	 * Writes the WSDL to a file.
+	 *
+	 * @return the WSDL file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public File writeWSDL() throws IOException {
+		return write("BenchmarkServiceV1.wsdl", createWSDL());
+	}
+
+	private File write(String fileName, String content) throws IOException {
+		final File file = new File(dir, fileName);
+		FileUtils.writeStringToFile(file, content, "UTF-8");
+		return file;
+	}
+
+	/**
+	 * Writes the type classes into jars of a hundred classes each, the way
+	 * the classes of many type libraries end up on the codegen class path.
+	 *
+	 * @return the jar files
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public List<File> writeClassJars() throws IOException {
+		final List<File> result = new ArrayList<File>();
+		final String packagePath = PACKAGE_NAME.replace('.', '/') + "/";
+		for (int start = 0; start < size; start += TYPES_PER_JAR) {
+			final File file = new File(dir, LIBRARY_NAME + result.size()
+					+ ".jar");
+			final JarOutputStream out = new JarOutputStream(
+					new FileOutputStream(file));
+			try {
+				for (int i = start; i < Math.min(size, start + TYPES_PER_JAR); i++) {
+					final String className = packagePath + getTypeName(i);
+					out.putNextEntry(new JarEntry(className + ".class"));
+					out.write(createClassFile(className));
+					out.closeEntry();
+				}
+			} finally {
+				IOUtils.closeQuietly(out);
+			}
+			result.add(file);
+		}
+		return result;
+	}
+
+	/**
+	 * Creates the bytes of an empty public class extending Object, which is
+	 * enough to be defined by a class loader.
+	 *
+	 * @param internalName the class name with slashes
+	 * @return the class file bytes
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	static byte[] createClassFile(String internalName) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(0xCAFEBABE);
+		out.writeShort(0); // minor version
+		out.writeShort(50); // major version, Java 6
+		out.writeShort(5); // constant pool count
+		out.writeByte(1); // #1 utf8
+		out.writeUTF(internalName);
+		out.writeByte(7); // #2 class #1
+		out.writeShort(1);
+		out.writeByte(1); // #3 utf8
+		out.writeUTF("java/lang/Object");
+		out.writeByte(7); // #4 class #3
+		out.writeShort(3);
+		out.writeShort(0x0021); // public super
+		out.writeShort(2); // this class
+		out.writeShort(4); // super class
+		out.writeShort(0); // interfaces
+		out.writeShort(0); // fields
+		out.writeShort(0); // methods
+		out.writeShort(0); // attributes
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Deletes all the written files.
+	 */
+	public void delete() {
+		FileUtils.deleteQuietly(dir);
+	}
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXB;
+
+import org.ebayopensource.turmeric.common.config.LibraryType;
+import org.ebayopensource.turmeric.common.config.ReferredType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryDependencyType;
+import org.ebayopensource.turmeric.eclipse.buildsystem.TypeDepMarshaller;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the type dependency file of a type library: reading and
+ * writing it with JAXB, the way the Turmeric type registry bridge behind
+ * {@link TypeDepMarshaller#unmarshallIt(java.io.InputStream)} and
+ * {@link TypeDepMarshaller#marshallIt(TypeLibraryDependencyType, org.eclipse.core.resources.IFile)}
+ * does, and synchronizing it with the types of the library.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TypeDependencyBenchmark {
+	/** The number of types of the library. */
+	@Param( { "10", "100", "1000", "5000" })
+	public int size;
+
+	private SyntheticTypeLibrary library;
+	private TypeLibraryDependencyType typeDependencies;
+	private List<LibraryType> libraryTypes;
+	private File typeDependencyFile;
+	private File marshalledFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		library = new SyntheticTypeLibrary(size);
+		typeDependencies = library.createTypeDependencies();
+		typeDependencyFile = new File(library.getDir(), "TypeDependencies.xml");
+		marshalledFile = new File(library.getDir(), "TypeDependencies.out.xml");
+		JAXB.marshal(typeDependencies, typeDependencyFile);
+		libraryTypes = new ArrayList<LibraryType>(size);
+		for (int i = 0; i < size; i++) {
+			final LibraryType libraryType = new LibraryType();
+			libraryType.setName(SyntheticTypeLibrary.getTypeName(i));
+			libraryType.setNamespace(SyntheticTypeLibrary.NAMESPACE);
+			// every other type has been changed
+			libraryType.setVersion(i % 2 == 0 ? SyntheticTypeLibrary.VERSION
+					: "1.0.1");
+			libraryTypes.add(libraryType);
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		library.delete();
+	}
+
+	@Benchmark
+	public TypeLibraryDependencyType unmarshal() {
+		return JAXB.unmarshal(typeDependencyFile,
+				TypeLibraryDependencyType.class);
+	}
+
+	@Benchmark
+	public File marshal() {
+		JAXB.marshal(typeDependencies, marshalledFile);
+		return marshalledFile;
+	}
+
+	/**
+	 * Updates the versions of the changed types in a fresh copy of the
+	 * dependencies and collects the referred types and libraries.
+	 */
+	@Benchmark
+	public int sync() {
+		final TypeLibraryDependencyType dependencies = library
+				.createTypeDependencies();
+		int modified = 0;
+		for (LibraryType libraryType : libraryTypes) {
+			if (TypeDepMarshaller.addTypeEntryIfNotExists(dependencies,
+					libraryType)
+					|| TypeDepMarshaller.modifyTypeEntry(dependencies,
+							libraryType)) {
+				modified++;
+			}
+		}
+		final Set<ReferredType> referredTypes = TypeDepMarshaller
+				.getALLReferredTypes(dependencies);
+		final Set<String> referredLibraries = TypeDepMarshaller
+				.getAllReferredTypeLibraries(dependencies);
+		return modified + referredTypes.size() + referredLibraries.size();
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.wsdl.Definition;
+import javax.wsdl.WSDLException;
+
+import org.ebayopensource.turmeric.eclipse.utils.wsdl.WSDLUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks reading a WSDL with {@link WSDLUtil}, from a location and from
+ * a stream the way WSDLs are read out of jars.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WSDLBenchmark {
+	/** The number of types of the WSDL, one operation per ten types. */
+	@Param( { "10", "100", "1000", "5000" })
+	public int size;
+
+	private SyntheticTypeLibrary library;
+	private File wsdlFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		library = new SyntheticTypeLibrary(size);
+		wsdlFile = library.writeWSDL();
+	}
+
+	@TearDown
+	public void tearDown() {
+		library.delete();
+	}
+
+	@Benchmark
+	public Definition readWSDL() throws WSDLException {
+		return WSDLUtil.readWSDL(wsdlFile.toURI().toString());
+	}
+
+	@Benchmark
+	public Definition readWSDLFromStream() throws WSDLException, IOException {
+		return WSDLUtil.readWSDL(library.getDir().toURI().toString(),
+				new FileInputStream(wsdlFile));
+	}
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
+import org.ebayopensource.turmeric.eclipse.typelibrary.utils.importtypes.ImportTypesFromXSDParser;
+import org.ebayopensource.turmeric.eclipse.typelibrary.utils.importtypes.TypeModel;
+import org.eclipse.xsd.XSDSchema;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+/**
+ * Benchmarks parsing a type library schema into the XSD model with
+ * {@link TypeLibraryUtil#parseSchema(java.net.URL)} and cutting it into
+ * types with the {@link ImportTypesFromXSDParser} of the import types wizard.
+ *
+ * <p>
+ * The import parser resolves the dependencies between types against the
+ * global type registry, which needs a running workbench. It is therefore
+ * measured on the schema of built-in types only.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XSDBenchmark {
+	/** The number of types of the schema. */
+	@Param( { "10", "100", "1000", "5000" })
+	public int size;
+
+	private SyntheticTypeLibrary library;
+	private File schemaFile;
+	private File flatSchemaFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		library = new SyntheticTypeLibrary(size);
+		schemaFile = library.writeSchema();
+		flatSchemaFile = library.writeFlatSchema();
+	}
+
+	@TearDown
+	public void tearDown() {
+		library.delete();
+	}
+
+	@Benchmark
+	public XSDSchema parseSchema() throws IOException {
+		return TypeLibraryUtil.parseSchema(schemaFile.toURI().toURL());
+	}
+
+	@Benchmark
+	public Collection<TypeModel> importTypes() throws SAXException,
+			IOException, ParserConfigurationException {
+		final ImportTypesFromXSDParser parser = new ImportTypesFromXSDParser();
+		parser.cutXSD(flatSchemaFile.getAbsolutePath());
+		return parser.getTypeModels();
+	}
+}
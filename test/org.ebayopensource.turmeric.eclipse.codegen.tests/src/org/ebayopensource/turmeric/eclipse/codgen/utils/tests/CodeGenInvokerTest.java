@@ -14,7 +14,6 @@ import static org.junit.Assert.fail;
 
 import org.apache.commons.lang.NullArgumentException;
 import org.ebayopensource.turmeric.eclipse.codegen.utils.CodegenInvoker;
-import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
 import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -68,11 +67,10 @@ public class CodeGenInvokerTest {
 
 
 	@Test
-	public void testGetSoaPluginClassLoader() throws Exception {
+	public void testGetClassPathURLs() throws Exception {
 		IProject project = wsRoot.getProject(projectName);
 		CodegenInvoker invoker = CodegenInvoker.init(project);
-		SOAPluginClassLoader classLoader = invoker.getSoaPluginClassLoader();
-		assertNotNull(classLoader);
+		assertNotNull(invoker.getClassPathURLs());
 	}
 
 }
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.core.test.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.AsyncLogHandler;
+import org.junit.Test;
+
+/**
+ * Test for {@link AsyncLogHandler}.
+ */
+public class TestAsyncLogHandler {
+
+	/**
+	 * Collects the published records, optionally waiting for a latch before
+	 * the first one.
+	 */
+	private static class CollectingHandler extends Handler {
+		private final List<LogRecord> records = new ArrayList<LogRecord>();
+		private final List<Thread> threads = new ArrayList<Thread>();
+		private final CountDownLatch entered = new CountDownLatch(1);
+		private final CountDownLatch released;
+		private int flushCount = 0;
+		private boolean closed = false;
+
+		CollectingHandler(CountDownLatch released) {
+			this.released = released;
+		}
+
+		@Override
+		public void publish(LogRecord record) {
+			entered.countDown();
+			try {
+				released.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			synchronized (this) {
+				records.add(record);
+				threads.add(Thread.currentThread());
+			}
+		}
+
+		@Override
+		public synchronized void flush() {
+			flushCount++;
+		}
+
+		@Override
+		public synchronized void close() {
+			closed = true;
+		}
+
+		synchronized List<String> getMessages() {
+			final List<String> result = new ArrayList<String>();
+			for (LogRecord record : records) {
+				result.add(record.getMessage());
+			}
+			return result;
+		}
+	}
+
+	private static void log(Handler handler, Level level, String message) {
+		handler.publish(new LogRecord(level, message));
+	}
+
+	@Test
+	public void testPublishInBatches() {
+		final CollectingHandler delegate = new CollectingHandler(new CountDownLatch(0));
+		// a full queue makes every caller wait, nothing is discarded
+		final AsyncLogHandler handler = new AsyncLogHandler(delegate, 100, 50, Level.ALL);
+		final List<String> expected = new ArrayList<String>();
+		for (int i = 0; i < 1000; i++) {
+			final Level level = i % 100 == 0 ? Level.FINE : Level.INFO;
+			log(handler, level, "message" + i);
+			expected.add("message" + i);
+		}
+		handler.flush();
+
+		assertEquals(0, handler.getDiscardedCount());
+		assertEquals(expected, delegate.getMessages());
+		// the delegate is flushed once per batch, not per record
+		assertTrue(delegate.flushCount < 1000);
+		assertFalse(delegate.threads.contains(Thread.currentThread()));
+		handler.close();
+	}
+
+	@Test
+	public void testOverflowDiscardsDebugFirst() throws Exception {
+		final CountDownLatch released = new CountDownLatch(1);
+		final CollectingHandler delegate = new CollectingHandler(released);
+		final AsyncLogHandler handler = new AsyncLogHandler(delegate, 4, 1, Level.SEVERE);
+		log(handler, Level.INFO, "blocking");
+		assertTrue(delegate.entered.await(10, TimeUnit.SECONDS));
+
+		log(handler, Level.FINE, "debug1");
+		log(handler, Level.INFO, "info1");
+		log(handler, Level.FINE, "debug2");
+		log(handler, Level.INFO, "info2");
+		// the queue is full, the queued debug records go first
+		log(handler, Level.INFO, "info3");
+		log(handler, Level.FINE, "debug3");
+		log(handler, Level.INFO, "info4");
+		// only records of the same level are left, the new one is discarded
+		log(handler, Level.WARNING, "warning1");
+		assertEquals(4, handler.getDiscardedCount());
+
+		// errors wait for room
+		final Thread errorThread = new Thread() {
+			@Override
+			public void run() {
+				log(handler, Level.SEVERE, "error1");
+			}
+		};
+		errorThread.start();
+		errorThread.join(200);
+		assertTrue(errorThread.isAlive());
+
+		released.countDown();
+		errorThread.join(10000);
+		assertFalse(errorThread.isAlive());
+		handler.flush();
+
+		final List<String> messages = delegate.getMessages();
+		assertEquals("Discarded 4 log records, the log queue was full", messages.remove(1));
+		final List<String> expected = new ArrayList<String>();
+		expected.add("blocking");
+		expected.add("info1");
+		expected.add("info2");
+		expected.add("info3");
+		expected.add("info4");
+		expected.add("error1");
+		assertEquals(expected, messages);
+		assertEquals(4, handler.getDiscardedCount());
+		handler.close();
+	}
+
+	@Test
+	public void testCloseWritesQueuedRecords() {
+		final CountDownLatch released = new CountDownLatch(1);
+		final CollectingHandler delegate = new CollectingHandler(released);
+		final AsyncLogHandler handler = new AsyncLogHandler(delegate, 1000, 10, Level.SEVERE);
+		for (int i = 0; i < 100; i++) {
+			log(handler, Level.FINE, "message" + i);
+		}
+		released.countDown();
+		handler.close();
+		assertEquals(100, delegate.getMessages().size());
+		assertTrue(delegate.closed);
+
+		// the handler stays usable, on the calling thread
+		log(handler, Level.INFO, "closed");
+		assertEquals(101, delegate.getMessages().size());
+		assertEquals(Thread.currentThread(), delegate.threads.get(100));
+	}
+}
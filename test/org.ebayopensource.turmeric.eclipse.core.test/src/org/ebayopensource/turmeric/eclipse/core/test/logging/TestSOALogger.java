@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.core.test.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.ebayopensource.turmeric.eclipse.core.logging.SOALogger;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link SOALogger}.
+ */
+public class TestSOALogger {
+	private final List<LogRecord> records = new ArrayList<LogRecord>();
+	private final Handler handler = new Handler() {
+		@Override
+		public void publish(LogRecord record) {
+			records.add(record);
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	};
+	private SOALogger logger;
+	private Level level;
+
+	/**
+	 * Counts how often the message is formatted.
+	 */
+	private static class Message {
+		private int count = 0;
+
+		@Override
+		public String toString() {
+			count++;
+			return "message";
+		}
+	}
+
+	@Before
+	public void setUp() {
+		logger = SOALogger.getLogger();
+		level = logger.getLevel();
+		logger.addHandler(handler);
+	}
+
+	@After
+	public void tearDown() {
+		logger.removeHandler(handler);
+		logger.setLevel(level);
+	}
+
+	@Test
+	public void testGetLogger() {
+		assertEquals(TestSOALogger.class.getName(), logger.getName());
+		assertSame(logger, SOALogger.getLogger());
+		assertSame(logger, SOALogger.getLogger(TestSOALogger.class));
+	}
+
+	@Test
+	public void testSuppressedLevels() {
+		logger.setLevel(Level.WARNING);
+		final Message message = new Message();
+		for (int i = 0; i < 1000; i++) {
+			logger.info("info ", message);
+			logger.debug("debug ", message);
+			logger.entering(message);
+			logger.exiting(message);
+		}
+		assertEquals(0, message.count);
+		assertEquals(0, records.size());
+
+		logger.warning("warning ", message);
+		assertEquals(1, message.count);
+		assertEquals(1, records.size());
+	}
+
+	@Test
+	public void testCallerInformation() {
+		logger.setLevel(Level.FINE);
+		logger.info("info");
+		logger.debug("debug");
+		logger.error(new IllegalStateException("error"));
+		assertEquals(3, records.size());
+		for (LogRecord record : records) {
+			assertEquals(TestSOALogger.class.getName(), record
+					.getSourceClassName());
+			assertEquals("testCallerInformation", record.getSourceMethodName());
+		}
+		assertEquals(Level.FINE, records.get(1).getLevel());
+		assertEquals("error", records.get(2).getMessage());
+	}
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.errorlibrary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.providers.PropertiesSOAConstants;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.registry.ErrorRegistrySnapshot;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.properties.registry.TurmericErrorRegistry;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAErrDomain;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAErrLibrary;
+import org.ebayopensource.turmeric.eclipse.errorlibrary.views.ISOAError;
+import org.ebayopensource.turmeric.eclipse.resources.model.AssetInfo;
+import org.ebayopensource.turmeric.eclipse.test.utils.TestFileUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the initialization of the error registry from synthetic error
+ * library jars, without and with a snapshot.
+ */
+public class ErrorRegistryInitTest {
+	private static final int LIBRARY_COUNT = 120;
+	private static final int ERROR_COUNT = 125;
+	private static final String VERSION = "1.0.0";
+
+	private File tmpDir;
+	private final Map<AssetInfo, File> libraries = new LinkedHashMap<AssetInfo, File>();
+
+	@Before
+	public void setUp() throws IOException {
+		tmpDir = TestFileUtil.createTempDir(getClass());
+		for (int i = 0; i < LIBRARY_COUNT; i++) {
+			final String name = "ErrorLibrary" + i;
+			libraries.put(new AssetInfo(name, VERSION, tmpDir.getPath()),
+					createJar(name, "Domain" + i, "message"));
+		}
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		TestFileUtil.deleteTempDir(tmpDir);
+	}
+
+	private File createJar(String libraryName, String domainName,
+			String message) throws IOException {
+		final StringBuilder errorData = new StringBuilder();
+		errorData.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		errorData.append("<ErrorBundle xmlns=\"http://www.ebayopensource.org/turmeric/common/config\"");
+		errorData.append(" libraryVersion=\"" + VERSION + "\" packageName=\"org.ebayopensource.");
+		errorData.append(domainName.toLowerCase() + "\" domain=\"" + domainName);
+		errorData.append("\" organization=\"Turmeric\" errorLibraryName=\"" + libraryName + "\">");
+		errorData.append("<errorlist>");
+		final StringBuilder errorProps = new StringBuilder();
+		for (int i = 0; i < ERROR_COUNT; i++) {
+			errorData.append("<error id=\"" + (1000 + i)
+					+ "\" category=\"APPLICATION\" subdomain=\"Buying\""
+					+ " severity=\"ERROR\" errorGroup=\"\" name=\"Error" + i
+					+ "\" />");
+			errorProps.append("Error" + i + "."
+					+ PropertiesSOAConstants.PROPS_KEY_MESSAGE + "=" + message
+					+ i + "\n");
+			errorProps.append("Error" + i + "."
+					+ PropertiesSOAConstants.PROPS_KEY_RESOLUTION
+					+ "=resolution" + i + "\n");
+		}
+		errorData.append("</errorlist></ErrorBundle>");
+		final String root = PropertiesSOAConstants.FOLDER_ERROR_DOMAIN_IN_JAR
+				+ "/";
+		return TestFileUtil.createJar(tmpDir, libraryName + "-" + VERSION
+				+ ".jar", root + libraryName + "/"
+				+ PropertiesSOAConstants.PROPS_FILE_ERROR_LIBRARY_PROJECT,
+				PropertiesSOAConstants.PROPS_LIST_OF_DOMAINS + "=" + domainName,
+				root + domainName + "/" + PropertiesSOAConstants.FILE_ERROR_DATA,
+				errorData.toString(), root + domainName + "/Errors_"
+						+ PropertiesSOAConstants.DEFAULT_LOCALE + ".properties",
+				errorProps.toString());
+	}
+
+	private static ISOAError getError(Map<String, ISOAErrLibrary> libs,
+			String libraryName, String errorName) {
+		final ISOAErrLibrary lib = libs.get(libraryName);
+		assertNotNull(lib);
+		for (ISOAErrDomain domain : lib.getDomains()) {
+			for (ISOAError error : domain.getErrors()) {
+				if (errorName.equals(error.getName())) {
+					return error;
+				}
+			}
+		}
+		return null;
+	}
+
+	@Test
+	public void testColdAndWarmInit() throws Exception {
+		final File snapshotFile = new File(tmpDir,
+				ErrorRegistrySnapshot.FILE_NAME);
+		final ErrorRegistrySnapshot snapshot = new ErrorRegistrySnapshot();
+		final Map<String, ISOAErrLibrary> cold = TurmericErrorRegistry
+				.loadErrorLibraries(libraries, snapshot);
+		snapshot.store(snapshotFile);
+		assertEquals(LIBRARY_COUNT, cold.size());
+		assertEquals(LIBRARY_COUNT, snapshot.size());
+
+		final ErrorRegistrySnapshot loaded = ErrorRegistrySnapshot
+				.load(snapshotFile);
+		assertNotNull(loaded);
+		final Map<String, ISOAErrLibrary> warm = TurmericErrorRegistry
+				.loadErrorLibraries(libraries, loaded);
+		assertEquals(LIBRARY_COUNT, warm.size());
+		assertEquals(LIBRARY_COUNT, loaded.size());
+		// the library is taken from the snapshot, not read from its jar again
+		assertSame(loaded.get("ErrorLibrary7", VERSION, new File(tmpDir,
+				"ErrorLibrary7-" + VERSION + ".jar")), warm.get("ErrorLibrary7"));
+		final ISOAError error = getError(warm, "ErrorLibrary7", "Error42");
+		assertNotNull(error);
+		assertEquals("1042", error.getId());
+		assertEquals("message42", error.getMessage());
+		assertEquals("resolution42", error.getResolution());
+		assertEquals("Domain7", error.getDomain().getName());
+		assertEquals("ErrorLibrary7", error.getDomain().getLibrary().getName());
+	}
+
+	@Test
+	public void testReinstalledLibrary() throws Exception {
+		final ErrorRegistrySnapshot snapshot = new ErrorRegistrySnapshot();
+		TurmericErrorRegistry.loadErrorLibraries(libraries, snapshot);
+		final File jarFile = createJar("ErrorLibrary0", "Domain0", "changed");
+		jarFile.setLastModified(jarFile.lastModified() + 2000);
+		assertNull(snapshot.get("ErrorLibrary0", VERSION, jarFile));
+
+		final Map<String, ISOAErrLibrary> libs = TurmericErrorRegistry
+				.loadErrorLibraries(libraries, snapshot);
+		assertEquals("changed1", getError(libs, "ErrorLibrary0", "Error1")
+				.getMessage());
+		assertEquals(LIBRARY_COUNT, snapshot.size());
+	}
+}
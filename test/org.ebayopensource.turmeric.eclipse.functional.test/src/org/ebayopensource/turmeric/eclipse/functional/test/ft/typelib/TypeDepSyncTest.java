@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.functional.test.ft.typelib;
+
+import static org.junit.Assume.assumeNoException;
+
+import java.io.File;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.apache.commons.io.FileUtils;
+import org.ebayopensource.turmeric.common.config.TypeLibraryDependencyType;
+import org.ebayopensource.turmeric.eclipse.buildsystem.SynchronizeWsdlAndDepXML;
+import org.ebayopensource.turmeric.eclipse.buildsystem.TypeDepMarshaller;
+import org.ebayopensource.turmeric.eclipse.core.TurmericCoreActivator;
+import org.ebayopensource.turmeric.eclipse.core.resources.constants.SOATypeLibraryConstants;
+import org.ebayopensource.turmeric.eclipse.functional.test.AbstractTestCase;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.SOAGlobalRegistryAdapter;
+import org.ebayopensource.turmeric.eclipse.test.util.DialogMonitor;
+import org.ebayopensource.turmeric.eclipse.test.util.FunctionalTestHelper;
+import org.ebayopensource.turmeric.eclipse.test.utils.TLUtil;
+import org.ebayopensource.turmeric.eclipse.typelibrary.utils.TypeLibraryUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Checks that the per type and the batched synchronization of
+ * TypeDependencies.xml agree on a synthetic type library of
+ * {@value #TYPE_COUNT} types, more than the batch parses at a time.
+ */
+public class TypeDepSyncTest extends AbstractTestCase {
+	private static final int TYPE_COUNT = 1000;
+	private static final String TYPE_PREFIX = "BenchmarkType";
+
+	static DialogMonitor monitor;
+	private IProject project;
+
+	@Before
+	public void setUp() throws Exception {
+		monitor = new DialogMonitor();
+		monitor.startMonitoring();
+		FunctionalTestHelper.ensureM2EcipseBeingInited();
+
+		TypeLibSetUp.setup();
+		try {
+			Assert.assertTrue(TypeLibSetUp.TYPELIBRARY_COMMON
+					+ " -- TypeLibrary Creation failed", TLUtil
+					.createTypeLibrary(TypeLibSetUp.TYPELIBRARY_COMMON,
+							"1.0.0", "COMMON", TypeLibSetUp.TYPELIB_LOCATION));
+		} catch (NoClassDefFoundError ex) {
+			assumeNoException(ex);
+		}
+		project = WorkspaceUtil.getProject(TypeLibSetUp.TYPELIBRARY_COMMON);
+		createTypes();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		super.cleanupWorkspace();
+		monitor.stopMonitoring();
+		monitor = null;
+	}
+
+	@Test
+	public void testSynchronization() throws Exception {
+		final SynchronizeWsdlAndDepXML synchronizer = new SynchronizeWsdlAndDepXML(
+				project);
+		final List<IFile> xsdFiles = TypeLibraryUtil.getAllXsdFiles(project,
+				true);
+		Assert.assertEquals(TYPE_COUNT, xsdFiles.size());
+
+		createTypeDependencies();
+		for (IFile file : xsdFiles) {
+			synchronizer.syncronizeXSDandDepXml(TypeLibraryUtil
+					.parseSchema(file.getLocation().toFile().toURI().toURL()),
+					TypeLibraryUtil.toQName(file));
+		}
+		Assert.assertEquals(0, getTypeCount());
+
+		createTypeDependencies();
+		synchronizer.syncronizeAllXSDsandDepXml(xsdFiles);
+		Assert.assertEquals(0, getTypeCount());
+
+		// the entries of the types which are not given are dropped as well
+		createTypeDependencies();
+		synchronizer.syncronizeAllXSDsandDepXml(xsdFiles.subList(0,
+				TYPE_COUNT / 2));
+		Assert.assertEquals(0, getTypeCount());
+	}
+
+	private void createTypes() throws Exception {
+		final String namespace = SOAGlobalRegistryAdapter.getInstance()
+				.getGlobalRegistry().getTypeLibrary(project.getName())
+				.getLibraryNamespace();
+		final File folder = project.getFolder(
+				SOATypeLibraryConstants.FOLDER_META_SRC_TYPES
+						+ WorkspaceUtil.PATH_SEPERATOR + project.getName())
+				.getLocation().toFile();
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			final String name = TYPE_PREFIX + i;
+			FileUtils.writeStringToFile(new File(folder, name
+					+ SOATypeLibraryConstants.EXT_XSD),
+					"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+							+ "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\""
+							+ namespace + "\">\n"
+							+ "  <xs:simpleType name=\"" + name + "\">\n"
+							+ "    <xs:restriction base=\"xs:string\"/>\n"
+							+ "  </xs:simpleType>\n" + "</xs:schema>\n",
+					"UTF-8");
+		}
+		project.refreshLocal(IResource.DEPTH_INFINITE,
+				new NullProgressMonitor());
+	}
+
+	/**
+	 * Writes a TypeDependencies.xml which wrongly declares a dependency for
+	 * every type, so that every type entry has to be removed.
+	 */
+	private void createTypeDependencies() throws Exception {
+		final StringBuilder content = new StringBuilder();
+		content.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n");
+		content.append("<typeLibraryDependencyType xmlns:ns2=\"http://www.ebayopensource.org/turmeric/common/config\" version=\"1.0.0\" libraryName=\"");
+		content.append(project.getName()).append("\">\n");
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			content.append("    <ns2:type version=\"1.0.0\" name=\"");
+			content.append(TYPE_PREFIX).append(i).append("\">\n");
+			content.append("        <ns2:referredTypeLibrary version=\"1.0.0\" name=\"");
+			content.append(project.getName()).append("\">\n");
+			content.append("            <ns2:referredType version=\"1.0.0\" name=\"");
+			content.append(TYPE_PREFIX).append((i + 1) % TYPE_COUNT).append("\"/>\n");
+			content.append("        </ns2:referredTypeLibrary>\n");
+			content.append("    </ns2:type>\n");
+		}
+		content.append("</typeLibraryDependencyType>\n");
+		final IFile typeDepFile = TurmericCoreActivator.getDependencyFile(project);
+		FileUtils.writeStringToFile(typeDepFile.getLocation().toFile(),
+				content.toString(), "UTF-8");
+		typeDepFile.refreshLocal(IResource.DEPTH_ZERO, new NullProgressMonitor());
+		Assert.assertEquals(TYPE_COUNT, getTypeCount());
+	}
+
+	private int getTypeCount() throws Exception {
+		final TypeLibraryDependencyType typeLibraryDependencyType = TypeDepMarshaller
+				.unmarshallIt(TurmericCoreActivator.getDependencyFile(project));
+		return typeLibraryDependencyType.getType().size();
+	}
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.repositorysystem.test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.ebayopensource.turmeric.common.config.TypeInformationType;
+import org.ebayopensource.turmeric.common.config.TypeLibraryType;
+import org.ebayopensource.turmeric.eclipse.repositorysystem.core.TypeRegistrySnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link TypeRegistrySnapshot}.
+ */
+public class TypeRegistrySnapshotTest {
+	private File dir;
+	private File jar;
+	private File snapshotFile;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = File.createTempFile("snapshot", "");
+		dir.delete();
+		dir.mkdirs();
+		jar = new File(dir, "common-type-library.jar");
+		FileUtils.writeStringToFile(jar, "jar");
+		snapshotFile = new File(dir, TypeRegistrySnapshot.FILE_NAME);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	private static TypeLibraryType library(String name) {
+		final TypeLibraryType result = new TypeLibraryType();
+		result.setLibraryName(name);
+		result.setVersion("1.0.0");
+		result.setLibraryNamespace("http://www.ebayopensource.org/turmeric/common/v1/types");
+		final TypeInformationType type = new TypeInformationType();
+		type.setXmlTypeName("ErrorMessage");
+		type.setJavaTypeName("org.ebayopensource.turmeric.common.v1.types.ErrorMessage");
+		type.setVersion("1.0.0");
+		result.getType().add(type);
+		return result;
+	}
+
+	@Test
+	public void testStoreAndLoad() throws Exception {
+		final TypeRegistrySnapshot snapshot = new TypeRegistrySnapshot();
+		snapshot.addLibrary("common-type-library", "1.0.0", Collections
+				.singleton(jar), library("common-type-library"));
+		snapshot.store(snapshotFile);
+
+		final TypeRegistrySnapshot loaded = TypeRegistrySnapshot
+				.load(snapshotFile);
+		assertEquals(Collections.singleton("common-type-library"), loaded
+				.getLibraryNames());
+		assertEquals(Collections.singleton(jar.getAbsoluteFile()), loaded
+				.getJars("common-type-library"));
+		final TypeLibraryType library = loaded.getLibrary("common-type-library");
+		assertEquals("common-type-library", library.getLibraryName());
+		assertEquals("1.0.0", library.getVersion());
+		assertNull(library.getCategory());
+		assertEquals(1, library.getType().size());
+		assertEquals("ErrorMessage", library.getType().get(0).getXmlTypeName());
+		assertTrue(loaded.isUpToDate("common-type-library"));
+		assertTrue(loaded.isUpToDate("common-type-library", "1.0.0",
+				Collections.singleton(jar)));
+	}
+
+	@Test
+	public void testChangedLibraries() throws Exception {
+		final TypeRegistrySnapshot snapshot = new TypeRegistrySnapshot();
+		snapshot.addLibrary("common-type-library", "1.0.0", Collections
+				.singleton(jar), library("common-type-library"));
+		assertFalse(snapshot.isUpToDate("unknown-type-library"));
+		assertFalse(snapshot.isUpToDate("common-type-library", "1.0.1",
+				Collections.singleton(jar)));
+		assertFalse(snapshot.isUpToDate("common-type-library", "1.0.0", Arrays
+				.asList(jar, new File(dir, "other.jar"))));
+
+		FileUtils.writeStringToFile(jar, "changed jar");
+		assertFalse(snapshot.isUpToDate("common-type-library"));
+	}
+
+	@Test
+	public void testInvalidSnapshot() throws Exception {
+		assertNull(TypeRegistrySnapshot.load(snapshotFile));
+		FileUtils.writeStringToFile(snapshotFile, "corrupted");
+		assertNull(TypeRegistrySnapshot.load(snapshotFile));
+	}
+}
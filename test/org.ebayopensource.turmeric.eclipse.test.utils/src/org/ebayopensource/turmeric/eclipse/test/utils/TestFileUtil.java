@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.test.utils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Creates the temporary folders and jars used by the tests which run
+ * without a workspace.
+ */
+public class TestFileUtil {
+
+	/**
+	 * Creates a new empty temporary folder for the given test class. The
+	 * test is expected to delete it with {@link #deleteTempDir(File)}.
+	 *
+	 * @param testClass the test class, which names the folder
+	 * @return the temporary folder
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static File createTempDir(Class<?> testClass) throws IOException {
+		final File tmpDir = File.createTempFile(testClass.getSimpleName(), "");
+		// replaces the unique file by a folder of the same name
+		FileUtils.forceDelete(tmpDir);
+		FileUtils.forceMkdir(tmpDir);
+		return tmpDir;
+	}
+
+	/**
+	 * Deletes the given temporary folder with all of its content.
+	 *
+	 * @param tmpDir the temporary folder, may be null
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static void deleteTempDir(File tmpDir) throws IOException {
+		if (tmpDir != null && tmpDir.exists()) {
+			FileUtils.deleteDirectory(tmpDir);
+		}
+	}
+
+	/**
+	 * Creates a jar in the given folder.
+	 *
+	 * @param dir the folder
+	 * @param name the file name of the jar
+	 * @param entries the pairs of entry name and UTF-8 content
+	 * @return the jar file
+	 * @throws IOException Signals that an I/O exception has occurred.
+	 */
+	public static File createJar(File dir, String name, String... entries)
+			throws IOException {
+		if (entries.length % 2 != 0) {
+			throw new IllegalArgumentException(
+					"Entries must be pairs of name and content");
+		}
+		final File file = new File(dir, name);
+		final JarOutputStream out = new JarOutputStream(new FileOutputStream(
+				file));
+		try {
+			for (int i = 0; i < entries.length; i += 2) {
+				out.putNextEntry(new JarEntry(entries[i]));
+				out.write(entries[i + 1].getBytes("UTF-8"));
+				out.closeEntry();
+			}
+		} finally {
+			IOUtils.closeQuietly(out);
+		}
+		return file;
+	}
+}
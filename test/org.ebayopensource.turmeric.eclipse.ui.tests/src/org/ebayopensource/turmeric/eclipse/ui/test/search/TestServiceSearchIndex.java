@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.ui.test.search;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.ebayopensource.turmeric.eclipse.resources.model.IAssetInfo;
+import org.ebayopensource.turmeric.eclipse.resources.model.ProjectInfo;
+import org.ebayopensource.turmeric.eclipse.services.search.ServiceSearchIndex;
+import org.junit.Test;
+
+/**
+ * Test for {@link ServiceSearchIndex}.
+ */
+public class TestServiceSearchIndex {
+	private static final int SERVICE_COUNT = 2000;
+	private static final String[] LAYERS = { "COMMON", "INTERMEDIATE",
+			"BUSINESS" };
+	private static final String[] DOMAINS = { "Billing", "Blogs", "Shipping",
+			"Trading" };
+
+	private static ProjectInfo service(String name, String layer,
+			String domain, String namespacePart) {
+		final ProjectInfo result = new ProjectInfo(name, "1.0.0", "/" + name,
+				layer, IAssetInfo.TYPE_SERVICE_LIBRARY);
+		result.setInterfaceProjectName(name);
+		result.setServiceDomain(domain);
+		result.setServiceNamespacePart(namespacePart);
+		return result;
+	}
+
+	private static Set<String> names(List<ProjectInfo> services) {
+		final Set<String> result = new TreeSet<String>();
+		for (ProjectInfo service : services) {
+			result.add(service.getName());
+		}
+		return result;
+	}
+
+	private static Set<String> names(String... names) {
+		return new TreeSet<String>(Arrays.asList(names));
+	}
+
+	@Test
+	public void testSearch() {
+		final List<ProjectInfo> services = new ArrayList<ProjectInfo>();
+		services.add(service("BillingServiceV1", "BUSINESS", "Billing",
+				"billing"));
+		services.add(service("BillingAccountServiceV1", "COMMON", "Billing",
+				"billing"));
+		services.add(service("BlogsServiceV1", "BUSINESS", "Blogs", "blogs"));
+		services.add(service("ShippingServiceV2", "INTERMEDIATE", null, null));
+		final ServiceSearchIndex index = new ServiceSearchIndex(services);
+		assertEquals(4, index.size());
+
+		assertEquals(names("BillingServiceV1", "BillingAccountServiceV1"),
+				names(index.search("billing", null, null, null)));
+		assertEquals(names("BillingAccountServiceV1"), names(index.search(
+				"b*account", null, null, null)));
+		assertEquals(names("BillingServiceV1", "BlogsServiceV1"), names(index
+				.search("*servicev1", "BUSINESS", null, null)));
+		assertEquals(names("BlogsServiceV1"), names(index.search(null, null,
+				" BLOGS ", null)));
+		assertEquals(names("BillingServiceV1", "BillingAccountServiceV1"),
+				names(index.search("", "", "", "bill*")));
+		assertEquals(4, index.search(null, null, null, null).size());
+		assertTrue(index.search("shipping", null, "shipping", null).isEmpty());
+		assertTrue(index.search("unknown", null, null, null).isEmpty());
+		assertTrue(index.search(null, "UNKNOWN", null, null).isEmpty());
+	}
+
+	@Test
+	public void testUpdate() {
+		final ServiceSearchIndex index = new ServiceSearchIndex();
+		index.update(service("BillingServiceV1", "BUSINESS", "Billing",
+				"billing"));
+		assertEquals(1, index.search(null, null, "billing", null).size());
+
+		// a changed domain replaces the old postings
+		index.update(service("BillingServiceV1", "COMMON", "Payments",
+				"billing"));
+		assertEquals(1, index.size());
+		assertTrue(index.search(null, null, "billing", null).isEmpty());
+		assertTrue(index.search(null, "BUSINESS", null, null).isEmpty());
+		assertEquals(1, index.search(null, "COMMON", "pay", null).size());
+
+		assertTrue(index.contains("BillingServiceV1"));
+		assertTrue(index.remove("BillingServiceV1"));
+		assertFalse(index.remove("BillingServiceV1"));
+		assertFalse(index.contains("BillingServiceV1"));
+		assertTrue(index.search("billing", null, null, null).isEmpty());
+		assertTrue(index.search(null, null, null, null).isEmpty());
+	}
+
+	@Test
+	public void testLargeIndex() {
+		final List<ProjectInfo> services = new ArrayList<ProjectInfo>();
+		for (int i = 0; i < SERVICE_COUNT; i++) {
+			final String domain = DOMAINS[i % DOMAINS.length];
+			services.add(service(domain + "Service" + i + "V1", LAYERS[i
+					% LAYERS.length], domain, domain.toLowerCase() + i % 10));
+		}
+		final ServiceSearchIndex index = new ServiceSearchIndex(services);
+		assertEquals(SERVICE_COUNT, index.size());
+
+		// Trading is every fourth service, 3 to 1999
+		assertEquals(SERVICE_COUNT / DOMAINS.length, index.search(null, null,
+				"trading", null).size());
+		assertEquals(names("TradingService103V1", "TradingService1003V1",
+				"TradingService1023V1", "TradingService1043V1",
+				"TradingService1063V1", "TradingService1083V1"), names(index
+				.search("tradingservice10*3v", null, null, null)));
+		// every twelfth service, both the domain and the layer repeat
+		assertEquals(SERVICE_COUNT / 12 + 1, index.search(null, "COMMON",
+				"billing", null).size());
+		assertEquals(SERVICE_COUNT / 20, index.search("blogs", null, null,
+				"blogs1").size());
+		assertEquals(SERVICE_COUNT, index.search("*service", null, null, null)
+				.size());
+	}
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.ui.test.views;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.ebayopensource.turmeric.common.config.LibraryType;
+import org.ebayopensource.turmeric.eclipse.ui.views.registry.TypeSearchIndex;
+import org.junit.Test;
+
+/**
+ * Test for {@link TypeSearchIndex}.
+ */
+public class TestTypeSearchIndex {
+	private static final int TYPE_COUNT = 10000;
+	private static final String[] PREFIXES = { "Get", "Set", "Find", "Error",
+			"Item", "Account", "Address", "Order" };
+
+	private static LibraryType type(String name) {
+		final LibraryType result = new LibraryType();
+		result.setName(name);
+		return result;
+	}
+
+	private static List<LibraryType> types(String... names) {
+		final List<LibraryType> result = new ArrayList<LibraryType>();
+		for (String name : names) {
+			result.add(type(name));
+		}
+		return result;
+	}
+
+	private static List<String> names(List<LibraryType> types,
+			Set<LibraryType> matches) {
+		final List<String> result = new ArrayList<String>();
+		for (LibraryType type : types) {
+			if (matches.contains(type)) {
+				result.add(type.getName());
+			}
+		}
+		return result;
+	}
+
+	@Test
+	public void testSearch() {
+		final List<LibraryType> types = types("ErrorMessage", "ErrorData",
+				"ErrorParameter", "AckValue", "BaseResponse", "error", "Ab");
+		final TypeSearchIndex index = new TypeSearchIndex(types);
+		assertEquals(Arrays.asList("ErrorMessage", "ErrorData",
+				"ErrorParameter", "error"), names(types, index.search("err")));
+		assertEquals(Arrays.asList("ErrorMessage", "ErrorParameter"), names(
+				types, index.search("error*e")));
+		assertEquals(Arrays.asList("ErrorMessage"), names(types, index
+				.search("*ess")));
+		assertEquals(Arrays.asList("ErrorMessage", "BaseResponse"), names(
+				types, index.search("*es")));
+		assertEquals(Arrays.asList("ErrorData"), names(types, index
+				.search(" ERRORDATA ")));
+		assertEquals(Arrays.asList("AckValue", "Ab"), names(types, index
+				.search("a*")));
+		assertEquals(types.size(), index.search("").size());
+		assertTrue(index.search("unknown").isEmpty());
+		assertTrue(index.search("*xyz").isEmpty());
+	}
+
+	@Test
+	public void testIsIndexOf() {
+		final List<LibraryType> types = types("ErrorMessage", "ErrorData");
+		final TypeSearchIndex index = new TypeSearchIndex(types);
+		assertTrue(index.isIndexOf(new ArrayList<LibraryType>(types)));
+		assertFalse(index.isIndexOf(types("ErrorMessage", "ErrorData")));
+		types.add(type("AckValue"));
+		assertFalse(index.isIndexOf(types));
+	}
+
+	@Test
+	public void testLargeIndex() {
+		final List<LibraryType> types = new ArrayList<LibraryType>();
+		for (int i = 0; i < TYPE_COUNT; i++) {
+			types.add(type(PREFIXES[i % PREFIXES.length] + "Type" + i
+					+ "Request"));
+		}
+		final TypeSearchIndex index = new TypeSearchIndex(types);
+
+		assertEquals(14, index.search("errortype12*req").size());
+		assertEquals(1250, index.search("*address").size());
+	}
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.classloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.jar.JarFile;
+
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.eclipse.test.utils.TestFileUtil;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.JarFileCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link JarFileCache}.
+ */
+public class TestJarFileCache {
+	private static final String ENTRY = "META-INF/soa/entry.txt";
+
+	private File tmpDir;
+
+	@Before
+	public void setUp() throws IOException {
+		tmpDir = TestFileUtil.createTempDir(getClass());
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		TestFileUtil.deleteTempDir(tmpDir);
+	}
+
+	private File createJar(String name, String content) throws IOException {
+		return TestFileUtil.createJar(tmpDir, name, ENTRY, content);
+	}
+
+	private static String read(InputStream in) throws IOException {
+		try {
+			return IOUtils.toString(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testStreamsReleaseHandles() throws IOException {
+		final JarFileCache cache = new JarFileCache(4);
+		final File jar = createJar("a.jar", "a");
+		for (int i = 0; i < 100; i++) {
+			assertEquals("a", read(cache.getInputStream(jar, ENTRY)));
+		}
+		assertEquals(1, cache.getOpenFileCount());
+		assertEquals(0, cache.getAcquiredFileCount());
+		assertNull(cache.getInputStream(jar, "missing"));
+		assertEquals(0, cache.getAcquiredFileCount());
+		cache.close();
+		assertEquals(0, cache.getOpenFileCount());
+	}
+
+	@Test
+	public void testEvictionWaitsForRelease() throws IOException {
+		final JarFileCache cache = new JarFileCache(1);
+		final File jarA = createJar("a.jar", "a");
+		final File jarB = createJar("b.jar", "b");
+		final InputStream in = cache.getInputStream(jarA, ENTRY);
+		assertEquals("b", read(cache.getInputStream(jarB, ENTRY)));
+		// a.jar has been evicted but is still read
+		assertEquals(2, cache.getOpenFileCount());
+		assertEquals(1, cache.getAcquiredFileCount());
+		assertEquals("a", read(in));
+		assertEquals(1, cache.getOpenFileCount());
+		assertEquals(0, cache.getAcquiredFileCount());
+	}
+
+	@Test
+	public void testChangedJarIsReopened() throws IOException {
+		final JarFileCache cache = new JarFileCache();
+		final File jar = createJar("a.jar", "old");
+		final JarFile oldJar = cache.acquire(jar);
+		final JarFile sameJar = cache.acquire(jar);
+		assertSame(oldJar, sameJar);
+		cache.release(sameJar);
+		createJar("a.jar", "new content");
+		jar.setLastModified(jar.lastModified() + 2000);
+		final JarFile newJar = cache.acquire(jar);
+		assertNotSame(oldJar, newJar);
+		assertEquals(2, cache.getOpenFileCount());
+		cache.release(oldJar);
+		assertEquals(1, cache.getOpenFileCount());
+		cache.release(newJar);
+		assertEquals("new content", read(cache.getInputStream(jar, ENTRY)));
+		assertEquals(0, cache.getAcquiredFileCount());
+		cache.close();
+		assertEquals(0, cache.getOpenFileCount());
+	}
+
+	@Test
+	public void testInvalidateWaitsForRelease() throws IOException {
+		final JarFileCache cache = new JarFileCache();
+		final File jarA = createJar("a.jar", "a");
+		final File jarB = createJar("b.jar", "b");
+		final JarFile jarFile = cache.acquire(jarA);
+		assertEquals("b", read(cache.getInputStream(jarB, ENTRY)));
+		cache.invalidate(jarA);
+		// a.jar is not cached anymore but still in use
+		assertEquals(2, cache.getOpenFileCount());
+		assertEquals("a", read(jarFile.getInputStream(jarFile
+				.getJarEntry(ENTRY))));
+		cache.release(jarFile);
+		assertEquals(1, cache.getOpenFileCount());
+		cache.invalidateFolder(tmpDir);
+		assertEquals(0, cache.getOpenFileCount());
+		// the jar is opened again on demand
+		assertEquals("a", read(cache.getInputStream(jarA, ENTRY)));
+		cache.close();
+	}
+
+	@Test
+	public void testCloseIdle() throws IOException {
+		final JarFileCache cache = new JarFileCache();
+		final File jarA = createJar("a.jar", "a");
+		final File jarB = createJar("b.jar", "b");
+		final JarFile jarFile = cache.acquire(jarA);
+		assertEquals("b", read(cache.getInputStream(jarB, ENTRY)));
+		cache.closeIdle(JarFileCache.DEFAULT_MAX_IDLE_TIME);
+		assertEquals(2, cache.getOpenFileCount());
+		// only the handle which is not in use is closed
+		cache.closeIdle(0);
+		assertEquals(1, cache.getOpenFileCount());
+		cache.release(jarFile);
+		cache.closeIdle(0);
+		assertEquals(0, cache.getOpenFileCount());
+	}
+}
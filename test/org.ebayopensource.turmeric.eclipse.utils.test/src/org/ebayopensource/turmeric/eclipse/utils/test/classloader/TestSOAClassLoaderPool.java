@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.classloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.ebayopensource.turmeric.eclipse.test.utils.TestFileUtil;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAClassLoaderPool;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link SOAClassLoaderPool}.
+ */
+public class TestSOAClassLoaderPool {
+	private File tmpDir;
+	private URL jarA;
+	private URL jarB;
+	private URL jarC;
+
+	@Before
+	public void setUp() throws IOException {
+		tmpDir = TestFileUtil.createTempDir(getClass());
+		jarA = createFile("a.jar", 10);
+		jarB = createFile("b.jar", 20);
+		jarC = createFile("c.jar", 30);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		TestFileUtil.deleteTempDir(tmpDir);
+	}
+
+	/**
+	 * The content does not matter to the pool, only the size does.
+	 */
+	private URL createFile(String name, int size) throws IOException {
+		final File file = new File(tmpDir, name);
+		FileUtils.writeByteArrayToFile(file, new byte[size]);
+		return file.toURI().toURL();
+	}
+
+	@Test
+	public void testFingerprint() throws Exception {
+		final String fingerprint = SOAClassLoaderPool.fingerprint(Arrays
+				.asList(jarA, jarB));
+		assertEquals("fingerprint should not depend on the order", fingerprint,
+				SOAClassLoaderPool.fingerprint(Arrays.asList(jarB, jarA)));
+		assertFalse(fingerprint.equals(SOAClassLoaderPool.fingerprint(Arrays
+				.asList(jarA, jarB, jarC))));
+
+		final File file = FileUtils.toFile(jarA);
+		assertTrue(file.setLastModified(file.lastModified() - 10000));
+		assertFalse("fingerprint should change with the jar", fingerprint
+				.equals(SOAClassLoaderPool.fingerprint(Arrays.asList(jarA,
+						jarB))));
+
+		final File dir = new File(tmpDir, "bin");
+		final List<URL> urls = Arrays.asList(jarA, dir.toURI().toURL());
+		final String noDirFingerprint = SOAClassLoaderPool.fingerprint(urls);
+		FileUtils.forceMkdir(dir);
+		final String dirFingerprint = SOAClassLoaderPool.fingerprint(urls);
+		assertFalse("fingerprint should change once the folder exists",
+				noDirFingerprint.equals(dirFingerprint));
+		FileUtils.writeStringToFile(new File(dir, "pkg/Type.class"), "class");
+		assertEquals("folders are loaded lazily", dirFingerprint,
+				SOAClassLoaderPool.fingerprint(urls));
+	}
+
+	@Test
+	public void testAcquire() {
+		final SOAClassLoaderPool pool = new SOAClassLoaderPool(4, Long.MAX_VALUE);
+		final SOAPluginClassLoader loader = pool.acquire("project1", "test",
+				Arrays.asList(jarA, jarB));
+		pool.release(loader);
+		assertSame(loader, pool.acquire("project1", "test", Arrays.asList(
+				jarB, jarA)));
+		pool.release(loader);
+		// the projects with the same class path share the class loader
+		assertSame(loader, pool.acquire("project2", "test", Arrays.asList(
+				jarA, jarB)));
+		pool.release(loader);
+		assertEquals(2, pool.getHitCount());
+		assertEquals(1, pool.getMissCount());
+		assertEquals(1, pool.size());
+		assertEquals(30, pool.getTotalWeight());
+
+		assertNotSame(loader, pool.acquire("project1", "test", Arrays
+				.asList(jarA)));
+		assertEquals(2, pool.size());
+		assertEquals(40, pool.getTotalWeight());
+	}
+
+	@Test
+	public void testLease() throws Exception {
+		final SOAClassLoaderPool pool = new SOAClassLoaderPool(4, Long.MAX_VALUE);
+		final List<URL> urls = Arrays.asList(jarA);
+		final SOAPluginClassLoader loader = pool.acquire("project1", "test",
+				urls);
+		// the holding thread may acquire it again
+		assertSame(loader, pool.acquire("project1", "test", urls));
+		assertEquals(1, pool.getLeasedCount());
+
+		final SOAPluginClassLoader[] other = new SOAPluginClassLoader[1];
+		final Thread thread = new Thread() {
+			@Override
+			public void run() {
+				other[0] = pool.acquire("project2", "test", urls);
+				pool.release(other[0]);
+			}
+		};
+		thread.start();
+		thread.join();
+		assertNotSame("a leased class loader must not be shared", loader,
+				other[0]);
+		assertEquals(2, pool.size());
+
+		pool.release(loader);
+		assertEquals(1, pool.getLeasedCount());
+		pool.release(loader);
+		assertEquals(0, pool.getLeasedCount());
+		try {
+			pool.release(loader);
+			fail("released a class loader which is not leased");
+		} catch (IllegalStateException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testVariant() throws Exception {
+		final SOAClassLoaderPool pool = new SOAClassLoaderPool(4, Long.MAX_VALUE);
+		final List<URL> urls = Arrays.asList(jarA, jarB);
+		final SOAPluginClassLoader loader = pool.acquire("project1", "test",
+				urls);
+		pool.release(loader);
+		final List<URL> classPathURLs = Arrays.asList(jarA);
+		final SOAPluginClassLoader variant = pool.acquire("project1",
+				"variant", urls, classPathURLs, null);
+		pool.release(variant);
+		assertNotSame(loader, variant);
+		assertEquals(2, loader.getURLs().length);
+		assertEquals(1, variant.getURLs().length);
+		assertSame(variant, pool.acquire("project2", "variant", urls,
+				classPathURLs, null));
+		pool.release(variant);
+	}
+
+	@Test
+	public void testEviction() {
+		final SOAClassLoaderPool pool = new SOAClassLoaderPool(2, Long.MAX_VALUE);
+		final SOAPluginClassLoader loaderA = pool.acquire("a", "test", Arrays
+				.asList(jarA));
+		pool.release(loaderA);
+		pool.release(pool.acquire("b", "test", Arrays.asList(jarB)));
+		//touch A so that B becomes the eldest one
+		pool.release(pool.acquire("a", "test", Arrays.asList(jarA)));
+		pool.release(pool.acquire("c", "test", Arrays.asList(jarC)));
+		assertEquals(2, pool.size());
+		assertEquals(1, pool.getEvictionCount());
+		assertSame(loaderA, pool.acquire("a", "test", Arrays.asList(jarA)));
+		pool.release(loaderA);
+
+		final SOAClassLoaderPool smallPool = new SOAClassLoaderPool(10, 35);
+		smallPool.release(smallPool.acquire("a", "test", Arrays.asList(jarA)));
+		smallPool.release(smallPool.acquire("b", "test", Arrays.asList(jarB)));
+		smallPool.release(smallPool.acquire("c", "test", Arrays.asList(jarC)));
+		assertEquals(1, smallPool.size());
+		assertEquals(30, smallPool.getTotalWeight());
+
+		// leased class loaders are kept until they are released
+		final SOAClassLoaderPool leasedPool = new SOAClassLoaderPool(1,
+				Long.MAX_VALUE);
+		final SOAPluginClassLoader leased = leasedPool.acquire("a", "test",
+				Arrays.asList(jarA));
+		leasedPool.release(leasedPool.acquire("b", "test", Arrays.asList(jarB)));
+		assertEquals(1, leasedPool.size());
+		assertEquals(1, leasedPool.getEvictionCount());
+		assertSame(leased, leasedPool.acquire("a", "test", Arrays.asList(jarA)));
+		leasedPool.release(leased);
+		leasedPool.release(leased);
+	}
+
+	@Test
+	public void testInvalidate() {
+		final SOAClassLoaderPool pool = new SOAClassLoaderPool(4, Long.MAX_VALUE);
+		final SOAPluginClassLoader loader = pool.acquire("project1", "test",
+				Arrays.asList(jarA));
+		pool.release(pool.acquire("project2", "test", Arrays.asList(jarB)));
+		pool.invalidate("project1");
+		assertEquals(1, pool.size());
+		// the invalidated class loader is disposed once it is released
+		assertEquals(1, pool.getLeasedCount());
+		pool.release(loader);
+		assertEquals(0, pool.getLeasedCount());
+		final SOAPluginClassLoader other = pool.acquire("project1", "test",
+				Arrays.asList(jarA));
+		assertNotSame(loader, other);
+		pool.release(other);
+	}
+}
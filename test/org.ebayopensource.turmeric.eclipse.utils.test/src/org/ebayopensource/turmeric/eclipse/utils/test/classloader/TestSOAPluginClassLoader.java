@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.classloader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.eclipse.test.utils.TestFileUtil;
+import org.ebayopensource.turmeric.eclipse.utils.classloader.SOAPluginClassLoader;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the resource lookup of {@link SOAPluginClassLoader}.
+ */
+public class TestSOAPluginClassLoader {
+	private File tmpDir;
+	private SOAPluginClassLoader classLoader;
+
+	@Before
+	public void setUp() throws IOException {
+		tmpDir = TestFileUtil.createTempDir(getClass());
+		final URL jarA = createJar("a.jar", "META-INF/a.xml", "a",
+				"META-INF/common.xml", "from a");
+		final URL jarB = createJar("b.jar", "META-INF/b.xml", "b",
+				"META-INF/common.xml", "from b");
+		classLoader = new SOAPluginClassLoader("test", new URL[] { jarA, jarB });
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		classLoader.dispose();
+		TestFileUtil.deleteTempDir(tmpDir);
+	}
+
+	private URL createJar(String name, String... entries) throws IOException {
+		final String[] allEntries = new String[entries.length + 2];
+		// the folder entry is looked up as a resource too
+		allEntries[0] = "META-INF/";
+		allEntries[1] = "";
+		System.arraycopy(entries, 0, allEntries, 2, entries.length);
+		return TestFileUtil.createJar(tmpDir, name, allEntries).toURI().toURL();
+	}
+
+	private String read(URL url) throws IOException {
+		final InputStream in = url.openStream();
+		try {
+			return IOUtils.toString(in, "UTF-8");
+		} finally {
+			in.close();
+		}
+	}
+
+	@Test
+	public void testFindResource() throws IOException {
+		assertEquals("a", read(classLoader.findResource("META-INF/a.xml")));
+		assertEquals("b", read(classLoader.findResource("META-INF/b.xml")));
+		assertEquals("the first jar should win", "from a", read(classLoader
+				.findResource("META-INF/common.xml")));
+		assertNotNull(classLoader.findResource("META-INF"));
+		assertNull(classLoader.findResource("META-INF/missing.xml"));
+	}
+
+	@Test
+	public void testJarFileHandles() throws IOException {
+		for (int i = 0; i < 100; i++) {
+			assertNotNull(classLoader.findResource("META-INF/a.xml"));
+			assertNotNull(classLoader.findResource("META-INF/b.xml"));
+		}
+		assertEquals("jar handles should be shared", 2, classLoader
+				.getOpenJarFileCount());
+
+		final URL url = classLoader.findResource("META-INF/b.xml");
+		classLoader.dispose();
+		assertEquals(0, classLoader.getOpenJarFileCount());
+		assertEquals("urls should survive the disposal", "b", read(url));
+		assertTrue(classLoader.getOpenJarFileCount() <= 1);
+	}
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics;
+import org.ebayopensource.turmeric.eclipse.utils.core.BuildMetrics.PhaseMetrics;
+import org.junit.Test;
+
+/**
+ * Test for {@link BuildMetrics}.
+ */
+public class TestBuildMetrics {
+
+	@Test
+	public void testRecord() {
+		final BuildMetrics metrics = new BuildMetrics();
+		final long start = System.nanoTime() - 5000000;
+		metrics.record("B", BuildMetrics.PHASE_CODEGEN, start);
+		metrics.record("B", BuildMetrics.PHASE_CODEGEN, System.nanoTime());
+		metrics.record("A", BuildMetrics.PHASE_REFRESH, metrics.start());
+		metrics.record(null, BuildMetrics.PHASE_REFRESH, metrics.start());
+
+		final List<PhaseMetrics> result = metrics.getMetrics();
+		assertEquals(2, result.size());
+		assertEquals("A", result.get(0).getProjectName());
+		final PhaseMetrics codegen = result.get(1);
+		assertEquals(BuildMetrics.PHASE_CODEGEN, codegen.getPhase());
+		assertEquals(2, codegen.getCount());
+		assertTrue(codegen.getMaxTime() >= 5000000);
+		assertTrue(codegen.getMinTime() < codegen.getMaxTime());
+		assertEquals(codegen.getTotalTime() / 2, codegen.getAverageTime());
+
+		metrics.clear();
+		assertTrue(metrics.getMetrics().isEmpty());
+	}
+
+	@Test
+	public void testExport() {
+		final BuildMetrics metrics = new BuildMetrics();
+		assertEquals("[]\n", metrics.toJSON());
+		metrics.record("My,\"Project\"", BuildMetrics.PHASE_BUILD, metrics
+				.start());
+		final String[] lines = metrics.toCSV().split("\n");
+		assertEquals(2, lines.length);
+		assertEquals("project,phase,count,total,average,min,max,last",
+				lines[0]);
+		assertTrue(lines[1], lines[1]
+				.startsWith("\"My,\"\"Project\"\"\",build,1,"));
+		assertTrue(metrics.toJSON(), metrics.toJSON().startsWith(
+				"[\n  {\"project\": \"My,\\\"Project\\\"\", \"phase\": \"build\", \"count\": 1, \"total\": "));
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.ebayopensource.turmeric.eclipse.utils.core.DependencyTaskExecutor;
+import org.junit.Test;
+
+/**
+ * Test for {@link DependencyTaskExecutor}.
+ */
+public class TestDependencyTaskExecutor {
+
+	private static Map<String, Collection<String>> graph(String... edges) {
+		final Map<String, Collection<String>> result = new LinkedHashMap<String, Collection<String>>();
+		for (String edge : edges) {
+			final String[] keys = edge.split("->");
+			final List<String> dependencies = new ArrayList<String>();
+			if (keys.length > 1) {
+				dependencies.addAll(Arrays.asList(keys[1].split(",")));
+			}
+			result.put(keys[0], dependencies);
+		}
+		return result;
+	}
+
+	@Test
+	public void testDependencyOrder() throws Exception {
+		final List<String> order = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Map<String, Throwable> failures = new DependencyTaskExecutor<String>(
+				4, "test").execute(graph("impl->intf,tl2", "intf->tl1,tl2",
+				"tl2->tl1,external", "tl1", "consumer->intf"),
+				new DependencyTaskExecutor.Task<String>() {
+					public void execute(String key) throws Exception {
+						order.add(key);
+					}
+				});
+		assertTrue(failures.isEmpty());
+		assertEquals(5, order.size());
+		assertTrue(order.indexOf("tl1") < order.indexOf("tl2"));
+		assertTrue(order.indexOf("tl2") < order.indexOf("intf"));
+		assertTrue(order.indexOf("intf") < order.indexOf("impl"));
+		assertTrue(order.indexOf("intf") < order.indexOf("consumer"));
+	}
+
+	@Test
+	public void testIndependentTasksRunConcurrently() throws Exception {
+		final CountDownLatch latch = new CountDownLatch(3);
+		final Map<String, Throwable> failures = new DependencyTaskExecutor<String>(
+				3, "test").execute(graph("a", "b", "c"),
+				new DependencyTaskExecutor.Task<String>() {
+					public void execute(String key) throws Exception {
+						latch.countDown();
+						// would time out if the tasks were executed serially
+						if (!latch.await(10, TimeUnit.SECONDS)) {
+							throw new IllegalStateException("not concurrent");
+						}
+					}
+				});
+		assertTrue(failures.toString(), failures.isEmpty());
+	}
+
+	@Test
+	public void testFailuresAndCycles() throws Exception {
+		final List<String> order = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Map<String, Throwable> failures = new DependencyTaskExecutor<String>(
+				2, "test").execute(graph("a->b", "b->a", "c->a", "d"),
+				new DependencyTaskExecutor.Task<String>() {
+					public void execute(String key) throws Exception {
+						order.add(key);
+						if ("d".equals(key)) {
+							throw new IllegalArgumentException(key);
+						}
+					}
+				});
+		assertEquals("every task should run despite the cycle", 4, order
+				.size());
+		assertTrue(order.indexOf("a") < order.indexOf("c"));
+		assertEquals(1, failures.size());
+		assertTrue(failures.get("d") instanceof IllegalArgumentException);
+	}
+
+	@Test
+	public void testDependentsOfFailedTaskAreSkipped() throws Exception {
+		final List<String> order = Collections
+				.synchronizedList(new ArrayList<String>());
+		final Map<String, Throwable> failures = new DependencyTaskExecutor<String>(
+				2, "test").execute(graph("impl->intf", "intf->tl1,tl2", "tl1",
+				"tl2", "consumer->intf", "other->tl2"),
+				new DependencyTaskExecutor.Task<String>() {
+					public void execute(String key) throws Exception {
+						order.add(key);
+						if ("tl1".equals(key)) {
+							throw new IllegalArgumentException(key);
+						}
+					}
+				});
+		assertEquals(3, order.size());
+		assertTrue(order.containsAll(Arrays.asList("tl1", "tl2", "other")));
+		assertEquals(4, failures.size());
+		assertTrue(failures.get("tl1") instanceof IllegalArgumentException);
+		for (String key : Arrays.asList("intf", "impl", "consumer")) {
+			final Throwable failure = failures.get(key);
+			assertTrue(key, failure instanceof DependencyTaskExecutor.DependencyFailure);
+			assertEquals("tl1", ((DependencyTaskExecutor.DependencyFailure) failure)
+					.getDependency());
+		}
+	}
+}
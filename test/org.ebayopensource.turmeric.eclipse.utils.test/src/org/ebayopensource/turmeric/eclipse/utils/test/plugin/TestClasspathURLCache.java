@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.ebayopensource.turmeric.eclipse.utils.collections.ListUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.ClasspathURLCache;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.JDTUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link ClasspathURLCache} with a consumer project requiring a chain
+ * of library projects.
+ */
+public class TestClasspathURLCache {
+	private static final int PROJECT_COUNT = 5;
+	private static final int RESOLVE_COUNT = 50;
+
+	private final IProgressMonitor monitor = new NullProgressMonitor();
+	private final List<IProject> projects = new ArrayList<IProject>();
+	private final ClasspathURLCache cache = ClasspathURLCache.getDefault();
+
+	@Before
+	public void setUp() throws Exception {
+		cache.clear();
+		IProject required = null;
+		for (int i = 0; i < PROJECT_COUNT; i++) {
+			final IProject project = WorkspaceUtil.createProject(
+					TestClasspathURLCache.class.getSimpleName() + i,
+					ResourcesPlugin.getWorkspace().getRoot().getLocation(),
+					monitor);
+			JDTUtil.addJavaSupport(project, ListUtil.arrayList("src"), "1.6",
+					"bin", monitor);
+			addEntry(project, JavaCore.newLibraryEntry(new Path(new File(
+					project.getLocation().toFile(), "lib" + i + ".jar")
+					.getAbsolutePath()), null, null));
+			if (required != null) {
+				addEntry(project, JavaCore.newProjectEntry(required
+						.getFullPath()));
+			}
+			projects.add(project);
+			required = project;
+		}
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (IProject project : projects) {
+			project.delete(true, monitor);
+		}
+		cache.clear();
+	}
+
+	private void addEntry(IProject project, IClasspathEntry entry)
+			throws Exception {
+		final IJavaProject javaProject = JavaCore.create(project);
+		final List<IClasspathEntry> entries = ListUtil.array(javaProject
+				.getRawClasspath());
+		entries.add(entry);
+		javaProject.setRawClasspath(entries.toArray(new IClasspathEntry[0]),
+				monitor);
+	}
+
+	private IProject getConsumer() {
+		return projects.get(PROJECT_COUNT - 1);
+	}
+
+	@Test
+	public void testRepeatedResolution() throws Exception {
+		// the counters of the shared cache are not reset
+		final long hitCount = cache.getHitCount();
+		final long missCount = cache.getMissCount();
+		final Set<URL> urls = JDTUtil.resolveClasspathToURLs(getConsumer());
+		assertEquals(missCount + 1, cache.getMissCount());
+		for (int i = 0; i < PROJECT_COUNT; i++) {
+			assertTrue(urls.toString(), urls.contains(new File(projects.get(i)
+					.getLocation().toFile(), "lib" + i + ".jar").toURI().toURL()));
+		}
+
+		for (int i = 0; i < RESOLVE_COUNT; i++) {
+			assertEquals(urls, JDTUtil.resolveClasspathToURLs(getConsumer()));
+		}
+		assertEquals(hitCount + RESOLVE_COUNT, cache.getHitCount());
+		assertEquals(missCount + 1, cache.getMissCount());
+
+		// the result belongs to the caller
+		JDTUtil.resolveClasspathToURLs(getConsumer()).clear();
+		assertEquals(urls, JDTUtil.resolveClasspathToURLs(getConsumer()));
+	}
+
+	@Test
+	public void testRequiredProjectChanged() throws Exception {
+		final IProject first = projects.get(0);
+		final IProject second = projects.get(1);
+		JDTUtil.resolveClasspathToURLs(getConsumer());
+		JDTUtil.resolveClasspathToURLs(second);
+		JDTUtil.resolveClasspathToURLs(first);
+		assertEquals(3, cache.size());
+
+		// a change of a project invalidates every project requiring it
+		final long invalidationCount = cache.getInvalidationCount();
+		final File extraJar = new File(second.getLocation().toFile(), "extra.jar");
+		final URL extraURL = extraJar.toURI().toURL();
+		addEntry(second, JavaCore.newLibraryEntry(new Path(extraJar
+				.getAbsolutePath()), null, null));
+		assertEquals(1, cache.size());
+		assertEquals(invalidationCount + 2, cache.getInvalidationCount());
+
+		final long missCount = cache.getMissCount();
+		assertTrue(JDTUtil.resolveClasspathToURLs(getConsumer()).contains(
+				extraURL));
+		assertFalse(JDTUtil.resolveClasspathToURLs(first).contains(extraURL));
+		assertEquals(missCount + 1, cache.getMissCount());
+
+		// as does closing one
+		first.close(monitor);
+		assertEquals(0, cache.size());
+	}
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.plugin;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.ebayopensource.turmeric.eclipse.utils.collections.ListUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.ProjectNatureIndex;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.ProjectUtil;
+import org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IProjectDescription;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Test for {@link ProjectNatureIndex}, which has to agree with the natures in
+ * the project descriptions while projects are randomly created, deleted,
+ * opened, closed and changed.
+ */
+public class TestProjectNatureIndex {
+	private static final String PROJECT_PREFIX = TestProjectNatureIndex.class
+			.getSimpleName();
+	private static final String[] NATURE_IDS = { "test.nature.service",
+			"test.nature.typelibrary", "test.nature.errorlibrary" };
+	private static final int PROJECT_COUNT = 20;
+	private static final int STEP_COUNT = 300;
+
+	private final IProgressMonitor monitor = new NullProgressMonitor();
+	private final Random random = new Random(20101018L);
+
+	@After
+	public void tearDown() throws Exception {
+		for (int i = 0; i < PROJECT_COUNT; i++) {
+			getProject(i).delete(true, monitor);
+		}
+	}
+
+	private static IProject getProject(int index) {
+		return WorkspaceUtil.getProject(PROJECT_PREFIX + index);
+	}
+
+	private String[] randomNatureIds() {
+		final List<String> natureIds = new ArrayList<String>();
+		for (String natureId : NATURE_IDS) {
+			if (random.nextBoolean()) {
+				natureIds.add(natureId);
+			}
+		}
+		return natureIds.toArray(new String[0]);
+	}
+
+	private void setNatureIds(IProject project, String... natureIds)
+			throws CoreException {
+		final IProjectDescription description = project.getDescription();
+		description.setNatureIds(natureIds);
+		// the test natures are not installed, so they are not configured
+		project.setDescription(description, IResource.AVOID_NATURE_CONFIG,
+				monitor);
+	}
+
+	/**
+	 * Applies a random change to a random project.
+	 */
+	private void churn() throws CoreException {
+		final IProject project = getProject(random.nextInt(PROJECT_COUNT));
+		switch (random.nextInt(5)) {
+		case 0:
+			if (project.exists() == false) {
+				WorkspaceUtil.createProject(project.getName(), null, monitor);
+				setNatureIds(project, randomNatureIds());
+			}
+			break;
+		case 1:
+			project.delete(true, monitor);
+			break;
+		case 2:
+			if (project.exists()) {
+				project.close(monitor);
+			}
+			break;
+		case 3:
+			if (project.exists()) {
+				project.open(monitor);
+			}
+			break;
+		default:
+			if (project.isOpen()) {
+				setNatureIds(project, randomNatureIds());
+			}
+		}
+	}
+
+	/**
+	 * Reads the natures of every project, the way the index is meant to
+	 * answer.
+	 */
+	private static List<IProject> getProjectsByDescription(String natureId)
+			throws CoreException {
+		final List<IProject> result = new ArrayList<IProject>();
+		for (IProject project : WorkspaceUtil.getAllProjectsInWorkSpace()) {
+			if (project.isOpen()
+					&& project.isAccessible()
+					&& ListUtil.array(project.getDescription().getNatureIds())
+							.contains(natureId)) {
+				result.add(project);
+			}
+		}
+		return result;
+	}
+
+	private static void assertConsistent(String message, String natureId)
+			throws CoreException {
+		assertEquals(message + " " + natureId, new HashSet<IProject>(
+				getProjectsByDescription(natureId)), new HashSet<IProject>(
+				WorkspaceUtil.getProjectsByNature(natureId)));
+	}
+
+	private static void assertConsistent(String message) throws CoreException {
+		for (String natureId : NATURE_IDS) {
+			assertConsistent(message, natureId);
+		}
+	}
+
+	@Test
+	public void testRandomChurn() throws Exception {
+		assertConsistent("initial");
+		for (int i = 0; i < STEP_COUNT; i++) {
+			churn();
+			assertConsistent("step " + i);
+		}
+	}
+
+	@Test
+	public void testBatchedChurn() throws Exception {
+		assertConsistent("initial");
+		for (int i = 0; i < STEP_COUNT / 10; i++) {
+			// a single resource change event for all the changes
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				@Override
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (int j = 0; j < 10; j++) {
+						churn();
+					}
+				}
+			}, monitor);
+			assertConsistent("batch " + i);
+		}
+	}
+
+	@Test
+	public void testNatureHelpersWithinOperation() throws Exception {
+		final IProject project = getProject(0);
+		WorkspaceUtil.createProject(project.getName(), null, monitor);
+		assertConsistent("initial", JavaCore.NATURE_ID);
+		// the resource change event is only sent when the operation ends
+		ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+			@Override
+			public void run(IProgressMonitor monitor) throws CoreException {
+				ProjectUtil.addNature(project, monitor, JavaCore.NATURE_ID);
+				assertConsistent("added", JavaCore.NATURE_ID);
+				ProjectUtil.removeNatures(project, monitor, JavaCore.NATURE_ID);
+				assertConsistent("removed", JavaCore.NATURE_ID);
+			}
+		}, monitor);
+		assertConsistent("after", JavaCore.NATURE_ID);
+	}
+}
@@ -16,6 +16,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.ebayopensource.turmeric.eclipse.exception.core.SOANullParameterException;
 import org.ebayopensource.turmeric.eclipse.exception.resources.SOAResourceNotAccessibleException;
@@ -27,6 +28,10 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IProjectDescription;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -227,6 +232,86 @@ public class TestWorkspaceUtil {
 		WorkspaceUtil.refresh(res, ProgressUtil.getDefaultMonitor(null));
 	}
 
+	/**
+	 * Test method for {@link org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil#getRefreshRoots(java.util.Collection)}.
+	 */
+	@Test
+	public void testGetRefreshRoots() {
+		Assert.assertEquals(Arrays.asList("gen-meta-src", "gen-src",
+				"gen-src-test"), WorkspaceUtil.getRefreshRoots(Arrays.asList(
+				"gen-src/client", "gen-src", "/gen-meta-src/", "gen-src-test",
+				"gen-src\\service", null)));
+		Assert.assertEquals(Arrays.asList(""), WorkspaceUtil
+				.getRefreshRoots(Arrays.asList("meta-src", "")));
+		Assert.assertTrue(WorkspaceUtil.getRefreshRoots(
+				new ArrayList<String>()).isEmpty());
+	}
+
+	/**
+	 * Counts the resources added to the workspace by refreshing the
+	 * generated folders only, compared with refreshing the whole project.
+	 * Test method for {@link org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil#refreshFolders(IProject, IProgressMonitor, java.util.Collection)}.
+	 * @throws Exception 
+	 */
+	@Test
+	public void testRefreshFolders() throws Exception {
+		final IProgressMonitor monitor = new NullProgressMonitor();
+		WorkspaceUtil.createFolders(project, ListUtil.arrayList("gen-src"),
+				monitor);
+		final File projectDir = project.getLocation().toFile();
+		// written by codegen
+		writeFiles(new File(projectDir, "gen-src/client"), 10);
+		// build output nobody needs to see in the workspace
+		writeFiles(new File(projectDir, "target/classes"), 500);
+
+		final int[] addedResources = new int[] { 0 };
+		final IResourceChangeListener listener = new IResourceChangeListener() {
+			@Override
+			public void resourceChanged(IResourceChangeEvent event) {
+				try {
+					event.getDelta().accept(new IResourceDeltaVisitor() {
+						@Override
+						public boolean visit(IResourceDelta delta) {
+							if (delta.getKind() == IResourceDelta.ADDED) {
+								addedResources[0]++;
+							}
+							return true;
+						}
+					});
+				} catch (CoreException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(listener,
+				IResourceChangeEvent.POST_CHANGE);
+		try {
+			WorkspaceUtil.refreshFolders(project, monitor, Arrays.asList(
+					"gen-src", "gen-meta-src"));
+			final int scoped = addedResources[0];
+			// gen-src/client and its files
+			Assert.assertEquals(11, scoped);
+			Assert.assertTrue(project.getFile("gen-src/client/File0.java")
+					.exists());
+			Assert.assertFalse(project.getFolder("target").exists());
+
+			addedResources[0] = 0;
+			project.refreshLocal(IResource.DEPTH_INFINITE, monitor);
+			// target, target/classes and its files
+			Assert.assertEquals(502, addedResources[0]);
+		} finally {
+			ResourcesPlugin.getWorkspace().removeResourceChangeListener(
+					listener);
+		}
+	}
+
+	private static void writeFiles(File folder, int count) throws IOException {
+		for (int i = 0; i < count; i++) {
+			FileUtils.writeStringToFile(new File(folder, "File" + i + ".java"),
+					"class File" + i + " {}");
+		}
+	}
+
 	/**
 	 * Test method for {@link org.ebayopensource.turmeric.eclipse.utils.plugin.WorkspaceUtil#getLocation(org.eclipse.core.runtime.IPath)}.
 	 */
@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright (c) 2006-2010 eBay Inc. All Rights Reserved.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *******************************************************************************/
+package org.ebayopensource.turmeric.eclipse.utils.test.wsdl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.wsdl.Definition;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.ebayopensource.turmeric.eclipse.utils.wsdl.WSDLDefinitionCache;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for {@link WSDLDefinitionCache}.
+ */
+public class TestWSDLDefinitionCache {
+	private static final String JAR_ENTRY = "META-INF/soa/services/wsdl/Calc/Calc.wsdl";
+
+	private File dir;
+	private File wsdlFile;
+	private WSDLDefinitionCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		dir = File.createTempFile("wsdlcache", "");
+		dir.delete();
+		dir.mkdirs();
+		wsdlFile = new File(dir, "Calc.wsdl");
+		FileUtils.copyURLToFile(TestWSDLUtil.class.getResource("Calc.wsdl"),
+				wsdlFile);
+		cache = new WSDLDefinitionCache(2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		FileUtils.deleteQuietly(dir);
+	}
+
+	@Test
+	public void testFileDefinitions() throws Exception {
+		final Definition wsdl = cache.getDefinition(wsdlFile.getPath());
+		assertNotNull(wsdl);
+		assertSame(wsdl, cache.getDefinition(wsdlFile.getPath()));
+		assertSame(wsdl, cache.getDefinition(wsdlFile.toURI().toString()));
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+
+		// a modified file is parsed again
+		FileUtils.writeStringToFile(wsdlFile, FileUtils
+				.readFileToString(wsdlFile)
+				+ "\n");
+		wsdlFile.setLastModified(wsdlFile.lastModified() + 2000);
+		final Definition modified = cache.getDefinition(wsdlFile.getPath());
+		assertNotSame(wsdl, modified);
+		assertEquals(2, cache.getMissCount());
+
+		cache.invalidate(wsdlFile);
+		assertEquals(0, cache.size());
+		assertNotSame(modified, cache.getDefinition(wsdlFile.getPath()));
+	}
+
+	@Test
+	public void testJarDefinitions() throws Exception {
+		final File jar = new File(dir, "CalcService.jar");
+		final JarOutputStream out = new JarOutputStream(new FileOutputStream(
+				jar));
+		final InputStream in = TestWSDLUtil.class
+				.getResourceAsStream("Calc.wsdl");
+		try {
+			out.putNextEntry(new JarEntry(JAR_ENTRY));
+			IOUtils.copy(in, out);
+			out.closeEntry();
+		} finally {
+			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(out);
+		}
+		final Definition wsdl = cache.getDefinition(jar, JAR_ENTRY);
+		assertNotNull(wsdl);
+		assertSame(wsdl, cache.getDefinition(jar, JAR_ENTRY));
+		assertNull(cache.getDefinition(jar, "META-INF/missing.wsdl"));
+
+		cache.invalidate(jar);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testBoundedSize() throws Exception {
+		final File folder = new File(dir, "copies");
+		for (int i = 0; i < 3; i++) {
+			final File copy = new File(folder, "Calc" + i + ".wsdl");
+			FileUtils.copyFile(wsdlFile, copy);
+			cache.getDefinition(copy.getPath());
+		}
+		assertEquals(2, cache.size());
+		cache.getDefinition(wsdlFile.getPath());
+		cache.invalidateFolder(folder);
+		assertEquals(1, cache.size());
+	}
+}
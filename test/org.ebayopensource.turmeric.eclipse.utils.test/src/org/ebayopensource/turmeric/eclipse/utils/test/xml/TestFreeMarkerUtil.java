@@ -11,7 +11,8 @@ package org.ebayopensource.turmeric.eclipse.utils.test.xml;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.net.URL;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -21,6 +22,7 @@ import org.ebayopensource.turmeric.eclipse.utils.xml.FreeMarkerUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
+import freemarker.template.Configuration;
 import freemarker.template.TemplateException;
 
 /**
@@ -60,4 +62,36 @@ public class TestFreeMarkerUtil {
 		
 	}
 
+	/**
+	 * The configuration and the parsed template are shared between calls.
+	 * @throws TemplateException 
+	 * @throws IOException 
+	 */
+	@Test
+	public void testGenerateReusesConfiguration() throws IOException, TemplateException {
+		Map<String, String> data = new ConcurrentHashMap<String, String>();
+		data.put("serviceName", "NikonLensService");
+		String templateFileName = "geronimo-web.xml.ftl";
+		URL templateParentFolder = TestFreeMarkerUtil.class.getResource(templateFileName);
+		Assert.assertNotNull(templateParentFolder);
+		String expected = IOUtils.toString(TestFreeMarkerUtil.class.getResourceAsStream("geronimo-web.xml"));
+
+		FreeMarkerUtil.clearConfigurations();
+		Configuration cfg = FreeMarkerUtil.getConfiguration(templateParentFolder);
+		for (int i = 0; i < 10; i++) {
+			StringWriter writer = new StringWriter();
+			// an equal url shares the configuration
+			FreeMarkerUtil.generate(data, new URL(templateParentFolder.toExternalForm()), 
+					templateFileName, writer);
+			Assert.assertEquals(expected, writer.toString());
+		}
+		Assert.assertSame(cfg, FreeMarkerUtil.getConfiguration(templateParentFolder));
+
+		FreeMarkerUtil.clearConfigurations();
+		StringWriter writer = new StringWriter();
+		FreeMarkerUtil.generate(data, templateParentFolder, templateFileName, writer);
+		Assert.assertEquals(expected, writer.toString());
+		Assert.assertNotSame(cfg, FreeMarkerUtil.getConfiguration(templateParentFolder));
+	}
+
 }